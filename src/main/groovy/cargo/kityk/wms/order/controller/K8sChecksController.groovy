@@ -1,7 +1,10 @@
 package cargo.kityk.wms.order.controller
 
 import cargo.kityk.wms.order.repository.CustomerRepository
+import cargo.kityk.wms.order.service.client.AdaptiveConcurrencyLimiter
+import cargo.kityk.wms.order.service.client.ResilientInventoryClient
 import groovy.transform.CompileStatic
+import io.github.resilience4j.circuitbreaker.CircuitBreaker
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.dao.DataAccessException
 import org.springframework.http.HttpStatus
@@ -29,6 +32,9 @@ class K8sChecksController {
     @Autowired
     private CustomerRepository customerRepository
 
+    @Autowired
+    private ResilientInventoryClient resilientInventoryClient
+
     @GetMapping(value = "/liveness", produces = MediaType.APPLICATION_JSON_VALUE)
     @Operation(
         summary = "Liveness probe",
@@ -158,6 +164,9 @@ class K8sChecksController {
         Map<String, Object> dbConnectionStatus = checkDatabaseConnection()
         components.put('database', dbConnectionStatus)
         
+        // Reported for visibility only: orders can still be read, and accepted asynchronously, while inventory is down
+        components.put('inventory', checkInventoryCircuit())
+        
         if (dbConnectionStatus.get('status') == 'DOWN') {
             status.put('status', 'DOWN')
             return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(status)
@@ -201,6 +210,25 @@ class K8sChecksController {
         }
     }
     
+    private Map<String, Object> checkInventoryCircuit() {
+        CircuitBreaker circuitBreaker = resilientInventoryClient.circuitBreaker
+        AdaptiveConcurrencyLimiter concurrencyLimiter = resilientInventoryClient.concurrencyLimiter
+        CircuitBreaker.State state = circuitBreaker.state
+        String status = state == CircuitBreaker.State.CLOSED ? 'UP' : state == CircuitBreaker.State.HALF_OPEN ? 'DEGRADED' : 'DOWN'
+        
+        CircuitBreaker.Metrics metrics = circuitBreaker.metrics
+        Map<String, Object> details = [
+            circuitBreaker: state.name(),
+            failureRate: metrics.failureRate,
+            slowCallRate: metrics.slowCallRate,
+            bufferedCalls: metrics.numberOfBufferedCalls,
+            notPermittedCalls: metrics.numberOfNotPermittedCalls,
+            concurrencyLimit: concurrencyLimiter.limit,
+            inFlightCalls: concurrencyLimiter.inFlight
+        ] as Map<String, Object>
+        return [status: status, details: details] as Map<String, Object>
+    }
+    
     private boolean isDatabaseAvailable() {
         try {
             Map<String, Object> connectionStatus = checkDatabaseConnection()
@@ -1,11 +1,21 @@
 package cargo.kityk.wms.order.controller
 
 import cargo.kityk.wms.order.dto.*
+import cargo.kityk.wms.order.dto.view.OrderView
+import cargo.kityk.wms.order.dto.view.OrderViewPage
 import cargo.kityk.wms.order.exception.CommonErrorFormat
+import cargo.kityk.wms.order.service.BulkOrderService
+import cargo.kityk.wms.order.service.OrderIdempotencyService
+import cargo.kityk.wms.order.service.OrderIntakeService
+import cargo.kityk.wms.order.service.OrderQueryService
 import cargo.kityk.wms.order.service.OrderService
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.SequenceWriter
+import com.fasterxml.jackson.databind.SerializationFeature
 import groovy.transform.CompileStatic
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.http.HttpStatus
+import org.springframework.http.MediaType
 import org.springframework.http.ResponseEntity
 import org.springframework.web.bind.annotation.RestController
 import org.springframework.web.bind.annotation.RequestMapping
@@ -15,9 +25,13 @@ import org.springframework.web.bind.annotation.PutMapping
 import org.springframework.web.bind.annotation.DeleteMapping
 import org.springframework.web.bind.annotation.RequestBody
 import org.springframework.web.bind.annotation.PathVariable
+import org.springframework.web.bind.annotation.RequestParam
+import org.springframework.web.bind.annotation.RequestHeader
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody
 
 import io.swagger.v3.oas.annotations.Operation
 import io.swagger.v3.oas.annotations.Parameter
+import io.swagger.v3.oas.annotations.headers.Header
 import io.swagger.v3.oas.annotations.media.Content
 import io.swagger.v3.oas.annotations.media.Schema
 import io.swagger.v3.oas.annotations.responses.ApiResponse
@@ -26,6 +40,7 @@ import io.swagger.v3.oas.annotations.tags.Tag
 import jakarta.validation.Valid
 import java.time.LocalDateTime
 import java.time.ZonedDateTime
+import java.util.function.Consumer
 
 @CompileStatic
 @RestController
@@ -33,18 +48,39 @@ import java.time.ZonedDateTime
 @Tag(name = "Order Management", description = "APIs for managing customer orders")
 class OrderController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor"
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key"
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed"
+
     @Autowired
     private OrderService orderService
 
+    @Autowired
+    private OrderQueryService orderQueryService
+
+    @Autowired
+    private BulkOrderService bulkOrderService
+
+    @Autowired
+    private OrderIdempotencyService orderIdempotencyService
+
+    @Autowired
+    private OrderIntakeService orderIntakeService
+
+    @Autowired
+    private ObjectMapper objectMapper
+
     @PostMapping
     @Operation(
         summary = "Create a new order",
-        description = "Creates a new order with the specified items",
+        description = "Creates a new order with the specified items. When an Idempotency-Key header is sent, " +
+            "retrying the request with the same key returns the original response instead of creating another order.",
         responses = [
             @ApiResponse(
                 responseCode = "201", 
-                description = "Order created successfully",
-                content = @Content(schema = @Schema(implementation = OrderDTO.class))
+                description = "Order created successfully, or the original response replayed",
+                content = @Content(schema = @Schema(implementation = OrderDTO.class)),
+                headers = @Header(name = "Idempotent-Replayed", description = "true when the response was replayed for a known Idempotency-Key")
             ),
             @ApiResponse(
                 responseCode = "400", 
@@ -55,25 +91,130 @@ class OrderController {
                 responseCode = "404", 
                 description = "Product not found",
                 content = @Content(schema = @Schema(implementation = CommonErrorFormat.class))
+            ),
+            @ApiResponse(
+                responseCode = "422", 
+                description = "Idempotency-Key already used for a different request",
+                content = @Content(schema = @Schema(implementation = CommonErrorFormat.class))
             )
         ]
     )
     ResponseEntity<OrderDTO> createOrder(
+        @Parameter(description = "Client-generated key that identifies this order across retries, at most 255 characters")
+        @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
         @Valid @RequestBody(required = true) OrderCreateDTO orderCreateDTO
     ) {
-        OrderDTO createdOrder = orderService.createOrder(orderCreateDTO)
-        return new ResponseEntity<>(createdOrder, HttpStatus.CREATED)
+        if (idempotencyKey == null) {
+            OrderDTO createdOrder = orderService.createOrder(orderCreateDTO)
+            return new ResponseEntity<>(createdOrder, HttpStatus.CREATED)
+        }
+        OrderIdempotencyService.Result result = orderIdempotencyService.createOrder(idempotencyKey, orderCreateDTO)
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(result.status())
+        if (result.replayed()) {
+            response.header(IDEMPOTENT_REPLAYED_HEADER, "true")
+        }
+        return response.body(result.order())
+    }
+
+    @PostMapping(params = "mode=async")
+    @Operation(
+        summary = "Accept a new order for asynchronous creation",
+        description = "Validates and durably stores the order request, and returns immediately. The order is " +
+            "created in the background; poll the returned handle (see the Location header) for the outcome.",
+        responses = [
+            @ApiResponse(
+                responseCode = "202", 
+                description = "Order request accepted",
+                content = @Content(schema = @Schema(implementation = OrderIntakeDTO.class)),
+                headers = @Header(name = "Location", description = "URL to poll for the outcome")
+            ),
+            @ApiResponse(
+                responseCode = "400", 
+                description = "Invalid order data",
+                content = @Content(schema = @Schema(implementation = CommonErrorFormat.class))
+            )
+        ]
+    )
+    ResponseEntity<OrderIntakeDTO> acceptOrder(
+        @Parameter(description = "async to create the order in the background")
+        @RequestParam(name = "mode") String mode,
+        @Valid @RequestBody(required = true) OrderCreateDTO orderCreateDTO
+    ) {
+        OrderIntakeDTO intake = orderIntakeService.accept(orderCreateDTO)
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/v1/orders/intake/" + intake.handle))
+            .body(intake)
+    }
+
+    @GetMapping("/intake/{handle}")
+    @Operation(
+        summary = "Get the outcome of an asynchronously accepted order",
+        description = "Returns the status of an order request accepted with mode=async, and the order ID once created",
+        responses = [
+            @ApiResponse(
+                responseCode = "200", 
+                description = "Status retrieved successfully",
+                content = @Content(schema = @Schema(implementation = OrderIntakeDTO.class))
+            ),
+            @ApiResponse(
+                responseCode = "404", 
+                description = "Unknown handle",
+                content = @Content(schema = @Schema(implementation = CommonErrorFormat.class))
+            )
+        ]
+    )
+    ResponseEntity<OrderIntakeDTO> getIntake(
+        @Parameter(description = "Handle returned when the order was accepted") 
+        @PathVariable("handle") UUID handle
+    ) {
+        return ResponseEntity.ok(orderIntakeService.getIntake(handle))
+    }
+
+    @PostMapping("/batch")
+    @Operation(
+        summary = "Create orders in bulk",
+        description = "Creates many orders in one request. Each order is validated on its own: invalid orders are " +
+            "reported as rejected in their result, and the remaining orders are still created.",
+        responses = [
+            @ApiResponse(
+                responseCode = "200", 
+                description = "Batch processed; see the result of each order",
+                content = @Content(schema = @Schema(implementation = BulkOrderResponseDTO.class))
+            ),
+            @ApiResponse(
+                responseCode = "400", 
+                description = "Empty or oversized batch",
+                content = @Content(schema = @Schema(implementation = CommonErrorFormat.class))
+            ),
+            @ApiResponse(
+                responseCode = "503", 
+                description = "Inventory service unavailable; no order was created",
+                content = @Content(schema = @Schema(implementation = CommonErrorFormat.class))
+            )
+        ]
+    )
+    ResponseEntity<BulkOrderResponseDTO> createOrders(
+        @Valid @RequestBody(required = true) BulkOrderCreateDTO bulkOrderCreateDTO
+    ) {
+        return ResponseEntity.ok(bulkOrderService.createOrders(bulkOrderCreateDTO))
     }
 
     @GetMapping
     @Operation(
-        summary = "Get all orders",
-        description = "Returns a list of all orders in the system",
+        summary = "Get orders",
+        description = "Returns one page of orders, newest first. When more orders follow, the response carries " +
+            "an X-Next-Cursor header whose value is passed back as the cursor parameter to fetch the next page.",
         responses = [
             @ApiResponse(
                 responseCode = "200", 
-                description = "List of orders retrieved successfully",
-                content = @Content(schema = @Schema(implementation = OrderDTO.class))
+                description = "Page of orders retrieved successfully",
+                content = @Content(schema = @Schema(implementation = OrderView.class)),
+                headers = @Header(name = "X-Next-Cursor", description = "Cursor of the next page; absent on the last page")
+            ),
+            @ApiResponse(
+                responseCode = "400", 
+                description = "Invalid cursor",
+                content = @Content(schema = @Schema(implementation = CommonErrorFormat.class))
             ),
             @ApiResponse(
                 responseCode = "500", 
@@ -82,9 +223,45 @@ class OrderController {
             )
         ]
     )
-    ResponseEntity<List<OrderDTO>> getOrders() {
-        List<OrderDTO> orders = orderService.getAllOrders()
-        return ResponseEntity.ok(orders)
+    ResponseEntity<List<OrderView>> getOrders(
+        @Parameter(description = "Cursor returned in X-Next-Cursor by the previous page")
+        @RequestParam(name = "cursor", required = false) String cursor,
+        @Parameter(description = "Page size, 50 by default and at most 200")
+        @RequestParam(name = "limit", required = false) Integer limit
+    ) {
+        OrderViewPage page = orderQueryService.getOrdersPage(cursor, limit)
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor())
+        }
+        return response.body(page.orders())
+    }
+
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    @Operation(
+        summary = "Stream all orders",
+        description = "Streams every order as newline-delimited JSON, newest first, reading rows from a database " +
+            "cursor so that memory use does not grow with the number of orders",
+        responses = [
+            @ApiResponse(
+                responseCode = "200", 
+                description = "Orders streamed successfully",
+                content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = OrderView.class))
+            )
+        ]
+    )
+    ResponseEntity<StreamingResponseBody> streamOrders() {
+        StreamingResponseBody body = { OutputStream out ->
+            SequenceWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n")
+                .writeValues(out)
+            orderQueryService.streamAllOrders({ OrderView order -> writer.write(order) } as Consumer<OrderView>)
+            writer.flush()
+        } as StreamingResponseBody
+        return ResponseEntity.ok()
+            .contentType(MediaType.parseMediaType("application/x-ndjson"))
+            .body(body)
     }
 
     @GetMapping("/{id}")
@@ -95,7 +272,7 @@ class OrderController {
             @ApiResponse(
                 responseCode = "200", 
                 description = "Order retrieved successfully",
-                content = @Content(schema = @Schema(implementation = OrderDTO.class))
+                content = @Content(schema = @Schema(implementation = OrderView.class))
             ),
             @ApiResponse(
                 responseCode = "404", 
@@ -104,11 +281,11 @@ class OrderController {
             )
         ]
     )
-    ResponseEntity<OrderDTO> getOrder(
+    ResponseEntity<OrderView> getOrder(
         @Parameter(description = "ID of the order to retrieve") 
         @PathVariable("id") Long id
     ) {
-        OrderDTO order = orderService.getOrder(id)
+        OrderView order = orderQueryService.getOrder(id)
         return ResponseEntity.ok(order)
     }
 
@@ -0,0 +1,55 @@
+package cargo.kityk.wms.order.controller
+
+import cargo.kityk.wms.order.service.ProductExistenceCache
+import groovy.transform.CompileStatic
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.http.ResponseEntity
+import org.springframework.web.bind.annotation.DeleteMapping
+import org.springframework.web.bind.annotation.PathVariable
+import org.springframework.web.bind.annotation.RequestMapping
+import org.springframework.web.bind.annotation.RestController
+
+import io.swagger.v3.oas.annotations.Operation
+import io.swagger.v3.oas.annotations.Parameter
+import io.swagger.v3.oas.annotations.responses.ApiResponse
+import io.swagger.v3.oas.annotations.tags.Tag
+
+@CompileStatic
+@RestController
+@RequestMapping("/api/v1/admin/product-cache")
+@Tag(name = "Administration", description = "Operational endpoints for managing service caches")
+class ProductCacheAdminController {
+
+    @Autowired
+    private ProductExistenceCache productExistenceCache
+
+    @DeleteMapping("/{productId}")
+    @Operation(
+        summary = "Invalidate a cached product",
+        description = "Removes a product's cached existence result so that the next order containing it " +
+            "is validated against the inventory service again",
+        responses = [
+            @ApiResponse(responseCode = "204", description = "Product removed from the cache, or was not cached")
+        ]
+    )
+    ResponseEntity<Void> invalidateProduct(
+        @Parameter(description = "ID of the product to invalidate")
+        @PathVariable("productId") Long productId
+    ) {
+        productExistenceCache.invalidate(productId)
+        return ResponseEntity.noContent().build()
+    }
+
+    @DeleteMapping
+    @Operation(
+        summary = "Invalidate all cached products",
+        description = "Clears the product existence cache",
+        responses = [
+            @ApiResponse(responseCode = "204", description = "Cache cleared")
+        ]
+    )
+    ResponseEntity<Void> invalidateAll() {
+        productExistenceCache.invalidateAll()
+        return ResponseEntity.noContent().build()
+    }
+}
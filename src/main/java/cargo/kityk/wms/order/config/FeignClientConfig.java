@@ -1,6 +1,15 @@
 package cargo.kityk.wms.order.config;
 
+import feign.codec.Decoder;
+import feign.optionals.OptionalDecoder;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
@@ -10,4 +19,14 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 @EnableFeignClients(basePackages = "cargo.kityk.wms.order.service.client")
 public class FeignClientConfig {
-} 
\ No newline at end of file
+
+    /**
+     * The Spring Cloud default decoder, wrapped so that a 404 can be answered without an exception
+     */
+    @Bean
+    public Decoder feignDecoder(ObjectFactory<HttpMessageConverters> messageConverters,
+                                ObjectProvider<HttpMessageConverterCustomizer> customizers) {
+        return new NotFoundDecoder(new OptionalDecoder(new ResponseEntityDecoder(
+            new SpringDecoder(messageConverters, customizers))));
+    }
+}
@@ -0,0 +1,135 @@
+package cargo.kityk.wms.order.config;
+
+import feign.Client;
+import feign.Request;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * HTTP transport of the inventory Feign client.
+ *
+ * By default (inventory.client.transport=hc5) requests go through a pooled Apache HttpClient 5 with keep-alive,
+ * so connections are reused instead of opened per request; the pool is published as the
+ * httpcomponents.httpclient.pool.* metrics (leased, available, pending) tagged httpclient=inventory.
+ * With inventory.client.transport=http2 the JDK HttpClient is used instead, which negotiates HTTP/2 and
+ * multiplexes all requests over few connections.
+ *
+ * Either way, product lookups and stock locking get their own connect and read timeouts.
+ */
+@Configuration
+public class InventoryClientTransportConfig {
+
+    static final String POOL_METRICS_NAME = "inventory";
+
+    /**
+     * Timeouts per InventoryClient method; lookups fail fast, stock locking and releasing may take longer
+     */
+    @Bean
+    public InventoryClientTimeouts inventoryClientTimeouts(
+            @Value("${inventory.client.lookup.connect-timeout:PT1S}") Duration lookupConnectTimeout,
+            @Value("${inventory.client.lookup.read-timeout:PT2S}") Duration lookupReadTimeout,
+            @Value("${inventory.client.lock-stock.connect-timeout:PT2S}") Duration lockConnectTimeout,
+            @Value("${inventory.client.lock-stock.read-timeout:PT10S}") Duration lockReadTimeout) {
+        Request.Options lookup = new Request.Options(lookupConnectTimeout, lookupReadTimeout, true);
+        Request.Options lock = new Request.Options(lockConnectTimeout, lockReadTimeout, true);
+        return new InventoryClientTimeouts(Map.of(
+            "getProductById", lookup,
+            "productExists", lookup,
+            "checkProductsExist", lookup,
+            "getProductIds", lookup,
+            "lockStock", lock,
+            "releaseStock", lock));
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "inventory.client.transport", havingValue = "hc5", matchIfMissing = true)
+    static class PooledTransport {
+
+        @Bean(destroyMethod = "close")
+        public PoolingHttpClientConnectionManager inventoryConnectionManager(
+                @Value("${inventory.client.pool.max-connections:200}") int maxConnections,
+                @Value("${inventory.client.pool.max-connections-per-route:100}") int maxConnectionsPerRoute,
+                @Value("${inventory.client.pool.time-to-live:PT5M}") Duration timeToLive,
+                @Value("${inventory.client.pool.validate-after-inactivity:PT1S}") Duration validateAfterInactivity,
+                @Value("${inventory.client.lookup.connect-timeout:PT1S}") Duration connectTimeout) {
+            return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.of(connectTimeout))
+                    .setTimeToLive(TimeValue.of(timeToLive))
+                    // Check connections idle for longer than this before reuse, so a connection the inventory
+                    // service has closed is replaced instead of failing the request (POSTs are not retried)
+                    .setValidateAfterInactivity(TimeValue.of(validateAfterInactivity))
+                    .build())
+                .setDefaultSocketConfig(SocketConfig.custom()
+                    .setSoKeepAlive(true)
+                    .setTcpNoDelay(true)
+                    .build())
+                .build();
+        }
+
+        @Bean(destroyMethod = "close")
+        public CloseableHttpClient inventoryHttpClient(
+                PoolingHttpClientConnectionManager inventoryConnectionManager,
+                @Value("${inventory.client.pool.idle-timeout:PT30S}") Duration idleTimeout) {
+            return HttpClients.custom()
+                .setConnectionManager(inventoryConnectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(idleTimeout))
+                .disableCookieManagement()
+                .build();
+        }
+
+        @Bean
+        public Client feignClient(CloseableHttpClient inventoryHttpClient, InventoryClientTimeouts timeouts) {
+            return new PerMethodTimeoutClient(new ApacheHttp5Client(inventoryHttpClient), timeouts.optionsByMethod());
+        }
+
+        @Bean
+        public MeterBinder inventoryConnectionPoolMetrics(PoolingHttpClientConnectionManager inventoryConnectionManager) {
+            return new PoolingHttpClientConnectionManagerMetricsBinder(inventoryConnectionManager, POOL_METRICS_NAME);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnProperty(name = "inventory.client.transport", havingValue = "http2")
+    static class Http2Transport {
+
+        @Bean
+        public Client feignClient(@Value("${inventory.client.lookup.connect-timeout:PT1S}") Duration connectTimeout,
+                                  InventoryClientTimeouts timeouts) {
+            HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+            return new PerMethodTimeoutClient(new Http2Client(httpClient), timeouts.optionsByMethod());
+        }
+    }
+
+    /**
+     * Request options of the InventoryClient methods, by method name
+     *
+     * @param optionsByMethod Connect and read timeouts per method
+     */
+    public record InventoryClientTimeouts(Map<String, Request.Options> optionsByMethod) { }
+}
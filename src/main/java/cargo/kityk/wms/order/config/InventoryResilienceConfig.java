@@ -0,0 +1,71 @@
+package cargo.kityk.wms.order.config;
+
+import cargo.kityk.wms.order.service.client.AdaptiveConcurrencyLimiter;
+import feign.FeignException;
+import feign.RetryableException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker and concurrency limit settings for calls to the inventory service (see ResilientInventoryClient).
+ */
+@Configuration
+public class InventoryResilienceConfig {
+
+    /**
+     * Opens the circuit when too many recent calls failed or were slow. Only transport failures (connection errors,
+     * timeouts) and 5xx responses count as failures; a 404 or 422 is a valid answer of a healthy service.
+     */
+    @Bean
+    public CircuitBreakerConfig inventoryCircuitBreakerConfig(
+            @Value("${inventory.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${inventory.circuit-breaker.slow-call-duration-threshold:PT5S}") Duration slowCallDurationThreshold,
+            @Value("${inventory.circuit-breaker.slow-call-rate-threshold:80}") float slowCallRateThreshold,
+            @Value("${inventory.circuit-breaker.sliding-window-size:50}") int slidingWindowSize,
+            @Value("${inventory.circuit-breaker.minimum-number-of-calls:20}") int minimumNumberOfCalls,
+            @Value("${inventory.circuit-breaker.wait-duration-in-open-state:PT10S}") Duration waitDurationInOpenState,
+            @Value("${inventory.circuit-breaker.permitted-calls-in-half-open-state:5}") int permittedCallsInHalfOpenState) {
+        return CircuitBreakerConfig.custom()
+            .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+            .slidingWindowSize(slidingWindowSize)
+            .minimumNumberOfCalls(minimumNumberOfCalls)
+            .failureRateThreshold(failureRateThreshold)
+            .slowCallDurationThreshold(slowCallDurationThreshold)
+            .slowCallRateThreshold(slowCallRateThreshold)
+            .waitDurationInOpenState(waitDurationInOpenState)
+            .permittedNumberOfCallsInHalfOpenState(permittedCallsInHalfOpenState)
+            .recordException(InventoryResilienceConfig::isInventoryFailure)
+            .build();
+    }
+
+    /**
+     * Limits concurrent calls to the inventory service. The limit adapts to measured call latency and failures,
+     * so it does not have to be sized for either quiet or busy periods; a caller that gets no slot within the
+     * maximum wait fails fast.
+     */
+    @Bean
+    public AdaptiveConcurrencyLimiter inventoryConcurrencyLimiter(
+            @Value("${inventory.concurrency-limit.adaptive:true}") boolean adaptive,
+            @Value("${inventory.concurrency-limit.initial-limit:50}") int initialLimit,
+            @Value("${inventory.concurrency-limit.min-limit:5}") int minLimit,
+            @Value("${inventory.concurrency-limit.max-limit:200}") int maxLimit,
+            @Value("${inventory.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${inventory.concurrency-limit.rtt-threshold:PT1S}") Duration rttThreshold,
+            @Value("${inventory.concurrency-limit.max-wait:PT0.1S}") Duration maxWait) {
+        return new AdaptiveConcurrencyLimiter(adaptive, initialLimit, minLimit, maxLimit, backoffRatio, rttThreshold, maxWait);
+    }
+
+    /**
+     * Whether a call failed because of the inventory service, as opposed to being answered with an error status
+     */
+    public static boolean isInventoryFailure(Throwable throwable) {
+        if (throwable instanceof RetryableException) {
+            return true;
+        }
+        return throwable instanceof FeignException feignException && feignException.status() >= 500;
+    }
+}
@@ -0,0 +1,178 @@
+package cargo.kityk.wms.order.config;
+
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import cargo.kityk.wms.order.service.KafkaOrderIntakeService;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Order creation from a Kafka topic (order.kafka-intake.enabled=true; off by default).
+ *
+ * All instances share one consumer group, and each runs order.kafka-intake.concurrency consumers, so the
+ * partitions of the topic are spread over every consumer of every instance; throughput grows with the partition
+ * count up to one partition per consumer. Every poll is handed to {@link KafkaOrderIntakeService} as one batch
+ * and its offsets are committed only after the batch transaction has committed.
+ *
+ * A batch that fails as a whole because a dependency is unavailable (the inventory service answering 503, or the
+ * database) is polled again after an exponential backoff, for at most order.kafka-intake.max-retry-time. Any other
+ * failure would fail the same way again, so it is not retried. In both cases the records of the batch are then
+ * published to the dead letter topic, with the exception in their headers, and the partition moves on; an outage
+ * longer than the retry time therefore moves orders to the dead letter topic for replay but never drops them.
+ * The broker is taken from the spring.kafka.* properties.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.kafka-intake.enabled", havingValue = "true")
+public class KafkaOrderIntakeConfig {
+
+    @Bean
+    public ConcurrentMessageListenerContainer<String, String> kafkaOrderIntakeContainer(
+            KafkaProperties kafkaProperties,
+            ObjectProvider<SslBundles> sslBundles,
+            KafkaOrderIntakeService kafkaOrderIntakeService,
+            @Value("${order.kafka-intake.topic:wms.order-intake}") String topic,
+            @Value("${order.kafka-intake.group-id:wms-order-management-intake}") String groupId,
+            @Value("${order.kafka-intake.concurrency:3}") int concurrency,
+            @Value("${order.kafka-intake.max-poll-records:500}") int maxPollRecords,
+            @Value("${order.bulk.max-orders:1000}") int maxBulkOrders,
+            @Value("${order.kafka-intake.retry-delay:PT1S}") Duration retryDelay,
+            @Value("${order.kafka-intake.max-retry-delay:PT1M}") Duration maxRetryDelay,
+            @Value("${order.kafka-intake.max-retry-time:PT30M}") Duration maxRetryTime,
+            @Value("${order.kafka-intake.dead-letter-topic:wms.order-intake.DLT}") String deadLetterTopic) {
+        if (maxPollRecords > maxBulkOrders) {
+            throw new IllegalStateException("order.kafka-intake.max-poll-records (" + maxPollRecords
+                + ") must not exceed order.bulk.max-orders (" + maxBulkOrders + ")");
+        }
+        KafkaTemplate<String, String> deadLetterTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+            deadLetterProducerProperties(kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()))));
+        return orderIntakeContainer(kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable()), topic,
+            groupId, concurrency, maxPollRecords, kafkaOrderIntakeService,
+            errorHandler(deadLetterTemplate, deadLetterTopic, retryDelay, maxRetryDelay, maxRetryTime));
+    }
+
+    /**
+     * Listener container that creates the orders of each poll in one transaction before committing its offsets
+     *
+     * @param consumerProperties Kafka consumer properties; deserializers, group and offset handling are overridden
+     * @param topic Order intake topic
+     * @param groupId Consumer group shared by all instances
+     * @param concurrency Consumers in this instance
+     * @param maxPollRecords Most records per poll, and so per transaction
+     * @param intakeService Service that creates the orders of a batch
+     * @param errorHandler Handler of batches that fail as a whole
+     * @return Container, not yet started
+     */
+    static ConcurrentMessageListenerContainer<String, String> orderIntakeContainer(
+            Map<String, Object> consumerProperties, String topic, String groupId, int concurrency, int maxPollRecords,
+            KafkaOrderIntakeService intakeService, DefaultErrorHandler errorHandler) {
+        Map<String, Object> properties = new HashMap<>(consumerProperties);
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+
+        ContainerProperties containerProperties = new ContainerProperties(topic);
+        containerProperties.setMessageListener((BatchMessageListener<String, String>) records -> {
+            try {
+                intakeService.createOrders(records);
+            } catch (OrderManagementException e) {
+                if (e.getStatus() == HttpStatus.SERVICE_UNAVAILABLE) {
+                    throw new DependencyUnavailableException(e);
+                }
+                throw e;
+            }
+        });
+        // Commit the offsets of a poll once the listener has returned, i.e. after the orders were committed
+        containerProperties.setAckMode(ContainerProperties.AckMode.BATCH);
+
+        ConcurrentMessageListenerContainer<String, String> container = new ConcurrentMessageListenerContainer<>(
+            new DefaultKafkaConsumerFactory<>(properties), containerProperties);
+        container.setConcurrency(concurrency);
+        container.setCommonErrorHandler(errorHandler);
+        return container;
+    }
+
+    /**
+     * Error handler that retries a failed batch only while a dependency is unavailable, and then publishes its
+     * records to the dead letter topic
+     *
+     * @param deadLetterTemplate Template the dead letter records are sent with
+     * @param deadLetterTopic Topic records are published to once they are given up
+     * @param retryDelay Delay before polling a failed batch again the first time
+     * @param maxRetryDelay Longest delay between polls of a failed batch
+     * @param maxRetryTime Longest time a batch is retried before it is given up
+     * @return Error handler for the intake container
+     */
+    static DefaultErrorHandler errorHandler(KafkaOperations<String, String> deadLetterTemplate, String deadLetterTopic,
+                                            Duration retryDelay, Duration maxRetryDelay, Duration maxRetryTime) {
+        // Partition -1 lets the producer choose, so the dead letter topic needs no particular partition count
+        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(deadLetterTemplate,
+            (record, exception) -> new TopicPartition(deadLetterTopic, -1));
+        ExponentialBackOff backOff = new ExponentialBackOff(retryDelay.toMillis(), 2.0);
+        backOff.setMaxInterval(maxRetryDelay.toMillis());
+        backOff.setMaxElapsedTime(maxRetryTime.toMillis());
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, backOff);
+        // Unlike defaultFalse() and addRetryableExceptions(), this also reaches the handler of failed batches
+        errorHandler.setClassifications(Map.of(
+            DependencyUnavailableException.class, true,
+            TransientDataAccessException.class, true,
+            RecoverableDataAccessException.class, true,
+            DataAccessResourceFailureException.class, true,
+            CannotCreateTransactionException.class, true), false);
+        return errorHandler;
+    }
+
+    /**
+     * Producer properties of the dead letter publisher
+     *
+     * @param producerProperties Kafka producer properties; serializers are overridden
+     * @return Properties for the producer factory
+     */
+    static Map<String, Object> deadLetterProducerProperties(Map<String, Object> producerProperties) {
+        Map<String, Object> properties = new HashMap<>(producerProperties);
+        properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.ACKS_CONFIG, "all");
+        return properties;
+    }
+
+    /**
+     * A batch failed because the inventory service answered 503; the only service failure worth retrying
+     */
+    static final class DependencyUnavailableException extends RuntimeException {
+        DependencyUnavailableException(OrderManagementException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package cargo.kityk.wms.order.config;
+
+import feign.FeignException;
+import feign.Response;
+import feign.codec.Decoder;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Optional;
+
+/**
+ * Decodes the responses of a Feign client declared with dismiss404, which hands 404 responses to the
+ * decoder instead of turning them into a FeignException.
+ *
+ * A method returning an Optional gets an empty Optional for a 404, and a method returning a boolean,
+ * such as a HEAD existence check, gets whether the resource was found; neither builds an exception or
+ * reads the error body. Any other method still fails with FeignException.NotFound, as without dismiss404.
+ */
+public class NotFoundDecoder implements Decoder {
+
+    private final Decoder delegate;
+
+    /**
+     * @param delegate Decoder for everything else; must decode a 404 for an Optional as an empty Optional,
+     *                 as feign.optionals.OptionalDecoder does
+     */
+    public NotFoundDecoder(Decoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException, FeignException {
+        boolean notFound = response.status() == HttpStatus.NOT_FOUND.value();
+        if (type == boolean.class || type == Boolean.class) {
+            // Errors other than 404 never reach the decoder, so the status is the answer
+            return !notFound;
+        }
+        if (notFound && !isOptional(type)) {
+            throw FeignException.errorStatus(response.request().requestTemplate().methodMetadata().configKey(), response);
+        }
+        return delegate.decode(response, type);
+    }
+
+    private static boolean isOptional(Type type) {
+        return type instanceof ParameterizedType parameterized && parameterized.getRawType() == Optional.class;
+    }
+}
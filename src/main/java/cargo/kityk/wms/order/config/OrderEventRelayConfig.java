@@ -0,0 +1,93 @@
+package cargo.kityk.wms.order.config;
+
+import cargo.kityk.wms.order.service.OrderEventOutboxService;
+import cargo.kityk.wms.order.service.OrderEventRelay;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Publishing of order lifecycle events to Kafka (order.events.enabled=true; off by default).
+ *
+ * The relay gets a producer of its own: idempotent with acks=all, so that retries neither lose, duplicate nor
+ * reorder events, and with a linger time and compression, so that events travel in compressed batches.
+ * The broker is taken from the spring.kafka.* properties. With order.events.relay.enabled=false, events are
+ * still written to the outbox but published by other instances only.
+ *
+ * A relay run holds a database connection and the outbox row locks while it waits for the broker. The wait, including
+ * the producer blocking on metadata or a full buffer, is bounded by order.events.send-timeout, which is therefore kept
+ * well below the database lock and statement timeouts.
+ */
+@Configuration
+@ConditionalOnProperty(name = "order.events.enabled", havingValue = "true")
+public class OrderEventRelayConfig {
+
+    static final String KAFKA_TEMPLATE = "orderEventKafkaTemplate";
+
+    @Bean
+    public ProducerFactory<String, String> orderEventProducerFactory(
+            KafkaProperties kafkaProperties,
+            ObjectProvider<SslBundles> sslBundles,
+            @Value("${order.events.compression:lz4}") String compression,
+            @Value("${order.events.linger:PT0.02S}") Duration linger,
+            @Value("${order.events.send-timeout:PT5S}") Duration sendTimeout) {
+        return new DefaultKafkaProducerFactory<>(orderEventProducerProperties(
+            kafkaProperties.buildProducerProperties(sslBundles.getIfAvailable()), compression, linger, sendTimeout));
+    }
+
+    @Bean(KAFKA_TEMPLATE)
+    public KafkaTemplate<String, String> orderEventKafkaTemplate(ProducerFactory<String, String> orderEventProducerFactory) {
+        return new KafkaTemplate<>(orderEventProducerFactory);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "order.events.relay.enabled", havingValue = "true", matchIfMissing = true)
+    public OrderEventRelay orderEventRelay(
+            OrderEventOutboxService orderEventOutboxService,
+            @Qualifier(KAFKA_TEMPLATE) KafkaTemplate<String, String> kafkaTemplate,
+            @Value("${order.events.topic:wms.order-events}") String topic,
+            @Value("${order.events.send-timeout:PT5S}") Duration sendTimeout,
+            MeterRegistry meterRegistry) {
+        return new OrderEventRelay(orderEventOutboxService, kafkaTemplate, topic, sendTimeout, meterRegistry);
+    }
+
+    /**
+     * Producer properties of the order event relay
+     *
+     * @param producerProperties Kafka producer properties; serializers and delivery guarantees are overridden
+     * @param compression Compression codec of the batches: none, gzip, snappy, lz4 or zstd
+     * @param linger How long the producer waits to fill a batch
+     * @param sendTimeout Longest time a send may block waiting for metadata or buffer space
+     * @return Properties for the producer factory
+     */
+    public static Map<String, Object> orderEventProducerProperties(
+            Map<String, Object> producerProperties, String compression, Duration linger, Duration sendTimeout) {
+        Map<String, Object> properties = new HashMap<>(producerProperties);
+        properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        properties.put(ProducerConfig.ACKS_CONFIG, "all");
+        // Idempotence keeps the order of up to 5 in-flight batches per partition across retries
+        properties.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5);
+        properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compression);
+        properties.put(ProducerConfig.LINGER_MS_CONFIG, (int) linger.toMillis());
+        // Without a broker, send() would otherwise block for the default 60 s before the relay starts waiting
+        properties.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, sendTimeout.toMillis());
+        return properties;
+    }
+}
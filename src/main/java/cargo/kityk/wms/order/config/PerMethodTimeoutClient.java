@@ -0,0 +1,40 @@
+package cargo.kityk.wms.order.config;
+
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Feign transport decorator that applies the timeouts configured for the called client method,
+ * e.g. short timeouts for product lookups and longer ones for stock locking.
+ * Methods without timeouts of their own keep the options Feign passes in.
+ */
+class PerMethodTimeoutClient implements Client {
+
+    private final Client delegate;
+    private final Map<String, Request.Options> optionsByMethod;
+
+    PerMethodTimeoutClient(Client delegate, Map<String, Request.Options> optionsByMethod) {
+        this.delegate = delegate;
+        this.optionsByMethod = Map.copyOf(optionsByMethod);
+    }
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        return delegate.execute(request, optionsFor(request, options));
+    }
+
+    Request.Options optionsFor(Request request, Request.Options defaultOptions) {
+        RequestTemplate template = request.requestTemplate();
+        MethodMetadata metadata = template == null ? null : template.methodMetadata();
+        if (metadata == null || metadata.method() == null) {
+            return defaultOptions;
+        }
+        return optionsByMethod.getOrDefault(metadata.method().getName(), defaultOptions);
+    }
+}
@@ -0,0 +1,81 @@
+package cargo.kityk.wms.order.config;
+
+import cargo.kityk.wms.order.service.ProductCatalogReplica;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.boot.ssl.SslBundles;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Local replica of the product catalog, kept from the inventory service's product change topic
+ * (inventory.catalog-replica.enabled=true; off by default).
+ *
+ * The topic is read by a single listener container with its own consumer group per instance, so every instance
+ * reads every partition. The broker is taken from the spring.kafka.* properties.
+ */
+@Configuration
+@ConditionalOnProperty(name = "inventory.catalog-replica.enabled", havingValue = "true")
+public class ProductCatalogReplicaConfig {
+
+    static final String GROUP_ID_PREFIX = "order-management-catalog-";
+
+    @Bean
+    public ProductCatalogReplica productCatalogReplica(
+            ObjectMapper objectMapper,
+            @Value("${inventory.catalog-replica.max-staleness:PT30S}") Duration maxStaleness,
+            MeterRegistry meterRegistry) {
+        return new ProductCatalogReplica(objectMapper, maxStaleness, meterRegistry);
+    }
+
+    @Bean
+    public KafkaMessageListenerContainer<String, String> productCatalogReplicaContainer(
+            KafkaProperties kafkaProperties,
+            ObjectProvider<SslBundles> sslBundles,
+            ProductCatalogReplica productCatalogReplica,
+            @Value("${inventory.catalog-replica.topic:inventory.product-changes}") String topic,
+            @Value("${inventory.catalog-replica.max-staleness:PT30S}") Duration maxStaleness) {
+        return catalogReplicaContainer(kafkaProperties.buildConsumerProperties(sslBundles.getIfAvailable()),
+            topic, productCatalogReplica, maxStaleness);
+    }
+
+    /**
+     * Listener container that replays the topic into the replica from offset zero and then follows it
+     *
+     * @param consumerProperties Kafka consumer properties; deserializers, group and offset handling are overridden
+     * @param topic Product change topic
+     * @param replica Replica to apply the product change events to
+     * @param maxStaleness How long the replica may go without being seen caught up before it stops answering
+     * @return Container, not yet started
+     */
+    static KafkaMessageListenerContainer<String, String> catalogReplicaContainer(
+            Map<String, Object> consumerProperties, String topic, ProductCatalogReplica replica, Duration maxStaleness) {
+        Map<String, Object> properties = new HashMap<>(consumerProperties);
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, GROUP_ID_PREFIX + UUID.randomUUID());
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+
+        ContainerProperties containerProperties = new ContainerProperties(topic);
+        containerProperties.setMessageListener(replica);
+        containerProperties.setConsumerRebalanceListener(replica);
+        // While idle the replica checks that it is still caught up; check often enough to stay fresh
+        containerProperties.setIdleEventInterval(Math.max(1, maxStaleness.dividedBy(3).toMillis()));
+        return new KafkaMessageListenerContainer<>(new DefaultKafkaConsumerFactory<>(properties), containerProperties);
+    }
+}
@@ -0,0 +1,49 @@
+package cargo.kityk.wms.order.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the service's own worker pools.
+ * With spring.threads.virtual.enabled=true, Tomcat, the scheduler and therefore every Feign and JPA call made
+ * from a request or a scheduled task run on virtual threads; the worker pools follow the same switch.
+ * A pool's size then still bounds how many tasks run at once, but no longer ties up a platform thread per task.
+ */
+public final class WorkerThreads {
+
+    /** Spring Boot property that switches the servlet container, the scheduler and the worker pools to virtual threads */
+    public static final String VIRTUAL_THREADS_PROPERTY = "spring.threads.virtual.enabled";
+
+    private WorkerThreads() { }
+
+    /**
+     * Creates a factory for the threads of a worker pool
+     *
+     * @param namePrefix Thread names are this prefix followed by a counter starting at 1
+     * @param virtual true for virtual threads, false for daemon platform threads
+     * @return Thread factory, safe for concurrent use
+     */
+    public static ThreadFactory factory(String namePrefix, boolean virtual) {
+        if (virtual) {
+            return Thread.ofVirtual().name(namePrefix, 1).factory();
+        }
+        return Thread.ofPlatform().name(namePrefix, 1).daemon(true).factory();
+    }
+
+    /**
+     * Creates an executor that runs every task at once on a thread of its own.
+     * Platform threads are reused while idle; the number of threads is bounded by the callers, so use it only for
+     * tasks that a request thread submits and then waits for.
+     *
+     * @param namePrefix Thread names are this prefix followed by a counter starting at 1
+     * @param virtual true for virtual threads, false for daemon platform threads
+     * @return Unbounded executor
+     */
+    public static ExecutorService perTaskExecutor(String namePrefix, boolean virtual) {
+        if (virtual) {
+            return Executors.newThreadPerTaskExecutor(factory(namePrefix, true));
+        }
+        return Executors.newCachedThreadPool(factory(namePrefix, false));
+    }
+}
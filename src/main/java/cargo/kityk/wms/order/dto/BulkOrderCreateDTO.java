@@ -0,0 +1,30 @@
+package cargo.kityk.wms.order.dto;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for creating many orders in one request.
+ * The orders are deliberately not validated as a whole: each one is validated on its own,
+ * so that an invalid order is reported in its result instead of rejecting the entire batch.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderCreateDTO {
+    @NotEmpty(message = "Batch must contain at least one order")
+    @ArraySchema(
+        schema = @Schema(implementation = OrderCreateDTO.class),
+        arraySchema = @Schema(description = "Orders to be created")
+    )
+    private List<OrderCreateDTO> orders = new ArrayList<>();
+}
@@ -0,0 +1,33 @@
+package cargo.kityk.wms.order.dto;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO representing the response to a bulk order creation request.
+ * Results are listed in the order of the request.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderResponseDTO {
+
+    @Schema(description = "Number of orders created", example = "998")
+    private int created;
+
+    @Schema(description = "Number of orders rejected", example = "2")
+    private int rejected;
+
+    @ArraySchema(
+        schema = @Schema(implementation = BulkOrderResultDTO.class),
+        arraySchema = @Schema(description = "Outcome of each order, in request order")
+    )
+    private List<BulkOrderResultDTO> results;
+}
@@ -0,0 +1,34 @@
+package cargo.kityk.wms.order.dto;
+
+import cargo.kityk.wms.order.exception.CommonErrorFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO representing the outcome of one order of a bulk creation request.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkOrderResultDTO {
+
+    public enum Status { CREATED, REJECTED }
+
+    @Schema(description = "Position of the order in the request", example = "0")
+    private int index;
+
+    @Schema(description = "Whether the order was created", example = "CREATED")
+    private Status status;
+
+    @Schema(description = "Created order; absent when the order was rejected")
+    private OrderDTO order;
+
+    @Schema(description = "Reason the order was rejected; absent when the order was created")
+    private CommonErrorFormat error;
+}
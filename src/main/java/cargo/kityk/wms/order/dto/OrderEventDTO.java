@@ -0,0 +1,31 @@
+package cargo.kityk.wms.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Order lifecycle event published to Kafka, keyed by order ID.
+ * Events tell consumers that an order changed; the order itself is read from GET /api/v1/orders/{id}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventDTO {
+
+    public enum Type {
+        CREATED,
+        STATUS_CHANGED,
+        DELETED
+    }
+
+    private Type type;
+    private Long orderId;
+    /** Status of the order after the change; null for a deleted order */
+    private String status;
+    private ZonedDateTime occurredAt;
+}
@@ -0,0 +1,41 @@
+package cargo.kityk.wms.order.dto;
+
+import cargo.kityk.wms.order.entity.OrderIntake;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * DTO representing the state of an order request accepted in async mode.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderIntakeDTO {
+
+    @Schema(description = "Handle to poll for the outcome", example = "3f1e9a52-7c1d-4a8b-9b0e-2f6d5c4b3a21")
+    private UUID handle;
+
+    @Schema(description = "Processing status", example = "ACCEPTED")
+    private OrderIntake.Status status;
+
+    @Schema(description = "ID of the created order; present once the status is CREATED", example = "1")
+    private Long orderId;
+
+    @Schema(description = "Reason the order was not created; present when the status is REJECTED")
+    private String error;
+
+    @Schema(description = "Time the request was accepted")
+    private ZonedDateTime acceptedAt;
+
+    @Schema(description = "Time of the last status change")
+    private ZonedDateTime updatedAt;
+}
@@ -0,0 +1,25 @@
+package cargo.kityk.wms.order.dto.view;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable read-only projection of an order item.
+ * Serialises to the same JSON properties as OrderItemDTO.
+ */
+@Schema(description = "Order item as returned by read endpoints")
+public record OrderItemView(
+    @Schema(description = "Order item ID", example = "1")
+    Long id,
+    
+    @Schema(description = "Product ID", example = "1")
+    Long productId,
+    
+    @Schema(description = "Quantity of product", example = "5")
+    Integer quantity,
+    
+    @Schema(description = "Price per unit at time of order", example = "29.99")
+    BigDecimal price
+) {
+}
@@ -0,0 +1,47 @@
+package cargo.kityk.wms.order.dto.view;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Immutable read-only projection of an order, built directly from query rows
+ * without going through managed entities. Serialises to the same JSON properties
+ * as the populated fields of OrderDTO.
+ */
+@Schema(description = "Order as returned by read endpoints")
+public record OrderView(
+    @Schema(description = "Entity ID", example = "1")
+    Long id,
+    
+    @Schema(description = "Customer ID", example = "1")
+    Long customerId,
+    
+    @Schema(description = "Date and time when order was placed", example = "2023-07-15T10:30:00Z")
+    ZonedDateTime orderDate,
+    
+    @Schema(description = "Current order status", example = "Processing")
+    String status,
+    
+    @Schema(description = "Total order amount", example = "149.95")
+    BigDecimal totalAmount,
+    
+    @ArraySchema(
+        schema = @Schema(implementation = OrderItemView.class),
+        arraySchema = @Schema(description = "Items in the order")
+    )
+    List<OrderItemView> items,
+    
+    @Schema(description = "Date and time when record was created", example = "2023-07-15T10:30:00Z")
+    ZonedDateTime createdAt,
+    
+    @Schema(description = "Date and time when record was last updated", example = "2023-07-15T10:30:00Z")
+    ZonedDateTime updatedAt
+) {
+    public OrderView {
+        items = items != null ? List.copyOf(items) : List.of();
+    }
+}
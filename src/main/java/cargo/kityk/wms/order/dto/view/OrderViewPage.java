@@ -0,0 +1,15 @@
+package cargo.kityk.wms.order.dto.view;
+
+import java.util.List;
+
+/**
+ * A single keyset page of order views.
+ *
+ * @param orders Orders on this page, newest first
+ * @param nextCursor Cursor of the following page, or null if this is the last page
+ */
+public record OrderViewPage(List<OrderView> orders, String nextCursor) {
+    public OrderViewPage {
+        orders = orders != null ? List.copyOf(orders) : List.of();
+    }
+}
@@ -7,6 +7,7 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 import java.time.ZonedDateTime;
@@ -15,7 +16,9 @@ import java.time.ZonedDateTime;
 @Table(name = "customers", schema = "wms_schema")
 public class Customer {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customers_id_seq")
+    @SequenceGenerator(name = "customers_id_seq", sequenceName = "customers_id_seq", schema = "wms_schema",
+                       allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
     
     @Column(nullable = false)
@@ -0,0 +1,16 @@
+package cargo.kityk.wms.order.entity;
+
+/**
+ * Shared settings for entity ID generation.
+ *
+ * Entities draw IDs from database sequences through Hibernate's pooled optimizer: one sequence call
+ * reserves a block of ALLOCATION_SIZE IDs, which are then assigned in memory. Unlike IDENTITY columns,
+ * this lets Hibernate assign IDs before inserting and therefore batch the inserts.
+ * Every sequence must be defined with INCREMENT BY ALLOCATION_SIZE.
+ */
+final class IdGeneration {
+
+    static final int ALLOCATION_SIZE = 50;
+
+    private IdGeneration() { }
+}
@@ -0,0 +1,103 @@
+package cargo.kityk.wms.order.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Idempotency key of an order creation request, with the response that was returned for it.
+ * Inserted in the same transaction as the order, so a key exists exactly when its order does.
+ *
+ * Keys created with {@link #IdempotencyKey(String, String, int, String, ZonedDateTime, ZonedDateTime)} are known to
+ * be new, so saving them inserts without first looking the key up, and a batch of them is sent as one JDBC batch.
+ */
+@Entity
+@Table(name = "idempotency_keys", schema = "wms_schema",
+       indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+public class IdempotencyKey implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String key;
+
+    /** SHA-256 of the request body, to detect a key reused for a different request */
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    /** Serialized response body; set before the creating transaction commits */
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private ZonedDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private ZonedDateTime expiresAt;
+
+    @Transient
+    private boolean newKey;
+
+    public IdempotencyKey() { }
+
+    public IdempotencyKey(String key, String requestHash, int responseStatus, String responseBody,
+                          ZonedDateTime createdAt, ZonedDateTime expiresAt) {
+        this.key = key;
+        this.requestHash = requestHash;
+        this.responseStatus = responseStatus;
+        this.responseBody = responseBody;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+        this.newKey = true;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.newKey = false;
+    }
+
+    @Override
+    public String getId() { return key; }
+
+    @Override
+    public boolean isNew() { return newKey; }
+
+    // Getters and Setters
+    public String getKey() { return key; }
+    public void setKey(String key) { this.key = key; }
+
+    public String getRequestHash() { return requestHash; }
+    public void setRequestHash(String requestHash) { this.requestHash = requestHash; }
+
+    public Integer getResponseStatus() { return responseStatus; }
+    public void setResponseStatus(Integer responseStatus) { this.responseStatus = responseStatus; }
+
+    public String getResponseBody() { return responseBody; }
+    public void setResponseBody(String responseBody) { this.responseBody = responseBody; }
+
+    public ZonedDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(ZonedDateTime createdAt) { this.createdAt = createdAt; }
+
+    public ZonedDateTime getExpiresAt() { return expiresAt; }
+    public void setExpiresAt(ZonedDateTime expiresAt) { this.expiresAt = expiresAt; }
+
+    @Override
+    public String toString() {
+        return "IdempotencyKey{" +
+               "key='" + key + '\'' +
+               ", responseStatus=" + responseStatus +
+               ", expiresAt=" + expiresAt +
+               '}';
+    }
+}
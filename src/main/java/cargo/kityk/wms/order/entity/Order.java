@@ -9,10 +9,14 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.BatchSize;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
@@ -21,9 +25,15 @@ import java.util.List;
 
 @Entity
 @Table(name = "orders", schema = "wms_schema")
+@NamedEntityGraph(name = Order.WITH_ITEMS_GRAPH, attributeNodes = @NamedAttributeNode("items"))
 public class Order {
+    /** Fetch plan that loads the order items in the same query as the order */
+    public static final String WITH_ITEMS_GRAPH = "Order.withItems";
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id_seq")
+    @SequenceGenerator(name = "orders_id_seq", sequenceName = "orders_id_seq", schema = "wms_schema",
+                       allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -39,7 +49,9 @@ public class Order {
     @Column(name = "total_amount", nullable = false, precision = 10, scale = 2)
     private BigDecimal totalAmount;
     
+    // Items of all orders loaded in one session are initialised together with a single IN query
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = 200)
     private List<OrderItem> items = new ArrayList<>();
     
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
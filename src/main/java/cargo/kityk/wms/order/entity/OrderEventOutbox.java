@@ -0,0 +1,86 @@
+package cargo.kityk.wms.order.entity;
+
+import cargo.kityk.wms.order.dto.OrderEventDTO;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Outbox record of an order lifecycle event that still has to be published to Kafka.
+ * Written in the same transaction as the order change it describes and deleted by the order event relay
+ * once published.
+ *
+ * IDs are drawn from the sequence one at a time rather than in pooled blocks, so that they follow the order in
+ * which events are written across all instances; the relay publishes in ID order.
+ */
+@Entity
+@Table(name = "order_event_outbox", schema = "wms_schema")
+public class OrderEventOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_event_outbox_id_seq")
+    @SequenceGenerator(name = "order_event_outbox_id_seq", sequenceName = "order_event_outbox_id_seq", schema = "wms_schema",
+                       allocationSize = 1)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 20)
+    private OrderEventDTO.Type eventType;
+
+    /** Serialized OrderEventDTO */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private ZonedDateTime createdAt;
+
+    public OrderEventOutbox() { }
+
+    public OrderEventOutbox(Long orderId, OrderEventDTO.Type eventType, String payload) {
+        this.orderId = orderId;
+        this.eventType = eventType;
+        this.payload = payload;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public OrderEventDTO.Type getEventType() { return eventType; }
+    public void setEventType(OrderEventDTO.Type eventType) { this.eventType = eventType; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public ZonedDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(ZonedDateTime createdAt) { this.createdAt = createdAt; }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = ZonedDateTime.now();
+    }
+
+    @Override
+    public String toString() {
+        return "OrderEventOutbox{" +
+               "id=" + id +
+               ", orderId=" + orderId +
+               ", eventType=" + eventType +
+               '}';
+    }
+}
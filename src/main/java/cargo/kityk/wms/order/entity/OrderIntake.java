@@ -0,0 +1,127 @@
+package cargo.kityk.wms.order.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+
+/**
+ * An order creation request accepted in async mode, waiting to be turned into an order by the intake worker.
+ * The ID doubles as the handle clients poll for the outcome.
+ */
+@Entity
+@Table(name = "order_intake", schema = "wms_schema",
+       indexes = @Index(name = "idx_order_intake_status_next_attempt", columnList = "status, next_attempt_at"))
+public class OrderIntake {
+
+    public enum Status {
+        /** Waiting to be claimed by a worker */
+        ACCEPTED,
+        /** Claimed by a worker that is creating the order */
+        PROCESSING,
+        /** Order created */
+        CREATED,
+        /** The order could not be created */
+        REJECTED
+    }
+
+    @Id
+    private UUID id;
+
+    /** Serialized OrderCreateDTO */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private ZonedDateTime nextAttemptAt;
+
+    @Column(name = "claimed_at")
+    private ZonedDateTime claimedAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private ZonedDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private ZonedDateTime updatedAt;
+
+    public OrderIntake() { }
+
+    public OrderIntake(String payload) {
+        this.id = UUID.randomUUID();
+        this.payload = payload;
+        this.status = Status.ACCEPTED;
+        this.nextAttemptAt = ZonedDateTime.now();
+    }
+
+    // Getters and Setters
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public ZonedDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(ZonedDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public ZonedDateTime getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(ZonedDateTime claimedAt) { this.claimedAt = claimedAt; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public ZonedDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(ZonedDateTime createdAt) { this.createdAt = createdAt; }
+
+    public ZonedDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(ZonedDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = updatedAt = ZonedDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = ZonedDateTime.now();
+    }
+
+    @Override
+    public String toString() {
+        return "OrderIntake{" +
+               "id=" + id +
+               ", status=" + status +
+               ", orderId=" + orderId +
+               ", attempts=" + attempts +
+               '}';
+    }
+}
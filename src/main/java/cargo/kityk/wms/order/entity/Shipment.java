@@ -10,6 +10,7 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 
 import java.time.ZonedDateTime;
@@ -18,7 +19,9 @@ import java.time.ZonedDateTime;
 @Table(name = "shipments", schema = "wms_schema")
 public class Shipment {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "shipments_id_seq")
+    @SequenceGenerator(name = "shipments_id_seq", sequenceName = "shipments_id_seq", schema = "wms_schema",
+                       allocationSize = IdGeneration.ALLOCATION_SIZE)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,139 @@
+package cargo.kityk.wms.order.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Outbox record of a stock lock that still has to be requested from the inventory service.
+ * Written in the same transaction as the order it belongs to and drained by the stock lock dispatcher.
+ */
+@Entity
+@Table(name = "stock_lock_outbox", schema = "wms_schema",
+       indexes = @Index(name = "idx_stock_lock_outbox_status_next_attempt", columnList = "status, next_attempt_at"))
+public class StockLockOutbox {
+
+    public enum Status {
+        /** Waiting to be claimed by a dispatcher */
+        PENDING,
+        /** Claimed by a dispatcher that is calling the inventory service */
+        IN_PROGRESS,
+        /** Stock locked */
+        LOCKED,
+        /** Locking failed permanently; the order is in "Stock Lock Error" */
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_lock_outbox_id_seq")
+    @SequenceGenerator(name = "stock_lock_outbox_id_seq", sequenceName = "stock_lock_outbox_id_seq", schema = "wms_schema",
+                       allocationSize = IdGeneration.ALLOCATION_SIZE)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    /** Serialized StockLockRequest */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private ZonedDateTime nextAttemptAt;
+
+    @Column(name = "claimed_at")
+    private ZonedDateTime claimedAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    /** JSON array of the products already locked by earlier attempts of a request sent in chunks */
+    @Column(name = "locked_product_ids", columnDefinition = "TEXT")
+    private String lockedProductIds;
+
+    @Column(name = "created_at", nullable = false)
+    private ZonedDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private ZonedDateTime updatedAt;
+
+    public StockLockOutbox() { }
+
+    public StockLockOutbox(Long orderId, String payload) {
+        this.orderId = orderId;
+        this.payload = payload;
+        this.status = Status.PENDING;
+        this.nextAttemptAt = ZonedDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public String getPayload() { return payload; }
+    public void setPayload(String payload) { this.payload = payload; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) { this.status = status; }
+
+    public int getAttempts() { return attempts; }
+    public void setAttempts(int attempts) { this.attempts = attempts; }
+
+    public ZonedDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public void setNextAttemptAt(ZonedDateTime nextAttemptAt) { this.nextAttemptAt = nextAttemptAt; }
+
+    public ZonedDateTime getClaimedAt() { return claimedAt; }
+    public void setClaimedAt(ZonedDateTime claimedAt) { this.claimedAt = claimedAt; }
+
+    public String getLastError() { return lastError; }
+    public void setLastError(String lastError) { this.lastError = lastError; }
+
+    public String getLockedProductIds() { return lockedProductIds; }
+    public void setLockedProductIds(String lockedProductIds) { this.lockedProductIds = lockedProductIds; }
+
+    public ZonedDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(ZonedDateTime createdAt) { this.createdAt = createdAt; }
+
+    public ZonedDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(ZonedDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = updatedAt = ZonedDateTime.now();
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = ZonedDateTime.now();
+    }
+
+    @Override
+    public String toString() {
+        return "StockLockOutbox{" +
+               "id=" + id +
+               ", orderId=" + orderId +
+               ", status=" + status +
+               ", attempts=" + attempts +
+               '}';
+    }
+}
@@ -0,0 +1,93 @@
+package cargo.kityk.wms.order.repository;
+
+import cargo.kityk.wms.order.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+
+    /**
+     * Claim an idempotency key for the current transaction.
+     * If another transaction has inserted the same key but not committed yet, this blocks until it
+     * finishes, so concurrent duplicates are serialised on the primary key instead of both creating an order.
+     *
+     * @param key The idempotency key
+     * @param requestHash SHA-256 of the request body
+     * @param createdAt Current time
+     * @param expiresAt Time after which the key may be reused
+     * @return 1 if the key was claimed, 0 if it already exists
+     */
+    @Modifying
+    @Query(value = "INSERT INTO wms_schema.idempotency_keys (idempotency_key, request_hash, created_at, expires_at) " +
+                   "VALUES (:key, :requestHash, :createdAt, :expiresAt) ON CONFLICT DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key,
+                       @Param("requestHash") String requestHash,
+                       @Param("createdAt") ZonedDateTime createdAt,
+                       @Param("expiresAt") ZonedDateTime expiresAt);
+
+    /**
+     * Store the response of the request that claimed the key
+     *
+     * @param key The idempotency key
+     * @param responseStatus HTTP status of the response
+     * @param responseBody Serialized response body
+     * @return Number of updated rows
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.responseStatus = :responseStatus, k.responseBody = :responseBody " +
+           "WHERE k.key = :key")
+    int complete(@Param("key") String key,
+                 @Param("responseStatus") int responseStatus,
+                 @Param("responseBody") String responseBody);
+
+    /**
+     * Delete an idempotency key if it has expired, so that it can be claimed again
+     *
+     * @param key The idempotency key
+     * @param now Current time
+     * @return Number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.key = :key AND k.expiresAt <= :now")
+    int deleteIfExpired(@Param("key") String key, @Param("now") ZonedDateTime now);
+
+    /**
+     * Delete those of the given idempotency keys that have expired, so that they can be claimed again
+     *
+     * @param keys The idempotency keys
+     * @param now Current time
+     * @return Number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.key IN :keys AND k.expiresAt <= :now")
+    int deleteIfExpired(@Param("keys") Collection<String> keys, @Param("now") ZonedDateTime now);
+
+    /**
+     * Find which of the given idempotency keys exist and have not expired, without loading them
+     *
+     * @param keys The idempotency keys
+     * @param now Current time
+     * @return The keys that are still valid
+     */
+    @Query("SELECT k.key FROM IdempotencyKey k WHERE k.key IN :keys AND k.expiresAt > :now")
+    List<String> findUnexpiredKeys(@Param("keys") Collection<String> keys, @Param("now") ZonedDateTime now);
+
+    /**
+     * Delete all expired idempotency keys
+     *
+     * @param now Current time
+     * @return Number of deleted rows
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt <= :now")
+    int deleteExpired(@Param("now") ZonedDateTime now);
+}
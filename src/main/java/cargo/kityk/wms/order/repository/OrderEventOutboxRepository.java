@@ -0,0 +1,27 @@
+package cargo.kityk.wms.order.repository;
+
+import cargo.kityk.wms.order.entity.OrderEventOutbox;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderEventOutboxRepository extends JpaRepository<OrderEventOutbox, Long> {
+
+    /**
+     * Find the oldest unpublished events and lock them for the current transaction.
+     * Unlike the stock lock outbox, locked rows are waited for rather than skipped: a relay that skipped
+     * them could publish a later event of an order before the relay holding the earlier one.
+     *
+     * @param limit Maximum number of events to return
+     * @return Events in the order they were written
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OrderEventOutbox e ORDER BY e.id")
+    List<OrderEventOutbox> findOldest(Limit limit);
+}
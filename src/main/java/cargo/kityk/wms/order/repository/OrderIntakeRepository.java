@@ -0,0 +1,42 @@
+package cargo.kityk.wms.order.repository;
+
+import cargo.kityk.wms.order.entity.OrderIntake;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface OrderIntakeRepository extends JpaRepository<OrderIntake, UUID> {
+
+    /**
+     * Find accepted order requests that are due for processing and lock them for the current transaction.
+     * A request is due when it is accepted and its next attempt time has passed, or when the worker
+     * that claimed it has not finished within the claim lease (e.g. it crashed).
+     * Rows locked by another worker are skipped (FOR UPDATE SKIP LOCKED on PostgreSQL),
+     * so concurrent workers claim disjoint batches.
+     *
+     * @param now Current time
+     * @param staleClaimBefore Claims older than this are considered abandoned
+     * @param limit Maximum number of requests to claim
+     * @return Due order requests, oldest first
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT i FROM OrderIntake i " +
+           "WHERE (i.status = cargo.kityk.wms.order.entity.OrderIntake.Status.ACCEPTED AND i.nextAttemptAt <= :now) " +
+           "OR (i.status = cargo.kityk.wms.order.entity.OrderIntake.Status.PROCESSING AND i.claimedAt < :staleClaimBefore) " +
+           "ORDER BY i.createdAt")
+    List<OrderIntake> findDueForProcessing(@Param("now") ZonedDateTime now,
+                                           @Param("staleClaimBefore") ZonedDateTime staleClaimBefore,
+                                           Limit limit);
+}
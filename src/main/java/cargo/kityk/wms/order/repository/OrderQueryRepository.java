@@ -0,0 +1,199 @@
+package cargo.kityk.wms.order.repository;
+
+import cargo.kityk.wms.order.dto.view.OrderItemView;
+import cargo.kityk.wms.order.dto.view.OrderView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Read-only query layer for orders.
+ * Projects joined order/item rows straight into immutable views, bypassing the
+ * persistence context, entity hydration and dirty-check snapshots entirely.
+ * Every method costs exactly one round trip.
+ *
+ * PostgreSQL only honours the fetch size when auto-commit is off, so streaming
+ * callers must run inside a (read-only) transaction.
+ */
+@Repository
+public class OrderQueryRepository {
+
+    static final int FETCH_SIZE = 500;
+
+    private static final String ORDER_COLUMNS =
+        "o.id, o.customer_id, o.order_date, o.status, o.total_amount, o.created_at, o.updated_at, " +
+        "i.id AS item_id, i.product_id, i.quantity, i.price ";
+
+    private static final String KEYSET_ORDER = " ORDER BY o.order_date DESC, o.id DESC";
+
+    private static final String FIND_BY_ID_SQL =
+        "SELECT " + ORDER_COLUMNS +
+        "FROM wms_schema.orders o " +
+        "LEFT JOIN wms_schema.order_items i ON i.order_id = o.id " +
+        "WHERE o.id = ? " +
+        "ORDER BY i.id";
+
+    private static final String FIRST_PAGE_SQL =
+        "SELECT " + ORDER_COLUMNS +
+        "FROM (SELECT * FROM wms_schema.orders o" + KEYSET_ORDER + " LIMIT ?) o " +
+        "LEFT JOIN wms_schema.order_items i ON i.order_id = o.id" +
+        KEYSET_ORDER + ", i.id";
+
+    private static final String PAGE_AFTER_SQL =
+        "SELECT " + ORDER_COLUMNS +
+        "FROM (SELECT * FROM wms_schema.orders o " +
+        "      WHERE o.order_date < ? OR (o.order_date = ? AND o.id < ?)" + KEYSET_ORDER + " LIMIT ?) o " +
+        "LEFT JOIN wms_schema.order_items i ON i.order_id = o.id" +
+        KEYSET_ORDER + ", i.id";
+
+    private static final String STREAM_ALL_SQL =
+        "SELECT " + ORDER_COLUMNS +
+        "FROM wms_schema.orders o " +
+        "LEFT JOIN wms_schema.order_items i ON i.order_id = o.id" +
+        KEYSET_ORDER + ", i.id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public OrderQueryRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * Find a single order with its items
+     *
+     * @param id The order ID
+     * @return An Optional containing the order view if found
+     */
+    public Optional<OrderView> findById(Long id) {
+        List<OrderView> orders = new ArrayList<>(1);
+        query(FIND_BY_ID_SQL, orders::add, id);
+        return orders.stream().findFirst();
+    }
+
+    /**
+     * Find the first keyset page of orders with their items, newest first
+     *
+     * @param limit Maximum number of orders to return
+     * @return List of order views ordered by order date and ID, descending
+     */
+    public List<OrderView> findFirstPage(int limit) {
+        List<OrderView> orders = new ArrayList<>(limit);
+        query(FIRST_PAGE_SQL, orders::add, limit);
+        return orders;
+    }
+
+    /**
+     * Find the keyset page of orders that follows the given (orderDate, id) position
+     *
+     * @param orderDate Order date of the last order on the previous page
+     * @param id ID of the last order on the previous page
+     * @param limit Maximum number of orders to return
+     * @return List of order views ordered by order date and ID, descending
+     */
+    public List<OrderView> findPageAfter(ZonedDateTime orderDate, Long id, int limit) {
+        OffsetDateTime position = orderDate.toOffsetDateTime();
+        List<OrderView> orders = new ArrayList<>(limit);
+        query(PAGE_AFTER_SQL, orders::add, position, position, id, limit);
+        return orders;
+    }
+
+    /**
+     * Streams all orders with their items, newest first.
+     * Each order is handed to the consumer as soon as its last item row has been read.
+     *
+     * @param consumer Receives every order exactly once
+     */
+    public void streamAll(Consumer<OrderView> consumer) {
+        query(STREAM_ALL_SQL, consumer);
+    }
+
+    private void query(String sql, Consumer<OrderView> consumer, Object... args) {
+        OrderRowCollector collector = new OrderRowCollector(consumer);
+        jdbcTemplate.query(sql, collector, args);
+        collector.flush();
+    }
+
+    /**
+     * Folds consecutive joined rows of the same order into one OrderView.
+     */
+    private static final class OrderRowCollector implements RowCallbackHandler {
+        private final Consumer<OrderView> consumer;
+        private ResultSetOrder current;
+
+        OrderRowCollector(Consumer<OrderView> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long orderId = rs.getLong("id");
+            if (current == null || current.id != orderId) {
+                flush();
+                current = new ResultSetOrder(orderId, rs);
+            }
+
+            long itemId = rs.getLong("item_id");
+            if (!rs.wasNull()) {
+                current.items.add(new OrderItemView(
+                    itemId,
+                    rs.getLong("product_id"),
+                    rs.getInt("quantity"),
+                    rs.getBigDecimal("price")));
+            }
+        }
+
+        void flush() {
+            if (current != null) {
+                consumer.accept(current.toView());
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * Order columns of the first row of an order, held while its item rows are collected.
+     */
+    private static final class ResultSetOrder {
+        private final long id;
+        private final long customerId;
+        private final ZonedDateTime orderDate;
+        private final String status;
+        private final BigDecimal totalAmount;
+        private final ZonedDateTime createdAt;
+        private final ZonedDateTime updatedAt;
+        private final List<OrderItemView> items = new ArrayList<>();
+
+        ResultSetOrder(long id, ResultSet rs) throws SQLException {
+            this.id = id;
+            this.customerId = rs.getLong("customer_id");
+            this.orderDate = toZoned(rs, "order_date");
+            this.status = rs.getString("status");
+            this.totalAmount = rs.getBigDecimal("total_amount");
+            this.createdAt = toZoned(rs, "created_at");
+            this.updatedAt = toZoned(rs, "updated_at");
+        }
+
+        OrderView toView() {
+            return new OrderView(id, customerId, orderDate, status, totalAmount, items, createdAt, updatedAt);
+        }
+
+        private static ZonedDateTime toZoned(ResultSet rs, String column) throws SQLException {
+            OffsetDateTime value = rs.getObject(column, OffsetDateTime.class);
+            return value != null ? value.toZonedDateTime() : null;
+        }
+    }
+}
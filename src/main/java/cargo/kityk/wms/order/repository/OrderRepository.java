@@ -1,19 +1,44 @@
 package cargo.kityk.wms.order.repository;
 
 import cargo.kityk.wms.order.entity.Order;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.ZonedDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
+    /**
+     * Find an order by ID, fetching its items in the same query
+     * 
+     * @param id The order ID
+     * @return An Optional containing the order with initialised items if found
+     */
+    @EntityGraph(Order.WITH_ITEMS_GRAPH)
+    Optional<Order> findWithItemsById(Long id);
+    
+    /**
+     * Find an order by ID and lock its row until the end of the transaction.
+     * Concurrent changes of the same order wait for each other, so their order events are committed in the order they are written.
+     * 
+     * @param id The order ID
+     * @return An Optional containing the locked order if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id = :id")
+    Optional<Order> findByIdForUpdate(@Param("id") Long id);
+    
     /**
      * Find all orders for a specific customer
      * 
@@ -84,11 +109,25 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findRecentOrders(Pageable pageable);
     
     /**
-     * Search orders by customer name (case insensitive)
+     * Search orders by customer name (case insensitive).
+     * Customer and items are join-fetched so the result can be mapped without further queries.
      * 
      * @param customerName The customer name to search for
      * @return List of matching orders
      */
-    @Query("SELECT o FROM Order o JOIN o.customer c WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :customerName, '%'))")
+    @Query("SELECT DISTINCT o FROM Order o JOIN FETCH o.customer c LEFT JOIN FETCH o.items " +
+           "WHERE LOWER(c.name) LIKE LOWER(CONCAT('%', :customerName, '%'))")
     List<Order> searchByCustomerName(@Param("customerName") String customerName);
-} 
\ No newline at end of file
+    
+    /**
+     * Update the status of an order without loading it
+     * 
+     * @param id The order ID
+     * @param status The new status
+     * @param updatedAt Time of the update
+     * @return Number of updated orders
+     */
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :updatedAt WHERE o.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") String status, @Param("updatedAt") ZonedDateTime updatedAt);
+}
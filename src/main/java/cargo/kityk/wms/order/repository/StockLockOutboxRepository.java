@@ -0,0 +1,49 @@
+package cargo.kityk.wms.order.repository;
+
+import cargo.kityk.wms.order.entity.StockLockOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Repository
+public interface StockLockOutboxRepository extends JpaRepository<StockLockOutbox, Long> {
+
+    /**
+     * Find outbox records that are due for dispatch and lock them for the current transaction.
+     * A record is due when it is pending and its next attempt time has passed, or when the
+     * dispatcher that claimed it has not finished within the claim lease (e.g. it crashed).
+     * Rows locked by another dispatcher are skipped (FOR UPDATE SKIP LOCKED on PostgreSQL),
+     * so concurrent instances claim disjoint batches.
+     *
+     * @param now Current time
+     * @param staleClaimBefore Claims older than this are considered abandoned
+     * @param limit Maximum number of records to claim
+     * @return Due outbox records, oldest first
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM StockLockOutbox o " +
+           "WHERE (o.status = cargo.kityk.wms.order.entity.StockLockOutbox.Status.PENDING AND o.nextAttemptAt <= :now) " +
+           "OR (o.status = cargo.kityk.wms.order.entity.StockLockOutbox.Status.IN_PROGRESS AND o.claimedAt < :staleClaimBefore) " +
+           "ORDER BY o.id")
+    List<StockLockOutbox> findDueForDispatch(@Param("now") ZonedDateTime now,
+                                             @Param("staleClaimBefore") ZonedDateTime staleClaimBefore,
+                                             Limit limit);
+
+    /**
+     * Find the outbox records of an order
+     *
+     * @param orderId The order ID
+     * @return Outbox records of the order
+     */
+    List<StockLockOutbox> findByOrderId(Long orderId);
+}
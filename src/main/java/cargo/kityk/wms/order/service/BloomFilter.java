@@ -0,0 +1,77 @@
+package cargo.kityk.wms.order.service;
+
+/**
+ * Bloom filter of product IDs: answers "definitely not added" or "probably added".
+ *
+ * Sized for an expected number of IDs and false-positive rate; each ID sets a number of bits chosen
+ * by double hashing. Filling it with more IDs than expected raises the false-positive rate, never
+ * causes a false negative. Not thread-safe while being filled; safe to read once published.
+ */
+final class BloomFilter {
+
+    private final long[] bits;
+    private final long bitSize;
+    private final int hashFunctions;
+    private long bitsSet;
+
+    /**
+     * @param expectedIds Number of IDs that will be added
+     * @param falsePositiveRate Wanted probability that an ID not added is reported as probably added
+     */
+    BloomFilter(long expectedIds, double falsePositiveRate) {
+        long n = Math.max(1, expectedIds);
+        // Optimal size and number of hash functions for n entries at the wanted rate
+        long m = Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        this.bits = new long[(int) ((m + 63) / 64)];
+        this.bitSize = (long) bits.length * 64;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / n * Math.log(2)));
+    }
+
+    void put(long productId) {
+        long h1 = mix(productId);
+        long h2 = mix(h1);
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+            long mask = 1L << index;
+            int word = (int) (index >>> 6);
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                bitsSet++;
+            }
+        }
+    }
+
+    /**
+     * @return false if the ID was definitely not added; true if it probably was
+     */
+    boolean mightContain(long productId) {
+        long h1 = mix(productId);
+        long h2 = mix(h1);
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Probability that an ID not added is reported as probably added, given the bits set so far
+     */
+    double expectedFalsePositiveRate() {
+        return Math.pow((double) bitsSet / bitSize, hashFunctions);
+    }
+
+    long sizeInBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    /** SplitMix64 finalizer: product IDs are sequential, so their bits have to be spread before use */
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
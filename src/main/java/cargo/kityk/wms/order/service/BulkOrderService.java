@@ -0,0 +1,236 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.BulkOrderCreateDTO;
+import cargo.kityk.wms.order.dto.BulkOrderResponseDTO;
+import cargo.kityk.wms.order.dto.BulkOrderResultDTO;
+import cargo.kityk.wms.order.dto.OrderCreateDTO;
+import cargo.kityk.wms.order.dto.OrderItemCreateDTO;
+import cargo.kityk.wms.order.entity.Customer;
+import cargo.kityk.wms.order.entity.Order;
+import cargo.kityk.wms.order.exception.InvalidOrderException;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import cargo.kityk.wms.order.exception.ResourceNotFoundException;
+import cargo.kityk.wms.order.repository.CustomerRepository;
+import cargo.kityk.wms.order.repository.OrderRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates many orders in one go.
+ * Customers and products of the whole batch are validated with one lookup each, all valid orders are
+ * inserted with JDBC batching, and their stock lock outbox records and created events are written in the same
+ * transaction.
+ * Products are checked with the inventory service before that transaction is opened ({@link #validate}), so no
+ * database connection is held during the call; the transaction ({@link #create}) only looks up the customers
+ * and inserts.
+ * An invalid order is rejected on its own and reported in its result; the other orders are still created.
+ */
+@Service
+@Slf4j
+public class BulkOrderService {
+
+    private final OrderRepository orderRepository;
+    private final CustomerRepository customerRepository;
+    private final ProductValidationService productValidationService;
+    private final StockLockOutboxService stockLockOutboxService;
+    private final OrderEventOutboxService orderEventOutboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final int maxOrders;
+
+    @Autowired
+    public BulkOrderService(OrderRepository orderRepository,
+                            CustomerRepository customerRepository,
+                            ProductValidationService productValidationService,
+                            StockLockOutboxService stockLockOutboxService,
+                            OrderEventOutboxService orderEventOutboxService,
+                            PlatformTransactionManager transactionManager,
+                            Validator validator,
+                            @Value("${order.bulk.max-orders:1000}") int maxOrders) {
+        this.orderRepository = orderRepository;
+        this.customerRepository = customerRepository;
+        this.productValidationService = productValidationService;
+        this.stockLockOutboxService = stockLockOutboxService;
+        this.orderEventOutboxService = orderEventOutboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.maxOrders = maxOrders;
+    }
+
+    /**
+     * Orders of a batch that passed the checks made outside of a transaction, with the products found missing
+     */
+    public static final class ValidatedBatch {
+        private final BulkOrderResultDTO[] results;
+        private final Map<Integer, OrderCreateDTO> pending;
+        private final Set<Long> missingProducts;
+
+        private ValidatedBatch(BulkOrderResultDTO[] results, Map<Integer, OrderCreateDTO> pending, Set<Long> missingProducts) {
+            this.results = results;
+            this.pending = pending;
+            this.missingProducts = missingProducts;
+        }
+    }
+
+    /**
+     * Creates all valid orders of the batch
+     *
+     * @param bulkOrderCreateDTO Orders to create
+     * @return Outcome of each order, in request order
+     * @throws InvalidOrderException if the batch is empty or larger than the configured maximum
+     * @throws OrderManagementException if the inventory service is unavailable
+     */
+    public BulkOrderResponseDTO createOrders(BulkOrderCreateDTO bulkOrderCreateDTO) {
+        ValidatedBatch batch = validate(bulkOrderCreateDTO.getOrders());
+        return transactionTemplate.execute(status -> create(batch));
+    }
+
+    /**
+     * Validates the orders of a batch and checks all their products with one lookup.
+     * Must be called outside of a transaction, before {@link #create}.
+     *
+     * @param orders Orders to create
+     * @return The batch, to be created with {@link #create}
+     * @throws InvalidOrderException if the batch is empty or larger than the configured maximum
+     * @throws OrderManagementException if the inventory service is unavailable
+     */
+    public ValidatedBatch validate(List<OrderCreateDTO> orders) {
+        if (orders == null || orders.isEmpty()) {
+            throw new InvalidOrderException("Batch must contain at least one order");
+        }
+        if (orders.size() > maxOrders) {
+            throw new InvalidOrderException(String.format(
+                "Batch contains %d orders, but at most %d are accepted per request", orders.size(), maxOrders));
+        }
+
+        BulkOrderResultDTO[] results = new BulkOrderResultDTO[orders.size()];
+        Map<Integer, OrderCreateDTO> pending = new LinkedHashMap<>();
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (int index = 0; index < orders.size(); index++) {
+            OrderCreateDTO order = orders.get(index);
+            String violations = order == null ? "Order cannot be null" : describeViolations(order);
+            if (violations != null) {
+                results[index] = rejected(index, new InvalidOrderException(violations));
+                continue;
+            }
+            try {
+                // Totals are summed per order here, so one whose quantities overflow is rejected on its own
+                // rather than failing the whole batch when its stock lock request is built
+                productIds.addAll(ProductQuantities.of(order.getItems()).productIds());
+                pending.put(index, order);
+            } catch (InvalidOrderException e) {
+                results[index] = rejected(index, e);
+            }
+        }
+
+        // One product existence check for the whole batch
+        Set<Long> missingProducts = productIds.isEmpty() ? Set.of() : productValidationService.findMissingProducts(productIds);
+        return new ValidatedBatch(results, pending, missingProducts);
+    }
+
+    /**
+     * Creates the valid orders of a validated batch: looks up their customers, inserts them, and writes their
+     * stock lock outbox records and created events
+     *
+     * @param batch Batch returned by {@link #validate}
+     * @return Outcome of each order, in request order
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public BulkOrderResponseDTO create(ValidatedBatch batch) {
+        BulkOrderResultDTO[] results = batch.results.clone();
+        Map<Integer, OrderCreateDTO> pending = new LinkedHashMap<>(batch.pending);
+
+        // One customer lookup for the whole batch; an unknown customer wins over missing products
+        Set<Long> customerIds = pending.values().stream()
+            .map(OrderCreateDTO::getCustomerId)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        Map<Long, Customer> customers = customerRepository.findAllById(customerIds).stream()
+            .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        pending.entrySet().removeIf(entry -> {
+            Long customerId = entry.getValue().getCustomerId();
+            if (customers.containsKey(customerId)) {
+                return false;
+            }
+            results[entry.getKey()] = rejected(entry.getKey(), new ResourceNotFoundException("Customer", customerId));
+            return true;
+        });
+
+        pending.entrySet().removeIf(entry -> {
+            Set<Long> orderMissing = entry.getValue().getItems().stream()
+                .map(OrderItemCreateDTO::getProductId)
+                .filter(batch.missingProducts::contains)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+            if (orderMissing.isEmpty()) {
+                return false;
+            }
+            results[entry.getKey()] = rejected(entry.getKey(), new InvalidOrderException(
+                String.format("The following products do not exist in inventory: %s", orderMissing)));
+            return true;
+        });
+
+        List<Integer> indexes = new ArrayList<>(pending.keySet());
+        List<Order> newOrders = new ArrayList<>(pending.size());
+        pending.values().forEach(order -> newOrders.add(
+            OrderService.buildOrder(customers.get(order.getCustomerId()), order.getItems())));
+        List<Order> savedOrders = orderRepository.saveAll(newOrders);
+
+        Map<Long, List<OrderItemCreateDTO>> stockLocks = new LinkedHashMap<>();
+        for (int i = 0; i < savedOrders.size(); i++) {
+            Order savedOrder = savedOrders.get(i);
+            int index = indexes.get(i);
+            stockLocks.put(savedOrder.getId(), pending.get(index).getItems());
+            results[index] = BulkOrderResultDTO.builder()
+                .index(index)
+                .status(BulkOrderResultDTO.Status.CREATED)
+                .order(OrderService.mapOrderToDTO(savedOrder))
+                .build();
+        }
+        stockLockOutboxService.enqueueAll(stockLocks);
+        orderEventOutboxService.recordCreated(savedOrders);
+
+        int rejectedCount = results.length - savedOrders.size();
+        log.info("Bulk order request processed: {} created, {} rejected", savedOrders.size(), rejectedCount);
+        return BulkOrderResponseDTO.builder()
+            .created(savedOrders.size())
+            .rejected(rejectedCount)
+            .results(List.of(results))
+            .build();
+    }
+
+    private String describeViolations(OrderCreateDTO order) {
+        Set<ConstraintViolation<OrderCreateDTO>> violations = validator.validate(order);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+            .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+            .sorted()
+            .collect(Collectors.joining("; "));
+    }
+
+    private static BulkOrderResultDTO rejected(int index, OrderManagementException reason) {
+        log.warn("ORDER_ERROR_ID={} message=Rejected order {} of bulk request: {}", reason.getErrorId(), index, reason.getMessage());
+        return BulkOrderResultDTO.builder()
+            .index(index)
+            .status(BulkOrderResultDTO.Status.REJECTED)
+            .error(reason.getErrorFormat())
+            .build();
+    }
+}
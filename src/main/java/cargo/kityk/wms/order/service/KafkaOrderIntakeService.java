@@ -0,0 +1,202 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.BulkOrderResponseDTO;
+import cargo.kityk.wms.order.dto.BulkOrderResultDTO;
+import cargo.kityk.wms.order.dto.OrderCreateDTO;
+import cargo.kityk.wms.order.entity.IdempotencyKey;
+import cargo.kityk.wms.order.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates orders from order creation messages read from Kafka, one poll batch per transaction.
+ *
+ * The record key is the sender's reference of the order and makes delivery idempotent: it is stored as
+ * idempotency key "kafka:{key}" in the transaction that creates the order, and a record whose key is already
+ * known, from an earlier batch or earlier in the same batch, is skipped. Redelivered batches therefore never
+ * create an order twice.
+ *
+ * Orders are created through {@link BulkOrderService}, so a batch shares one customer lookup, one product check
+ * and batched inserts, and is validated like orders created over the API. Records that can never become an
+ * order (no key, unreadable, or rejected by validation) are logged and skipped; a failure of the batch as a
+ * whole, such as the inventory service being unavailable, is thrown so that the batch is delivered again.
+ *
+ * Records are counted as order.kafka-intake.records, tagged with outcome created, duplicate or rejected.
+ */
+@Service
+public class KafkaOrderIntakeService {
+    private static final Logger logger = LoggerFactory.getLogger(KafkaOrderIntakeService.class);
+
+    static final String RECORDS_METRIC = "order.kafka-intake.records";
+    static final String KEY_PREFIX = "kafka:";
+
+    /**
+     * Outcome of a batch
+     *
+     * @param created Orders created
+     * @param duplicates Records skipped because their key had already been processed
+     * @param rejected Records that could not be turned into an order
+     */
+    public record Result(int created, int duplicates, int rejected) { }
+
+    private final BulkOrderService bulkOrderService;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration keyTtl;
+    private final Counter createdRecords;
+    private final Counter duplicateRecords;
+    private final Counter rejectedRecords;
+
+    @Autowired
+    public KafkaOrderIntakeService(BulkOrderService bulkOrderService,
+                                   IdempotencyKeyRepository idempotencyKeyRepository,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${order.kafka-intake.key-ttl:P7D}") Duration keyTtl,
+                                   MeterRegistry meterRegistry) {
+        this.bulkOrderService = bulkOrderService;
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.keyTtl = keyTtl;
+        this.createdRecords = recordCounter("created", meterRegistry);
+        this.duplicateRecords = recordCounter("duplicate", meterRegistry);
+        this.rejectedRecords = recordCounter("rejected", meterRegistry);
+    }
+
+    private static Counter recordCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder(RECORDS_METRIC)
+                .description("Order creation records read from Kafka by outcome: created, duplicate or rejected")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Creates the orders of a poll batch and stores their keys, all in one transaction.
+     * Known keys are looked up and the products are checked before that transaction is opened, so no database
+     * connection is held while the inventory service is called.
+     *
+     * @param records Records of the batch, in the order they were polled
+     * @return Outcome of the batch
+     * @throws cargo.kityk.wms.order.exception.OrderManagementException if the inventory service is unavailable
+     */
+    public Result createOrders(List<ConsumerRecord<String, String>> records) {
+        int rejected = 0;
+        int duplicates = 0;
+
+        // The first record of each key; a key that appears again in the batch is a redelivery
+        Map<String, ConsumerRecord<String, String>> recordsByKey = new LinkedHashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            if (record.key() == null || record.key().isBlank()
+                    || KEY_PREFIX.length() + record.key().length() > OrderIdempotencyService.MAX_KEY_LENGTH) {
+                rejected++;
+                reject(record, "Record key must be the order reference, between 1 and "
+                    + (OrderIdempotencyService.MAX_KEY_LENGTH - KEY_PREFIX.length()) + " characters");
+            } else if (recordsByKey.putIfAbsent(KEY_PREFIX + record.key(), record) != null) {
+                duplicates++;
+            }
+        }
+
+        // One lookup for the keys of earlier batches
+        if (!recordsByKey.isEmpty()) {
+            for (String known : idempotencyKeyRepository.findUnexpiredKeys(recordsByKey.keySet(), ZonedDateTime.now())) {
+                recordsByKey.remove(known);
+                duplicates++;
+            }
+        }
+
+        List<String> keys = new ArrayList<>(recordsByKey.size());
+        List<ConsumerRecord<String, String>> readable = new ArrayList<>(recordsByKey.size());
+        List<OrderCreateDTO> orders = new ArrayList<>(recordsByKey.size());
+        recordsByKey.forEach((key, record) -> {
+            try {
+                orders.add(objectMapper.readValue(record.value(), OrderCreateDTO.class));
+                keys.add(key);
+                readable.add(record);
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                reject(record, "Unreadable order request: " + e.getMessage());
+            }
+        });
+        rejected += recordsByKey.size() - orders.size();
+
+        int created = 0;
+        if (!orders.isEmpty()) {
+            BulkOrderService.ValidatedBatch validated = bulkOrderService.validate(orders);
+            created = transactionTemplate.execute(status -> {
+                ZonedDateTime now = ZonedDateTime.now();
+                // Expired keys are cleared so that they can be stored again
+                idempotencyKeyRepository.deleteIfExpired(keys, now);
+                BulkOrderResponseDTO response = bulkOrderService.create(validated);
+                List<IdempotencyKey> newKeys = new ArrayList<>(response.getCreated());
+                for (int i = 0; i < orders.size(); i++) {
+                    BulkOrderResultDTO result = response.getResults().get(i);
+                    if (result.getStatus() == BulkOrderResultDTO.Status.CREATED) {
+                        newKeys.add(new IdempotencyKey(keys.get(i), hash(readable.get(i).value()),
+                            HttpStatus.CREATED.value(), serialize(result), now, now.plus(keyTtl)));
+                    } else {
+                        reject(readable.get(i), result.getError().getDetail());
+                    }
+                }
+                idempotencyKeyRepository.saveAll(newKeys);
+                return newKeys.size();
+            });
+            rejected += orders.size() - created;
+        }
+
+        createdRecords.increment(created);
+        duplicateRecords.increment(duplicates);
+        rejectedRecords.increment(rejected);
+        logger.info("Order intake batch of {} records processed: {} created, {} duplicates, {} rejected",
+            records.size(), created, duplicates, rejected);
+        return new Result(created, duplicates, rejected);
+    }
+
+    private static void reject(ConsumerRecord<String, String> record, String reason) {
+        logger.warn("Order record {} rejected: {}", describe(record), reason);
+    }
+
+    private static String describe(ConsumerRecord<String, String> record) {
+        return record.topic() + "-" + record.partition() + "@" + record.offset() + " (key " + record.key() + ")";
+    }
+
+    private static String hash(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash order record", e);
+        }
+    }
+
+    /** Stored like the response to an API request, so that every idempotency key row has the same shape */
+    private String serialize(BulkOrderResultDTO result) {
+        try {
+            return objectMapper.writeValueAsString(result.getOrder());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order " + result.getOrder().getId(), e);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in the (order_date DESC, id DESC) ordering of orders.
+ * Clients only ever see it as an opaque URL-safe token.
+ *
+ * @param orderDate Order date of the last order on the previous page
+ * @param id ID of the last order on the previous page
+ */
+public record OrderCursor(ZonedDateTime orderDate, Long id) {
+    
+    private static final String SEPARATOR = "|";
+    
+    /**
+     * Encodes this cursor into an opaque token
+     * 
+     * @return URL-safe cursor token
+     */
+    public String encode() {
+        String raw = orderDate.toInstant() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Decodes a token previously produced by {@link #encode()}
+     * 
+     * @param token Cursor token
+     * @return Decoded cursor
+     * @throws OrderManagementException with BAD_REQUEST status if the token is malformed
+     */
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separatorIndex = raw.lastIndexOf(SEPARATOR);
+            if (separatorIndex < 0) {
+                throw new IllegalArgumentException("Missing cursor separator");
+            }
+            Instant orderDate = Instant.parse(raw.substring(0, separatorIndex));
+            Long id = Long.valueOf(raw.substring(separatorIndex + 1));
+            return new OrderCursor(orderDate.atZone(ZoneOffset.UTC), id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new OrderManagementException("Invalid order cursor: " + token, e, HttpStatus.BAD_REQUEST, "critical",
+                "Use the cursor returned with the previous page or omit it to start from the first page");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.OrderEventDTO;
+import cargo.kityk.wms.order.entity.Order;
+import cargo.kityk.wms.order.entity.OrderEventOutbox;
+import cargo.kityk.wms.order.repository.OrderEventOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Transactional operations on the order event outbox.
+ *
+ * Order changes record their events here inside the transaction that makes the change, so that an event is
+ * published if and only if the change is committed. Nothing is recorded unless order events are enabled
+ * (order.events.enabled), because without the relay nothing would ever drain the outbox.
+ */
+@Service
+public class OrderEventOutboxService {
+
+    private final OrderEventOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int batchSize;
+
+    @Autowired
+    public OrderEventOutboxService(OrderEventOutboxRepository outboxRepository,
+                                   ObjectMapper objectMapper,
+                                   @Value("${order.events.enabled:false}") boolean enabled,
+                                   @Value("${order.events.batch-size:500}") int batchSize) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Records that orders were created.
+     * Must be called inside the transaction that inserts the orders, after they were saved.
+     *
+     * @param orders Saved orders
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Collection<Order> orders) {
+        if (!enabled) {
+            return;
+        }
+        List<OrderEventOutbox> events = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            events.add(event(OrderEventDTO.Type.CREATED, order.getId(), order.getStatus()));
+        }
+        outboxRepository.saveAll(events);
+    }
+
+    /**
+     * Records that the status of an order changed.
+     * Must be called inside the transaction that changes the status.
+     *
+     * @param orderId Order ID
+     * @param status New status
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordStatusChanged(Long orderId, String status) {
+        if (enabled) {
+            outboxRepository.save(event(OrderEventDTO.Type.STATUS_CHANGED, orderId, status));
+        }
+    }
+
+    /**
+     * Records that an order was deleted.
+     * Must be called inside the transaction that deletes the order.
+     *
+     * @param orderId Order ID
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeleted(Long orderId) {
+        if (enabled) {
+            outboxRepository.save(event(OrderEventDTO.Type.DELETED, orderId, null));
+        }
+    }
+
+    /**
+     * Hands the oldest unpublished events to the publisher and deletes them once it returns.
+     * If the publisher throws, the transaction rolls back and the events are handed out again next time.
+     *
+     * @param publisher Publishes the events, in the given order, and returns once all of them are acknowledged
+     * @return Number of events published; fewer than the batch size when the outbox has been drained
+     */
+    @Transactional
+    public int publishNextBatch(Consumer<List<OrderEventOutbox>> publisher) {
+        List<OrderEventOutbox> events = outboxRepository.findOldest(Limit.of(batchSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        publisher.accept(events);
+        outboxRepository.deleteAllInBatch(events);
+        return events.size();
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    private OrderEventOutbox event(OrderEventDTO.Type type, Long orderId, String status) {
+        OrderEventDTO event = OrderEventDTO.builder()
+                .type(type)
+                .orderId(orderId)
+                .status(status)
+                .occurredAt(ZonedDateTime.now())
+                .build();
+        try {
+            return new OrderEventOutbox(orderId, type, objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize " + type + " event of order " + orderId, e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.entity.OrderEventOutbox;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes the order event outbox to Kafka.
+ *
+ * Events are keyed by order ID, so all events of an order go to the same partition, and are sent in the order
+ * they were written. The producer is idempotent, so retries inside the producer neither duplicate nor reorder
+ * them. A batch is deleted from the outbox only once Kafka has acknowledged all of it; if any send fails, the
+ * whole batch is sent again on the next run. Events are therefore delivered at least once, and consumers
+ * that must not see one twice can drop repeats by the eventId header.
+ *
+ * Published events are counted as order.events.published.
+ */
+public class OrderEventRelay {
+    private static final Logger logger = LoggerFactory.getLogger(OrderEventRelay.class);
+
+    static final String PUBLISHED_METRIC = "order.events.published";
+    public static final String EVENT_ID_HEADER = "eventId";
+    public static final String EVENT_TYPE_HEADER = "eventType";
+
+    private final OrderEventOutboxService outboxService;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final String topic;
+    private final Duration sendTimeout;
+    private final Counter published;
+
+    public OrderEventRelay(OrderEventOutboxService outboxService,
+                           KafkaTemplate<String, String> kafkaTemplate,
+                           String topic,
+                           Duration sendTimeout,
+                           MeterRegistry meterRegistry) {
+        this.outboxService = outboxService;
+        this.kafkaTemplate = kafkaTemplate;
+        this.topic = topic;
+        this.sendTimeout = sendTimeout;
+        this.published = Counter.builder(PUBLISHED_METRIC)
+                .description("Order events published to Kafka")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes outbox batches until the outbox is drained or publishing fails
+     */
+    @Scheduled(fixedDelayString = "${order.events.relay-interval-ms:200}")
+    public void relay() {
+        try {
+            while (outboxService.publishNextBatch(this::publish) == outboxService.getBatchSize()) {
+                // The batch was full, so there may be more
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not publish order events, retrying on the next run: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Sends a batch of events and waits until Kafka has acknowledged all of them
+     *
+     * @param events Events in the order they were written
+     * @throws IllegalStateException if an event could not be sent
+     */
+    void publish(List<OrderEventOutbox> events) {
+        // The deadline covers the sends too, so the outbox transaction never outlives the send timeout by much
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        List<CompletableFuture<SendResult<String, String>>> sends = new ArrayList<>(events.size());
+        for (OrderEventOutbox event : events) {
+            ProducerRecord<String, String> record =
+                    new ProducerRecord<>(topic, event.getOrderId().toString(), event.getPayload());
+            record.headers().add(EVENT_ID_HEADER, event.getId().toString().getBytes(StandardCharsets.UTF_8));
+            record.headers().add(EVENT_TYPE_HEADER, event.getEventType().name().getBytes(StandardCharsets.UTF_8));
+            sends.add(kafkaTemplate.send(record));
+        }
+        // Send now rather than after the linger time; the batch has already been collected from the outbox
+        kafkaTemplate.flush();
+
+        for (CompletableFuture<SendResult<String, String>> send : sends) {
+            try {
+                send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Could not publish order event: " + e.getCause().getMessage(), e.getCause());
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("Order events not acknowledged within " + sendTimeout, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while publishing order events", e);
+            }
+        }
+        published.increment(events.size());
+    }
+}
@@ -0,0 +1,224 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.OrderCreateDTO;
+import cargo.kityk.wms.order.dto.OrderDTO;
+import cargo.kityk.wms.order.entity.Customer;
+import cargo.kityk.wms.order.entity.IdempotencyKey;
+import cargo.kityk.wms.order.exception.InvalidOrderException;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import cargo.kityk.wms.order.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.HexFormat;
+
+/**
+ * Makes order creation idempotent per client-supplied Idempotency-Key.
+ *
+ * The first request with a key inserts the key in the same transaction as the order and stores the
+ * response with it; a replay of the key returns that stored response without creating another order.
+ * A concurrent duplicate blocks on the key's primary key until the first request commits, then replays.
+ * A request that fails leaves no key behind, so the client can retry it with the same key.
+ *
+ * Completed keys are also kept in a bounded in-memory cache, so most replays are answered without
+ * touching the database. Hit, miss and eviction counts are published as the "idempotency-keys" cache metrics.
+ */
+@Service
+public class OrderIdempotencyService {
+    private static final Logger logger = LoggerFactory.getLogger(OrderIdempotencyService.class);
+
+    static final String CACHE_NAME = "idempotency-keys";
+    static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * Outcome of an idempotent order creation
+     *
+     * @param order The created order, or the order created by the original request
+     * @param status HTTP status of the (original) response
+     * @param replayed true if the response was replayed from an earlier request
+     */
+    public record Result(OrderDTO order, HttpStatus status, boolean replayed) { }
+
+    private record StoredResponse(String requestHash, int status, String body, ZonedDateTime expiresAt) { }
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration keyTtl;
+    private final Cache<String, StoredResponse> cache;
+
+    @Autowired
+    public OrderIdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository,
+                                   OrderService orderService,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${order.idempotency.key-ttl:PT24H}") Duration keyTtl,
+                                   @Value("${order.idempotency.cache-size:10000}") long cacheSize,
+                                   MeterRegistry meterRegistry) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.keyTtl = keyTtl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new UntilKeyExpires())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Creates an order, or replays the response of the earlier request with the same idempotency key
+     *
+     * @param key Client-supplied idempotency key
+     * @param orderCreateDTO Order creation data
+     * @return The order and whether it was replayed
+     * @throws InvalidOrderException if the key is blank or too long
+     * @throws OrderManagementException with UNPROCESSABLE_ENTITY if the key was used for a different request
+     */
+    public Result createOrder(String key, OrderCreateDTO orderCreateDTO) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidOrderException("Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+        String requestHash = hash(orderCreateDTO);
+
+        StoredResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return replay(key, requestHash, cached);
+        }
+
+        // A key completed earlier is replayed without validating the order again
+        StoredResponse stored = idempotencyKeyRepository.findById(key)
+            .filter(existing -> existing.getResponseBody() != null && existing.getExpiresAt().isAfter(ZonedDateTime.now()))
+            .map(OrderIdempotencyService::storedResponse)
+            .orElse(null);
+        if (stored != null) {
+            Result result = replay(key, requestHash, stored);
+            cache.put(key, stored);
+            return result;
+        }
+
+        // Validated before the transaction, so the key's row is not locked while the inventory service is called
+        Customer customer = orderService.validateOrder(orderCreateDTO);
+        return transactionTemplate.execute(status -> createOrReplay(key, requestHash, customer, orderCreateDTO));
+    }
+
+    private Result createOrReplay(String key, String requestHash, Customer customer, OrderCreateDTO orderCreateDTO) {
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime expiresAt = now.plus(keyTtl);
+        idempotencyKeyRepository.deleteIfExpired(key, now);
+
+        if (idempotencyKeyRepository.insertIfAbsent(key, requestHash, now, expiresAt) == 0) {
+            IdempotencyKey existing = idempotencyKeyRepository.findById(key)
+                .orElseThrow(() -> new OrderManagementException("Idempotency key expired while being replayed",
+                    HttpStatus.CONFLICT, "non-critical", "Retry the request"));
+            StoredResponse stored = storedResponse(existing);
+            Result result = replay(key, requestHash, stored);
+            cache.put(key, stored);
+            return result;
+        }
+
+        OrderDTO order = orderService.insertOrder(customer, orderCreateDTO);
+        String body = serialize(order);
+        idempotencyKeyRepository.complete(key, HttpStatus.CREATED.value(), body);
+        // Only cached once the order is committed; a rolled back request must not be replayed
+        StoredResponse stored = new StoredResponse(requestHash, HttpStatus.CREATED.value(), body, expiresAt);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache.put(key, stored);
+            }
+        });
+        return new Result(order, HttpStatus.CREATED, false);
+    }
+
+    private static StoredResponse storedResponse(IdempotencyKey key) {
+        return new StoredResponse(key.getRequestHash(), key.getResponseStatus(), key.getResponseBody(), key.getExpiresAt());
+    }
+
+    private Result replay(String key, String requestHash, StoredResponse stored) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new OrderManagementException("Idempotency key has already been used for a different request",
+                HttpStatus.UNPROCESSABLE_ENTITY, "critical", "Use a new Idempotency-Key for a new order");
+        }
+        logger.info("Replaying response for idempotency key {}", key);
+        try {
+            return new Result(objectMapper.readValue(stored.body(), OrderDTO.class),
+                HttpStatus.valueOf(stored.status()), true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable stored response for idempotency key " + key, e);
+        }
+    }
+
+    /**
+     * Deletes expired idempotency keys
+     */
+    @Scheduled(fixedDelayString = "${order.idempotency.purge-interval-ms:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = idempotencyKeyRepository.deleteExpired(ZonedDateTime.now());
+        if (deleted > 0) {
+            logger.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    private String hash(OrderCreateDTO orderCreateDTO) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(orderCreateDTO)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Could not hash order creation request", e);
+        }
+    }
+
+    private String serialize(OrderDTO order) {
+        try {
+            return objectMapper.writeValueAsString(order);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize response for order " + order.getId(), e);
+        }
+    }
+
+    /**
+     * Keeps each cached response exactly as long as its key is valid in the database
+     */
+    private static final class UntilKeyExpires implements Expiry<String, StoredResponse> {
+        @Override
+        public long expireAfterCreate(String key, StoredResponse value, long currentTime) {
+            return Math.max(0, Duration.between(ZonedDateTime.now(), value.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, StoredResponse value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, StoredResponse value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.BulkOrderResponseDTO;
+import cargo.kityk.wms.order.dto.BulkOrderResultDTO;
+import cargo.kityk.wms.order.dto.OrderCreateDTO;
+import cargo.kityk.wms.order.dto.OrderIntakeDTO;
+import cargo.kityk.wms.order.entity.OrderIntake;
+import cargo.kityk.wms.order.exception.ResourceNotFoundException;
+import cargo.kityk.wms.order.repository.OrderIntakeRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Transactional operations on the async order intake queue.
+ * Requests are accepted by storing them durably, and turned into orders later by {@link OrderIntakeWorker},
+ * one claimed batch at a time through {@link BulkOrderService}, so a batch shares its customer lookup,
+ * product check and insert round trips.
+ */
+@Service
+public class OrderIntakeService {
+    private static final Logger logger = LoggerFactory.getLogger(OrderIntakeService.class);
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OrderIntakeRepository orderIntakeRepository;
+    private final BulkOrderService bulkOrderService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration claimLease;
+    private final Duration retryDelay;
+
+    @Autowired
+    public OrderIntakeService(OrderIntakeRepository orderIntakeRepository,
+                              BulkOrderService bulkOrderService,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${order.intake.batch-size:100}") int batchSize,
+                              @Value("${order.intake.claim-lease:PT5M}") Duration claimLease,
+                              @Value("${order.intake.retry-delay:PT10S}") Duration retryDelay) {
+        this.orderIntakeRepository = orderIntakeRepository;
+        this.bulkOrderService = bulkOrderService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.claimLease = claimLease;
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Durably accepts an order creation request for asynchronous processing
+     *
+     * @param orderCreateDTO Order creation data
+     * @return The accepted request, with the handle to poll
+     */
+    @Transactional
+    public OrderIntakeDTO accept(OrderCreateDTO orderCreateDTO) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(orderCreateDTO);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize order creation request", e);
+        }
+        OrderIntake intake = orderIntakeRepository.save(new OrderIntake(payload));
+        logger.info("Accepted order request {} for asynchronous creation", intake.getId());
+        return toDTO(intake);
+    }
+
+    /**
+     * Retrieves the state of an accepted order request
+     *
+     * @param handle Handle returned when the request was accepted
+     * @return State of the request
+     * @throws ResourceNotFoundException if no request has this handle
+     */
+    @Transactional(readOnly = true)
+    public OrderIntakeDTO getIntake(UUID handle) {
+        return orderIntakeRepository.findById(handle)
+            .map(OrderIntakeService::toDTO)
+            .orElseThrow(() -> new ResourceNotFoundException("Order intake", handle));
+    }
+
+    /**
+     * Claims the next batch of due order requests for this worker.
+     * The claim is committed before returning, so the batch can be processed without holding row locks.
+     *
+     * @return Claimed requests, with their attempt counter already incremented
+     */
+    @Transactional
+    public List<OrderIntake> claimBatch() {
+        ZonedDateTime now = ZonedDateTime.now();
+        List<OrderIntake> due = orderIntakeRepository.findDueForProcessing(now, now.minus(claimLease), Limit.of(batchSize));
+        for (OrderIntake intake : due) {
+            intake.setStatus(OrderIntake.Status.PROCESSING);
+            intake.setClaimedAt(now);
+            intake.setAttempts(intake.getAttempts() + 1);
+        }
+        return due;
+    }
+
+    /**
+     * Creates the orders of a claimed batch and records the outcome of each request, all in one transaction.
+     * The products of the batch are checked before that transaction is opened, so no database connection is
+     * held while the inventory service is called.
+     * Requests rejected by validation are marked as such; if the batch as a whole fails (e.g. the inventory
+     * service is unavailable), nothing is committed and the caller decides whether to retry.
+     *
+     * @param batch Claimed requests
+     */
+    public void createOrders(List<OrderIntake> batch) {
+        List<UUID> readable = new ArrayList<>(batch.size());
+        List<OrderCreateDTO> requests = new ArrayList<>(batch.size());
+        Map<UUID, String> unreadable = new LinkedHashMap<>();
+        for (OrderIntake claimed : batch) {
+            try {
+                requests.add(objectMapper.readValue(claimed.getPayload(), OrderCreateDTO.class));
+                readable.add(claimed.getId());
+            } catch (JsonProcessingException e) {
+                unreadable.put(claimed.getId(), "Unreadable order request: " + e.getOriginalMessage());
+            }
+        }
+        BulkOrderService.ValidatedBatch validated = readable.isEmpty() ? null : bulkOrderService.validate(requests);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<UUID, OrderIntake> intakes = orderIntakeRepository.findAllById(batch.stream().map(OrderIntake::getId).toList())
+                .stream()
+                .collect(Collectors.toMap(OrderIntake::getId, Function.identity()));
+            unreadable.forEach((handle, error) -> reject(intakes.get(handle), error));
+            if (validated == null) {
+                return;
+            }
+
+            BulkOrderResponseDTO response = bulkOrderService.create(validated);
+            for (int i = 0; i < readable.size(); i++) {
+                OrderIntake intake = intakes.get(readable.get(i));
+                BulkOrderResultDTO result = response.getResults().get(i);
+                if (result.getStatus() == BulkOrderResultDTO.Status.CREATED) {
+                    intake.setStatus(OrderIntake.Status.CREATED);
+                    intake.setOrderId(result.getOrder().getId());
+                    intake.setClaimedAt(null);
+                    intake.setLastError(null);
+                } else {
+                    reject(intake, result.getError().getDetail());
+                }
+            }
+        });
+    }
+
+    /**
+     * Puts claimed requests back in the queue after a transient failure
+     *
+     * @param handles Handles of the requests
+     * @param error Description of the failure
+     */
+    @Transactional
+    public void scheduleRetry(Collection<UUID> handles, String error) {
+        orderIntakeRepository.findAllById(handles).forEach(intake -> {
+            intake.setStatus(OrderIntake.Status.ACCEPTED);
+            intake.setClaimedAt(null);
+            intake.setNextAttemptAt(ZonedDateTime.now().plus(retryDelay));
+            intake.setLastError(truncate(error));
+        });
+    }
+
+    /**
+     * Gives up on claimed requests
+     *
+     * @param handles Handles of the requests
+     * @param error Description of the failure
+     */
+    @Transactional
+    public void markRejected(Collection<UUID> handles, String error) {
+        orderIntakeRepository.findAllById(handles).forEach(intake -> reject(intake, error));
+    }
+
+    private static void reject(OrderIntake intake, String error) {
+        intake.setStatus(OrderIntake.Status.REJECTED);
+        intake.setClaimedAt(null);
+        intake.setLastError(truncate(error));
+        logger.warn("Order request {} rejected: {}", intake.getId(), error);
+    }
+
+    private static OrderIntakeDTO toDTO(OrderIntake intake) {
+        return OrderIntakeDTO.builder()
+            .handle(intake.getId())
+            .status(intake.getStatus())
+            .orderId(intake.getOrderId())
+            .error(intake.getStatus() == OrderIntake.Status.REJECTED ? intake.getLastError() : null)
+            .acceptedAt(intake.getCreatedAt())
+            .updatedAt(intake.getUpdatedAt())
+            .build();
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
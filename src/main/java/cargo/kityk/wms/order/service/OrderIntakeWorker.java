@@ -0,0 +1,151 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.config.WorkerThreads;
+import cargo.kityk.wms.order.entity.OrderIntake;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Turns order requests accepted in async mode into orders.
+ * On every poll, a fixed number of workers drain the intake queue in parallel; each claims a batch in a
+ * short transaction and creates its orders in another. Because batches are claimed with SKIP LOCKED,
+ * workers of this and other instances never process the same request twice. Each worker stops after the
+ * configured number of batches per poll, so a long queue never keeps the poll running indefinitely; the
+ * next poll continues where it stopped.
+ *
+ * A batch that fails as a whole because the inventory service or the database is unavailable is retried up to
+ * the configured number of attempts; after that its requests are rejected. A batch that fails for any other reason
+ * is split until the request causing the failure is found, and only that request is rejected.
+ */
+@Component
+@ConditionalOnProperty(name = "order.intake.worker.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderIntakeWorker {
+    private static final Logger logger = LoggerFactory.getLogger(OrderIntakeWorker.class);
+
+    private final OrderIntakeService orderIntakeService;
+    private final int workers;
+    private final int maxAttempts;
+    private final int maxBatchesPerRun;
+    private final ExecutorService executor;
+
+    @Autowired
+    public OrderIntakeWorker(OrderIntakeService orderIntakeService,
+                             @Value("${order.intake.workers:2}") int workers,
+                             @Value("${order.intake.max-attempts:5}") int maxAttempts,
+                             @Value("${order.intake.max-batches-per-run:20}") int maxBatchesPerRun,
+                             @Value("${" + WorkerThreads.VIRTUAL_THREADS_PROPERTY + ":false}") boolean virtualThreads) {
+        this.orderIntakeService = orderIntakeService;
+        this.workers = workers;
+        this.maxAttempts = maxAttempts;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.executor = Executors.newFixedThreadPool(workers, WorkerThreads.factory("order-intake-", virtualThreads));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Lets every worker drain the queue and waits until all of them found it empty or reached the batch limit
+     */
+    @Scheduled(fixedDelayString = "${order.intake.poll-interval-ms:200}")
+    public void poll() {
+        CompletableFuture<?>[] drains = new CompletableFuture<?>[workers];
+        for (int i = 0; i < workers; i++) {
+            drains[i] = CompletableFuture.runAsync(this::drain, executor);
+        }
+        try {
+            CompletableFuture.allOf(drains).join();
+        } catch (CompletionException e) {
+            logger.error("Order intake worker failed", e.getCause());
+        }
+    }
+
+    void drain() {
+        for (int batches = 0; batches < maxBatchesPerRun; batches++) {
+            List<OrderIntake> batch = orderIntakeService.claimBatch();
+            if (batch.isEmpty()) {
+                return;
+            }
+            process(batch);
+        }
+    }
+
+    /**
+     * Creates the orders of a batch. After a transient failure the batch is retried as a whole; any other failure
+     * is narrowed down by creating each half of the batch on its own, until the failing request is rejected alone.
+     */
+    void process(List<OrderIntake> batch) {
+        try {
+            orderIntakeService.createOrders(batch);
+            logger.info("Processed {} asynchronously accepted order requests", batch.size());
+        } catch (RuntimeException e) {
+            if (isTransient(e)) {
+                retryOrReject(batch, e);
+            } else if (batch.size() > 1) {
+                logger.warn("Failed to process {} order requests, processing them in two halves: {}",
+                        batch.size(), e.getMessage());
+                int half = batch.size() / 2;
+                process(batch.subList(0, half));
+                process(batch.subList(half, batch.size()));
+            } else {
+                logger.warn("Failed to process order request {}: {}", batch.getFirst().getId(), e.getMessage());
+                orderIntakeService.markRejected(List.of(batch.getFirst().getId()), e.getMessage());
+            }
+        }
+    }
+
+    private void retryOrReject(List<OrderIntake> batch, RuntimeException e) {
+        List<UUID> retry = new ArrayList<>();
+        List<UUID> exhausted = new ArrayList<>();
+        for (OrderIntake intake : batch) {
+            (intake.getAttempts() >= maxAttempts ? exhausted : retry).add(intake.getId());
+        }
+        logger.warn("Failed to process {} order requests ({} will be retried): {}",
+                batch.size(), retry.size(), e.getMessage());
+        if (!retry.isEmpty()) {
+            orderIntakeService.scheduleRetry(retry, e.getMessage());
+        }
+        if (!exhausted.isEmpty()) {
+            orderIntakeService.markRejected(exhausted, e.getMessage());
+        }
+    }
+
+    /**
+     * Whether a failure, or one of its causes, may go away by itself: the inventory service or the database
+     * being unavailable. The same failures are retried by the Kafka order intake.
+     */
+    static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof OrderManagementException e && e.getStatus() == HttpStatus.SERVICE_UNAVAILABLE
+                    || cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,83 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.view.OrderView;
+import cargo.kityk.wms.order.dto.view.OrderViewPage;
+import cargo.kityk.wms.order.exception.ResourceNotFoundException;
+import cargo.kityk.wms.order.repository.OrderQueryRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Read side of order management.
+ * Serves the GET endpoints from immutable views projected directly from SQL rows,
+ * so no entities are loaded into a persistence context on the read path.
+ */
+@Service
+public class OrderQueryService {
+
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 200;
+
+    private final OrderQueryRepository orderQueryRepository;
+
+    @Autowired
+    public OrderQueryService(OrderQueryRepository orderQueryRepository) {
+        this.orderQueryRepository = orderQueryRepository;
+    }
+
+    /**
+     * Retrieves an order by ID
+     * 
+     * @param orderId Order ID
+     * @return Order view
+     * @throws ResourceNotFoundException if order not found
+     */
+    public OrderView getOrder(Long orderId) {
+        return orderQueryRepository.findById(orderId)
+            .orElseThrow(() -> new ResourceNotFoundException("Order", orderId));
+    }
+
+    /**
+     * Lists one keyset page of orders, newest first
+     * 
+     * @param cursor Cursor returned with the previous page, or null for the first page
+     * @param limit Requested page size, or null for the default; clamped to MAX_PAGE_SIZE
+     * @return Page of orders with the cursor of the following page, if any
+     */
+    public OrderViewPage getOrdersPage(String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        
+        // Fetch one extra order to learn whether another page follows without a count query
+        List<OrderView> orders;
+        if (cursor == null || cursor.isBlank()) {
+            orders = orderQueryRepository.findFirstPage(pageSize + 1);
+        } else {
+            OrderCursor position = OrderCursor.decode(cursor);
+            orders = orderQueryRepository.findPageAfter(position.orderDate(), position.id(), pageSize + 1);
+        }
+        
+        String nextCursor = null;
+        if (orders.size() > pageSize) {
+            orders = orders.subList(0, pageSize);
+            OrderView last = orders.get(pageSize - 1);
+            nextCursor = new OrderCursor(last.orderDate(), last.id()).encode();
+        }
+        
+        return new OrderViewPage(orders, nextCursor);
+    }
+    
+    /**
+     * Streams all orders, newest first, without materialising the result set.
+     * Must be called from the thread that writes the response so the cursor stays open while streaming.
+     * 
+     * @param consumer Receives each order as soon as it has been read
+     */
+    @Transactional(readOnly = true)
+    public void streamAllOrders(Consumer<OrderView> consumer) {
+        orderQueryRepository.streamAll(consumer);
+    }
+}
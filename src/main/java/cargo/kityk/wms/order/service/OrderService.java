@@ -1,5 +1,6 @@
 package cargo.kityk.wms.order.service;
 
+import cargo.kityk.wms.order.config.WorkerThreads;
 import cargo.kityk.wms.order.dto.OrderCreateDTO;
 import cargo.kityk.wms.order.dto.OrderDTO;
 import cargo.kityk.wms.order.dto.OrderItemCreateDTO;
@@ -7,19 +8,30 @@ import cargo.kityk.wms.order.dto.OrderItemDTO;
 import cargo.kityk.wms.order.entity.Customer;
 import cargo.kityk.wms.order.entity.Order;
 import cargo.kityk.wms.order.entity.OrderItem;
+import cargo.kityk.wms.order.exception.InvalidOrderException;
+import cargo.kityk.wms.order.exception.OrderManagementException;
 import cargo.kityk.wms.order.exception.ResourceNotFoundException;
 import cargo.kityk.wms.order.repository.CustomerRepository;
 import cargo.kityk.wms.order.repository.OrderRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,93 +41,147 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final CustomerRepository customerRepository;
     private final ProductValidationService productValidationService;
-    private final StockLockingService stockLockingService;
+    private final StockLockOutboxService stockLockOutboxService;
+    private final OrderEventOutboxService orderEventOutboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService validationExecutor;
     
     @Autowired
     public OrderService(OrderRepository orderRepository, 
                        CustomerRepository customerRepository,
                        ProductValidationService productValidationService,
-                       StockLockingService stockLockingService) {
+                       StockLockOutboxService stockLockOutboxService,
+                       OrderEventOutboxService orderEventOutboxService,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${" + WorkerThreads.VIRTUAL_THREADS_PROPERTY + ":false}") boolean virtualThreads) {
         this.orderRepository = orderRepository;
         this.customerRepository = customerRepository;
         this.productValidationService = productValidationService;
-        this.stockLockingService = stockLockingService;
+        this.stockLockOutboxService = stockLockOutboxService;
+        this.orderEventOutboxService = orderEventOutboxService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validationExecutor = WorkerThreads.perTaskExecutor("order-validation-", virtualThreads);
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        validationExecutor.shutdownNow();
     }
     
     /**
-     * Creates a new order from the provided order data
+     * Creates a new order from the provided order data.
+     * The order is validated before a transaction is opened, so no database connection is held while the
+     * inventory service checks the products; the transaction only inserts the order.
+     * Stock is locked asynchronously: the order is saved together with a stock lock outbox record,
+     * which {@link StockLockDispatcher} sends to the inventory service after this transaction commits.
+     * A created event is written to the order event outbox in the same transaction.
      * 
      * @param orderCreateDTO Order creation data
      * @return Created order as DTO
      * @throws ResourceNotFoundException if customer not found
+     * @throws InvalidOrderException if the order has no items or contains products that do not exist
      */
-    @Transactional
     public OrderDTO createOrder(OrderCreateDTO orderCreateDTO) {
-        // Validate customer exists
-        Customer customer = customerRepository.findById(orderCreateDTO.getCustomerId())
-            .orElseThrow(() -> new ResourceNotFoundException("Customer", orderCreateDTO.getCustomerId()));
-            
-        // Validate that the order contains at least one item
-        if (orderCreateDTO.getItems() == null || orderCreateDTO.getItems().isEmpty()) {
-            String errorId = java.util.UUID.randomUUID().toString();
-            log.warn("ORDER_VALIDATION_ERROR_ID={} message=Order with empty item list is not a valid order to create,", errorId);
-            throw new cargo.kityk.wms.order.exception.InvalidOrderException("Order with empty item list is not a valid order to create");
+        Customer customer = validateOrder(orderCreateDTO);
+        return transactionTemplate.execute(status -> insertOrder(customer, orderCreateDTO));
+    }
+
+    /**
+     * Checks that the customer exists, that the order has items and that all its products exist.
+     * Must be called outside of a transaction. The customer lookup and the product check are independent,
+     * so they run on their own threads; validation takes as long as the slower of the two instead of their sum,
+     * and the first of them to fail cancels the other.
+     *
+     * @param orderCreateDTO Order creation data
+     * @return The customer placing the order
+     * @throws ResourceNotFoundException if customer not found
+     * @throws InvalidOrderException if the order has no items or contains products that do not exist
+     */
+    Customer validateOrder(OrderCreateDTO orderCreateDTO) {
+        List<OrderItemCreateDTO> items = orderCreateDTO.getItems();
+        if (items != null && !items.isEmpty()) {
+            return validateConcurrently(orderCreateDTO.getCustomerId(), items);
         }
+
+        // Validate customer exists; an unknown customer wins over an empty order
+        findCustomer(orderCreateDTO.getCustomerId());
             
-        // Create new order using setters instead of builder
-        Order newOrder = new Order();
-        newOrder.setCustomer(customer);
-        newOrder.setOrderDate(ZonedDateTime.now());
-        newOrder.setStatus("Pending");
-        newOrder.setTotalAmount(BigDecimal.ZERO);
-        newOrder.setItems(new ArrayList<>());
-            
-        // Add order items
-        if (orderCreateDTO.getItems() != null && !orderCreateDTO.getItems().isEmpty()) {
-            // Extract product IDs for validation
-            List<Long> productIds = orderCreateDTO.getItems().stream()
-                .map(OrderItemCreateDTO::getProductId)
-                .collect(Collectors.toList());
-                
-            // Validate all products exist in inventory
+        // Validate that the order contains at least one item
+        String errorId = java.util.UUID.randomUUID().toString();
+        log.warn("ORDER_VALIDATION_ERROR_ID={} message=Order with empty item list is not a valid order to create,", errorId);
+        throw new InvalidOrderException("Order with empty item list is not a valid order to create");
+    }
+
+    /**
+     * Looks up the customer and checks the products at the same time, waiting for whichever finishes first.
+     * A failure cancels the check still running, interrupting its thread. When both have failed,
+     * an unknown customer wins over invalid products.
+     */
+    private Customer validateConcurrently(Long customerId, List<OrderItemCreateDTO> items) {
+        // Each distinct product is checked once, however many lines it appears on
+        List<Long> productIds = ProductQuantities.of(items).productIds();
+        CompletionService<Customer> validation = new ExecutorCompletionService<>(validationExecutor);
+        Future<Customer> customerLookup = validation.submit(() -> findCustomer(customerId));
+        Future<Customer> productValidation = validation.submit(() -> {
             productValidationService.validateProductsExist(productIds);
-            
-            BigDecimal totalAmount = BigDecimal.ZERO;
-            
-            for (OrderItemCreateDTO itemDTO : orderCreateDTO.getItems()) {
-                // todo: here I have the price, but it is not in the product on order creation. Just doing it to spice up the UI/should be done on
-                // todo: the later stages, tbd -- probably on packing/sending to port as part of order finalization using current prices.
-                BigDecimal itemPrice = BigDecimal.valueOf(1 + Math.random() * 999).setScale(2, RoundingMode.HALF_UP);
-                BigDecimal itemTotal = itemPrice.multiply(new BigDecimal(itemDTO.getQuantity()));
-                
-                // Build order item using setters
-                OrderItem item = new OrderItem();
-                item.setOrder(newOrder);
-                item.setProductId(itemDTO.getProductId());
-                item.setQuantity(itemDTO.getQuantity());
-                item.setPrice(itemPrice);
-                
-                newOrder.addOrderItem(item);
-                totalAmount = totalAmount.add(itemTotal);
+            return null;
+        });
+        try {
+            for (int pending = 2; pending > 0; pending--) {
+                Future<Customer> done = validation.take();
+                if (done.state() == Future.State.FAILED) {
+                    customerLookup.cancel(true);
+                    productValidation.cancel(true);
+                    Future<Customer> failed = customerLookup.state() == Future.State.FAILED ? customerLookup : done;
+                    throw rethrow(failed.exceptionNow());
+                }
             }
-            
-            newOrder.setTotalAmount(totalAmount);
+            return customerLookup.resultNow();
+        } catch (InterruptedException e) {
+            customerLookup.cancel(true);
+            productValidation.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new OrderManagementException("Interrupted while validating the order", e,
+                HttpStatus.SERVICE_UNAVAILABLE, "non-critical", "Retry the request");
+        }
+    }
+
+    private Customer findCustomer(Long customerId) {
+        return customerRepository.findById(customerId)
+            .orElseThrow(() -> new ResourceNotFoundException("Customer", customerId));
+    }
+
+    /**
+     * Returns the exception of a validation task so it can be rethrown unchanged
+     */
+    private static RuntimeException rethrow(Throwable failure) {
+        if (failure instanceof RuntimeException cause) {
+            return cause;
+        }
+        if (failure instanceof Error cause) {
+            throw cause;
         }
+        return new IllegalStateException("Order validation failed", failure);
+    }
+
+    /**
+     * Inserts an order validated by {@link #validateOrder}, with its stock lock outbox record and created event.
+     * Must be called inside a transaction.
+     *
+     * @param customer The customer placing the order
+     * @param orderCreateDTO Order creation data
+     * @return Created order as DTO
+     */
+    OrderDTO insertOrder(Customer customer, OrderCreateDTO orderCreateDTO) {
+        Order newOrder = buildOrder(customer, orderCreateDTO.getItems());
         
         // Save the order
         Order savedOrder = orderRepository.save(newOrder);
         
-        // Attempt to lock stock for the order items
-        try {
-            stockLockingService.lockStockForOrder(orderCreateDTO.getItems());
-            log.info("Successfully locked stock for order ID: {}", savedOrder.getId());
-        } catch (Exception e) {
-            log.error("Failed to lock stock for order ID: {}. Error: {}", savedOrder.getId(), e.getMessage());
-            // Update order status to indicate stock lock error
-            savedOrder.setStatus("Stock Lock Error");
-            savedOrder = orderRepository.save(savedOrder);
-            log.warn("Order ID: {} status updated to 'Stock Lock Error' due to stock locking failure", savedOrder.getId());
-        }
+        // Queue the stock lock in the same transaction; a failed lock later moves the order to 'Stock Lock Error'
+        stockLockOutboxService.enqueue(savedOrder.getId(), orderCreateDTO.getItems());
+        log.info("Queued stock lock for order ID: {}", savedOrder.getId());
+        orderEventOutboxService.recordCreated(List.of(savedOrder));
         
         // Convert to DTO and return
         return mapOrderToDTO(savedOrder);
@@ -128,39 +194,31 @@ public class OrderService {
      * @return Order as DTO
      * @throws ResourceNotFoundException if order not found
      */
+    @Transactional(readOnly = true)
     public OrderDTO getOrder(Long orderId) {
-        return orderRepository.findById(orderId)
-            .map(this::mapOrderToDTO)
+        return orderRepository.findWithItemsById(orderId)
+            .map(OrderService::mapOrderToDTO)
             .orElseThrow(() -> new ResourceNotFoundException("Order", orderId));
     }
     
     /**
-     * Updates an existing order
+     * Updates an existing order.
+     * New items are checked with the inventory service before the transaction is opened. The order row is then locked,
+     * and a status change is written to the order event outbox in the same transaction.
      * 
      * @param orderId ID of order to update
      * @param orderDTO Updated order data
      * @return Updated order as DTO
      * @throws ResourceNotFoundException if order not found
      */
-    @Transactional
     public OrderDTO updateOrder(Long orderId, OrderDTO orderDTO) {
-        Order existingOrder = orderRepository.findById(orderId)
-            .orElseThrow(() -> new ResourceNotFoundException("Order", orderId));
-            
-        // Update basic fields
-        if (orderDTO.getStatus() != null) {
-            existingOrder.setStatus(orderDTO.getStatus());
-        }
-        
-        if (orderDTO.getShippingAddress() != null) {
-            //todo shipping address? Add to DB/remove from DTO
-        }
-        
         // Validate products if items are being updated
         if (orderDTO.getItems() != null && !orderDTO.getItems().isEmpty()) {
+            // Only the product ids are checked here, so the quantities are not summed
             List<Long> productIds = orderDTO.getItems().stream()
                 .map(OrderItemDTO::getProductId)
-                .collect(Collectors.toList());
+                .distinct()
+                .toList();
                 
             // Validate all products exist in inventory
             productValidationService.validateProductsExist(productIds);
@@ -168,43 +226,88 @@ public class OrderService {
             // todo update order items/should be addressed when the update flow is there  -- will be done with update flow
         }
         
-        // Save updated order
-        Order updatedOrder = orderRepository.save(existingOrder);
-        
-        return mapOrderToDTO(updatedOrder);
+        return transactionTemplate.execute(status -> {
+            Order existingOrder = orderRepository.findByIdForUpdate(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order", orderId));
+                
+            // Update basic fields
+            boolean statusChanged = orderDTO.getStatus() != null && !orderDTO.getStatus().equals(existingOrder.getStatus());
+            if (orderDTO.getStatus() != null) {
+                existingOrder.setStatus(orderDTO.getStatus());
+            }
+            
+            if (orderDTO.getShippingAddress() != null) {
+                //todo shipping address? Add to DB/remove from DTO
+            }
+            
+            // Save updated order
+            Order updatedOrder = orderRepository.save(existingOrder);
+            if (statusChanged) {
+                orderEventOutboxService.recordStatusChanged(orderId, updatedOrder.getStatus());
+            }
+            
+            return mapOrderToDTO(updatedOrder);
+        });
     }
     
     /**
-     * Deletes an order by ID
+     * Deletes an order by ID.
+     * The order row is locked first, and a deleted event is written to the order event outbox in the same transaction.
      * 
      * @param orderId ID of order to delete
      * @throws ResourceNotFoundException if order not found
      */
     @Transactional
     public void deleteOrder(Long orderId) {
-        // Check if order exists before deleting
-        if (!orderRepository.existsById(orderId)) {
-            throw new ResourceNotFoundException("Order", orderId);
-        }
-        orderRepository.deleteById(orderId);
+        Order order = orderRepository.findByIdForUpdate(orderId)
+            .orElseThrow(() -> new ResourceNotFoundException("Order", orderId));
+        orderRepository.delete(order);
+        orderEventOutboxService.recordDeleted(orderId);
     }
     
     /**
-     * Lists all orders
+     * Builds a new pending order with its items.
+     * Products must have been validated by the caller.
      * 
-     * @return List of all orders as DTOs
+     * @param customer Customer placing the order
+     * @param orderItems Items of the order
+     * @return New, unsaved order
      */
-    public List<OrderDTO> getAllOrders() {
-        List<Order> orders = orderRepository.findAll();
-        return orders.stream()
-            .map(this::mapOrderToDTO)
-            .collect(Collectors.toList());
+    static Order buildOrder(Customer customer, List<OrderItemCreateDTO> orderItems) {
+        // Create new order using setters instead of builder
+        Order newOrder = new Order();
+        newOrder.setCustomer(customer);
+        newOrder.setOrderDate(ZonedDateTime.now());
+        newOrder.setStatus("Pending");
+        newOrder.setItems(new ArrayList<>());
+        
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        
+        for (OrderItemCreateDTO itemDTO : orderItems) {
+            // todo: here I have the price, but it is not in the product on order creation. Just doing it to spice up the UI/should be done on
+            // todo: the later stages, tbd -- probably on packing/sending to port as part of order finalization using current prices.
+            BigDecimal itemPrice = BigDecimal.valueOf(1 + Math.random() * 999).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal itemTotal = itemPrice.multiply(new BigDecimal(itemDTO.getQuantity()));
+            
+            // Build order item using setters
+            OrderItem item = new OrderItem();
+            item.setOrder(newOrder);
+            item.setProductId(itemDTO.getProductId());
+            item.setQuantity(itemDTO.getQuantity());
+            item.setPrice(itemPrice);
+            
+            newOrder.addOrderItem(item);
+            totalAmount = totalAmount.add(itemTotal);
+        }
+        
+        newOrder.setTotalAmount(totalAmount);
+        return newOrder;
     }
     
     /**
      * Maps Order entity to OrderDTO
      */
-    private OrderDTO mapOrderToDTO(Order order) {
+    static OrderDTO mapOrderToDTO(Order order) {
         if (order == null) {
             return null;
         }
@@ -222,6 +325,7 @@ public class OrderService {
                 .collect(Collectors.toList());
         }
         
+        // Reading the ID of the lazy customer proxy does not initialise it, so no customer query is issued
         return OrderDTO.builder()
             .id(order.getId())
             .customerId(order.getCustomer().getId())
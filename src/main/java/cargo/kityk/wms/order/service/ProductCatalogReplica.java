@@ -0,0 +1,225 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.service.client.ProductChangeEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.ConsumerAwareMessageListener;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory replica of the active state of every product, fed by the inventory service's product change topic.
+ *
+ * Every instance reads all partitions of the topic from offset zero on startup, because the replica is not
+ * persisted. Until it has caught up with the end of the topic, and whenever it has not been seen caught up
+ * for longer than the maximum staleness (e.g. because the broker is unreachable), it answers nothing and
+ * validation falls back to the inventory service. Products the replica does not know are looked up over HTTP
+ * as well, so a product created a moment ago is never rejected because its event has not arrived yet.
+ *
+ * Records are applied by a single listener container thread; lookups may come from any thread.
+ * Published as inventory.catalog.replica.* metrics: size, staleness and applied events.
+ */
+public class ProductCatalogReplica implements ConsumerAwareMessageListener<String, String>,
+        ConsumerAwareRebalanceListener, ConsumerSeekAware {
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogReplica.class);
+
+    static final String SIZE_METRIC = "inventory.catalog.replica.size";
+    static final String STALENESS_METRIC = "inventory.catalog.replica.staleness";
+    static final String EVENTS_METRIC = "inventory.catalog.replica.events";
+
+    private static final Duration END_OFFSETS_TIMEOUT = Duration.ofSeconds(5);
+
+    private final ObjectMapper objectMapper;
+    private final long maxStalenessNanos;
+    private final LongSupplier nanoTime;
+    private final ProductStateTable table = new ProductStateTable();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Counter appliedEvents;
+
+    private final long startedAt;
+    /** When the replica was last seen caught up with the end of every partition, or 0 if never */
+    private volatile long caughtUpAt;
+    /** Only used on the listener container thread */
+    private Consumer<?, ?> consumer;
+    /** Partitions replayed from offset zero; only used on the listener container thread */
+    private final Set<TopicPartition> replayedPartitions = new HashSet<>();
+
+    public ProductCatalogReplica(ObjectMapper objectMapper, Duration maxStaleness, MeterRegistry meterRegistry) {
+        this(objectMapper, maxStaleness, meterRegistry, System::nanoTime);
+    }
+
+    ProductCatalogReplica(ObjectMapper objectMapper, Duration maxStaleness, MeterRegistry meterRegistry,
+                          LongSupplier nanoTime) {
+        this.objectMapper = objectMapper;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.nanoTime = nanoTime;
+        this.startedAt = nanoTime.getAsLong();
+
+        Gauge.builder(SIZE_METRIC, this, ProductCatalogReplica::size)
+                .description("Products known to the catalog replica")
+                .register(meterRegistry);
+        Gauge.builder(STALENESS_METRIC, this, replica -> replica.stalenessNanos() / 1e9)
+                .description("Seconds since the catalog replica was last caught up with the product change topic")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        this.appliedEvents = Counter.builder(EVENTS_METRIC)
+                .description("Product change events applied to the catalog replica")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Looks up the active state of the given products
+     *
+     * @param productIds Product IDs to look up
+     * @return Whether each product known to the replica is active; empty while the replica is stale
+     */
+    public Map<Long, Boolean> getAllPresent(Collection<Long> productIds) {
+        if (!isFresh()) {
+            return Map.of();
+        }
+        Map<Long, Boolean> present = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Long productId : productIds) {
+                Boolean active = table.get(productId);
+                if (active != null) {
+                    present.put(productId, active);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return present;
+    }
+
+    /**
+     * @return true if the replica has been caught up with the product change topic within the maximum staleness
+     */
+    public boolean isFresh() {
+        return caughtUpAt != 0 && nanoTime.getAsLong() - caughtUpAt <= maxStalenessNanos;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return table.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long stalenessNanos() {
+        return nanoTime.getAsLong() - (caughtUpAt != 0 ? caughtUpAt : startedAt);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        this.consumer = consumer;
+        // The replica starts empty, so it has to read every partition from the start. A partition that comes
+        // back after a rebalance resumes from the committed offset instead: replaying it again would briefly
+        // undo newer events that the replica has already applied.
+        List<TopicPartition> newPartitions = partitions.stream().filter(replayedPartitions::add).toList();
+        if (!newPartitions.isEmpty()) {
+            consumer.seekToBeginning(newPartitions);
+            logger.info("Replaying product change partitions {} from offset zero", newPartitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        logger.info("Product change partitions {} revoked", partitions);
+    }
+
+    @Override
+    public void onMessage(ConsumerRecord<String, String> record, Consumer<?, ?> consumer) {
+        apply(record);
+        // Only the last record of a fetch can leave the partition caught up
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        if (consumer.position(partition) == record.offset() + 1 && hasNoLag(consumer)) {
+            markCaughtUp();
+        }
+    }
+
+    @Override
+    public void onIdleContainer(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        // Ask the broker for the end offsets, so that an unreachable broker lets the replica go stale
+        Consumer<?, ?> idleConsumer = consumer;
+        if (idleConsumer == null) {
+            return;
+        }
+        try {
+            Set<TopicPartition> partitions = idleConsumer.assignment();
+            Map<TopicPartition, Long> endOffsets = idleConsumer.endOffsets(partitions, END_OFFSETS_TIMEOUT);
+            if (partitions.stream().allMatch(partition -> idleConsumer.position(partition) >= endOffsets.get(partition))) {
+                markCaughtUp();
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not check whether the catalog replica is caught up: {}", e.getMessage());
+        }
+    }
+
+    private void apply(ConsumerRecord<String, String> record) {
+        long productId;
+        boolean active = false;
+        try {
+            productId = Long.parseLong(record.key());
+            if (record.value() != null) {
+                active = objectMapper.readValue(record.value(), ProductChangeEvent.class).isActive();
+            }
+        } catch (NumberFormatException | JsonProcessingException e) {
+            logger.warn("Skipping unreadable product change event at {}-{}@{}: {}",
+                    record.topic(), record.partition(), record.offset(), e.getMessage());
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (record.value() == null) {
+                table.remove(productId);
+            } else {
+                table.put(productId, active);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        appliedEvents.increment();
+    }
+
+    private static boolean hasNoLag(Consumer<?, ?> consumer) {
+        for (TopicPartition partition : consumer.assignment()) {
+            OptionalLong lag = consumer.currentLag(partition);
+            if (lag.isEmpty() || lag.getAsLong() > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void markCaughtUp() {
+        if (caughtUpAt == 0) {
+            logger.info("Catalog replica caught up with {} products after {} ms", size(),
+                    TimeUnit.NANOSECONDS.toMillis(nanoTime.getAsLong() - startedAt));
+        }
+        caughtUpAt = nanoTime.getAsLong();
+    }
+}
@@ -0,0 +1,105 @@
+package cargo.kityk.wms.order.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Bounded cache of product existence results from the inventory service.
+ * Products that exist and products that were not found expire after separate TTLs,
+ * so a product created after a failed lookup becomes orderable quickly while hot
+ * products stay cached for longer.
+ *
+ * Hit, miss and eviction counts are published as the "product-existence" cache metrics.
+ */
+@Component
+public class ProductExistenceCache {
+
+    static final String CACHE_NAME = "product-existence";
+
+    private final Cache<Long, Boolean> cache;
+
+    @Autowired
+    public ProductExistenceCache(
+            @Value("${inventory.product-cache.maximum-size:10000}") long maximumSize,
+            @Value("${inventory.product-cache.exists-ttl:PT10M}") Duration existsTtl,
+            @Value("${inventory.product-cache.not-found-ttl:PT1M}") Duration notFoundTtl,
+            MeterRegistry meterRegistry) {
+        this(maximumSize, existsTtl, notFoundTtl, meterRegistry, Ticker.systemTicker());
+    }
+
+    ProductExistenceCache(long maximumSize, Duration existsTtl, Duration notFoundTtl,
+                          MeterRegistry meterRegistry, Ticker ticker) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExistenceExpiry(existsTtl.toNanos(), notFoundTtl.toNanos()))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Looks up the cached existence of the given products
+     *
+     * @param productIds Product IDs to look up
+     * @return Existence of the products that are cached; uncached products are absent from the map
+     */
+    public Map<Long, Boolean> getAllPresent(Collection<Long> productIds) {
+        return cache.getAllPresent(productIds);
+    }
+
+    /**
+     * Records whether a product exists in the inventory
+     *
+     * @param productId Product ID
+     * @param exists true if the inventory service knows the product, false if it answered not found
+     */
+    public void put(Long productId, boolean exists) {
+        cache.put(productId, exists);
+    }
+
+    /**
+     * Removes a product from the cache so that its next validation asks the inventory service
+     *
+     * @param productId Product ID
+     * @return true if the product was cached
+     */
+    public boolean invalidate(Long productId) {
+        return cache.asMap().remove(productId) != null;
+    }
+
+    /**
+     * Removes all products from the cache
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private record ExistenceExpiry(long existsTtlNanos, long notFoundTtlNanos) implements Expiry<Long, Boolean> {
+        @Override
+        public long expireAfterCreate(Long productId, Boolean exists, long currentTime) {
+            return exists ? existsTtlNanos : notFoundTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Long productId, Boolean exists, long currentTime, long currentDuration) {
+            return expireAfterCreate(productId, exists, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Long productId, Boolean exists, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.service.client.InventoryClient;
+import cargo.kityk.wms.order.service.client.ProductIdPage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bloom filter of the IDs of all products, rebuilt periodically from the inventory service's product ID export.
+ *
+ * Validation asks it first: an ID it has definitely not seen is rejected without a request to the inventory
+ * service, which is what most IDs made up by bots get. Any other ID goes on to the normal check, because the
+ * filter has false positives and keeps deleted products until the next rebuild.
+ *
+ * Product IDs are assigned in ascending order, so a product created after the last export has an ID above the
+ * highest exported one. Such IDs are never rejected by the filter; they go on to the normal check as well.
+ * Until the first rebuild succeeds, or when disabled, the filter rejects nothing. A failed rebuild keeps the
+ * previous filter.
+ *
+ * Published as inventory.product-filter.* metrics: size, products, expected false-positive rate,
+ * rebuild duration and rejected IDs.
+ */
+@Component
+public class ProductIdFilter {
+    private static final Logger logger = LoggerFactory.getLogger(ProductIdFilter.class);
+
+    static final String SIZE_METRIC = "inventory.product-filter.size";
+    static final String PRODUCTS_METRIC = "inventory.product-filter.products";
+    static final String FALSE_POSITIVE_RATE_METRIC = "inventory.product-filter.false-positive-rate";
+    static final String REBUILD_METRIC = "inventory.product-filter.rebuild";
+    static final String REJECTED_METRIC = "inventory.product-filter.rejected";
+
+    private final InventoryClient inventoryClient;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final int pageSize;
+    private final Timer rebuildDuration;
+    private final Counter rejected;
+
+    /** Latest filter, or null until the first rebuild succeeds */
+    private volatile Snapshot snapshot;
+
+    @Autowired
+    public ProductIdFilter(
+            InventoryClient inventoryClient,
+            @Value("${inventory.product-filter.enabled:false}") boolean enabled,
+            @Value("${inventory.product-filter.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${inventory.product-filter.page-size:10000}") int pageSize,
+            MeterRegistry meterRegistry) {
+        this.inventoryClient = inventoryClient;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.pageSize = pageSize;
+
+        Gauge.builder(SIZE_METRIC, this, filter -> filter.snapshot == null ? 0 : filter.snapshot.filter().sizeInBytes())
+                .description("Memory taken by the product ID Bloom filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder(PRODUCTS_METRIC, this, filter -> filter.snapshot == null ? 0 : filter.snapshot.products())
+                .description("Product IDs in the Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder(FALSE_POSITIVE_RATE_METRIC, this,
+                        filter -> filter.snapshot == null ? 0 : filter.snapshot.filter().expectedFalsePositiveRate())
+                .description("Expected probability that the Bloom filter lets an unknown product ID through")
+                .register(meterRegistry);
+        this.rebuildDuration = Timer.builder(REBUILD_METRIC)
+                .description("Time taken to export the product IDs and rebuild the Bloom filter")
+                .register(meterRegistry);
+        this.rejected = Counter.builder(REJECTED_METRIC)
+                .description("Product IDs rejected by the Bloom filter without asking the inventory service")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param productId Product ID to check
+     * @return true if the product definitely does not exist; false if it may exist and has to be checked
+     */
+    public boolean isDefinitelyMissing(long productId) {
+        Snapshot current = snapshot;
+        if (current == null || productId > current.maxProductId() || current.filter().mightContain(productId)) {
+            return false;
+        }
+        rejected.increment();
+        return true;
+    }
+
+    /**
+     * Exports all product IDs from the inventory service and replaces the filter with one built from them
+     */
+    @Scheduled(fixedDelayString = "${inventory.product-filter.rebuild-interval-ms:900000}")
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            long[] productIds = exportProductIds();
+            BloomFilter filter = new BloomFilter(productIds.length, falsePositiveRate);
+            for (long productId : productIds) {
+                filter.put(productId);
+            }
+            long maxProductId = productIds.length == 0 ? 0 : productIds[productIds.length - 1];
+            snapshot = new Snapshot(filter, productIds.length, maxProductId);
+            long elapsed = System.nanoTime() - start;
+            rebuildDuration.record(elapsed, TimeUnit.NANOSECONDS);
+            logger.info("Rebuilt product ID filter with {} products ({} bytes) in {} ms", productIds.length,
+                    filter.sizeInBytes(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+        } catch (RuntimeException e) {
+            logger.warn("Could not rebuild the product ID filter, keeping the previous one: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return All product IDs, in ascending order
+     */
+    private long[] exportProductIds() {
+        long[] productIds = new long[pageSize];
+        int count = 0;
+        long afterId = 0;
+        while (true) {
+            ProductIdPage page = inventoryClient.getProductIds(afterId, pageSize);
+            List<Long> ids = page == null || page.getProductIds() == null ? List.of() : page.getProductIds();
+            for (Long productId : ids) {
+                if (productId <= afterId) {
+                    throw new IllegalStateException("Product ID export is not in ascending order at " + productId);
+                }
+                if (count == productIds.length) {
+                    productIds = Arrays.copyOf(productIds, count * 2);
+                }
+                productIds[count++] = productId;
+                afterId = productId;
+            }
+            if (ids.size() < pageSize) {
+                return Arrays.copyOf(productIds, count);
+            }
+        }
+    }
+
+    private record Snapshot(BloomFilter filter, int products, long maxProductId) {
+    }
+}
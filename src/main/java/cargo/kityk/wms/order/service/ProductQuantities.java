@@ -0,0 +1,144 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.StockLockItemDTO;
+import cargo.kityk.wms.order.dto.base.BaseOrderItemDTO;
+import cargo.kityk.wms.order.exception.InvalidOrderException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Total quantity per product of one or more order lines, in order of first appearance.
+ * Order lines are normalized with it before any call to the inventory service, so that a product that
+ * appears on several lines is validated and locked once, and requests grow with distinct products, not lines.
+ *
+ * Keeps product IDs and quantities in primitive arrays with an open-addressing index, so summing the lines
+ * of a large order neither boxes a key nor allocates a node per line. Not thread-safe.
+ */
+final class ProductQuantities {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private long[] productIds;
+    private int[] quantities;
+    private int size;
+    /** Open-addressing table of indexes into productIds, plus one; 0 marks a free slot */
+    private int[] slots;
+
+    ProductQuantities() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private ProductQuantities(int expectedProducts) {
+        int capacity = Math.max(INITIAL_CAPACITY, expectedProducts);
+        productIds = new long[capacity];
+        quantities = new int[capacity];
+        slots = new int[tableSizeFor(capacity)];
+    }
+
+    /**
+     * Sums the quantities of the given order lines per product
+     *
+     * @param items Order lines; each must have a product ID and a quantity
+     * @return Total quantity per product
+     * @throws InvalidOrderException if the total quantity of a product does not fit in an int
+     */
+    static ProductQuantities of(List<? extends BaseOrderItemDTO> items) {
+        ProductQuantities result = new ProductQuantities(items.size());
+        for (BaseOrderItemDTO item : items) {
+            result.add(item.getProductId(), item.getQuantity());
+        }
+        return result;
+    }
+
+    /**
+     * Adds a quantity of a product
+     *
+     * @throws InvalidOrderException if the total quantity of the product no longer fits in an int
+     */
+    void add(long productId, int quantity) {
+        int mask = slots.length - 1;
+        int slot = hash(productId) & mask;
+        while (slots[slot] != 0) {
+            int index = slots[slot] - 1;
+            if (productIds[index] == productId) {
+                quantities[index] = addQuantity(productId, quantities[index], quantity);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == productIds.length) {
+            grow();
+            add(productId, quantity);
+            return;
+        }
+        productIds[size] = productId;
+        quantities[size] = quantity;
+        slots[slot] = ++size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return Distinct product IDs, in order of first appearance
+     */
+    List<Long> productIds() {
+        List<Long> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(productIds[i]);
+        }
+        return result;
+    }
+
+    /**
+     * @return One stock lock item per distinct product, in order of first appearance
+     */
+    List<StockLockItemDTO> toStockLockItems() {
+        List<StockLockItemDTO> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(StockLockItemDTO.builder()
+                    .productId(productIds[i])
+                    .quantity(quantities[i])
+                    .build());
+        }
+        return result;
+    }
+
+    private static int addQuantity(long productId, int total, int quantity) {
+        try {
+            return Math.addExact(total, quantity);
+        } catch (ArithmeticException e) {
+            throw new InvalidOrderException("Total quantity of product " + productId + " is too large");
+        }
+    }
+
+    private void grow() {
+        int capacity = productIds.length * 2;
+        productIds = Arrays.copyOf(productIds, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        slots = new int[tableSizeFor(capacity)];
+        int mask = slots.length - 1;
+        for (int i = 0; i < size; i++) {
+            int slot = hash(productIds[i]) & mask;
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = i + 1;
+        }
+    }
+
+    /** Power of two with room for twice the capacity, so probe sequences stay short */
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private static int hash(long productId) {
+        // Product IDs are sequential; spread them so neighbours do not fill consecutive slots
+        long h = productId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
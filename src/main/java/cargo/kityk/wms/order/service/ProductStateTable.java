@@ -0,0 +1,95 @@
+package cargo.kityk.wms.order.service;
+
+/**
+ * Active state per product ID, kept in primitive arrays with an open-addressing index,
+ * so a replica of a large catalog costs 9 bytes per slot and no object per product.
+ * Removed products leave a marker that is dropped when the table is rehashed. Not thread-safe.
+ */
+final class ProductStateTable {
+
+    private static final byte FREE = 0;
+    private static final byte ACTIVE = 1;
+    private static final byte INACTIVE = 2;
+    private static final byte REMOVED = 3;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] productIds = new long[INITIAL_CAPACITY];
+    private byte[] states = new byte[INITIAL_CAPACITY];
+    /** Slots in use, removed markers included */
+    private int used;
+    private int size;
+
+    /**
+     * @return Whether the product is active, or null if the table does not know it
+     */
+    Boolean get(long productId) {
+        int slot = find(productId);
+        if (slot < 0 || states[slot] == REMOVED) {
+            return null;
+        }
+        return states[slot] == ACTIVE;
+    }
+
+    void put(long productId, boolean active) {
+        // Keep at least a quarter of the slots free, so probe sequences stay short
+        if ((used + 1) * 4 > productIds.length * 3) {
+            rehash(size * 4 > productIds.length ? productIds.length * 2 : productIds.length);
+        }
+        int slot = slotFor(productId);
+        if (states[slot] == FREE) {
+            used++;
+        }
+        if (states[slot] == FREE || states[slot] == REMOVED) {
+            size++;
+        }
+        productIds[slot] = productId;
+        states[slot] = active ? ACTIVE : INACTIVE;
+    }
+
+    void remove(long productId) {
+        int slot = find(productId);
+        if (slot >= 0 && states[slot] != REMOVED) {
+            states[slot] = REMOVED;
+            size--;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int find(long productId) {
+        int slot = slotFor(productId);
+        return states[slot] == FREE ? -1 : slot;
+    }
+
+    /** The slot that holds the product, or the free slot where it belongs */
+    private int slotFor(long productId) {
+        int mask = productIds.length - 1;
+        int slot = hash(productId) & mask;
+        while (states[slot] != FREE && productIds[slot] != productId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldProductIds = productIds;
+        byte[] oldStates = states;
+        productIds = new long[capacity];
+        states = new byte[capacity];
+        used = 0;
+        size = 0;
+        for (int i = 0; i < oldProductIds.length; i++) {
+            if (oldStates[i] == ACTIVE || oldStates[i] == INACTIVE) {
+                put(oldProductIds[i], oldStates[i] == ACTIVE);
+            }
+        }
+    }
+
+    private static int hash(long productId) {
+        // Product IDs are sequential; spread them so neighbours do not fill consecutive slots
+        long h = productId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -1,37 +1,112 @@
 package cargo.kityk.wms.order.service;
 
+import cargo.kityk.wms.order.config.WorkerThreads;
 import cargo.kityk.wms.order.exception.InvalidOrderException;
 import cargo.kityk.wms.order.exception.OrderManagementException;
 import cargo.kityk.wms.order.service.client.InventoryClient;
+import cargo.kityk.wms.order.service.client.ProductExistenceRequest;
+import cargo.kityk.wms.order.service.client.ProductExistenceResponse;
 import feign.FeignException;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Service responsible for validating products in orders.
  * Uses the inventory client to check if products exist in the inventory.
+ *
+ * When the {@link ProductIdFilter} is enabled, products it definitely does not know are rejected first,
+ * without a request to the inventory service.
+ *
+ * When the {@link ProductCatalogReplica} is enabled and fresh, products it knows to be active are accepted
+ * without asking anyone. It never rejects a product: inactive and unknown products, or all products while
+ * the replica is stale, are checked as before, so the inventory service stays the authority on rejections.
+ *
+ * Results are cached in {@link ProductExistenceCache}, so only products that are not cached
+ * reach the inventory service. Those are checked with one batch request. When the inventory service
+ * does not offer the batch endpoint, products are checked one by one in parallel, with the
+ * number of concurrent requests to the inventory service bounded across all callers.
  */
 @Service
 public class ProductValidationService {
     private static final Logger logger = LoggerFactory.getLogger(ProductValidationService.class);
-    
+
+    // How long to stay on the fallback path before probing the batch endpoint again
+    static final long BATCH_REPROBE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
     private final InventoryClient inventoryClient;
-    
+    private final ProductExistenceCache productExistenceCache;
+    private final ProductCatalogReplica productCatalogReplica;
+    private final ProductIdFilter productIdFilter;
+    private final ExecutorService fallbackExecutor;
+    private volatile long batchUnsupportedUntil;
+
     @Autowired
-    public ProductValidationService(InventoryClient inventoryClient) {
+    public ProductValidationService(
+            InventoryClient inventoryClient,
+            ProductExistenceCache productExistenceCache,
+            ObjectProvider<ProductCatalogReplica> productCatalogReplica,
+            ProductIdFilter productIdFilter,
+            @Value("${inventory.validation.fallback-concurrency:8}") int fallbackConcurrency,
+            @Value("${" + WorkerThreads.VIRTUAL_THREADS_PROPERTY + ":false}") boolean virtualThreads) {
+        this(inventoryClient, productExistenceCache, productCatalogReplica.getIfAvailable(), productIdFilter,
+            fallbackConcurrency, virtualThreads);
+    }
+
+    /**
+     * Service without catalog replica and product ID filter
+     */
+    ProductValidationService(
+            InventoryClient inventoryClient,
+            ProductExistenceCache productExistenceCache,
+            int fallbackConcurrency,
+            boolean virtualThreads) {
+        this(inventoryClient, productExistenceCache, (ProductCatalogReplica) null, null, fallbackConcurrency, virtualThreads);
+    }
+
+    /**
+     * @param productCatalogReplica Local catalog replica, or null when it is disabled
+     * @param productIdFilter Bloom filter of known product IDs, or null to check every product
+     */
+    ProductValidationService(
+            InventoryClient inventoryClient,
+            ProductExistenceCache productExistenceCache,
+            ProductCatalogReplica productCatalogReplica,
+            ProductIdFilter productIdFilter,
+            int fallbackConcurrency,
+            boolean virtualThreads) {
         this.inventoryClient = inventoryClient;
+        this.productExistenceCache = productExistenceCache;
+        this.productCatalogReplica = productCatalogReplica;
+        this.productIdFilter = productIdFilter;
+        this.fallbackExecutor = Executors.newFixedThreadPool(fallbackConcurrency,
+                WorkerThreads.factory("product-validation-", virtualThreads));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fallbackExecutor.shutdownNow();
     }
-    
+
     /**
      * Validates that all products in the given list exist in the inventory.
-     * 
+     *
      * @param productIds List of product IDs to validate
      * @throws InvalidOrderException if any product does not exist
      */
@@ -40,43 +115,165 @@ public class ProductValidationService {
             logger.warn("Empty product list provided for validation");
             return;
         }
-        
-        Set<Long> invalidProducts = productIds.stream()
-                .filter(this::isProductInvalid)
-                .collect(Collectors.toSet());
-        
+
+        Set<Long> invalidProducts = findMissingProducts(productIds);
         if (!invalidProducts.isEmpty()) {
             String errorMessage = String.format(
-                    "The following products do not exist in inventory: %s", 
+                    "The following products do not exist in inventory: %s",
                     invalidProducts
             );
             logger.error(errorMessage);
             throw new InvalidOrderException(errorMessage);
         }
-        
+
         logger.info("All products validated successfully: {}", productIds);
     }
-    
+
+    /**
+     * Finds the products of the given collection that do not exist in the inventory.
+     * Duplicate IDs are checked once.
+     *
+     * @param productIds IDs of the products to check
+     * @return IDs of the products that do not exist, in the order they were first given
+     * @throws OrderManagementException if the inventory service is unavailable
+     */
+    public Set<Long> findMissingProducts(Collection<Long> productIds) {
+        Set<Long> invalidProducts = new LinkedHashSet<>();
+        Set<Long> uncachedProductIds = new LinkedHashSet<>();
+        for (Long productId : new LinkedHashSet<>(productIds)) {
+            if (productIdFilter != null && productIdFilter.isDefinitelyMissing(productId)) {
+                invalidProducts.add(productId);
+            } else {
+                uncachedProductIds.add(productId);
+            }
+        }
+        if (!invalidProducts.isEmpty()) {
+            logger.warn("Products rejected by the product ID filter: {}", invalidProducts);
+        }
+
+        if (productCatalogReplica != null) {
+            productCatalogReplica.getAllPresent(uncachedProductIds).forEach((productId, active) -> {
+                if (active) {
+                    uncachedProductIds.remove(productId);
+                }
+            });
+        }
+
+        productExistenceCache.getAllPresent(uncachedProductIds).forEach((productId, exists) -> {
+            uncachedProductIds.remove(productId);
+            if (!exists) {
+                invalidProducts.add(productId);
+            }
+        });
+
+        if (!uncachedProductIds.isEmpty()) {
+            Set<Long> missing = lookUpMissingProducts(uncachedProductIds);
+            uncachedProductIds.forEach(productId -> productExistenceCache.put(productId, !missing.contains(productId)));
+            invalidProducts.addAll(missing);
+        }
+        return invalidProducts;
+    }
+
+    private Set<Long> lookUpMissingProducts(Set<Long> productIds) {
+        if (System.currentTimeMillis() >= batchUnsupportedUntil) {
+            try {
+                return findMissingProductsInBatch(productIds);
+            } catch (FeignException.NotFound | FeignException.MethodNotAllowed | FeignException.NotImplemented e) {
+                logger.warn("Inventory service does not support batch existence checks (HTTP {}), "
+                        + "falling back to per-product lookups", e.status());
+                batchUnsupportedUntil = System.currentTimeMillis() + BATCH_REPROBE_INTERVAL_MILLIS;
+            }
+        }
+        return findMissingProductsOneByOne(productIds);
+    }
+
+    /**
+     * Checks all products with a single request to the inventory service.
+     *
+     * @param productIds IDs of the products to check
+     * @return IDs of the products that do not exist
+     */
+    private Set<Long> findMissingProductsInBatch(Set<Long> productIds) {
+        ProductExistenceResponse response;
+        try {
+            response = inventoryClient.checkProductsExist(
+                    ProductExistenceRequest.builder().productIds(new ArrayList<>(productIds)).build());
+        } catch (FeignException.NotFound | FeignException.MethodNotAllowed | FeignException.NotImplemented e) {
+            throw e;
+        } catch (OrderManagementException e) {
+            // Already mapped, e.g. the inventory circuit breaker is open
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error validating products {}: {}", productIds, e.getMessage());
+            throw inventoryUnavailable(e);
+        }
+
+        Set<Long> missing = new LinkedHashSet<>();
+        if (response != null && response.getMissingProductIds() != null) {
+            missing.addAll(response.getMissingProductIds());
+        }
+        missing.forEach(productId -> logger.warn("Product not found in inventory: {}", productId));
+        return missing;
+    }
+
+    /**
+     * Checks each product with its own request, running the requests in parallel on the bounded fallback pool.
+     * The first unexpected failure cancels the lookups that have not started yet.
+     *
+     * @param productIds IDs of the products to check
+     * @return IDs of the products that do not exist
+     */
+    private Set<Long> findMissingProductsOneByOne(Set<Long> productIds) {
+        List<Long> ids = new ArrayList<>(productIds);
+        List<CompletableFuture<Boolean>> lookups = new ArrayList<>(ids.size());
+        for (Long productId : ids) {
+            lookups.add(CompletableFuture.supplyAsync(() -> isProductInvalid(productId), fallbackExecutor));
+        }
+
+        Set<Long> missing = new LinkedHashSet<>();
+        try {
+            for (int i = 0; i < ids.size(); i++) {
+                if (lookups.get(i).join()) {
+                    missing.add(ids.get(i));
+                }
+            }
+        } catch (CompletionException e) {
+            lookups.forEach(lookup -> lookup.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw inventoryUnavailable(e.getCause());
+        }
+        return missing;
+    }
+
     /**
      * Checks if a single product exists in the inventory.
-     * 
+     * Uses the HEAD existence check, which answers an unknown product with false instead of an exception.
+     *
      * @param productId ID of the product to check
-     * @return true if the product exists, false otherwise
+     * @return true if the product does not exist, false otherwise
      */
     private boolean isProductInvalid(Long productId) {
         try {
-            inventoryClient.getProductById(productId);
-            return false; // Product exists
-        } catch (FeignException.NotFound e) {
+            if (inventoryClient.productExists(productId)) {
+                return false;
+            }
             logger.warn("Product not found in inventory: {}", productId);
-            return true; // Product does not exist
+            return true;
+        } catch (OrderManagementException e) {
+            throw e;
         } catch (Exception e) {
             // In case of other errors (network, service down, etc.), log but don't fail validation
             // This is to prevent orders from failing when inventory service is temporarily unavailable
             logger.error("Error validating product {}: {}", productId, e.getMessage());
-            throw new OrderManagementException("Error validating product", e,
-                HttpStatus.SERVICE_UNAVAILABLE, "critical",
-                "The inventory service is currently unavailable. Please try again later.");
+            throw inventoryUnavailable(e);
         }
     }
-} 
\ No newline at end of file
+
+    private static OrderManagementException inventoryUnavailable(Throwable cause) {
+        return new OrderManagementException("Error validating product", cause,
+            HttpStatus.SERVICE_UNAVAILABLE, "critical",
+            "The inventory service is currently unavailable. Please try again later.");
+    }
+}
@@ -0,0 +1,194 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.StockLockRequest;
+import cargo.kityk.wms.order.entity.StockLockOutbox;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import cargo.kityk.wms.order.service.StockLockingService.ChunkedLockResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drains the stock lock outbox in the background.
+ * Claims due records in a short transaction, calls the inventory service for each of them with no
+ * transaction open, and records each outcome in another short transaction. Transient failures are
+ * retried up to the configured number of attempts; rejected locks fail the order immediately.
+ *
+ * When consolidation is enabled, a claimed batch is first locked with a single request that sums the
+ * quantities of all its records. Only if the inventory service rejects that request is each record
+ * locked on its own, so that the orders that can be satisfied still get their stock.
+ *
+ * A request with more products than a chunk is locked in chunks. If a chunk fails for good, the chunks already
+ * locked are released; if it fails transiently, the locked products are recorded on the outbox record and the
+ * next attempt only sends the rest. Consolidation is skipped when the consolidated request would need chunks.
+ *
+ * Outcomes are counted as order.stock-lock.dispatched, tagged outcome=locked, retried or failed; the rate of
+ * locked records is the locking throughput, and a high rate of retried ones means the inventory service is down.
+ *
+ * Locks are delivered at least once: a dispatcher that dies after the inventory service locked the
+ * stock but before recording it leaves the record to be claimed again once its lease expires.
+ */
+@Component
+@ConditionalOnProperty(name = "order.stock-lock.dispatcher.enabled", havingValue = "true", matchIfMissing = true)
+public class StockLockDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(StockLockDispatcher.class);
+
+    static final String DISPATCHED_METRIC = "order.stock-lock.dispatched";
+
+    private final StockLockOutboxService outboxService;
+    private final StockLockingService stockLockingService;
+    private final int maxAttempts;
+    private final boolean consolidate;
+    private final Counter locked;
+    private final Counter retried;
+    private final Counter failed;
+
+    @Autowired
+    public StockLockDispatcher(StockLockOutboxService outboxService,
+                               StockLockingService stockLockingService,
+                               @Value("${order.stock-lock.max-attempts:20}") int maxAttempts,
+                               @Value("${order.stock-lock.consolidate:true}") boolean consolidate,
+                               MeterRegistry meterRegistry) {
+        this.outboxService = outboxService;
+        this.stockLockingService = stockLockingService;
+        this.maxAttempts = maxAttempts;
+        this.consolidate = consolidate;
+        this.locked = outcomeCounter("locked", meterRegistry);
+        this.retried = outcomeCounter("retried", meterRegistry);
+        this.failed = outcomeCounter("failed", meterRegistry);
+    }
+
+    private static Counter outcomeCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder(DISPATCHED_METRIC)
+                .description("Stock lock outbox records by dispatch outcome: locked, retried later, or failed")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Processes due outbox records until a claimed batch comes back empty
+     */
+    @Scheduled(fixedDelayString = "${order.stock-lock.dispatch-interval-ms:500}")
+    public void dispatch() {
+        List<StockLockOutbox> batch;
+        do {
+            batch = outboxService.claimBatch();
+            lock(batch);
+        } while (!batch.isEmpty());
+    }
+
+    void lock(List<StockLockOutbox> batch) {
+        if (consolidate && batch.size() > 1 && lockConsolidated(batch)) {
+            return;
+        }
+        batch.forEach(this::process);
+    }
+
+    /**
+     * Locks the stock of a whole batch with one request
+     *
+     * @return true if the batch has been dealt with, false if its records must be locked one by one
+     */
+    private boolean lockConsolidated(List<StockLockOutbox> batch) {
+        List<StockLockRequest> requests = new ArrayList<>(batch.size());
+        try {
+            batch.forEach(record -> requests.add(outboxService.readRequest(record)));
+        } catch (RuntimeException e) {
+            logger.warn("Unreadable stock lock request in batch, locking each order separately: {}", e.getMessage());
+            return false;
+        }
+
+        StockLockRequest consolidated = stockLockingService.consolidate(requests);
+        if (stockLockingService.needsChunking(consolidated)) {
+            return false;
+        }
+        try {
+            stockLockingService.lockStock(consolidated);
+        } catch (OrderManagementException e) {
+            if (e.getStatus() == HttpStatus.UNPROCESSABLE_ENTITY) {
+                logger.info("Consolidated stock lock for {} orders rejected, locking each order separately", batch.size());
+                return false;
+            }
+            // The inventory service is unavailable; asking again for each order would not help
+            batch.forEach(record -> handleFailure(record, e));
+            return true;
+        }
+
+        outboxService.markLocked(batch.stream().map(StockLockOutbox::getId).toList());
+        locked.increment(batch.size());
+        logger.info("Successfully locked stock for {} orders with one request", batch.size());
+        return true;
+    }
+
+    void process(StockLockOutbox record) {
+        try {
+            StockLockRequest request = outboxService.readRequest(record);
+            // A record with progress keeps resuming in chunks, even if the chunk size was raised in between
+            if (stockLockingService.needsChunking(request) || record.getLockedProductIds() != null) {
+                processInChunks(record, request);
+                return;
+            }
+            stockLockingService.lockStock(request);
+            outboxService.markLocked(record.getId());
+            locked.increment();
+            logger.info("Successfully locked stock for order ID: {}", record.getOrderId());
+        } catch (OrderManagementException e) {
+            handleFailure(record, e);
+        } catch (RuntimeException e) {
+            logger.error("Unexpected error dispatching stock lock for order ID: {}", record.getOrderId(), e);
+            outboxService.markFailed(record.getId(), e.getMessage());
+            failed.increment();
+        }
+    }
+
+    private void processInChunks(StockLockOutbox record, StockLockRequest request) {
+        ChunkedLockResult result = stockLockingService.lockInChunks(request, outboxService.readLockedProductIds(record));
+        OrderManagementException e = result.failure();
+        if (e == null) {
+            outboxService.markLocked(record.getId());
+            locked.increment();
+            logger.info("Successfully locked stock for order ID: {} in chunks", record.getOrderId());
+        } else if (isFinalFailure(record, e)) {
+            logger.error("Failed to lock stock for order ID: {} after {} attempt(s), releasing {} locked products. Error: {}",
+                    record.getOrderId(), record.getAttempts(), result.lockedProductIds().size(), e.getMessage());
+            Set<Long> stillLocked = stockLockingService.releaseStock(request, result.lockedProductIds());
+            outboxService.markFailed(record.getId(), e.getMessage(), stillLocked);
+            failed.increment();
+        } else {
+            logger.warn("Locked {} of {} products for order ID: {} (attempt {} of {}), will resume. Error: {}",
+                    result.lockedProductIds().size(), request.getItems().size(), record.getOrderId(),
+                    record.getAttempts(), maxAttempts, e.getMessage());
+            outboxService.scheduleRetry(record.getId(), e.getMessage(), result.lockedProductIds());
+            retried.increment();
+        }
+    }
+
+    private boolean isFinalFailure(StockLockOutbox record, OrderManagementException e) {
+        return e.getStatus() == HttpStatus.UNPROCESSABLE_ENTITY || record.getAttempts() >= maxAttempts;
+    }
+
+    private void handleFailure(StockLockOutbox record, OrderManagementException e) {
+        if (isFinalFailure(record, e)) {
+            logger.error("Failed to lock stock for order ID: {} after {} attempt(s). Error: {}",
+                    record.getOrderId(), record.getAttempts(), e.getMessage());
+            outboxService.markFailed(record.getId(), e.getMessage());
+            failed.increment();
+        } else {
+            logger.warn("Failed to lock stock for order ID: {} (attempt {} of {}), will retry. Error: {}",
+                    record.getOrderId(), record.getAttempts(), maxAttempts, e.getMessage());
+            outboxService.scheduleRetry(record.getId(), e.getMessage());
+            retried.increment();
+        }
+    }
+}
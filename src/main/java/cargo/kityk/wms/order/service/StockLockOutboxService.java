@@ -0,0 +1,294 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.OrderItemCreateDTO;
+import cargo.kityk.wms.order.dto.StockLockRequest;
+import cargo.kityk.wms.order.entity.StockLockOutbox;
+import cargo.kityk.wms.order.repository.OrderRepository;
+import cargo.kityk.wms.order.repository.StockLockOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Transactional operations on the stock lock outbox.
+ * Every method runs in its own short transaction (or joins the caller's, for enqueue), so that no
+ * database connection is held while the dispatcher waits for the inventory service.
+ *
+ * Retries back off exponentially with jitter, so that the records that failed together during an inventory
+ * outage neither keep hammering the inventory service nor all hit it at the same moment once it recovers.
+ */
+@Service
+public class StockLockOutboxService {
+    private static final Logger logger = LoggerFactory.getLogger(StockLockOutboxService.class);
+
+    static final String STOCK_LOCK_ERROR_STATUS = "Stock Lock Error";
+    private static final TypeReference<Set<Long>> LOCKED_PRODUCT_IDS_TYPE = new TypeReference<>() { };
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final StockLockOutboxRepository outboxRepository;
+    private final OrderRepository orderRepository;
+    private final StockLockingService stockLockingService;
+    private final OrderEventOutboxService orderEventOutboxService;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final Duration claimLease;
+    private final Duration retryDelay;
+    private final Duration maxRetryDelay;
+
+    @Autowired
+    public StockLockOutboxService(StockLockOutboxRepository outboxRepository,
+                                  OrderRepository orderRepository,
+                                  StockLockingService stockLockingService,
+                                  OrderEventOutboxService orderEventOutboxService,
+                                  ObjectMapper objectMapper,
+                                  @Value("${order.stock-lock.batch-size:50}") int batchSize,
+                                  @Value("${order.stock-lock.claim-lease:PT5M}") Duration claimLease,
+                                  @Value("${order.stock-lock.retry-delay:PT10S}") Duration retryDelay,
+                                  @Value("${order.stock-lock.max-retry-delay:PT5M}") Duration maxRetryDelay) {
+        this.outboxRepository = outboxRepository;
+        this.orderRepository = orderRepository;
+        this.stockLockingService = stockLockingService;
+        this.orderEventOutboxService = orderEventOutboxService;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.claimLease = claimLease;
+        this.retryDelay = retryDelay;
+        this.maxRetryDelay = maxRetryDelay;
+    }
+
+    /**
+     * Records that stock has to be locked for a new order.
+     * Must be called inside the transaction that inserts the order, so that either both or neither are committed.
+     *
+     * @param orderId ID of the saved order
+     * @param orderItems Items to lock stock for
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Long orderId, List<OrderItemCreateDTO> orderItems) {
+        StockLockRequest request = stockLockingService.toStockLockRequest(orderItems);
+        try {
+            outboxRepository.save(new StockLockOutbox(orderId, objectMapper.writeValueAsString(request)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize stock lock request for order " + orderId, e);
+        }
+    }
+
+    /**
+     * Records that stock has to be locked for several new orders, with one outbox record per order.
+     * Must be called inside the transaction that inserts the orders.
+     *
+     * @param orderItemsByOrderId Items to lock stock for, keyed by the ID of the saved order
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(Map<Long, List<OrderItemCreateDTO>> orderItemsByOrderId) {
+        List<StockLockOutbox> records = new ArrayList<>(orderItemsByOrderId.size());
+        orderItemsByOrderId.forEach((orderId, orderItems) -> {
+            StockLockRequest request = stockLockingService.toStockLockRequest(orderItems);
+            try {
+                records.add(new StockLockOutbox(orderId, objectMapper.writeValueAsString(request)));
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize stock lock request for order " + orderId, e);
+            }
+        });
+        outboxRepository.saveAll(records);
+    }
+
+    /**
+     * Claims the next batch of due outbox records for this dispatcher.
+     * The claim is committed before returning, so the records can be processed without holding row locks.
+     *
+     * @return Claimed records, with their attempt counter already incremented
+     */
+    @Transactional
+    public List<StockLockOutbox> claimBatch() {
+        ZonedDateTime now = ZonedDateTime.now();
+        List<StockLockOutbox> due = outboxRepository.findDueForDispatch(now, now.minus(claimLease), Limit.of(batchSize));
+        for (StockLockOutbox record : due) {
+            record.setStatus(StockLockOutbox.Status.IN_PROGRESS);
+            record.setClaimedAt(now);
+            record.setAttempts(record.getAttempts() + 1);
+        }
+        return due;
+    }
+
+    /**
+     * Reads the stock lock request stored in an outbox record
+     *
+     * @param record Outbox record
+     * @return Stock lock request to send to the inventory service
+     */
+    public StockLockRequest readRequest(StockLockOutbox record) {
+        try {
+            return objectMapper.readValue(record.getPayload(), StockLockRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable stock lock payload in outbox record " + record.getId(), e);
+        }
+    }
+
+    /**
+     * Reads the products that earlier attempts already locked, for a request that is sent in chunks
+     *
+     * @param record Outbox record
+     * @return IDs of the products already locked; empty if none or the request is not sent in chunks
+     */
+    public Set<Long> readLockedProductIds(StockLockOutbox record) {
+        if (record.getLockedProductIds() == null) {
+            return Set.of();
+        }
+        try {
+            return objectMapper.readValue(record.getLockedProductIds(), LOCKED_PRODUCT_IDS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable locked products in outbox record " + record.getId(), e);
+        }
+    }
+
+    /**
+     * Marks an outbox record as done after the inventory service locked the stock
+     *
+     * @param outboxId Outbox record ID
+     */
+    @Transactional
+    public void markLocked(Long outboxId) {
+        outboxRepository.findById(outboxId).ifPresent(record -> {
+            record.setStatus(StockLockOutbox.Status.LOCKED);
+            record.setClaimedAt(null);
+            record.setLastError(null);
+            record.setLockedProductIds(null);
+        });
+    }
+
+    /**
+     * Marks outbox records as done after the inventory service locked the stock for all of them at once
+     *
+     * @param outboxIds Outbox record IDs
+     */
+    @Transactional
+    public void markLocked(Collection<Long> outboxIds) {
+        outboxRepository.findAllById(outboxIds).forEach(record -> {
+            record.setStatus(StockLockOutbox.Status.LOCKED);
+            record.setClaimedAt(null);
+            record.setLastError(null);
+            record.setLockedProductIds(null);
+        });
+    }
+
+    /**
+     * Puts an outbox record back in the queue after a transient failure
+     *
+     * @param outboxId Outbox record ID
+     * @param error Description of the failure
+     */
+    @Transactional
+    public void scheduleRetry(Long outboxId, String error) {
+        outboxRepository.findById(outboxId).ifPresent(record -> requeue(record, error));
+    }
+
+    /**
+     * Puts an outbox record back in the queue after a transient failure of a request sent in chunks,
+     * remembering which products are locked so that the next attempt only sends the rest
+     *
+     * @param outboxId Outbox record ID
+     * @param error Description of the failure
+     * @param lockedProductIds IDs of the products locked so far
+     */
+    @Transactional
+    public void scheduleRetry(Long outboxId, String error, Set<Long> lockedProductIds) {
+        outboxRepository.findById(outboxId).ifPresent(record -> {
+            record.setLockedProductIds(writeLockedProductIds(lockedProductIds));
+            requeue(record, error);
+        });
+    }
+
+    private void requeue(StockLockOutbox record, String error) {
+        record.setStatus(StockLockOutbox.Status.PENDING);
+        record.setClaimedAt(null);
+        record.setNextAttemptAt(ZonedDateTime.now().plus(retryDelayAfter(record.getAttempts())));
+        record.setLastError(truncate(error));
+    }
+
+    /**
+     * Delay before the next attempt: the retry delay, doubled for every further failed attempt up to the
+     * maximum retry delay, of which a random part of up to half is taken off (equal jitter)
+     *
+     * @param attempts Attempts made so far
+     * @return Delay before the next attempt
+     */
+    Duration retryDelayAfter(int attempts) {
+        int doublings = Math.clamp(attempts - 1, 0, 30);
+        long backoffMillis = retryDelay.toMillis() > maxRetryDelay.toMillis() >> doublings
+                ? maxRetryDelay.toMillis()
+                : retryDelay.toMillis() << doublings;
+        long halfMillis = backoffMillis / 2;
+        return Duration.ofMillis(backoffMillis - halfMillis + ThreadLocalRandom.current().nextLong(halfMillis + 1));
+    }
+
+    /**
+     * Gives up on an outbox record and flags its order as having a stock lock error.
+     * The status change is written to the order event outbox in the same transaction.
+     *
+     * @param outboxId Outbox record ID
+     * @param error Description of the failure
+     */
+    @Transactional
+    public void markFailed(Long outboxId, String error) {
+        outboxRepository.findById(outboxId).ifPresent(record -> {
+            record.setStatus(StockLockOutbox.Status.FAILED);
+            record.setClaimedAt(null);
+            record.setLastError(truncate(error));
+            if (orderRepository.updateStatus(record.getOrderId(), STOCK_LOCK_ERROR_STATUS, ZonedDateTime.now()) > 0) {
+                orderEventOutboxService.recordStatusChanged(record.getOrderId(), STOCK_LOCK_ERROR_STATUS);
+            }
+            logger.warn("Order ID: {} status updated to '{}' due to stock locking failure",
+                    record.getOrderId(), STOCK_LOCK_ERROR_STATUS);
+        });
+    }
+
+    /**
+     * Gives up on an outbox record of a request sent in chunks, after releasing the chunks that were locked
+     *
+     * @param outboxId Outbox record ID
+     * @param error Description of the failure
+     * @param stillLockedProductIds IDs of the products that could not be released and remain locked
+     */
+    @Transactional
+    public void markFailed(Long outboxId, String error, Set<Long> stillLockedProductIds) {
+        outboxRepository.findById(outboxId).ifPresent(record ->
+            record.setLockedProductIds(writeLockedProductIds(stillLockedProductIds)));
+        markFailed(outboxId, error);
+    }
+
+    private String writeLockedProductIds(Set<Long> lockedProductIds) {
+        if (lockedProductIds.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(lockedProductIds);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize locked products", e);
+        }
+    }
+
+    private static String truncate(String error) {
+        if (error == null || error.length() <= MAX_ERROR_LENGTH) {
+            return error;
+        }
+        return error.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -1,5 +1,6 @@
 package cargo.kityk.wms.order.service;
 
+import cargo.kityk.wms.order.config.WorkerThreads;
 import cargo.kityk.wms.order.dto.OrderItemCreateDTO;
 import cargo.kityk.wms.order.dto.StockLockItemDTO;
 import cargo.kityk.wms.order.dto.StockLockRequest;
@@ -7,32 +8,60 @@ import cargo.kityk.wms.order.dto.StockLockResponse;
 import cargo.kityk.wms.order.exception.OrderManagementException;
 import cargo.kityk.wms.order.service.client.InventoryClient;
 import feign.FeignException;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Service responsible for locking stock during order creation.
  * Uses the inventory client to lock stock for order items.
+ *
+ * Requests with more products than the chunk size are sent as several smaller requests, a bounded number
+ * at a time, so that a B2B order with thousands of lines does not time out as one giant request. If a chunk
+ * fails, the chunks already locked can be released again (compensation) or kept for a later attempt to resume.
  */
 @Service
 public class StockLockingService {
     private static final Logger logger = LoggerFactory.getLogger(StockLockingService.class);
     
     private final InventoryClient inventoryClient;
+    private final int chunkSize;
+    private final ExecutorService chunkExecutor;
     
     @Autowired
-    public StockLockingService(InventoryClient inventoryClient) {
+    public StockLockingService(InventoryClient inventoryClient,
+                               @Value("${order.stock-lock.chunk-size:500}") int chunkSize,
+                               @Value("${order.stock-lock.chunk-parallelism:4}") int chunkParallelism,
+                               @Value("${" + WorkerThreads.VIRTUAL_THREADS_PROPERTY + ":false}") boolean virtualThreads) {
         this.inventoryClient = inventoryClient;
+        this.chunkSize = chunkSize;
+        this.chunkExecutor = Executors.newFixedThreadPool(chunkParallelism,
+                WorkerThreads.factory("stock-lock-chunk-", virtualThreads));
+    }
+    
+    @PreDestroy
+    void shutdown() {
+        chunkExecutor.shutdownNow();
     }
     
     /**
      * Locks stock for all items in the order.
+     * A large order is locked in chunks; if one of them fails, the chunks already locked are released again.
      * 
      * @param orderItems List of order items to lock stock for
      * @throws OrderManagementException if stock locking fails
@@ -43,18 +72,161 @@ public class StockLockingService {
             return;
         }
         
-        // Convert order items to stock lock items
-        List<StockLockItemDTO> stockLockItems = orderItems.stream()
-                .map(item -> StockLockItemDTO.builder()
-                        .productId(item.getProductId())
-                        .quantity(item.getQuantity())
-                        .build())
-                .collect(Collectors.toList());
+        StockLockRequest request = toStockLockRequest(orderItems);
+        if (!needsChunking(request)) {
+            lockStock(request);
+            return;
+        }
+        
+        ChunkedLockResult result = lockInChunks(request, Set.of());
+        if (result.failure() != null) {
+            releaseStock(request, result.lockedProductIds());
+            throw result.failure();
+        }
+    }
+    
+    /**
+     * Whether a request has more products than fit in one chunk
+     * 
+     * @param request Stock lock request
+     * @return true if the request must be sent with {@link #lockInChunks}
+     */
+    public boolean needsChunking(StockLockRequest request) {
+        return request.getItems().size() > chunkSize;
+    }
+    
+    /**
+     * Locks the stock of a large request in chunks of at most the configured size, sending up to the configured
+     * number of chunks at once. Products locked by an earlier attempt are skipped. Once a chunk has failed, the
+     * chunks that have not been sent yet are skipped as well, and the failure is returned instead of thrown so
+     * that the caller can decide whether to release or keep the chunks that were locked.
+     * 
+     * @param request Stock lock request
+     * @param alreadyLockedProductIds IDs of the products locked by earlier attempts
+     * @return Products locked by now, and the failure of the request, if any; a rejection (UNPROCESSABLE_ENTITY)
+     *         is reported in preference to the inventory service being unavailable
+     */
+    public ChunkedLockResult lockInChunks(StockLockRequest request, Set<Long> alreadyLockedProductIds) {
+        List<StockLockItemDTO> remaining = request.getItems().stream()
+                .filter(item -> !alreadyLockedProductIds.contains(item.getProductId()))
+                .toList();
+        Set<Long> locked = ConcurrentHashMap.newKeySet();
+        locked.addAll(alreadyLockedProductIds);
+        AtomicReference<OrderManagementException> failure = new AtomicReference<>();
+        
+        List<Future<?>> chunks = new ArrayList<>();
+        for (int from = 0; from < remaining.size(); from += chunkSize) {
+            List<StockLockItemDTO> chunk = remaining.subList(from, Math.min(from + chunkSize, remaining.size()));
+            chunks.add(chunkExecutor.submit(() -> {
+                if (failure.get() != null) {
+                    return;
+                }
+                try {
+                    lockStock(StockLockRequest.builder().items(chunk).build());
+                    chunk.forEach(item -> locked.add(item.getProductId()));
+                } catch (OrderManagementException e) {
+                    failure.accumulateAndGet(e, StockLockingService::moreSevere);
+                }
+            }));
+        }
+        
+        try {
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } catch (InterruptedException e) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            Thread.currentThread().interrupt();
+            failure.accumulateAndGet(new OrderManagementException("Interrupted while locking stock", e,
+                    HttpStatus.SERVICE_UNAVAILABLE, "critical", "Retry the request"), StockLockingService::moreSevere);
+        } catch (ExecutionException e) {
+            // lockStock turns every failure into an OrderManagementException
+            throw new IllegalStateException("Unexpected failure locking a stock chunk", e.getCause());
+        }
         
-        StockLockRequest request = StockLockRequest.builder()
-                .items(stockLockItems)
+        logger.info("Locked stock for {} of {} products in chunks of {}", locked.size(), request.getItems().size(), chunkSize);
+        return new ChunkedLockResult(Set.copyOf(locked), failure.get());
+    }
+    
+    /**
+     * Releases the stock locked for some of the products of a request, in chunks.
+     * A chunk that cannot be released is logged and skipped; its products remain locked.
+     * 
+     * @param request Stock lock request the products were locked for
+     * @param lockedProductIds IDs of the products to release
+     * @return IDs of the products that could not be released
+     */
+    public Set<Long> releaseStock(StockLockRequest request, Set<Long> lockedProductIds) {
+        List<StockLockItemDTO> locked = request.getItems().stream()
+                .filter(item -> lockedProductIds.contains(item.getProductId()))
+                .toList();
+        Set<Long> stillLocked = new LinkedHashSet<>();
+        for (int from = 0; from < locked.size(); from += chunkSize) {
+            List<StockLockItemDTO> chunk = locked.subList(from, Math.min(from + chunkSize, locked.size()));
+            try {
+                StockLockResponse response = inventoryClient.releaseStock(StockLockRequest.builder().items(chunk).build());
+                if (!response.isSuccess()) {
+                    throw new IllegalStateException(response.getMessage());
+                }
+            } catch (RuntimeException e) {
+                logger.error("Could not release stock for {} products, they remain locked: {}", chunk.size(), e.getMessage());
+                chunk.forEach(item -> stillLocked.add(item.getProductId()));
+            }
+        }
+        if (!locked.isEmpty()) {
+            logger.info("Released stock for {} of {} locked products", locked.size() - stillLocked.size(), locked.size());
+        }
+        return stillLocked;
+    }
+    
+    /**
+     * Builds the inventory stock lock request for the given order items.
+     * 
+     * @param orderItems List of order items to lock stock for
+     * @return Stock lock request with one entry per distinct product, quantities of repeated products summed
+     */
+    public StockLockRequest toStockLockRequest(List<OrderItemCreateDTO> orderItems) {
+        return StockLockRequest.builder()
+                .items(ProductQuantities.of(orderItems).toStockLockItems())
                 .build();
+    }
+    
+    /**
+     * Merges several stock lock requests into one, summing the quantities of each product.
+     * Locks are not tied to an order in the inventory service, so locking the merged request
+     * locks exactly the same stock as locking each request on its own.
+     * 
+     * @param requests Stock lock requests to merge
+     * @return Stock lock request with one entry per distinct product, in order of first appearance
+     */
+    public StockLockRequest consolidate(List<StockLockRequest> requests) {
+        ProductQuantities quantities = new ProductQuantities();
+        for (StockLockRequest request : requests) {
+            for (StockLockItemDTO item : request.getItems()) {
+                quantities.add(item.getProductId(), item.getQuantity());
+            }
+        }
         
+        return StockLockRequest.builder()
+                .items(quantities.toStockLockItems())
+                .build();
+    }
+    
+    private static OrderManagementException moreSevere(OrderManagementException current, OrderManagementException candidate) {
+        boolean candidateRejected = candidate.getStatus() == HttpStatus.UNPROCESSABLE_ENTITY;
+        return current == null || candidateRejected && current.getStatus() != HttpStatus.UNPROCESSABLE_ENTITY
+                ? candidate : current;
+    }
+    
+    /**
+     * Sends a stock lock request to the inventory service.
+     * 
+     * @param request Stock lock request
+     * @throws OrderManagementException with UNPROCESSABLE_ENTITY if the stock cannot be locked,
+     *         or SERVICE_UNAVAILABLE if the inventory service could not be reached
+     */
+    public void lockStock(StockLockRequest request) {
+        List<StockLockItemDTO> stockLockItems = request.getItems();
         try {
             StockLockResponse response = inventoryClient.lockStock(request);
             if (response.isSuccess()) {
@@ -80,4 +252,12 @@ public class StockLockingService {
                     "The inventory service is currently unavailable. Please try again later.");
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Outcome of a request locked in chunks
+     * 
+     * @param lockedProductIds IDs of the products whose stock is locked, including those of earlier attempts
+     * @param failure Why the rest could not be locked, or null if every product is locked
+     */
+    public record ChunkedLockResult(Set<Long> lockedProductIds, OrderManagementException failure) { }
+}
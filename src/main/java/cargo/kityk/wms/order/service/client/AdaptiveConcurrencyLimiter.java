@@ -0,0 +1,119 @@
+package cargo.kityk.wms.order.service.client;
+
+import java.time.Duration;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits concurrent calls to the inventory service, with a limit that follows the service's capacity (AIMD).
+ *
+ * Every completed call is a sample. A call that failed because of the inventory service, or took longer than
+ * the RTT threshold, multiplies the limit by the backoff ratio; a successful call raises it by one while at least
+ * half of the limit is in use. The limit stays between the minimum and the maximum; when not adaptive, it keeps
+ * its initial value. A caller over the limit waits up to the maximum wait for a call to complete.
+ *
+ * Unlike a semaphore, lowering the limit never blocks: calls over the new limit finish normally and no new
+ * call starts until the in-flight count has dropped below it.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final boolean adaptive;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long rttThresholdNanos;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition callCompleted = lock.newCondition();
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimiter(boolean adaptive, int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, Duration rttThreshold, Duration maxWait) {
+        this.adaptive = adaptive;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.rttThresholdNanos = rttThreshold.toNanos();
+        this.maxWaitNanos = maxWait.toNanos();
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    /**
+     * Takes a slot for a call, waiting up to the maximum wait while the limit is reached
+     *
+     * @return false if no slot became free in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            long remainingNanos = maxWaitNanos;
+            while (inFlight >= (int) limit) {
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                remainingNanos = callCompleted.awaitNanos(remainingNanos);
+            }
+            inFlight++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the slot of a completed call and adjusts the limit to its outcome
+     *
+     * @param rttNanos How long the call took
+     * @param dropped Whether the call failed because of the inventory service
+     */
+    public void complete(long rttNanos, boolean dropped) {
+        lock.lock();
+        try {
+            if (adaptive) {
+                if (dropped || rttNanos > rttThresholdNanos) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                } else if (inFlight * 2 >= limit) {
+                    limit = Math.min(maxLimit, limit + 1);
+                }
+            }
+            inFlight--;
+            callCompleted.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Frees the slot of a call that was never made, without adjusting the limit
+     */
+    public void release() {
+        lock.lock();
+        try {
+            inFlight--;
+            callCompleted.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package cargo.kityk.wms.order.service.client;
+
+import cargo.kityk.wms.order.dto.StockLockRequest;
+import cargo.kityk.wms.order.dto.StockLockResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Inventory client used by the rest of the service in place of the Feign client.
+ *
+ * Concurrent read-only lookups for the same key share one in-flight request: the first caller
+ * makes the call and every caller that arrives while it is running receives the same result
+ * or failure. Stock locking and releasing are not idempotent and always go straight to the inventory service;
+ * so does the product ID export, which only the periodic filter rebuild reads.
+ */
+@Primary
+@Component
+public class CoalescingInventoryClient implements InventoryClient {
+
+    static final String COALESCED_METRIC = "inventory.client.coalesced";
+
+    private final InventoryClient delegate;
+    private final ConcurrentMap<CallKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalescedProductLookups;
+    private final Counter coalescedProductExistenceChecks;
+    private final Counter coalescedExistenceChecks;
+
+    @Autowired
+    public CoalescingInventoryClient(@Qualifier(HedgingInventoryClient.QUALIFIER) InventoryClient delegate,
+                                     MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.coalescedProductLookups = Counter.builder(COALESCED_METRIC)
+                .description("Inventory requests saved by joining an identical in-flight request")
+                .tag("method", "getProductById")
+                .register(meterRegistry);
+        this.coalescedProductExistenceChecks = Counter.builder(COALESCED_METRIC)
+                .description("Inventory requests saved by joining an identical in-flight request")
+                .tag("method", "productExists")
+                .register(meterRegistry);
+        this.coalescedExistenceChecks = Counter.builder(COALESCED_METRIC)
+                .description("Inventory requests saved by joining an identical in-flight request")
+                .tag("method", "checkProductsExist")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<ProductResponse> getProductById(Long productId) {
+        return coalesce(new CallKey("getProductById", productId), coalescedProductLookups,
+                () -> delegate.getProductById(productId));
+    }
+
+    @Override
+    public boolean productExists(Long productId) {
+        return coalesce(new CallKey("productExists", productId), coalescedProductExistenceChecks,
+                () -> delegate.productExists(productId));
+    }
+
+    @Override
+    public ProductExistenceResponse checkProductsExist(ProductExistenceRequest request) {
+        // The answer does not depend on the order of the IDs, so neither does the key
+        Set<Long> productIds = request.getProductIds() == null ? Set.of() : Set.copyOf(request.getProductIds());
+        return coalesce(new CallKey("checkProductsExist", productIds), coalescedExistenceChecks,
+                () -> delegate.checkProductsExist(request));
+    }
+
+    @Override
+    public ProductIdPage getProductIds(long afterId, int limit) {
+        return delegate.getProductIds(afterId, limit);
+    }
+
+    @Override
+    public StockLockResponse lockStock(StockLockRequest request) {
+        return delegate.lockStock(request);
+    }
+
+    @Override
+    public StockLockResponse releaseStock(StockLockRequest request) {
+        return delegate.releaseStock(request);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(CallKey key, Counter coalesced, Supplier<T> call) {
+        CompletableFuture<Object> shared = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalesced.increment();
+            return (T) await(existing);
+        }
+
+        try {
+            T result = call.get();
+            shared.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            shared.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, shared);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> inFlightCall) {
+        try {
+            return inFlightCall.join();
+        } catch (CompletionException e) {
+            // Rethrow the leader's exception unchanged so that callers handle it as if they had made the call
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record CallKey(String method, Object argument) {
+    }
+}
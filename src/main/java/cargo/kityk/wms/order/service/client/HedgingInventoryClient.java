@@ -0,0 +1,294 @@
+package cargo.kityk.wms.order.service.client;
+
+import cargo.kityk.wms.order.config.InventoryResilienceConfig;
+import cargo.kityk.wms.order.config.WorkerThreads;
+import cargo.kityk.wms.order.dto.StockLockRequest;
+import cargo.kityk.wms.order.dto.StockLockResponse;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import feign.FeignException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Hedges product lookups to cut their tail latency.
+ *
+ * When enabled, a lookup that has not been answered after the configured percentile of recent lookup latencies
+ * is sent a second time, and the caller gets whichever answer arrives first. The slower request is left to finish;
+ * its latency is still recorded, and when the hedge won, the difference is recorded as latency saved. Hedges are
+ * paid for from a budget that every lookup adds a percentage of a hedge to, which caps the extra load on the
+ * inventory service even when it is slow across the board.
+ *
+ * Only single-product lookups (getProductById, productExists) are hedged; the batch existence check could be,
+ * but batches rarely wait on a single slow product, and stock locking is not idempotent. Sits between {@link CoalescingInventoryClient} and
+ * {@link ResilientInventoryClient}, so each hedge takes its own concurrency slot and counts for the circuit breaker.
+ */
+@Component
+@Qualifier(HedgingInventoryClient.QUALIFIER)
+public class HedgingInventoryClient implements InventoryClient {
+
+    public static final String QUALIFIER = "hedgingInventoryClient";
+    static final String HEDGES_METRIC = "inventory.client.hedges";
+    static final String LOOKUP_LATENCY_METRIC = "inventory.client.lookup.latency";
+    static final String LATENCY_SAVED_METRIC = "inventory.client.hedging.latency.saved";
+
+    /** Budget units a hedge costs; every lookup earns the configured budget percentage of units */
+    private static final long HEDGE_COST = 100;
+    /** Hedges that can be saved up for a burst of slow lookups */
+    private static final long MAX_SAVED_HEDGES = 10;
+
+    private final InventoryClient delegate;
+    private final boolean enabled;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final int budgetPercent;
+    private final long delayRefreshNanos;
+    private final ExecutorService executor;
+    private final AtomicLong budget = new AtomicLong();
+
+    private final Timer lookupLatency;
+    private final Timer latencySaved;
+    private final Counter notHedged;
+    private final Counter hedgeWon;
+    private final Counter hedgeLost;
+    private final Counter hedgeSkipped;
+
+    /** Current hedge delay, or -1 while there are too few samples to hedge */
+    private volatile long hedgeDelayNanos = -1;
+    private volatile long hedgeDelayComputedAt;
+
+    @Autowired
+    public HedgingInventoryClient(@Qualifier(ResilientInventoryClient.QUALIFIER) InventoryClient delegate,
+                                  @Value("${inventory.hedging.enabled:false}") boolean enabled,
+                                  @Value("${inventory.hedging.delay-percentile:0.95}") double delayPercentile,
+                                  @Value("${inventory.hedging.min-delay:PT0.02S}") Duration minDelay,
+                                  @Value("${inventory.hedging.min-samples:100}") int minSamples,
+                                  @Value("${inventory.hedging.budget-percent:10}") int budgetPercent,
+                                  @Value("${inventory.hedging.delay-refresh-interval:PT1S}") Duration delayRefreshInterval,
+                                  @Value("${" + WorkerThreads.VIRTUAL_THREADS_PROPERTY + ":false}") boolean virtualThreads,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.enabled = enabled;
+        this.minDelayNanos = minDelay.toNanos();
+        this.minSamples = minSamples;
+        this.budgetPercent = budgetPercent;
+        this.delayRefreshNanos = delayRefreshInterval.toNanos();
+        this.hedgeDelayComputedAt = System.nanoTime() - delayRefreshNanos - 1;
+        this.executor = WorkerThreads.perTaskExecutor("inventory-lookup-", virtualThreads);
+
+        this.lookupLatency = Timer.builder(LOOKUP_LATENCY_METRIC)
+                .description("Latency of answered product lookup requests, hedges included")
+                .publishPercentiles(delayPercentile)
+                .percentilePrecision(2)
+                .register(meterRegistry);
+        this.latencySaved = Timer.builder(LATENCY_SAVED_METRIC)
+                .description("Time by which a winning hedge beat the original product lookup")
+                .register(meterRegistry);
+        this.notHedged = hedgeCounter("none", meterRegistry);
+        this.hedgeWon = hedgeCounter("won", meterRegistry);
+        this.hedgeLost = hedgeCounter("lost", meterRegistry);
+        this.hedgeSkipped = hedgeCounter("skipped", meterRegistry);
+    }
+
+    private static Counter hedgeCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder(HEDGES_METRIC)
+                .description("Product lookups by hedge outcome: none needed, won, lost, or skipped for lack of budget")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Optional<ProductResponse> getProductById(Long productId) {
+        return hedged(() -> delegate.getProductById(productId));
+    }
+
+    @Override
+    public boolean productExists(Long productId) {
+        return hedged(() -> delegate.productExists(productId));
+    }
+
+    @Override
+    public ProductExistenceResponse checkProductsExist(ProductExistenceRequest request) {
+        return delegate.checkProductsExist(request);
+    }
+
+    @Override
+    public ProductIdPage getProductIds(long afterId, int limit) {
+        return delegate.getProductIds(afterId, limit);
+    }
+
+    @Override
+    public StockLockResponse lockStock(StockLockRequest request) {
+        return delegate.lockStock(request);
+    }
+
+    @Override
+    public StockLockResponse releaseStock(StockLockRequest request) {
+        return delegate.releaseStock(request);
+    }
+
+    private <T> T hedged(Supplier<T> call) {
+        if (!enabled) {
+            return call.get();
+        }
+        earnBudget();
+
+        CompletableFuture<Attempt<T>> primary = lookup(call, false);
+        long delayNanos = hedgeDelayNanos();
+        if (delayNanos < 0 || isDoneWithin(primary, delayNanos)) {
+            notHedged.increment();
+            return await(primary).result();
+        }
+        if (!spendBudget()) {
+            hedgeSkipped.increment();
+            return await(primary).result();
+        }
+
+        CompletableFuture<Attempt<T>> hedge = lookup(call, true);
+        CompletableFuture<Attempt<T>> first = new CompletableFuture<>();
+        primary.thenAccept(attempt -> completeIfAnswered(first, attempt));
+        hedge.thenAccept(attempt -> completeIfAnswered(first, attempt));
+        // If neither request got an answer, fail as the original request did
+        CompletableFuture.allOf(primary, hedge).thenRun(() -> first.complete(primary.join()));
+
+        Attempt<T> winner = await(first);
+        if (winner.hedge()) {
+            hedgeWon.increment();
+            primary.thenAccept(attempt -> {
+                if (attempt.isAnswer()) {
+                    latencySaved.record(attempt.completedAt() - winner.completedAt(), TimeUnit.NANOSECONDS);
+                }
+            });
+        } else {
+            hedgeLost.increment();
+        }
+        return winner.result();
+    }
+
+    private <T> CompletableFuture<Attempt<T>> lookup(Supplier<T> call, boolean hedge) {
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            Attempt<T> attempt;
+            try {
+                attempt = new Attempt<>(call.get(), null, hedge, System.nanoTime());
+            } catch (RuntimeException e) {
+                attempt = new Attempt<>(null, e, hedge, System.nanoTime());
+            }
+            // Failures such as a rejection by the concurrency limit return at once and would drag the hedge delay down
+            if (attempt.isAnswer()) {
+                lookupLatency.record(attempt.completedAt() - start, TimeUnit.NANOSECONDS);
+            }
+            return attempt;
+        }, executor);
+    }
+
+    private static <T> void completeIfAnswered(CompletableFuture<Attempt<T>> first, Attempt<T> attempt) {
+        if (attempt.isAnswer()) {
+            first.complete(attempt);
+        }
+    }
+
+    /**
+     * The configured percentile of recent lookup latencies, but at least the minimum delay;
+     * recomputed at most once per refresh interval, because taking a histogram snapshot is not free
+     */
+    private long hedgeDelayNanos() {
+        long now = System.nanoTime();
+        if (now - hedgeDelayComputedAt > delayRefreshNanos) {
+            hedgeDelayComputedAt = now;
+            HistogramSnapshot snapshot = lookupLatency.takeSnapshot();
+            hedgeDelayNanos = snapshot.count() < minSamples ? -1
+                    : Math.max(minDelayNanos, (long) snapshot.percentileValues()[0].value(TimeUnit.NANOSECONDS));
+        }
+        return hedgeDelayNanos;
+    }
+
+    private void earnBudget() {
+        budget.accumulateAndGet(budgetPercent, (balance, earned) -> Math.min(balance + earned, MAX_SAVED_HEDGES * HEDGE_COST));
+    }
+
+    private boolean spendBudget() {
+        long balance;
+        do {
+            balance = budget.get();
+            if (balance < HEDGE_COST) {
+                return false;
+            }
+        } while (!budget.compareAndSet(balance, balance - HEDGE_COST));
+        return true;
+    }
+
+    private static boolean isDoneWithin(CompletableFuture<?> attempt, long timeoutNanos) {
+        try {
+            attempt.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            throw interrupted(e);
+        } catch (ExecutionException e) {
+            // Only an Error thrown by the lookup; await rethrows it
+            return true;
+        }
+    }
+
+    private static <T> Attempt<T> await(CompletableFuture<Attempt<T>> attempt) {
+        try {
+            return attempt.get();
+        } catch (InterruptedException e) {
+            throw interrupted(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Product lookup failed", e.getCause());
+        }
+    }
+
+    private static OrderManagementException interrupted(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return new OrderManagementException("Interrupted while looking up a product", e,
+            HttpStatus.SERVICE_UNAVAILABLE, "non-critical", "Retry the request");
+    }
+
+    /**
+     * Outcome of one lookup request. A 4xx response is an answer like a product is: the other request
+     * would get the same one. Transport errors, 5xx responses and rejected calls are not.
+     */
+    private record Attempt<T>(T answer, RuntimeException failure, boolean hedge, long completedAt) {
+
+        boolean isAnswer() {
+            return failure == null
+                || failure instanceof FeignException && !InventoryResilienceConfig.isInventoryFailure(failure);
+        }
+
+        T result() {
+            if (failure != null) {
+                throw failure;
+            }
+            return answer;
+        }
+    }
+}
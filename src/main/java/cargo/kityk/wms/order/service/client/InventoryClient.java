@@ -7,25 +7,69 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Optional;
 
 /**
  * Feign client for interacting with the Inventory Management Service.
  * Used to validate products during order creation and updates.
+ *
+ * The Feign proxy is registered under {@link #FEIGN_QUALIFIER}; injecting InventoryClient
+ * without a qualifier yields {@link CoalescingInventoryClient}, which wraps it through
+ * {@link HedgingInventoryClient} and {@link ResilientInventoryClient}.
+ *
+ * A 404 is decoded by {@link cargo.kityk.wms.order.config.NotFoundDecoder}: methods returning an Optional or a
+ * boolean get an empty Optional or false instead of a FeignException, so unknown products cost no exception.
  */
-@FeignClient(name = "inventory-management", url = "${inventory.service.url}")
+@FeignClient(name = "inventory-management", url = "${inventory.service.url}",
+        primary = false, qualifiers = InventoryClient.FEIGN_QUALIFIER, dismiss404 = true)
 public interface InventoryClient {
+    String FEIGN_QUALIFIER = "inventoryFeignClient";
     String BASE_URL = "/api/v1/products";
     String STOCK_URL = "/api/v1/stock";
 
     /**
-     * Check if a product exists by ID.
+     * Get a product by ID.
+     *
+     * @param productId The ID of the product to get
+     * @return Product details, or empty if the product does not exist
+     */
+    @GetMapping(BASE_URL + "/{productId}")
+    Optional<ProductResponse> getProductById(@PathVariable("productId") Long productId);
+
+    /**
+     * Check if a product exists by ID, with a HEAD request that transfers no product details.
      * This is used during order creation and updates to validate product existence.
      *
      * @param productId The ID of the product to check
-     * @return Product details if it exists
+     * @return true if the product exists, false if the inventory service answers 404
      */
-    @GetMapping(BASE_URL + "/{productId}")
-    ProductResponse getProductById(@PathVariable("productId") Long productId);
+    @RequestMapping(method = RequestMethod.HEAD, value = BASE_URL + "/{productId}")
+    boolean productExists(@PathVariable("productId") Long productId);
+
+    /**
+     * Check which of the given products exist, in a single request.
+     * Older inventory deployments do not expose this endpoint and answer 404, 405 or 501.
+     *
+     * @param request Product IDs to check
+     * @return The subset of requested product IDs that do not exist
+     */
+    @PostMapping(BASE_URL + "/existence-check")
+    ProductExistenceResponse checkProductsExist(@RequestBody ProductExistenceRequest request);
+
+    /**
+     * Export the IDs of all products, one page at a time, in ascending order.
+     * Used to rebuild the {@link cargo.kityk.wms.order.service.ProductIdFilter}.
+     *
+     * @param afterId Only IDs greater than this one are returned; 0 for the first page
+     * @param limit Maximum number of IDs to return
+     * @return Up to limit product IDs; fewer when there are no more
+     */
+    @GetMapping(BASE_URL + "/ids")
+    ProductIdPage getProductIds(@RequestParam("afterId") long afterId, @RequestParam("limit") int limit);
 
     /**
      * Lock stock for multiple products in a location-agnostic manner.
@@ -36,4 +80,13 @@ public interface InventoryClient {
      */
     @PostMapping(STOCK_URL + "/lock")
     StockLockResponse lockStock(@RequestBody StockLockRequest request);
+
+    /**
+     * Release stock locked earlier, e.g. the parts of a large order that were locked before another part failed.
+     *
+     * @param request Products and quantities to release
+     * @return Stock release confirmation response
+     */
+    @PostMapping(STOCK_URL + "/release")
+    StockLockResponse releaseStock(@RequestBody StockLockRequest request);
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package cargo.kityk.wms.order.service.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO representing a product change event published by the inventory management service.
+ * Keyed by product ID on the product change topic; a deleted product is published as a tombstone (null value).
+ * Contains only the fields needed for product validation in the order service.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductChangeEvent {
+    private Long productId;
+    private boolean active;
+}
@@ -0,0 +1,19 @@
+package cargo.kityk.wms.order.service.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for asking the inventory management service which of several products exist.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductExistenceRequest {
+    private List<Long> productIds;
+}
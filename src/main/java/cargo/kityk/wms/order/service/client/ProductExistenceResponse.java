@@ -0,0 +1,22 @@
+package cargo.kityk.wms.order.service.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO representing the inventory management service's answer to a product existence check.
+ * Lists only the requested product IDs that do not exist; an empty list means all of them exist.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductExistenceResponse {
+    @Builder.Default
+    private List<Long> missingProductIds = new ArrayList<>();
+}
@@ -0,0 +1,22 @@
+package cargo.kityk.wms.order.service.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO representing one page of the inventory management service's export of product IDs.
+ * The IDs are in ascending order; a page shorter than the requested limit is the last one.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductIdPage {
+    @Builder.Default
+    private List<Long> productIds = new ArrayList<>();
+}
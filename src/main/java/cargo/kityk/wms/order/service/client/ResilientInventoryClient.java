@@ -0,0 +1,152 @@
+package cargo.kityk.wms.order.service.client;
+
+import cargo.kityk.wms.order.config.InventoryResilienceConfig;
+import cargo.kityk.wms.order.dto.StockLockRequest;
+import cargo.kityk.wms.order.dto.StockLockResponse;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Protects the service from a slow or failing inventory service.
+ *
+ * An adaptive concurrency limit bounds how many threads can wait on the inventory service at once, and a circuit
+ * breaker stops calling it while most recent calls fail. While the circuit is open, calls fail immediately with
+ * SERVICE_UNAVAILABLE instead of blocking a request thread until they time out; after the configured wait,
+ * a few probe calls are let through (half-open) and close the circuit again if they succeed. Calls over the
+ * concurrency limit wait briefly for a slot and otherwise fail with SERVICE_UNAVAILABLE as well.
+ *
+ * Sits between {@link HedgingInventoryClient} and the Feign client, so callers that share a coalesced
+ * call also share one slot, while a hedged lookup takes one per request. The circuit breaker is published as
+ * the resilience4j.circuitbreaker.* metrics with name=inventory, the limit as inventory.client.concurrency.*.
+ */
+@Component
+@Qualifier(ResilientInventoryClient.QUALIFIER)
+public class ResilientInventoryClient implements InventoryClient {
+    private static final Logger logger = LoggerFactory.getLogger(ResilientInventoryClient.class);
+
+    public static final String QUALIFIER = "resilientInventoryClient";
+    static final String NAME = "inventory";
+
+    static final String CONCURRENCY_LIMIT_METRIC = "inventory.client.concurrency.limit";
+    static final String IN_FLIGHT_METRIC = "inventory.client.concurrency.inflight";
+    static final String REJECTED_METRIC = "inventory.client.concurrency.rejected";
+
+    private final InventoryClient delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Counter rejectedCalls;
+
+    @Autowired
+    public ResilientInventoryClient(@Qualifier(InventoryClient.FEIGN_QUALIFIER) InventoryClient delegate,
+                                    CircuitBreakerConfig inventoryCircuitBreakerConfig,
+                                    AdaptiveConcurrencyLimiter inventoryConcurrencyLimiter,
+                                    MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(inventoryCircuitBreakerConfig);
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(NAME);
+        this.concurrencyLimiter = inventoryConcurrencyLimiter;
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+            logger.warn("Inventory circuit breaker {}", event.getStateTransition()));
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+
+        Gauge.builder(CONCURRENCY_LIMIT_METRIC, concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+            .description("Current limit of concurrent calls to the inventory service")
+            .register(meterRegistry);
+        Gauge.builder(IN_FLIGHT_METRIC, concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+            .description("Calls to the inventory service in flight")
+            .register(meterRegistry);
+        this.rejectedCalls = Counter.builder(REJECTED_METRIC)
+            .description("Calls to the inventory service rejected by the concurrency limit")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public Optional<ProductResponse> getProductById(Long productId) {
+        return call(() -> delegate.getProductById(productId));
+    }
+
+    @Override
+    public boolean productExists(Long productId) {
+        return call(() -> delegate.productExists(productId));
+    }
+
+    @Override
+    public ProductExistenceResponse checkProductsExist(ProductExistenceRequest request) {
+        return call(() -> delegate.checkProductsExist(request));
+    }
+
+    @Override
+    public ProductIdPage getProductIds(long afterId, int limit) {
+        return call(() -> delegate.getProductIds(afterId, limit));
+    }
+
+    @Override
+    public StockLockResponse lockStock(StockLockRequest request) {
+        return call(() -> delegate.lockStock(request));
+    }
+
+    @Override
+    public StockLockResponse releaseStock(StockLockRequest request) {
+        return call(() -> delegate.releaseStock(request));
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public AdaptiveConcurrencyLimiter getConcurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    private <T> T call(Supplier<T> call) {
+        // The slot is taken outside the breaker, so an open circuit gives it back at once
+        acquireSlot();
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = circuitBreaker.executeSupplier(call);
+        } catch (CallNotPermittedException e) {
+            concurrencyLimiter.release();
+            throw new OrderManagementException("Inventory service unavailable: circuit breaker is open", e,
+                HttpStatus.SERVICE_UNAVAILABLE, "critical",
+                "The inventory service is currently unavailable. Please try again later.");
+        } catch (RuntimeException | Error e) {
+            concurrencyLimiter.complete(System.nanoTime() - start, InventoryResilienceConfig.isInventoryFailure(e));
+            throw e;
+        }
+        concurrencyLimiter.complete(System.nanoTime() - start, false);
+        return result;
+    }
+
+    private void acquireSlot() {
+        boolean acquired;
+        try {
+            acquired = concurrencyLimiter.tryAcquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OrderManagementException("Interrupted while waiting to call the inventory service", e,
+                HttpStatus.SERVICE_UNAVAILABLE, "non-critical", "Retry the request");
+        }
+        if (!acquired) {
+            rejectedCalls.increment();
+            throw new OrderManagementException("Too many concurrent requests to the inventory service",
+                HttpStatus.SERVICE_UNAVAILABLE, "non-critical", "Retry the request shortly");
+        }
+    }
+}
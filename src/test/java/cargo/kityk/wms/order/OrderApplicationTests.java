@@ -8,7 +8,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 
 
-@SpringBootTest(classes = OrderApplication.class)
+// The in-memory database is shared by all cached test contexts, so a polling dispatcher here
+// would claim outbox records written by other tests
+@SpringBootTest(classes = OrderApplication.class, properties = "order.stock-lock.dispatcher.enabled=false")
 @Import(UnitTestConfiguration.class)
 class OrderApplicationTests {
 
@@ -0,0 +1,156 @@
+package cargo.kityk.wms.order.config;
+
+import cargo.kityk.wms.order.dto.StockLockRequest;
+import cargo.kityk.wms.order.dto.StockLockResponse;
+import cargo.kityk.wms.order.service.client.InventoryClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.Client;
+import feign.Feign;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.hc5.ApacheHttp5Client;
+import feign.http2client.Http2Client;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the inventory client transports against a local HTTP server that answers after a delay:
+ * lookups time out on their short read timeout while stock locking waits, on either transport.
+ */
+@DisplayName("Inventory Client Transport Tests")
+class InventoryClientTransportTest {
+
+    private static final Duration RESPONSE_DELAY = Duration.ofMillis(600);
+
+    private final InventoryClientTransportConfig config = new InventoryClientTransportConfig();
+    private final InventoryClientTransportConfig.PooledTransport pooledTransport =
+        new InventoryClientTransportConfig.PooledTransport();
+
+    private HttpServer server;
+    private PoolingHttpClientConnectionManager connectionManager;
+    private CloseableHttpClient httpClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(InventoryClient.BASE_URL, exchange -> respondLater(exchange, "{\"id\":1}"));
+        server.createContext(InventoryClient.STOCK_URL, exchange -> respondLater(exchange, "{\"success\":true}"));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        connectionManager = pooledTransport.inventoryConnectionManager(10, 10, Duration.ofMinutes(5), Duration.ofSeconds(1),
+            Duration.ofSeconds(1));
+        httpClient = pooledTransport.inventoryHttpClient(connectionManager, Duration.ofSeconds(30));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        httpClient.close();
+        connectionManager.close();
+        server.stop(0);
+    }
+
+    private static void respondLater(HttpExchange exchange, String body) throws IOException {
+        try {
+            Thread.sleep(RESPONSE_DELAY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /** Lookups time out before the server answers, stock locking does not */
+    private InventoryClientTransportConfig.InventoryClientTimeouts timeouts() {
+        return config.inventoryClientTimeouts(Duration.ofSeconds(1), RESPONSE_DELAY.dividedBy(3),
+            Duration.ofSeconds(1), RESPONSE_DELAY.multipliedBy(5));
+    }
+
+    private InventoryClient inventoryClient(Client transport) {
+        MappingJackson2HttpMessageConverter jackson = new MappingJackson2HttpMessageConverter();
+        ObjectFactory<HttpMessageConverters> converters = () -> new HttpMessageConverters(jackson);
+        return Feign.builder()
+            .client(transport)
+            .contract(new SpringMvcContract())
+            .encoder(new SpringEncoder(converters))
+            .decoder(new SpringDecoder(converters))
+            .retryer(Retryer.NEVER_RETRY)
+            .target(InventoryClient.class, "http://localhost:" + server.getAddress().getPort());
+    }
+
+    private static void assertLookupTimesOutButLockSucceeds(InventoryClient inventoryClient) {
+        assertThrows(RetryableException.class, () -> inventoryClient.getProductById(1L));
+        StockLockResponse response = inventoryClient.lockStock(StockLockRequest.builder().items(List.of()).build());
+        assertTrue(response.isSuccess());
+    }
+
+    @Test
+    @DisplayName("The pooled transport should apply the timeouts of each method")
+    void pooledTransport_ShouldApplyPerMethodTimeouts() {
+        // Arrange
+        InventoryClient inventoryClient = inventoryClient(pooledTransport.feignClient(httpClient, timeouts()));
+
+        // Act & Assert
+        assertLookupTimesOutButLockSucceeds(inventoryClient);
+    }
+
+    @Test
+    @DisplayName("The HTTP/2 transport should apply the timeouts of each method")
+    void http2Transport_ShouldApplyPerMethodTimeouts() {
+        // Arrange
+        Client transport = new PerMethodTimeoutClient(
+            new Http2Client(HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).build()),
+            timeouts().optionsByMethod());
+
+        // Act & Assert
+        assertLookupTimesOutButLockSucceeds(inventoryClient(transport));
+    }
+
+    @Test
+    @DisplayName("The connection pool should publish its leased, available and pending connections")
+    void pooledTransport_ShouldPublishPoolMetrics() {
+        // Arrange
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        pooledTransport.inventoryConnectionPoolMetrics(connectionManager).bindTo(meterRegistry);
+        InventoryClient inventoryClient = inventoryClient(
+            new PerMethodTimeoutClient(new ApacheHttp5Client(httpClient), timeouts().optionsByMethod()));
+
+        // Act
+        inventoryClient.lockStock(StockLockRequest.builder().items(List.of()).build());
+
+        // Assert: the connection is kept alive for reuse
+        assertEquals(1.0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+            .tag("httpclient", InventoryClientTransportConfig.POOL_METRICS_NAME)
+            .tag("state", "available").gauge().value());
+        assertEquals(0.0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+            .tag("state", "leased").gauge().value());
+        assertEquals(0.0, meterRegistry.get("httpcomponents.httpclient.pool.total.pending").gauge().value());
+    }
+}
@@ -0,0 +1,155 @@
+package cargo.kityk.wms.order.config;
+
+import cargo.kityk.wms.order.exception.InvalidOrderException;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import cargo.kityk.wms.order.service.KafkaOrderIntakeService;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the error handling of the Kafka order intake container against an embedded broker: a batch is retried
+ * while a dependency is unavailable, and any other failure sends its records to the dead letter topic at once.
+ */
+@EmbeddedKafka(partitions = 1, topics = {
+    KafkaOrderIntakeConfigTest.RETRY_TOPIC,
+    KafkaOrderIntakeConfigTest.REJECT_TOPIC,
+    KafkaOrderIntakeConfigTest.DEAD_LETTER_TOPIC
+})
+@DisplayName("Kafka Order Intake Error Handling Tests")
+class KafkaOrderIntakeConfigTest {
+
+    // The broker is shared by the tests, so each gets its own topic
+    static final String RETRY_TOPIC = "wms.order-intake.retry";
+    static final String REJECT_TOPIC = "wms.order-intake.reject";
+    static final String DEAD_LETTER_TOPIC = "wms.order-intake.DLT";
+
+    private static final String GROUP_ID = "order-intake-error-test";
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final EmbeddedKafkaBroker broker;
+    private final KafkaOrderIntakeService intakeService = mock(KafkaOrderIntakeService.class);
+
+    private DefaultKafkaProducerFactory<String, String> producerFactory;
+    private ConcurrentMessageListenerContainer<String, String> container;
+
+    KafkaOrderIntakeConfigTest(EmbeddedKafkaBroker broker) {
+        this.broker = broker;
+    }
+
+    @BeforeEach
+    void setUp() {
+        producerFactory = new DefaultKafkaProducerFactory<>(
+            KafkaOrderIntakeConfig.deadLetterProducerProperties(KafkaTestUtils.producerProps(broker)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (container != null) {
+            container.stop();
+        }
+        producerFactory.destroy();
+    }
+
+    private void send(String topic, String key) {
+        try (Producer<String, String> producer = new KafkaProducer<>(KafkaTestUtils.producerProps(broker),
+                new StringSerializer(), new StringSerializer())) {
+            producer.send(new ProducerRecord<>(topic, key, "{}"));
+        }
+    }
+
+    private void startContainer(String topic) {
+        container = KafkaOrderIntakeConfig.orderIntakeContainer(
+            Map.of(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()), topic, GROUP_ID, 1, 10,
+            intakeService, KafkaOrderIntakeConfig.errorHandler(new KafkaTemplate<>(producerFactory), DEAD_LETTER_TOPIC,
+                Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofSeconds(10)));
+        container.start();
+    }
+
+    private long committedOffset(String topic) {
+        try {
+            OffsetAndMetadata offset = KafkaTestUtils.getCurrentOffset(broker.getBrokersAsString(), GROUP_ID, topic, 0);
+            return offset == null ? 0 : offset.offset();
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met within " + TIMEOUT);
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    @DisplayName("A batch should be retried while the inventory service is unavailable")
+    void whenInventoryUnavailable_ShouldRetryBatch() throws InterruptedException {
+        // Arrange: the inventory service answers 503 twice, then recovers
+        OrderManagementException unavailable = new OrderManagementException("Inventory service unavailable",
+            HttpStatus.SERVICE_UNAVAILABLE, "non-critical", "Retry later");
+        when(intakeService.createOrders(anyList()))
+            .thenThrow(unavailable)
+            .thenThrow(unavailable)
+            .thenReturn(new KafkaOrderIntakeService.Result(1, 0, 0));
+        send(RETRY_TOPIC, "retried");
+
+        // Act
+        startContainer(RETRY_TOPIC);
+        await(() -> committedOffset(RETRY_TOPIC) == 1);
+
+        // Assert
+        verify(intakeService, times(3)).createOrders(anyList());
+    }
+
+    @Test
+    @DisplayName("A batch failing for any other reason should go to the dead letter topic without a retry")
+    void whenFailureIsNotTransient_ShouldDeadLetterWithoutRetry() throws InterruptedException {
+        // Arrange
+        when(intakeService.createOrders(anyList())).thenThrow(new InvalidOrderException("Batch is not valid"));
+        send(REJECT_TOPIC, "rejected");
+
+        // Act
+        startContainer(REJECT_TOPIC);
+        await(() -> committedOffset(REJECT_TOPIC) == 1);
+
+        // Assert
+        verify(intakeService, times(1)).createOrders(anyList());
+        Map<String, Object> consumerProperties = KafkaTestUtils.consumerProps("dead-letter-reader", "false", broker);
+        try (Consumer<String, String> consumer = new DefaultKafkaConsumerFactory<>(consumerProperties,
+                new StringDeserializer(), new StringDeserializer()).createConsumer()) {
+            broker.consumeFromAnEmbeddedTopic(consumer, DEAD_LETTER_TOPIC);
+            ConsumerRecord<String, String> deadLetter = KafkaTestUtils.getSingleRecord(consumer, DEAD_LETTER_TOPIC,
+                TIMEOUT);
+            assertEquals("rejected", deadLetter.key());
+            assertNotNull(deadLetter.headers().lastHeader("kafka_dlt-exception-message"));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package cargo.kityk.wms.order.config;
+
+import cargo.kityk.wms.order.service.client.InventoryClient;
+import cargo.kityk.wms.order.service.client.ProductExistenceRequest;
+import cargo.kityk.wms.order.service.client.ProductResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import feign.FeignException;
+import feign.Retryer;
+import feign.optionals.OptionalDecoder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the NotFoundDecoder on an inventory client declared with dismiss404, against a local HTTP server
+ * that knows product 1 only and has no batch existence endpoint.
+ */
+@DisplayName("Not Found Decoder Tests")
+class NotFoundDecoderTest {
+
+    private HttpServer server;
+    private InventoryClient inventoryClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(InventoryClient.BASE_URL, NotFoundDecoderTest::respond);
+        server.start();
+
+        MappingJackson2HttpMessageConverter jackson = new MappingJackson2HttpMessageConverter();
+        ObjectFactory<HttpMessageConverters> converters = () -> new HttpMessageConverters(jackson);
+        inventoryClient = Feign.builder()
+            .contract(new SpringMvcContract())
+            .encoder(new SpringEncoder(converters))
+            .decoder(new NotFoundDecoder(new OptionalDecoder(new ResponseEntityDecoder(new SpringDecoder(converters)))))
+            .dismiss404()
+            .retryer(Retryer.NEVER_RETRY)
+            .target(InventoryClient.class, "http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange) throws IOException {
+        if (!exchange.getRequestURI().getPath().equals(InventoryClient.BASE_URL + "/1")) {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Test
+    @DisplayName("A product lookup should return the product, or nothing for an unknown product")
+    void getProductById_ShouldDecodeNotFoundAsEmpty() {
+        // Act
+        Optional<ProductResponse> existing = inventoryClient.getProductById(1L);
+        Optional<ProductResponse> unknown = inventoryClient.getProductById(2L);
+
+        // Assert
+        assertEquals(1L, existing.orElseThrow().getId());
+        assertTrue(unknown.isEmpty());
+    }
+
+    @Test
+    @DisplayName("An existence check should answer with the status of the HEAD request")
+    void productExists_ShouldDecodeStatusAsBoolean() {
+        assertTrue(inventoryClient.productExists(1L));
+        assertFalse(inventoryClient.productExists(2L));
+    }
+
+    @Test
+    @DisplayName("Methods that cannot express a missing resource should still fail with NotFound")
+    void checkProductsExist_WhenEndpointMissing_ShouldThrowNotFound() {
+        // Arrange
+        ProductExistenceRequest request = ProductExistenceRequest.builder().productIds(List.of(1L)).build();
+
+        // Act & Assert
+        FeignException.NotFound exception = assertThrows(FeignException.NotFound.class,
+            () -> inventoryClient.checkProductsExist(request));
+        assertTrue(exception.getMessage().contains("checkProductsExist"));
+    }
+}
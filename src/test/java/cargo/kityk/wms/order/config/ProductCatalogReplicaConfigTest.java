@@ -0,0 +1,143 @@
+package cargo.kityk.wms.order.config;
+
+import cargo.kityk.wms.order.service.ProductCatalogReplica;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the catalog replica against an embedded Kafka broker: a replica started after the topic has been
+ * written replays it from offset zero, reports how fast it catches up, and then follows new events.
+ */
+@EmbeddedKafka(partitions = 3,
+    topics = {ProductCatalogReplicaConfigTest.REPLAY_TOPIC, ProductCatalogReplicaConfigTest.FOLLOW_TOPIC})
+@DisplayName("Product Catalog Replica Tests")
+class ProductCatalogReplicaConfigTest {
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalogReplicaConfigTest.class);
+
+    // The broker is shared by the tests, so each gets its own topic
+    static final String REPLAY_TOPIC = "inventory.product-changes.replay";
+    static final String FOLLOW_TOPIC = "inventory.product-changes.follow";
+
+    private static final int PRODUCTS = 20_000;
+    private static final Duration MAX_STALENESS = Duration.ofSeconds(30);
+    private static final Duration CATCH_UP_TIMEOUT = Duration.ofSeconds(60);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final EmbeddedKafkaBroker broker;
+
+    private Producer<String, String> producer;
+    private ProductCatalogReplica replica;
+    private KafkaMessageListenerContainer<String, String> container;
+
+    ProductCatalogReplicaConfigTest(EmbeddedKafkaBroker broker) {
+        this.broker = broker;
+    }
+
+    @BeforeEach
+    void setUp() {
+        producer = new KafkaProducer<>(KafkaTestUtils.producerProps(broker), new StringSerializer(),
+            new StringSerializer());
+        replica = new ProductCatalogReplica(objectMapper, MAX_STALENESS, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (container != null) {
+            container.stop();
+        }
+        producer.close();
+    }
+
+    private void send(String topic, long productId, Boolean active) {
+        String value = active == null ? null : "{\"productId\":" + productId + ",\"active\":" + active + "}";
+        producer.send(new ProducerRecord<>(topic, Long.toString(productId), value));
+    }
+
+    private void startReplica(String topic) {
+        container = ProductCatalogReplicaConfig.catalogReplicaContainer(
+            Map.of(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()), topic, replica, MAX_STALENESS);
+        container.start();
+    }
+
+    private static void await(BooleanSupplier condition, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met within " + timeout);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    @DisplayName("A replica should replay the topic from offset zero and apply the latest event of each product")
+    void whenStarted_ShouldReplayTopicFromOffsetZero() throws InterruptedException {
+        // Arrange: every product is created, every tenth deactivated, every seventh deleted
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            send(REPLAY_TOPIC, productId, true);
+        }
+        for (long productId = 10; productId <= PRODUCTS; productId += 10) {
+            send(REPLAY_TOPIC, productId, false);
+        }
+        for (long productId = 7; productId <= PRODUCTS; productId += 7) {
+            send(REPLAY_TOPIC, productId, null);
+        }
+        producer.flush();
+        int deleted = PRODUCTS / 7;
+
+        // Act
+        long start = System.nanoTime();
+        startReplica(REPLAY_TOPIC);
+        await(replica::isFresh, CATCH_UP_TIMEOUT);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // Assert
+        int events = PRODUCTS + PRODUCTS / 10 + deleted;
+        logger.info("Catalog replica caught up with {} events in {} s ({} events/s)",
+            events, String.format("%.2f", seconds), String.format("%.0f", events / seconds));
+        assertEquals(PRODUCTS - deleted, replica.size());
+        assertEquals(Map.of(1L, true, 10L, false), replica.getAllPresent(List.of(1L, 7L, 10L, 70L, PRODUCTS + 1L)));
+    }
+
+    @Test
+    @DisplayName("A caught-up replica should apply new events as they are published")
+    void whenCaughtUp_ShouldFollowNewEvents() throws InterruptedException {
+        // Arrange
+        send(FOLLOW_TOPIC, 1L, true);
+        send(FOLLOW_TOPIC, 2L, true);
+        producer.flush();
+        startReplica(FOLLOW_TOPIC);
+        await(replica::isFresh, CATCH_UP_TIMEOUT);
+
+        // Act
+        send(FOLLOW_TOPIC, 1L, false);
+        send(FOLLOW_TOPIC, 2L, null);
+        send(FOLLOW_TOPIC, 3L, true);
+        producer.flush();
+
+        // Assert
+        await(() -> replica.getAllPresent(List.of(1L, 2L, 3L)).equals(Map.of(1L, false, 3L, true)),
+            CATCH_UP_TIMEOUT);
+        assertEquals(2, replica.size());
+    }
+}
@@ -0,0 +1,68 @@
+package cargo.kityk.wms.order.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the VirtualThreadPinningMonitor.
+ * Blocking inside a synchronized block pins a virtual thread up to JDK 23; later JDKs no longer pin there.
+ */
+@DisplayName("Virtual Thread Pinning Monitor Tests")
+@EnabledForJreRange(max = JRE.JAVA_23)
+class VirtualThreadPinningMonitorTest {
+
+    private static final long EVENT_WAIT_MILLIS = 10_000;
+
+    private SimpleMeterRegistry meterRegistry;
+    private VirtualThreadPinningMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        monitor = new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(10));
+        monitor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.stop();
+    }
+
+    @Test
+    @DisplayName("A virtual thread blocking inside a synchronized block should be counted as pinned")
+    void whenVirtualThreadBlocksWhilePinned_ShouldCountIt() throws InterruptedException {
+        // Arrange
+        Object lock = new Object();
+
+        // Act
+        Thread.ofVirtual().start(() -> {
+            synchronized (lock) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }).join();
+
+        // Assert: JFR hands events to the stream about once per second
+        long deadline = System.currentTimeMillis() + EVENT_WAIT_MILLIS;
+        while (pinnedCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertTrue(pinnedCount() >= 1);
+    }
+
+    private double pinnedCount() {
+        return meterRegistry.counter(VirtualThreadPinningMonitor.PINNED_METRIC).count();
+    }
+}
@@ -0,0 +1,69 @@
+package cargo.kityk.wms.order.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for BloomFilter
+ */
+@DisplayName("Bloom Filter Tests")
+class BloomFilterTest {
+
+    private static final int PRODUCTS = 100_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Test
+    @DisplayName("Every added ID should be reported as probably added")
+    void mightContain_AddedIds_ShouldHaveNoFalseNegatives() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(PRODUCTS, FALSE_POSITIVE_RATE);
+
+        // Act
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            filter.put(productId);
+        }
+
+        // Assert
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            assertTrue(filter.mightContain(productId), "False negative for " + productId);
+        }
+    }
+
+    @Test
+    @DisplayName("IDs not added should be reported as probably added at about the configured rate")
+    void mightContain_OtherIds_ShouldStayNearFalsePositiveRate() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(PRODUCTS, FALSE_POSITIVE_RATE);
+        for (long productId = 1; productId <= PRODUCTS; productId++) {
+            filter.put(productId);
+        }
+
+        // Act
+        int falsePositives = 0;
+        for (long productId = PRODUCTS + 1; productId <= 2L * PRODUCTS; productId++) {
+            if (filter.mightContain(productId)) {
+                falsePositives++;
+            }
+        }
+
+        // Assert
+        double rate = (double) falsePositives / PRODUCTS;
+        assertTrue(rate < FALSE_POSITIVE_RATE * 1.5, "False-positive rate " + rate);
+        assertEquals(FALSE_POSITIVE_RATE, filter.expectedFalsePositiveRate(), FALSE_POSITIVE_RATE / 2);
+        // About 1.2 bytes per ID at 1%
+        assertTrue(filter.sizeInBytes() < PRODUCTS * 1.25, "Size " + filter.sizeInBytes());
+    }
+
+    @Test
+    @DisplayName("An empty filter should report nothing as added")
+    void mightContain_EmptyFilter_ShouldReturnFalse() {
+        // Arrange
+        BloomFilter filter = new BloomFilter(0, FALSE_POSITIVE_RATE);
+
+        // Act & Assert
+        assertFalse(filter.mightContain(1L));
+        assertEquals(0.0, filter.expectedFalsePositiveRate());
+    }
+}
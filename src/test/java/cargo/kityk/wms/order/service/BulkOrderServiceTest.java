@@ -0,0 +1,242 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.BulkOrderCreateDTO;
+import cargo.kityk.wms.order.dto.BulkOrderResponseDTO;
+import cargo.kityk.wms.order.dto.BulkOrderResultDTO;
+import cargo.kityk.wms.order.dto.OrderCreateDTO;
+import cargo.kityk.wms.order.dto.OrderItemCreateDTO;
+import cargo.kityk.wms.order.entity.Customer;
+import cargo.kityk.wms.order.entity.Order;
+import cargo.kityk.wms.order.exception.InvalidOrderException;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import cargo.kityk.wms.order.repository.CustomerRepository;
+import cargo.kityk.wms.order.repository.OrderRepository;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static cargo.kityk.wms.test.order.testconfig.TestConstants.*;
+import static cargo.kityk.wms.test.order.testutils.TestEntityFactory.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the BulkOrderService
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Bulk Order Service Tests")
+class BulkOrderServiceTest {
+
+    private static final int MAX_ORDERS = 3;
+    private static final Long MISSING_PRODUCT_ID = 99L;
+    private static final Long UNKNOWN_CUSTOMER_ID = 42L;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private ProductValidationService productValidationService;
+
+    @Mock
+    private StockLockOutboxService stockLockOutboxService;
+
+    @Mock
+    private OrderEventOutboxService orderEventOutboxService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ValidatorFactory validatorFactory;
+    private BulkOrderService bulkOrderService;
+
+    @BeforeEach
+    void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        bulkOrderService = new BulkOrderService(orderRepository, customerRepository, productValidationService,
+            stockLockOutboxService, orderEventOutboxService, transactionManager, validatorFactory.getValidator(), MAX_ORDERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        validatorFactory.close();
+    }
+
+    private static OrderCreateDTO order(Long customerId, Long... productIds) {
+        List<OrderItemCreateDTO> items = new ArrayList<>();
+        for (Long productId : productIds) {
+            items.add(OrderItemCreateDTO.builder().productId(productId).quantity(1).build());
+        }
+        return OrderCreateDTO.builder().customerId(customerId).items(items).build();
+    }
+
+    private void assignIdsOnSave() {
+        AtomicLong ids = new AtomicLong(ORDER_ID);
+        when(orderRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Order> orders = invocation.getArgument(0);
+            orders.forEach(order -> order.setId(ids.getAndIncrement()));
+            return orders;
+        });
+    }
+
+    @Test
+    @DisplayName("Valid orders should be created with one customer lookup, one product check and one insert batch")
+    void createOrders_WhenAllValid_ShouldUseBatchedLookups() {
+        // Arrange
+        Customer customer = createCustomer(CUSTOMER_ID);
+        when(customerRepository.findAllById(anyCollection())).thenReturn(List.of(customer));
+        when(productValidationService.findMissingProducts(anyCollection())).thenReturn(Set.of());
+        assignIdsOnSave();
+        BulkOrderCreateDTO request = BulkOrderCreateDTO.builder()
+            .orders(List.of(order(CUSTOMER_ID, PRODUCT_ID), order(CUSTOMER_ID, PRODUCT_ID, PRODUCT_ID_2)))
+            .build();
+
+        // Act
+        BulkOrderResponseDTO response = bulkOrderService.createOrders(request);
+
+        // Assert
+        assertEquals(2, response.getCreated());
+        assertEquals(0, response.getRejected());
+        response.getResults().forEach(result -> assertEquals(BulkOrderResultDTO.Status.CREATED, result.getStatus()));
+        assertEquals(ORDER_ID + 1, response.getResults().get(1).getOrder().getId());
+
+        verify(customerRepository).findAllById(Set.of(CUSTOMER_ID));
+        verify(productValidationService).findMissingProducts(Set.of(PRODUCT_ID, PRODUCT_ID_2));
+        verify(orderRepository, times(1)).saveAll(anyList());
+        verify(orderRepository, never()).save(any());
+        verify(stockLockOutboxService).enqueueAll(Map.of(
+            ORDER_ID, request.getOrders().get(0).getItems(),
+            ORDER_ID + 1, request.getOrders().get(1).getItems()));
+        verify(orderEventOutboxService).recordCreated(argThat(orders -> orders.size() == 2));
+    }
+
+    @Test
+    @DisplayName("Invalid orders should be rejected on their own while the others are created")
+    void createOrders_WhenSomeInvalid_ShouldRejectOnlyThoseOrders() {
+        // Arrange
+        Customer customer = createCustomer(CUSTOMER_ID);
+        when(customerRepository.findAllById(anyCollection())).thenReturn(List.of(customer));
+        when(productValidationService.findMissingProducts(anyCollection())).thenReturn(Set.of(MISSING_PRODUCT_ID));
+        assignIdsOnSave();
+        BulkOrderCreateDTO request = BulkOrderCreateDTO.builder()
+            .orders(List.of(
+                order(CUSTOMER_ID, PRODUCT_ID),
+                order(UNKNOWN_CUSTOMER_ID, PRODUCT_ID),
+                order(CUSTOMER_ID, PRODUCT_ID, MISSING_PRODUCT_ID)))
+            .build();
+
+        // Act
+        BulkOrderResponseDTO response = bulkOrderService.createOrders(request);
+
+        // Assert
+        assertEquals(1, response.getCreated());
+        assertEquals(2, response.getRejected());
+        List<BulkOrderResultDTO> results = response.getResults();
+        assertEquals(BulkOrderResultDTO.Status.CREATED, results.get(0).getStatus());
+        assertEquals(BulkOrderResultDTO.Status.REJECTED, results.get(1).getStatus());
+        assertTrue(results.get(1).getError().getDetail().contains("Customer not found"));
+        assertEquals(BulkOrderResultDTO.Status.REJECTED, results.get(2).getStatus());
+        assertTrue(results.get(2).getError().getDetail().contains(MISSING_PRODUCT_ID.toString()));
+
+        // Products of orders with unknown customers are not checked
+        verify(productValidationService).findMissingProducts(Set.of(PRODUCT_ID, MISSING_PRODUCT_ID));
+        verify(orderRepository).saveAll(argThat(orders -> ((List<Order>) orders).size() == 1));
+    }
+
+    @Test
+    @DisplayName("An order whose total quantity of a product overflows should be rejected on its own")
+    void createOrders_WhenQuantityOverflows_ShouldRejectOnlyThatOrder() {
+        // Arrange
+        Customer customer = createCustomer(CUSTOMER_ID);
+        when(customerRepository.findAllById(anyCollection())).thenReturn(List.of(customer));
+        when(productValidationService.findMissingProducts(anyCollection())).thenReturn(Set.of());
+        assignIdsOnSave();
+        OrderItemCreateDTO maxQuantity = OrderItemCreateDTO.builder().productId(PRODUCT_ID_2).quantity(Integer.MAX_VALUE).build();
+        OrderCreateDTO overflowing = OrderCreateDTO.builder()
+            .customerId(CUSTOMER_ID)
+            .items(List.of(maxQuantity, maxQuantity))
+            .build();
+        BulkOrderCreateDTO request = BulkOrderCreateDTO.builder()
+            .orders(List.of(order(CUSTOMER_ID, PRODUCT_ID), overflowing))
+            .build();
+
+        // Act
+        BulkOrderResponseDTO response = bulkOrderService.createOrders(request);
+
+        // Assert
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getRejected());
+        assertEquals(BulkOrderResultDTO.Status.CREATED, response.getResults().get(0).getStatus());
+        assertEquals(BulkOrderResultDTO.Status.REJECTED, response.getResults().get(1).getStatus());
+        verify(productValidationService).findMissingProducts(Set.of(PRODUCT_ID));
+        verify(stockLockOutboxService).enqueueAll(Map.of(ORDER_ID, request.getOrders().get(0).getItems()));
+    }
+
+    @Test
+    @DisplayName("Orders failing bean validation should be rejected without any lookup")
+    void createOrders_WhenOrderFailsValidation_ShouldRejectIt() {
+        // Arrange
+        when(orderRepository.saveAll(anyList())).thenReturn(List.of());
+        BulkOrderCreateDTO request = BulkOrderCreateDTO.builder()
+            .orders(List.of(order(CUSTOMER_ID)))
+            .build();
+
+        // Act
+        BulkOrderResponseDTO response = bulkOrderService.createOrders(request);
+
+        // Assert
+        assertEquals(1, response.getRejected());
+        assertTrue(response.getResults().getFirst().getError().getDetail().contains("items"));
+        verify(productValidationService, never()).findMissingProducts(anyCollection());
+    }
+
+    @Test
+    @DisplayName("A batch larger than the configured maximum should be rejected as a whole")
+    void createOrders_WhenBatchTooLarge_ShouldThrow() {
+        // Arrange
+        List<OrderCreateDTO> orders = new ArrayList<>();
+        for (int i = 0; i <= MAX_ORDERS; i++) {
+            orders.add(order(CUSTOMER_ID, PRODUCT_ID));
+        }
+
+        // Act & Assert
+        assertThrows(InvalidOrderException.class,
+            () -> bulkOrderService.createOrders(BulkOrderCreateDTO.builder().orders(orders).build()));
+        verifyNoInteractions(customerRepository, orderRepository, stockLockOutboxService);
+    }
+
+    @Test
+    @DisplayName("An unavailable inventory service should fail the whole batch before a transaction is opened")
+    void createOrders_WhenInventoryUnavailable_ShouldThrow() {
+        // Arrange
+        when(productValidationService.findMissingProducts(anyCollection())).thenThrow(new OrderManagementException(
+            "Error validating product", HttpStatus.SERVICE_UNAVAILABLE, "critical", "Try again later"));
+        BulkOrderCreateDTO request = BulkOrderCreateDTO.builder()
+            .orders(List.of(order(CUSTOMER_ID, PRODUCT_ID)))
+            .build();
+
+        // Act & Assert
+        assertThrows(OrderManagementException.class, () -> bulkOrderService.createOrders(request));
+        verify(orderRepository, never()).saveAll(anyList());
+        verifyNoInteractions(transactionManager, customerRepository);
+    }
+}
@@ -0,0 +1,224 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.application.OrderApplication;
+import cargo.kityk.wms.order.dto.OrderCreateDTO;
+import cargo.kityk.wms.order.dto.OrderItemCreateDTO;
+import cargo.kityk.wms.order.entity.Customer;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import cargo.kityk.wms.order.repository.CustomerRepository;
+import cargo.kityk.wms.order.repository.IdempotencyKeyRepository;
+import cargo.kityk.wms.order.repository.OrderRepository;
+import cargo.kityk.wms.order.repository.StockLockOutboxRepository;
+import cargo.kityk.wms.test.order.testconfig.UnitTestConfiguration;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+
+import static cargo.kityk.wms.test.order.testconfig.TestConstants.*;
+import static cargo.kityk.wms.test.order.testutils.TestEntityFactory.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests order creation from Kafka against an embedded broker and the in-memory database: a topic written by
+ * several producers is turned into exactly one order per key, invalid records are skipped, and offsets are
+ * committed once the orders are.
+ */
+@SpringBootTest(classes = OrderApplication.class, properties = {
+    "order.kafka-intake.enabled=true",
+    "order.kafka-intake.topic=" + KafkaOrderIntakeServiceTest.TOPIC,
+    "order.kafka-intake.group-id=" + KafkaOrderIntakeServiceTest.GROUP_ID,
+    "order.kafka-intake.concurrency=2",
+    "order.kafka-intake.max-poll-records=50",
+    "order.kafka-intake.retry-delay=PT0.1S",
+    "spring.kafka.bootstrap-servers=${spring.embedded.kafka.brokers}",
+    "order.intake.worker.enabled=false",
+    "order.stock-lock.dispatcher.enabled=false"
+})
+@EmbeddedKafka(partitions = 4, topics = KafkaOrderIntakeServiceTest.TOPIC)
+@Import(UnitTestConfiguration.class)
+@DisplayName("Kafka Order Intake Tests")
+class KafkaOrderIntakeServiceTest {
+
+    static final String TOPIC = "wms.order-intake.test";
+    static final String GROUP_ID = "order-intake-test";
+
+    private static final int ORDERS = 200;
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    @Autowired
+    private KafkaOrderIntakeService intakeService;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockLockOutboxRepository outboxRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockitoBean
+    private ProductValidationService productValidationService;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = createPersistedCustomer(customerRepository);
+        when(productValidationService.findMissingProducts(anyCollection())).thenReturn(Set.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyKeyRepository.deleteAll();
+        outboxRepository.deleteAll();
+        orderRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    private String order(Long customerId) {
+        try {
+            return objectMapper.writeValueAsString(OrderCreateDTO.builder()
+                .customerId(customerId)
+                .items(List.of(OrderItemCreateDTO.builder().productId(PRODUCT_ID).quantity(2).build()))
+                .build());
+        } catch (JsonProcessingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private double records(String outcome) {
+        return meterRegistry.get(KafkaOrderIntakeService.RECORDS_METRIC).tag("outcome", outcome).counter().count();
+    }
+
+    /** Sum of the offsets committed by the intake group over all partitions */
+    private long committedOffsets() {
+        long total = 0;
+        try {
+            for (int partition = 0; partition < broker.getPartitionsPerTopic(); partition++) {
+                OffsetAndMetadata offset = KafkaTestUtils.getCurrentOffset(broker.getBrokersAsString(), GROUP_ID, TOPIC,
+                    partition);
+                total += offset == null ? 0 : offset.offset();
+            }
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+        return total;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Condition not met within " + TIMEOUT);
+            Thread.sleep(20);
+        }
+    }
+
+    @Test
+    @DisplayName("Each key should become one order, however often it is delivered, and offsets should follow")
+    void whenRecordsArePublished_ShouldCreateOneOrderPerKeyAndCommitOffsets() throws InterruptedException {
+        // Arrange: every order is sent twice, plus a record without key, an unreadable one and an unknown customer
+        // The meter registry is shared with the other tests, so counts are compared with those before
+        double created = records("created");
+        double duplicates = records("duplicate");
+        double rejected = records("rejected");
+        int sent = 0;
+        try (Producer<String, String> producer = new KafkaProducer<>(KafkaTestUtils.producerProps(broker),
+                new StringSerializer(), new StringSerializer())) {
+            for (int delivery = 0; delivery < 2; delivery++) {
+                for (int i = 0; i < ORDERS; i++) {
+                    producer.send(new ProducerRecord<>(TOPIC, "marketplace-" + i, order(customer.getId())));
+                    sent++;
+                }
+            }
+            producer.send(new ProducerRecord<>(TOPIC, null, order(customer.getId())));
+            producer.send(new ProducerRecord<>(TOPIC, "unreadable", "{not json"));
+            producer.send(new ProducerRecord<>(TOPIC, "unknown-customer", order(Long.MAX_VALUE)));
+            sent += 3;
+        }
+        long expectedOffsets = sent;
+
+        // Act
+        await(() -> committedOffsets() == expectedOffsets);
+
+        // Assert
+        assertEquals(ORDERS, orderRepository.count());
+        assertEquals(ORDERS, outboxRepository.count());
+        assertEquals(ORDERS, idempotencyKeyRepository.count());
+        assertTrue(idempotencyKeyRepository.existsById(KafkaOrderIntakeService.KEY_PREFIX + "marketplace-0"));
+        assertEquals(ORDERS, records("created") - created);
+        assertEquals(ORDERS, records("duplicate") - duplicates);
+        assertEquals(3, records("rejected") - rejected);
+    }
+
+    @Test
+    @DisplayName("A batch that fails as a whole should leave neither orders nor keys behind")
+    void whenBatchFails_ShouldRollBackOrdersAndKeys() {
+        // Arrange
+        when(productValidationService.findMissingProducts(anyCollection())).thenThrow(new OrderManagementException(
+            "Inventory service unavailable", HttpStatus.SERVICE_UNAVAILABLE, "non-critical", "Retry later"));
+        List<ConsumerRecord<String, String>> batch = new ArrayList<>();
+        batch.add(new ConsumerRecord<>(TOPIC, 0, 0, "direct-1", order(customer.getId())));
+        batch.add(new ConsumerRecord<>(TOPIC, 0, 1, "direct-2", order(customer.getId())));
+
+        // Act & Assert
+        assertThrows(OrderManagementException.class, () -> intakeService.createOrders(batch));
+        assertEquals(0, orderRepository.count());
+        assertEquals(0, idempotencyKeyRepository.count());
+    }
+
+    @Test
+    @DisplayName("A batch delivered again should be recognized by its keys")
+    void whenBatchIsRedelivered_ShouldSkipKnownKeys() {
+        // Arrange
+        List<ConsumerRecord<String, String>> batch = new ArrayList<>();
+        batch.add(new ConsumerRecord<>(TOPIC, 0, 0, "direct-1", order(customer.getId())));
+        batch.add(new ConsumerRecord<>(TOPIC, 0, 1, "direct-2", order(customer.getId())));
+        intakeService.createOrders(batch);
+
+        // Act
+        KafkaOrderIntakeService.Result result = intakeService.createOrders(batch);
+
+        // Assert
+        assertEquals(new KafkaOrderIntakeService.Result(0, 2, 0), result);
+        assertEquals(2, orderRepository.count());
+    }
+}
@@ -0,0 +1,195 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.application.OrderApplication;
+import cargo.kityk.wms.order.dto.OrderDTO;
+import cargo.kityk.wms.order.dto.OrderEventDTO;
+import cargo.kityk.wms.order.entity.Customer;
+import cargo.kityk.wms.order.entity.Order;
+import cargo.kityk.wms.order.entity.OrderEventOutbox;
+import cargo.kityk.wms.order.repository.CustomerRepository;
+import cargo.kityk.wms.order.repository.OrderEventOutboxRepository;
+import cargo.kityk.wms.order.repository.OrderRepository;
+import cargo.kityk.wms.test.order.testconfig.UnitTestConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static cargo.kityk.wms.test.order.testconfig.TestConstants.*;
+import static cargo.kityk.wms.test.order.testutils.TestEntityFactory.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the order event outbox against the in-memory database: events are written with the order change,
+ * handed out in the order they were written, and deleted only once published.
+ */
+@SpringBootTest(classes = OrderApplication.class, properties = {
+    "order.events.enabled=true",
+    "order.events.relay.enabled=false",
+    "order.events.batch-size=2",
+    "order.stock-lock.dispatcher.enabled=false"
+})
+@Import(UnitTestConfiguration.class)
+@DisplayName("Order Event Outbox Tests")
+class OrderEventOutboxServiceTest {
+
+    @Autowired
+    private OrderEventOutboxService outboxService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderEventOutboxRepository outboxRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        Customer customer = createPersistedCustomer(customerRepository);
+        order = orderRepository.save(createBasicOrder(null, customer, PENDING_STATUS));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+        orderRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    /** Records a created, a status changed and a deleted event of the order, each in its own transaction */
+    private void recordLifecycle() {
+        transactionTemplate.executeWithoutResult(status -> outboxService.recordCreated(List.of(order)));
+        transactionTemplate.executeWithoutResult(status -> outboxService.recordStatusChanged(order.getId(), SHIPPED_STATUS));
+        transactionTemplate.executeWithoutResult(status -> outboxService.recordDeleted(order.getId()));
+    }
+
+    @Test
+    @DisplayName("Recording an event outside of a transaction should be rejected")
+    void record_WithoutTransaction_ShouldThrow() {
+        assertThrows(IllegalTransactionStateException.class, () -> outboxService.recordDeleted(order.getId()));
+    }
+
+    @Test
+    @DisplayName("An event should not be recorded when its transaction rolls back")
+    void record_WhenTransactionRollsBack_ShouldNotStoreEvent() {
+        // Act
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxService.recordStatusChanged(order.getId(), SHIPPED_STATUS);
+            status.setRollbackOnly();
+        });
+
+        // Assert
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    @DisplayName("Events should be handed out in the order they were written and deleted once published")
+    void publishNextBatch_ShouldPublishInOrderAndDeletePublishedEvents() {
+        // Arrange
+        recordLifecycle();
+        List<OrderEventDTO> published = new ArrayList<>();
+
+        // Act
+        int first = outboxService.publishNextBatch(events -> events.forEach(event -> published.add(read(event))));
+        int second = outboxService.publishNextBatch(events -> events.forEach(event -> published.add(read(event))));
+        int third = outboxService.publishNextBatch(events -> fail("The outbox should be empty"));
+
+        // Assert
+        assertEquals(2, first);
+        assertEquals(1, second);
+        assertEquals(0, third);
+        assertEquals(List.of(OrderEventDTO.Type.CREATED, OrderEventDTO.Type.STATUS_CHANGED, OrderEventDTO.Type.DELETED),
+            published.stream().map(OrderEventDTO::getType).toList());
+        assertEquals(PENDING_STATUS, published.get(0).getStatus());
+        assertEquals(SHIPPED_STATUS, published.get(1).getStatus());
+        assertNull(published.get(2).getStatus());
+        assertTrue(published.stream().allMatch(event -> order.getId().equals(event.getOrderId())));
+        assertEquals(0, outboxRepository.count());
+    }
+
+    @Test
+    @DisplayName("Events should stay in the outbox when publishing fails")
+    void publishNextBatch_WhenPublisherFails_ShouldKeepEvents() {
+        // Arrange
+        recordLifecycle();
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> outboxService.publishNextBatch(events -> {
+            throw new IllegalStateException("Broker unavailable");
+        }));
+
+        // Assert
+        assertEquals(3, outboxRepository.count());
+    }
+
+    @Test
+    @DisplayName("Concurrent updates of an order should write their events in the order they commit")
+    void updateOrder_WhenOrderIsLocked_ShouldWaitAndRecordEventAfterLockHolder() throws Exception {
+        // Arrange: another transaction holds the order row lock and records its event only after a pause
+        CountDownLatch locked = new CountDownLatch(1);
+        CompletableFuture<Void> lockHolder = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            Order lockedOrder = orderRepository.findByIdForUpdate(order.getId()).orElseThrow();
+            locked.countDown();
+            sleep(300);
+            lockedOrder.setStatus(PROCESSING_STATUS);
+            outboxService.recordStatusChanged(order.getId(), PROCESSING_STATUS);
+        }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        // Act
+        OrderDTO updated = orderService.updateOrder(order.getId(), OrderDTO.builder().status(SHIPPED_STATUS).build());
+        lockHolder.get(5, TimeUnit.SECONDS);
+
+        // Assert: the update waited for the lock, so its event follows the lock holder's and its status is final
+        List<OrderEventDTO> events = outboxRepository.findAll(Sort.by("id")).stream().map(this::read).toList();
+        assertEquals(List.of(PROCESSING_STATUS, SHIPPED_STATUS), events.stream().map(OrderEventDTO::getStatus).toList());
+        assertEquals(SHIPPED_STATUS, updated.getStatus());
+        assertEquals(SHIPPED_STATUS, orderRepository.findById(order.getId()).orElseThrow().getStatus());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AssertionError(e);
+        }
+    }
+
+    private OrderEventDTO read(OrderEventOutbox event) {
+        try {
+            return objectMapper.readValue(event.getPayload(), OrderEventDTO.class);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
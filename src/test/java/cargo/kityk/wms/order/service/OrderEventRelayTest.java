@@ -0,0 +1,175 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.config.OrderEventRelayConfig;
+import cargo.kityk.wms.order.dto.OrderEventDTO;
+import cargo.kityk.wms.order.entity.OrderEventOutbox;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests the order event relay against an embedded Kafka broker: events of many orders, written interleaved,
+ * reach consumers in the order they were written per order, and a failed send leaves the batch in the outbox.
+ */
+@EmbeddedKafka(partitions = 4, topics = {OrderEventRelayTest.ORDERING_TOPIC, OrderEventRelayTest.FAILURE_TOPIC})
+@DisplayName("Order Event Relay Tests")
+class OrderEventRelayTest {
+
+    // The broker is shared by the tests, so each gets its own topic
+    static final String ORDERING_TOPIC = "wms.order-events.ordering";
+    static final String FAILURE_TOPIC = "wms.order-events.failure";
+
+    private static final int ORDERS = 50;
+    private static final int EVENTS_PER_ORDER = 20;
+    private static final int BATCH_SIZE = 64;
+    private static final Duration SEND_TIMEOUT = Duration.ofSeconds(30);
+
+    private final EmbeddedKafkaBroker broker;
+    private final OrderEventOutboxService outboxService = mock(OrderEventOutboxService.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Queue<OrderEventOutbox> outbox = new ArrayDeque<>();
+
+    private DefaultKafkaProducerFactory<String, String> producerFactory;
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    OrderEventRelayTest(EmbeddedKafkaBroker broker) {
+        this.broker = broker;
+    }
+
+    @BeforeEach
+    void setUp() {
+        producerFactory = new DefaultKafkaProducerFactory<>(OrderEventRelayConfig.orderEventProducerProperties(
+            KafkaTestUtils.producerProps(broker), "lz4", Duration.ofMillis(20), Duration.ofSeconds(5)));
+        kafkaTemplate = new KafkaTemplate<>(producerFactory);
+
+        // The mocked outbox hands out its oldest events and drops them once the publisher returns
+        when(outboxService.getBatchSize()).thenReturn(BATCH_SIZE);
+        when(outboxService.publishNextBatch(any())).thenAnswer(invocation -> {
+            java.util.function.Consumer<List<OrderEventOutbox>> publisher = invocation.getArgument(0);
+            List<OrderEventOutbox> batch = outbox.stream().limit(BATCH_SIZE).toList();
+            if (batch.isEmpty()) {
+                return 0;
+            }
+            publisher.accept(batch);
+            batch.forEach(event -> outbox.remove());
+            return batch.size();
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        producerFactory.destroy();
+    }
+
+    private OrderEventRelay relay(String topic) {
+        return new OrderEventRelay(outboxService, kafkaTemplate, topic, SEND_TIMEOUT, meterRegistry);
+    }
+
+    /** Writes events of all orders round-robin, so that consecutive events belong to different orders */
+    private void writeInterleavedEvents() {
+        long eventId = 0;
+        for (int sequence = 0; sequence < EVENTS_PER_ORDER; sequence++) {
+            for (long orderId = 1; orderId <= ORDERS; orderId++) {
+                OrderEventOutbox event = new OrderEventOutbox(orderId, OrderEventDTO.Type.STATUS_CHANGED,
+                    "{\"orderId\":" + orderId + ",\"status\":\"Status " + sequence + "\"}");
+                event.setId(++eventId);
+                outbox.add(event);
+            }
+        }
+    }
+
+    private List<ConsumerRecord<String, String>> consume(String topic, int count) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("order-events-test", "false", broker);
+        try (Consumer<String, String> consumer = new KafkaConsumer<>(props, new StringDeserializer(),
+                new StringDeserializer())) {
+            broker.consumeFromAnEmbeddedTopic(consumer, topic);
+            List<ConsumerRecord<String, String>> records = new ArrayList<>();
+            long deadline = System.nanoTime() + SEND_TIMEOUT.toNanos();
+            while (records.size() < count && System.nanoTime() < deadline) {
+                KafkaTestUtils.getRecords(consumer, Duration.ofMillis(500)).forEach(records::add);
+            }
+            return records;
+        }
+    }
+
+    private static long eventId(ConsumerRecord<String, String> record) {
+        return Long.parseLong(new String(record.headers().lastHeader(OrderEventRelay.EVENT_ID_HEADER).value(),
+            StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Events of each order should be consumed in the order they were written")
+    void relay_ShouldKeepOrderOfEventsPerOrder() {
+        // Arrange
+        writeInterleavedEvents();
+
+        // Act
+        relay(ORDERING_TOPIC).relay();
+
+        // Assert: the outbox is drained in full batches without waiting for the next run
+        assertTrue(outbox.isEmpty());
+        assertEquals(ORDERS * EVENTS_PER_ORDER,
+            meterRegistry.get("order.events.published").counter().count());
+
+        List<ConsumerRecord<String, String>> records = consume(ORDERING_TOPIC, ORDERS * EVENTS_PER_ORDER);
+        assertEquals(ORDERS * EVENTS_PER_ORDER, records.size());
+
+        Map<String, List<ConsumerRecord<String, String>>> recordsByOrder = new HashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            recordsByOrder.computeIfAbsent(record.key(), key -> new ArrayList<>()).add(record);
+        }
+        assertEquals(ORDERS, recordsByOrder.size());
+        recordsByOrder.forEach((orderId, orderRecords) -> {
+            assertEquals(EVENTS_PER_ORDER, orderRecords.size());
+            for (int sequence = 0; sequence < EVENTS_PER_ORDER; sequence++) {
+                ConsumerRecord<String, String> record = orderRecords.get(sequence);
+                assertTrue(record.value().contains("\"Status " + sequence + "\""),
+                    "Order " + orderId + " got " + record.value() + " as event " + sequence);
+                assertEquals(sequence * ORDERS + Long.parseLong(orderId), eventId(record));
+                assertEquals(OrderEventDTO.Type.STATUS_CHANGED.name(), new String(
+                    record.headers().lastHeader(OrderEventRelay.EVENT_TYPE_HEADER).value(), StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("A batch that could not be sent should stay in the outbox")
+    void relay_WhenSendFails_ShouldKeepBatch() {
+        // Arrange: a payload over the producer's maximum request size is rejected
+        OrderEventOutbox event = new OrderEventOutbox(1L, OrderEventDTO.Type.CREATED, "x".repeat(2 * 1024 * 1024));
+        event.setId(1L);
+        outbox.add(event);
+
+        // Act
+        relay(FAILURE_TOPIC).relay();
+
+        // Assert
+        assertEquals(1, outbox.size());
+        assertEquals(0.0, meterRegistry.get("order.events.published").counter().count());
+    }
+}
@@ -0,0 +1,216 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.application.OrderApplication;
+import cargo.kityk.wms.order.dto.OrderCreateDTO;
+import cargo.kityk.wms.order.dto.OrderItemCreateDTO;
+import cargo.kityk.wms.order.entity.Customer;
+import cargo.kityk.wms.order.entity.IdempotencyKey;
+import cargo.kityk.wms.order.exception.InvalidOrderException;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import cargo.kityk.wms.order.repository.CustomerRepository;
+import cargo.kityk.wms.order.repository.IdempotencyKeyRepository;
+import cargo.kityk.wms.order.repository.OrderRepository;
+import cargo.kityk.wms.order.repository.StockLockOutboxRepository;
+import cargo.kityk.wms.test.order.testconfig.UnitTestConfiguration;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static cargo.kityk.wms.test.order.testconfig.TestConstants.*;
+import static cargo.kityk.wms.test.order.testutils.TestEntityFactory.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+
+/**
+ * Tests idempotent order creation against the in-memory database: a replayed key returns the original
+ * order without creating another one, from the cache or from the key table.
+ */
+@SpringBootTest(classes = OrderApplication.class, properties = "order.stock-lock.dispatcher.enabled=false")
+@Import(UnitTestConfiguration.class)
+@DisplayName("Order Idempotency Tests")
+class OrderIdempotencyServiceTest {
+
+    @Autowired
+    private OrderIdempotencyService idempotencyService;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockLockOutboxRepository outboxRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private ProductValidationService productValidationService;
+
+    private OrderCreateDTO request;
+    // The service bean's cache outlives each test, so every test uses a key of its own
+    private String key;
+
+    @BeforeEach
+    void setUp() {
+        key = UUID.randomUUID().toString();
+        Customer customer = createPersistedCustomer(customerRepository);
+        request = OrderCreateDTO.builder()
+            .customerId(customer.getId())
+            .items(List.of(OrderItemCreateDTO.builder().productId(PRODUCT_ID).quantity(2).build()))
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        idempotencyKeyRepository.deleteAll();
+        outboxRepository.deleteAll();
+        orderRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    /** A second service instance, with an empty cache, sharing the same database */
+    private OrderIdempotencyService otherInstance(Duration keyTtl) {
+        return new OrderIdempotencyService(idempotencyKeyRepository, orderService, objectMapper,
+            transactionManager, keyTtl, 100, new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("A replayed key should return the original order without creating another one")
+    void createOrder_WhenKeyReplayed_ShouldReturnOriginalOrder() {
+        // Act
+        OrderIdempotencyService.Result first = idempotencyService.createOrder(key, request);
+        OrderIdempotencyService.Result replay = idempotencyService.createOrder(key, request);
+
+        // Assert
+        assertFalse(first.replayed());
+        assertEquals(HttpStatus.CREATED, first.status());
+        assertTrue(replay.replayed());
+        assertEquals(HttpStatus.CREATED, replay.status());
+        assertEquals(first.order().getId(), replay.order().getId());
+        assertEquals(first.order().getTotalAmount(), replay.order().getTotalAmount());
+        assertEquals(1, orderRepository.count());
+        assertEquals(1, outboxRepository.count());
+    }
+
+    @Test
+    @DisplayName("A key unknown to the cache should be replayed from the key table")
+    void createOrder_WhenKeyOnlyInDatabase_ShouldReplayStoredResponse() {
+        // Arrange
+        OrderIdempotencyService.Result first = idempotencyService.createOrder(key, request);
+
+        // Act
+        OrderIdempotencyService.Result replay = otherInstance(Duration.ofHours(1)).createOrder(key, request);
+
+        // Assert
+        assertTrue(replay.replayed());
+        assertEquals(first.order().getId(), replay.order().getId());
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("A key reused for a different request should be rejected")
+    void createOrder_WhenKeyReusedForDifferentRequest_ShouldThrow() {
+        // Arrange
+        idempotencyService.createOrder(key, request);
+        OrderCreateDTO different = OrderCreateDTO.builder()
+            .customerId(request.getCustomerId())
+            .items(List.of(OrderItemCreateDTO.builder().productId(PRODUCT_ID).quantity(3).build()))
+            .build();
+
+        // Act & Assert
+        OrderManagementException fromCache = assertThrows(OrderManagementException.class,
+            () -> idempotencyService.createOrder(key, different));
+        OrderManagementException fromDatabase = assertThrows(OrderManagementException.class,
+            () -> otherInstance(Duration.ofHours(1)).createOrder(key, different));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, fromCache.getStatus());
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, fromDatabase.getStatus());
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("A failed request should not keep its key, so that it can be retried")
+    void createOrder_WhenCreationFails_ShouldNotKeepKey() {
+        // Arrange
+        doThrow(new InvalidOrderException("The following products do not exist in inventory: [1]"))
+            .when(productValidationService).validateProductsExist(anyList());
+
+        // Act
+        assertThrows(InvalidOrderException.class, () -> idempotencyService.createOrder(key, request));
+
+        // Assert
+        assertFalse(idempotencyKeyRepository.existsById(key));
+        assertEquals(0, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("An expired key should be claimed again by the next request")
+    void createOrder_WhenKeyExpired_ShouldCreateNewOrder() {
+        // Arrange: a key that expired as soon as it was written
+        OrderIdempotencyService expiring = otherInstance(Duration.ZERO);
+        OrderIdempotencyService.Result first = expiring.createOrder(key, request);
+
+        // Act
+        OrderIdempotencyService.Result second = expiring.createOrder(key, request);
+
+        // Assert
+        assertFalse(second.replayed());
+        assertNotEquals(first.order().getId(), second.order().getId());
+        assertEquals(2, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("Purging should delete expired keys only")
+    void purgeExpired_ShouldDeleteExpiredKeys() {
+        // Arrange
+        idempotencyService.createOrder(key, request);
+        IdempotencyKey expired = new IdempotencyKey();
+        expired.setKey("expired");
+        expired.setRequestHash("0".repeat(64));
+        expired.setCreatedAt(ZonedDateTime.now().minusDays(2));
+        expired.setExpiresAt(ZonedDateTime.now().minusDays(1));
+        idempotencyKeyRepository.save(expired);
+
+        // Act
+        idempotencyService.purgeExpired();
+
+        // Assert
+        assertTrue(idempotencyKeyRepository.existsById(key));
+        assertFalse(idempotencyKeyRepository.existsById("expired"));
+    }
+
+    @Test
+    @DisplayName("Blank or overlong keys should be rejected")
+    void createOrder_WhenKeyInvalid_ShouldThrow() {
+        assertThrows(InvalidOrderException.class, () -> idempotencyService.createOrder(" ", request));
+        assertThrows(InvalidOrderException.class,
+            () -> idempotencyService.createOrder("k".repeat(OrderIdempotencyService.MAX_KEY_LENGTH + 1), request));
+        assertEquals(0, orderRepository.count());
+    }
+}
@@ -0,0 +1,93 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.application.OrderApplication;
+import cargo.kityk.wms.order.entity.Customer;
+import cargo.kityk.wms.order.entity.Order;
+import cargo.kityk.wms.order.repository.CustomerRepository;
+import cargo.kityk.wms.order.repository.OrderRepository;
+import cargo.kityk.wms.test.order.testconfig.UnitTestConfiguration;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import static cargo.kityk.wms.test.order.testconfig.TestConstants.*;
+import static cargo.kityk.wms.test.order.testutils.TestEntityFactory.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Guards JDBC insert batching for large orders by counting the statements an order insert prepares.
+ * With IDENTITY IDs every order item was its own INSERT round trip; with pooled sequence IDs the items
+ * are sent as one batch per 50 rows, plus one sequence call per 50 IDs.
+ */
+@SpringBootTest(classes = OrderApplication.class, properties = "order.stock-lock.dispatcher.enabled=false")
+@Import(UnitTestConfiguration.class)
+@DisplayName("Order Insert Batching Tests")
+class OrderInsertBatchingTest {
+    private static final Logger logger = LoggerFactory.getLogger(OrderInsertBatchingTest.class);
+
+    private static final int JDBC_BATCH_SIZE = 50;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = createPersistedCustomer(customerRepository);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+        orderRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    @ParameterizedTest(name = "{0} items")
+    @ValueSource(ints = {1, 100, 250})
+    @DisplayName("Inserting an order should cost a number of round trips proportional to its batches, not its items")
+    void saveOrder_ShouldBatchItemInserts(int itemCount) {
+        // Arrange
+        Order order = createBasicOrder(null, customer, PENDING_STATUS);
+        addItemsToOrder(order, itemCount);
+
+        // Act
+        Order saved = orderRepository.save(order);
+
+        // Assert
+        int batches = (itemCount + JDBC_BATCH_SIZE - 1) / JDBC_BATCH_SIZE;
+        long statements = statistics.getPrepareStatementCount();
+        logger.info("Order with {} items inserted with {} prepared statements (IDENTITY IDs would need {} INSERTs)",
+            itemCount, statements, itemCount + 1);
+
+        assertEquals(itemCount, saved.getItems().size());
+        saved.getItems().forEach(item -> assertTrue(item.getId() != null));
+        assertEquals(itemCount, orderRepository.findWithItemsById(saved.getId()).orElseThrow().getItems().size());
+        // One order INSERT and one INSERT per item batch, plus one sequence call for the order
+        // and at most one per 50 item IDs (one more when a pool runs out mid-order)
+        assertTrue(statements <= (1 + batches) + (2 + batches),
+            "Expected batched inserts but got " + statements + " statements for " + itemCount + " items");
+    }
+}
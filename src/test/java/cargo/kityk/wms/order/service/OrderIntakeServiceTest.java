@@ -0,0 +1,190 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.application.OrderApplication;
+import cargo.kityk.wms.order.dto.OrderCreateDTO;
+import cargo.kityk.wms.order.dto.OrderIntakeDTO;
+import cargo.kityk.wms.order.dto.OrderItemCreateDTO;
+import cargo.kityk.wms.order.entity.Customer;
+import cargo.kityk.wms.order.entity.OrderIntake;
+import cargo.kityk.wms.order.exception.ResourceNotFoundException;
+import cargo.kityk.wms.order.repository.CustomerRepository;
+import cargo.kityk.wms.order.repository.OrderIntakeRepository;
+import cargo.kityk.wms.order.repository.OrderRepository;
+import cargo.kityk.wms.order.repository.StockLockOutboxRepository;
+import cargo.kityk.wms.test.order.testconfig.UnitTestConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static cargo.kityk.wms.test.order.testconfig.TestConstants.*;
+import static cargo.kityk.wms.test.order.testutils.TestEntityFactory.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the async order intake queue against the in-memory database: accepted requests are claimed once
+ * and turned into orders or rejections, and their state can be polled by handle.
+ */
+@SpringBootTest(classes = OrderApplication.class, properties = {
+    "order.intake.worker.enabled=false",
+    "order.intake.batch-size=2"
+})
+@Import(UnitTestConfiguration.class)
+@DisplayName("Order Intake Tests")
+class OrderIntakeServiceTest {
+
+    private static final Long UNKNOWN_CUSTOMER_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private OrderIntakeService intakeService;
+
+    @Autowired
+    private OrderIntakeRepository intakeRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockLockOutboxRepository outboxRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @MockitoBean
+    private ProductValidationService productValidationService;
+
+    private Customer customer;
+
+    @BeforeEach
+    void setUp() {
+        customer = createPersistedCustomer(customerRepository);
+        when(productValidationService.findMissingProducts(anyCollection())).thenReturn(Set.of());
+    }
+
+    @AfterEach
+    void tearDown() {
+        intakeRepository.deleteAll();
+        outboxRepository.deleteAll();
+        orderRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    private static OrderCreateDTO request(Long customerId) {
+        return OrderCreateDTO.builder()
+            .customerId(customerId)
+            .items(List.of(OrderItemCreateDTO.builder().productId(PRODUCT_ID).quantity(2).build()))
+            .build();
+    }
+
+    @Test
+    @DisplayName("An accepted request should be stored without creating an order")
+    void accept_ShouldStoreRequestOnly() {
+        // Act
+        OrderIntakeDTO intake = intakeService.accept(request(customer.getId()));
+
+        // Assert
+        assertNotNull(intake.getHandle());
+        assertEquals(OrderIntake.Status.ACCEPTED, intake.getStatus());
+        assertNull(intake.getOrderId());
+        assertEquals(OrderIntake.Status.ACCEPTED, intakeService.getIntake(intake.getHandle()).getStatus());
+        assertEquals(0, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("Claimed requests should not be claimed again, and at most one batch is claimed at a time")
+    void claimBatch_ShouldClaimDisjointBatches() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            intakeService.accept(request(customer.getId()));
+        }
+
+        // Act
+        List<OrderIntake> first = intakeService.claimBatch();
+        List<OrderIntake> second = intakeService.claimBatch();
+        List<OrderIntake> third = intakeService.claimBatch();
+
+        // Assert
+        assertEquals(2, first.size());
+        assertEquals(1, second.size());
+        assertTrue(third.isEmpty());
+        first.forEach(intake -> assertEquals(1, intake.getAttempts()));
+        assertEquals(OrderIntake.Status.PROCESSING, intakeService.getIntake(second.getFirst().getId()).getStatus());
+    }
+
+    @Test
+    @DisplayName("A processed batch should create valid orders and reject invalid requests on their own")
+    void createOrders_ShouldRecordOutcomePerRequest() {
+        // Arrange
+        UUID valid = intakeService.accept(request(customer.getId())).getHandle();
+        UUID invalid = intakeService.accept(request(UNKNOWN_CUSTOMER_ID)).getHandle();
+        List<OrderIntake> batch = intakeService.claimBatch();
+
+        // Act
+        intakeService.createOrders(batch);
+
+        // Assert
+        OrderIntakeDTO created = intakeService.getIntake(valid);
+        assertEquals(OrderIntake.Status.CREATED, created.getStatus());
+        assertTrue(orderRepository.existsById(created.getOrderId()));
+        assertEquals(1, outboxRepository.count());
+
+        OrderIntakeDTO rejected = intakeService.getIntake(invalid);
+        assertEquals(OrderIntake.Status.REJECTED, rejected.getStatus());
+        assertNull(rejected.getOrderId());
+        assertTrue(rejected.getError().contains("Customer not found"));
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("The inventory service should be called while no transaction holds a database connection")
+    void createOrders_ShouldCheckProductsOutsideTransaction() {
+        // Arrange
+        intakeService.accept(request(customer.getId()));
+        List<OrderIntake> batch = intakeService.claimBatch();
+        AtomicBoolean transactionActiveDuringCheck = new AtomicBoolean(true);
+        when(productValidationService.findMissingProducts(anyCollection())).thenAnswer(invocation -> {
+            transactionActiveDuringCheck.set(TransactionSynchronizationManager.isActualTransactionActive());
+            return Set.of();
+        });
+
+        // Act
+        intakeService.createOrders(batch);
+
+        // Assert
+        assertFalse(transactionActiveDuringCheck.get());
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("A request scheduled for retry should not be claimed before its retry delay has passed")
+    void scheduleRetry_ShouldDelayNextClaim() {
+        // Arrange
+        UUID handle = intakeService.accept(request(customer.getId())).getHandle();
+        intakeService.claimBatch();
+
+        // Act
+        intakeService.scheduleRetry(List.of(handle), "Inventory service unavailable");
+
+        // Assert
+        assertEquals(OrderIntake.Status.ACCEPTED, intakeService.getIntake(handle).getStatus());
+        assertTrue(intakeService.claimBatch().isEmpty());
+    }
+
+    @Test
+    @DisplayName("An unknown handle should not be found")
+    void getIntake_WhenHandleUnknown_ShouldThrow() {
+        assertThrows(ResourceNotFoundException.class, () -> intakeService.getIntake(UUID.randomUUID()));
+    }
+}
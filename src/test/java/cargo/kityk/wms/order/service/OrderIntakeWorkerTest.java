@@ -0,0 +1,162 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.entity.OrderIntake;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the OrderIntakeWorker
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Order Intake Worker Tests")
+class OrderIntakeWorkerTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int MAX_BATCHES_PER_RUN = 4;
+
+    @Mock
+    private OrderIntakeService orderIntakeService;
+
+    private OrderIntakeWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new OrderIntakeWorker(orderIntakeService, 2, MAX_ATTEMPTS, MAX_BATCHES_PER_RUN, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        worker.shutdown();
+    }
+
+    private static OrderIntake intake(int attempts) {
+        OrderIntake intake = new OrderIntake("{}");
+        intake.setAttempts(attempts);
+        return intake;
+    }
+
+    @Test
+    @DisplayName("Workers should drain the queue until no batch is left")
+    void poll_ShouldProcessBatchesUntilQueueEmpty() {
+        // Arrange
+        List<OrderIntake> batch = List.of(intake(1));
+        when(orderIntakeService.claimBatch()).thenReturn(batch).thenReturn(List.of());
+
+        // Act
+        worker.poll();
+
+        // Assert
+        verify(orderIntakeService, times(1)).createOrders(batch);
+        verify(orderIntakeService, atLeast(3)).claimBatch();
+    }
+
+    @Test
+    @DisplayName("A poll should return after the batch limit even if the queue is not empty")
+    void poll_WhenQueueNeverEmpties_ShouldStopAtBatchLimit() {
+        // Arrange
+        List<OrderIntake> batch = List.of(intake(1));
+        when(orderIntakeService.claimBatch()).thenReturn(batch);
+
+        // Act
+        worker.poll();
+
+        // Assert: each of the 2 workers stops after its limit
+        verify(orderIntakeService, times(2 * MAX_BATCHES_PER_RUN)).claimBatch();
+        verify(orderIntakeService, times(2 * MAX_BATCHES_PER_RUN)).createOrders(batch);
+    }
+
+    @Test
+    @DisplayName("A failed batch should be retried, except for requests that used up their attempts")
+    void process_WhenBatchFails_ShouldRetryOrReject() {
+        // Arrange
+        OrderIntake retryable = intake(1);
+        OrderIntake exhausted = intake(MAX_ATTEMPTS);
+        List<OrderIntake> batch = List.of(retryable, exhausted);
+        doThrow(new OrderManagementException("Error validating product", HttpStatus.SERVICE_UNAVAILABLE,
+            "critical", "Try again later")).when(orderIntakeService).createOrders(batch);
+
+        // Act
+        worker.process(batch);
+
+        // Assert
+        verify(orderIntakeService).scheduleRetry(List.of(retryable.getId()), "Error validating product");
+        verify(orderIntakeService).markRejected(List.of(exhausted.getId()), "Error validating product");
+    }
+
+    @Test
+    @DisplayName("A batch failing for another reason should only reject the request causing the failure")
+    void process_WhenRequestFailsPermanently_ShouldRejectOnlyThatRequest() {
+        // Arrange: any batch containing the poisoned request fails
+        OrderIntake poisoned = intake(1);
+        List<OrderIntake> batch = List.of(intake(1), intake(1), poisoned, intake(1), intake(1));
+        doAnswer(invocation -> {
+            List<OrderIntake> requests = invocation.getArgument(0);
+            if (requests.contains(poisoned)) {
+                throw new IllegalStateException("Payload cannot be mapped");
+            }
+            return null;
+        }).when(orderIntakeService).createOrders(anyList());
+
+        // Act
+        worker.process(batch);
+
+        // Assert
+        verify(orderIntakeService).markRejected(List.of(poisoned.getId()), "Payload cannot be mapped");
+        verify(orderIntakeService, never()).scheduleRetry(anyCollection(), anyString());
+        for (OrderIntake intake : batch) {
+            if (intake != poisoned) {
+                verify(orderIntakeService).createOrders(argThat(requests -> requests.contains(intake)
+                    && !requests.contains(poisoned)));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A batch failing because the database is unavailable should be retried as a whole")
+    void process_WhenDatabaseUnavailable_ShouldRetryBatch() {
+        // Arrange
+        List<OrderIntake> batch = List.of(intake(1), intake(1));
+        doThrow(new IllegalStateException("Order creation failed",
+            new CannotCreateTransactionException("Could not open JDBC connection")))
+            .when(orderIntakeService).createOrders(batch);
+
+        // Act
+        worker.process(batch);
+
+        // Assert
+        verify(orderIntakeService, times(1)).createOrders(anyList());
+        verify(orderIntakeService).scheduleRetry(batch.stream().map(OrderIntake::getId).toList(),
+            "Order creation failed");
+        verify(orderIntakeService, never()).markRejected(anyCollection(), anyString());
+    }
+
+    @Test
+    @DisplayName("A successful batch should be neither retried nor rejected")
+    void process_WhenBatchSucceeds_ShouldNotRetry() {
+        // Arrange
+        List<OrderIntake> batch = List.of(intake(1));
+
+        // Act
+        worker.process(batch);
+
+        // Assert
+        verify(orderIntakeService, never()).scheduleRetry(anyCollection(), anyString());
+        verify(orderIntakeService, never()).markRejected(anyCollection(), anyString());
+    }
+}
@@ -0,0 +1,164 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.application.OrderApplication;
+import cargo.kityk.wms.order.dto.OrderDTO;
+import cargo.kityk.wms.order.dto.view.OrderViewPage;
+import cargo.kityk.wms.order.entity.Customer;
+import cargo.kityk.wms.order.entity.Order;
+import cargo.kityk.wms.order.repository.CustomerRepository;
+import cargo.kityk.wms.order.repository.OrderRepository;
+import cargo.kityk.wms.test.order.testconfig.UnitTestConfiguration;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static cargo.kityk.wms.test.order.testconfig.TestConstants.*;
+import static cargo.kityk.wms.test.order.testutils.TestEntityFactory.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Guards the fetch plans of the order read paths by counting the JDBC statements each one issues.
+ * Each read must cost a fixed number of round trips regardless of how many orders and items it returns.
+ * Statements are counted on the connections of the data source, so reads through JdbcTemplate, which
+ * Hibernate statistics do not see, are counted as well.
+ */
+@SpringBootTest(classes = OrderApplication.class, properties = "order.stock-lock.dispatcher.enabled=false")
+@Import(UnitTestConfiguration.class)
+@DisplayName("Order Query Count Tests")
+class OrderQueryCountTest {
+
+    private static final int ORDER_COUNT = 5;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderQueryService orderQueryService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockitoSpyBean
+    private DataSource dataSource;
+
+    private final AtomicInteger preparedStatements = new AtomicInteger();
+    private Statistics statistics;
+    private List<Order> orders;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        // Arrange: orders with items, each order one minute older than the previous one
+        Customer customer = createPersistedCustomer(customerRepository);
+        orders = new ArrayList<>();
+        ZonedDateTime orderDate = ZonedDateTime.now();
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            Order order = createBasicOrder(null, customer, PENDING_STATUS);
+            order.setOrderDate(orderDate.minusMinutes(i));
+            addItemsToOrder(order, ITEMS_PER_ORDER);
+            orders.add(orderRepository.save(order));
+        }
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        doAnswer(invocation -> countingStatements((Connection) invocation.callRealMethod()))
+            .when(dataSource).getConnection();
+        preparedStatements.set(0);
+    }
+
+    /** Wraps a connection so that every statement prepared on it is counted */
+    private Connection countingStatements(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+            (proxy, method, args) -> {
+                if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                    preparedStatements.incrementAndGet();
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+        orderRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Listing a page reads orders with their items in one query, outside the persistence context")
+    void getOrdersPage_ShouldUseSingleQueryAndNotLoadEntities() {
+        // Act
+        OrderViewPage page = orderQueryService.getOrdersPage(null, ORDER_COUNT - 1);
+
+        // Assert
+        assertEquals(ORDER_COUNT - 1, page.orders().size());
+        assertEquals(orders.getFirst().getId(), page.orders().getFirst().id());
+        page.orders().forEach(order -> assertEquals(ITEMS_PER_ORDER, order.items().size()));
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(1, preparedStatements.getAndSet(0));
+
+        // Act: the cursor continues exactly where the first page stopped
+        OrderViewPage next = orderQueryService.getOrdersPage(page.nextCursor(), ORDER_COUNT - 1);
+
+        // Assert
+        assertEquals(1, preparedStatements.get());
+        assertEquals(1, next.orders().size());
+        assertEquals(orders.getLast().getId(), next.orders().getFirst().id());
+        assertEquals(ITEMS_PER_ORDER, next.orders().getFirst().items().size());
+        assertNull(next.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Getting a single order join-fetches its items in one query")
+    void getOrder_ShouldUseSingleJoinFetchQuery() {
+        // Act
+        OrderDTO order = orderService.getOrder(orders.getFirst().getId());
+
+        // Assert
+        assertEquals(ITEMS_PER_ORDER, order.getItems().size());
+        assertEquals(1, preparedStatements.get());
+    }
+
+    @Test
+    @DisplayName("Searching by customer name fetches customers and items in one query")
+    void searchByCustomerName_ShouldUseSingleJoinFetchQuery() {
+        // Act
+        List<Order> result = orderRepository.searchByCustomerName(CUSTOMER_NAME);
+
+        // Assert
+        assertEquals(ORDER_COUNT, result.size());
+        result.forEach(order -> assertEquals(ITEMS_PER_ORDER, order.getItems().size()));
+        assertEquals(1, preparedStatements.get());
+    }
+}
@@ -0,0 +1,181 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.view.OrderItemView;
+import cargo.kityk.wms.order.dto.view.OrderView;
+import cargo.kityk.wms.order.dto.view.OrderViewPage;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import cargo.kityk.wms.order.exception.ResourceNotFoundException;
+import cargo.kityk.wms.order.repository.OrderQueryRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static cargo.kityk.wms.test.order.testconfig.TestConstants.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Order Query Service Tests")
+public class OrderQueryServiceTest {
+
+    @Mock
+    private OrderQueryRepository orderQueryRepository;
+
+    @InjectMocks
+    private OrderQueryService orderQueryService;
+
+    private static OrderView orderView(Long id, String status, BigDecimal totalAmount, ZonedDateTime orderDate) {
+        List<OrderItemView> items = List.of(new OrderItemView(id * 10, PRODUCT_ID, 2, new BigDecimal("50.00")));
+        return new OrderView(id, CUSTOMER_ID, orderDate, status, totalAmount, items, orderDate, orderDate);
+    }
+
+    @Nested
+    @DisplayName("Order Retrieval Operations")
+    class GetOrderTests {
+        @Test
+        @DisplayName("Should return the order view when the order exists")
+        void testGetOrder_Success() {
+            // Arrange
+            OrderView view = orderView(ORDER_ID, PENDING_STATUS, new BigDecimal("100.00"), ZonedDateTime.now());
+            when(orderQueryRepository.findById(ORDER_ID)).thenReturn(Optional.of(view));
+
+            // Act
+            OrderView result = orderQueryService.getOrder(ORDER_ID);
+
+            // Assert
+            assertSame(view, result);
+        }
+
+        @Test
+        @DisplayName("Should throw ResourceNotFoundException when order not found")
+        void testGetOrder_NotFound() {
+            // Arrange
+            when(orderQueryRepository.findById(ORDER_ID)).thenReturn(Optional.empty());
+
+            // Act & Assert
+            assertThrows(ResourceNotFoundException.class, () -> orderQueryService.getOrder(ORDER_ID));
+        }
+    }
+
+    @Nested
+    @DisplayName("Order Listing Operations")
+    class ListOrderTests {
+        @Test
+        @DisplayName("Should return the first page of orders with details")
+        void testGetOrdersPage_Success() {
+            // Arrange
+            ZonedDateTime now = ZonedDateTime.now();
+            OrderView order1 = orderView(ORDER_ID, PROCESSING_STATUS, new BigDecimal("100.00"), now);
+            OrderView order2 = orderView(2L, SHIPPED_STATUS, new BigDecimal("200.00"), now.minusMinutes(1));
+            when(orderQueryRepository.findFirstPage(anyInt())).thenReturn(List.of(order1, order2));
+
+            // Act
+            OrderViewPage page = orderQueryService.getOrdersPage(null, null);
+
+            // Assert
+            assertEquals(List.of(order1, order2), page.orders());
+            assertNull(page.nextCursor());
+            verify(orderQueryRepository).findFirstPage(OrderQueryService.DEFAULT_PAGE_SIZE + 1);
+        }
+
+        @Test
+        @DisplayName("Should return empty page when no orders exist")
+        void testGetOrdersPage_Empty() {
+            // Arrange
+            when(orderQueryRepository.findFirstPage(anyInt())).thenReturn(new ArrayList<>());
+
+            // Act
+            OrderViewPage page = orderQueryService.getOrdersPage(null, null);
+
+            // Assert
+            assertNotNull(page.orders());
+            assertTrue(page.orders().isEmpty());
+            assertNull(page.nextCursor());
+        }
+
+        @Test
+        @DisplayName("Should trim the look-ahead row and return a cursor pointing at the last order of the page")
+        void testGetOrdersPage_WithNextPage() {
+            // Arrange
+            ZonedDateTime now = ZonedDateTime.now();
+            OrderView order1 = orderView(3L, PENDING_STATUS, BigDecimal.TEN, now);
+            OrderView order2 = orderView(2L, PENDING_STATUS, BigDecimal.TEN, now.minusMinutes(1));
+            OrderView order3 = orderView(ORDER_ID, PENDING_STATUS, BigDecimal.TEN, now.minusMinutes(2));
+            when(orderQueryRepository.findFirstPage(anyInt())).thenReturn(List.of(order1, order2, order3));
+
+            // Act
+            OrderViewPage page = orderQueryService.getOrdersPage(null, 2);
+
+            // Assert
+            assertEquals(List.of(order1, order2), page.orders());
+            assertNotNull(page.nextCursor());
+            OrderCursor cursor = OrderCursor.decode(page.nextCursor());
+            assertEquals(2L, cursor.id());
+            assertEquals(order2.orderDate().toInstant(), cursor.orderDate().toInstant());
+            verify(orderQueryRepository).findFirstPage(3);
+        }
+
+        @Test
+        @DisplayName("Should continue after the cursor position and clamp oversized page requests")
+        void testGetOrdersPage_AfterCursor() {
+            // Arrange
+            ZonedDateTime position = ZonedDateTime.parse("2024-01-01T10:00:00Z");
+            String cursor = new OrderCursor(position, 10L).encode();
+            when(orderQueryRepository.findPageAfter(any(ZonedDateTime.class), eq(10L), anyInt()))
+                .thenReturn(new ArrayList<>());
+
+            // Act
+            orderQueryService.getOrdersPage(cursor, 10_000);
+
+            // Assert
+            verify(orderQueryRepository).findPageAfter(
+                argThat(date -> date.toInstant().equals(position.toInstant())), eq(10L),
+                eq(OrderQueryService.MAX_PAGE_SIZE + 1));
+        }
+
+        @Test
+        @DisplayName("Should reject a malformed cursor with BAD_REQUEST")
+        void testGetOrdersPage_InvalidCursor() {
+            // Act & Assert
+            OrderManagementException exception = assertThrows(
+                OrderManagementException.class,
+                () -> orderQueryService.getOrdersPage("not-a-cursor", null)
+            );
+
+            assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+            verify(orderQueryRepository, never()).findPageAfter(any(), any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Should hand every streamed order to the consumer")
+        @SuppressWarnings("unchecked")
+        void testStreamAllOrders() {
+            // Arrange
+            OrderView view = orderView(ORDER_ID, PENDING_STATUS, BigDecimal.TEN, ZonedDateTime.now());
+            doAnswer(invocation -> {
+                ((Consumer<OrderView>) invocation.getArgument(0)).accept(view);
+                return null;
+            }).when(orderQueryRepository).streamAll(any());
+            List<OrderView> received = new ArrayList<>();
+
+            // Act
+            orderQueryService.streamAllOrders(received::add);
+
+            // Assert
+            assertEquals(List.of(view), received);
+        }
+    }
+}
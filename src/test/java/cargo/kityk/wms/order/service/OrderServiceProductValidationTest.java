@@ -5,24 +5,35 @@ import cargo.kityk.wms.order.dto.OrderDTO;
 import cargo.kityk.wms.order.dto.OrderItemCreateDTO;
 import cargo.kityk.wms.order.entity.Customer;
 import cargo.kityk.wms.order.exception.InvalidOrderException;
+import cargo.kityk.wms.order.exception.ResourceNotFoundException;
 import cargo.kityk.wms.order.repository.CustomerRepository;
 import cargo.kityk.wms.order.repository.OrderRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -40,9 +51,28 @@ class OrderServiceProductValidationTest {
     @Mock
     private ProductValidationService productValidationService;
     
-    @InjectMocks
+    @Mock
+    private StockLockOutboxService stockLockOutboxService;
+
+    @Mock
+    private OrderEventOutboxService orderEventOutboxService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    
     private OrderService orderService;
     
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService(orderRepository, customerRepository, productValidationService,
+            stockLockOutboxService, orderEventOutboxService, transactionManager, false);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        orderService.shutdown();
+    }
+    
     @Test
     @DisplayName("createOrder should validate products")
     void createOrder_ShouldValidateProducts() {
@@ -69,6 +99,32 @@ class OrderServiceProductValidationTest {
         assertNotNull(result);
     }
     
+    @Test
+    @DisplayName("createOrder should validate a product repeated on several lines once")
+    void createOrder_WithRepeatedProduct_ShouldValidateDistinctProducts() {
+        // Arrange
+        Long customerId = 1L;
+        Customer customer = new Customer();
+        customer.setId(customerId);
+        
+        OrderCreateDTO orderCreateDTO = new OrderCreateDTO();
+        orderCreateDTO.setCustomerId(customerId);
+        orderCreateDTO.setItems(Arrays.asList(
+            createOrderItemDTO(101L, 2),
+            createOrderItemDTO(102L, 1),
+            createOrderItemDTO(101L, 3)
+        ));
+        
+        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // Act
+        orderService.createOrder(orderCreateDTO);
+        
+        // Assert
+        verify(productValidationService).validateProductsExist(List.of(101L, 102L));
+    }
+    
     @Test
     @DisplayName("createOrder should throw InvalidOrderException when product validation fails")
     void createOrder_WhenProductValidationFails_ShouldThrowInvalidOrderException() {
@@ -84,7 +140,8 @@ class OrderServiceProductValidationTest {
             createOrderItemDTO(999L, 1) // Non-existent product
         ));
         
-        when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
+        // The failed product check may cancel the customer lookup before it runs
+        lenient().when(customerRepository.findById(customerId)).thenReturn(Optional.of(customer));
         doThrow(new InvalidOrderException("Product 999 does not exist"))
             .when(productValidationService).validateProductsExist(anyList());
         
@@ -92,6 +149,99 @@ class OrderServiceProductValidationTest {
         assertThrows(InvalidOrderException.class, () -> orderService.createOrder(orderCreateDTO));
     }
     
+    @Test
+    @DisplayName("createOrder should check products while the customer is being looked up")
+    void createOrder_ShouldValidateProductsConcurrentlyWithCustomerLookup() {
+        // Arrange
+        Long customerId = 1L;
+        Customer customer = new Customer();
+        customer.setId(customerId);
+        
+        OrderCreateDTO orderCreateDTO = new OrderCreateDTO();
+        orderCreateDTO.setCustomerId(customerId);
+        orderCreateDTO.setItems(Arrays.asList(createOrderItemDTO(101L, 2)));
+        
+        // The customer lookup only completes once the product check has started
+        CountDownLatch validationStarted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            validationStarted.countDown();
+            return null;
+        }).when(productValidationService).validateProductsExist(anyList());
+        when(customerRepository.findById(customerId)).thenAnswer(invocation -> {
+            assertTrue(validationStarted.await(5, TimeUnit.SECONDS), "Products were not checked concurrently");
+            return Optional.of(customer);
+        });
+        when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        
+        // Act
+        OrderDTO result = orderService.createOrder(orderCreateDTO);
+        
+        // Assert
+        assertNotNull(result);
+    }
+    
+    @Test
+    @DisplayName("createOrder should cancel the product check when the customer does not exist")
+    void createOrder_WhenCustomerNotFound_ShouldCancelProductValidation() throws InterruptedException {
+        // Arrange
+        Long customerId = 1L;
+        OrderCreateDTO orderCreateDTO = new OrderCreateDTO();
+        orderCreateDTO.setCustomerId(customerId);
+        orderCreateDTO.setItems(Arrays.asList(createOrderItemDTO(101L, 2)));
+        
+        CountDownLatch validationStarted = new CountDownLatch(1);
+        CountDownLatch validationInterrupted = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            validationStarted.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                validationInterrupted.countDown();
+            }
+            return null;
+        }).when(productValidationService).validateProductsExist(anyList());
+        when(customerRepository.findById(customerId)).thenAnswer(invocation -> {
+            validationStarted.await(5, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+        
+        // Act & Assert
+        assertThrows(ResourceNotFoundException.class, () -> orderService.createOrder(orderCreateDTO));
+        assertTrue(validationInterrupted.await(5, TimeUnit.SECONDS), "Product check was not cancelled");
+        verify(orderRepository, never()).save(any());
+    }
+    
+    @Test
+    @DisplayName("createOrder should cancel the customer lookup when a product does not exist")
+    void createOrder_WhenProductValidationFails_ShouldCancelCustomerLookup() throws InterruptedException {
+        // Arrange
+        Long customerId = 1L;
+        OrderCreateDTO orderCreateDTO = new OrderCreateDTO();
+        orderCreateDTO.setCustomerId(customerId);
+        orderCreateDTO.setItems(Arrays.asList(createOrderItemDTO(999L, 1)));
+        
+        CountDownLatch lookupStarted = new CountDownLatch(1);
+        CountDownLatch lookupInterrupted = new CountDownLatch(1);
+        when(customerRepository.findById(customerId)).thenAnswer(invocation -> {
+            lookupStarted.countDown();
+            try {
+                Thread.sleep(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                lookupInterrupted.countDown();
+            }
+            return Optional.empty();
+        });
+        doAnswer(invocation -> {
+            lookupStarted.await(5, TimeUnit.SECONDS);
+            throw new InvalidOrderException("Product 999 does not exist");
+        }).when(productValidationService).validateProductsExist(anyList());
+        
+        // Act & Assert
+        assertThrows(InvalidOrderException.class, () -> orderService.createOrder(orderCreateDTO));
+        assertTrue(lookupInterrupted.await(5, TimeUnit.SECONDS), "Customer lookup was not cancelled");
+        verify(orderRepository, never()).save(any());
+    }
+    
     /**
      * Helper method to create an OrderItemCreateDTO
      */
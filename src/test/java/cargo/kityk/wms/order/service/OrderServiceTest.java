@@ -9,16 +9,17 @@ import cargo.kityk.wms.order.entity.Customer;
 import cargo.kityk.wms.order.entity.OrderItem;
 import cargo.kityk.wms.order.repository.OrderRepository;
 import cargo.kityk.wms.order.repository.CustomerRepository;
+import cargo.kityk.wms.order.exception.OrderManagementException;
 import cargo.kityk.wms.order.exception.ResourceNotFoundException;
-import cargo.kityk.wms.order.service.StockLockingService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
@@ -26,12 +27,13 @@ import java.util.Collections;
 import java.util.Optional;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static cargo.kityk.wms.test.order.testconfig.TestConstants.*;
 import static cargo.kityk.wms.test.order.testutils.TestEntityFactory.*;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -48,9 +50,14 @@ public class OrderServiceTest {
     private ProductValidationService productValidationService;
     
     @Mock
-    private StockLockingService stockLockingService;
+    private StockLockOutboxService stockLockOutboxService;
+
+    @Mock
+    private OrderEventOutboxService orderEventOutboxService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
     
-    @InjectMocks
     private OrderService orderService;
     
     // Test fixtures
@@ -61,17 +68,19 @@ public class OrderServiceTest {
     
     @BeforeEach
     void setUp() {
+        orderService = new OrderService(orderRepository, customerRepository, productValidationService,
+            stockLockOutboxService, orderEventOutboxService, transactionManager, false);
         testTime = ZonedDateTime.now();
         testCustomer = createCustomer(CUSTOMER_ID);
         
         // Initialize empty objects that will be customized in individual tests
         orderCreateDTO = OrderCreateDTO.builder().customerId(CUSTOMER_ID).items(new ArrayList<>()).build();
         testOrder = createBasicOrder(ORDER_ID, testCustomer, PROCESSING_STATUS);
-        
-        // Set up default behavior for stock locking to succeed
-        // This ensures existing tests continue to pass unless specifically testing stock locking failures
-        // Using lenient() to avoid unnecessary stubbing exceptions for tests that don't call stock locking
-        lenient().doNothing().when(stockLockingService).lockStockForOrder(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderService.shutdown();
     }
     
     @Nested
@@ -118,6 +127,32 @@ public class OrderServiceTest {
             
             verify(customerRepository).findById(CUSTOMER_ID);
             verify(orderRepository).save(any(Order.class));
+            
+            // Stock is locked later by the dispatcher, from an outbox record written with the order
+            verify(stockLockOutboxService).enqueue(ORDER_ID, orderCreateDTO.getItems());
+            verify(orderEventOutboxService).recordCreated(List.of(newOrder));
+        }
+
+        @Test
+        @DisplayName("Should check the products before opening the transaction that inserts the order")
+        void testCreateOrder_ValidatesProductsOutsideTransaction() {
+            // Arrange
+            orderCreateDTO.setItems(List.of(OrderItemCreateDTO.builder().productId(PRODUCT_ID).quantity(2).build()));
+            when(customerRepository.findById(CUSTOMER_ID)).thenReturn(Optional.of(testCustomer));
+            when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+            AtomicBoolean transactionOpenDuringCheck = new AtomicBoolean(true);
+            doAnswer(invocation -> {
+                transactionOpenDuringCheck.set(!mockingDetails(transactionManager).getInvocations().isEmpty());
+                return null;
+            }).when(productValidationService).validateProductsExist(anyList());
+
+            // Act
+            orderService.createOrder(orderCreateDTO);
+
+            // Assert
+            assertFalse(transactionOpenDuringCheck.get());
+            verify(transactionManager).getTransaction(any());
+            verify(transactionManager).commit(any());
         }
         
         @Test
@@ -138,6 +173,7 @@ public class OrderServiceTest {
             assertTrue(exception.getMessage().contains("Customer not found"));
             verify(customerRepository).findById(nonExistentCustomerId);
             verify(orderRepository, never()).save(any(Order.class));
+            verifyNoInteractions(stockLockOutboxService);
         }
         
         @Test
@@ -165,7 +201,7 @@ public class OrderServiceTest {
         void testGetOrder_Success() {
             // Arrange
             addItemsToOrder(testOrder, 2);
-            when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(testOrder));
+            when(orderRepository.findWithItemsById(ORDER_ID)).thenReturn(Optional.of(testOrder));
     
             // Act
             OrderDTO result = orderService.getOrder(ORDER_ID);
@@ -196,7 +232,7 @@ public class OrderServiceTest {
         void testGetOrder_NotFound() {
             // Arrange
             Long nonExistentOrderId = 999L;
-            when(orderRepository.findById(nonExistentOrderId)).thenReturn(Optional.empty());
+            when(orderRepository.findWithItemsById(nonExistentOrderId)).thenReturn(Optional.empty());
     
             // Act & Assert
             assertThrows(
@@ -204,7 +240,7 @@ public class OrderServiceTest {
                 () -> orderService.getOrder(nonExistentOrderId)
             );
             
-            verify(orderRepository).findById(nonExistentOrderId);
+            verify(orderRepository).findWithItemsById(nonExistentOrderId);
         }
     }
     
@@ -225,7 +261,7 @@ public class OrderServiceTest {
             Order updatedOrder = createBasicOrder(ORDER_ID, testCustomer, SHIPPED_STATUS);
             updatedOrder.setTotalAmount(new BigDecimal("100.00"));
     
-            when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(testOrder));
+            when(orderRepository.findByIdForUpdate(ORDER_ID)).thenReturn(Optional.of(testOrder));
             when(orderRepository.save(any(Order.class))).thenReturn(updatedOrder);
     
             // Act
@@ -237,10 +273,53 @@ public class OrderServiceTest {
             assertEquals(SHIPPED_STATUS, result.getStatus());
             assertEquals(new BigDecimal("100.00"), result.getTotalAmount());
             
-            verify(orderRepository).findById(ORDER_ID);
+            verify(orderRepository).findByIdForUpdate(ORDER_ID);
             verify(orderRepository).save(testOrder);
+            verify(orderEventOutboxService).recordStatusChanged(ORDER_ID, SHIPPED_STATUS);
+        }
+
+        @Test
+        @DisplayName("Should not record a status change when the status stays the same")
+        void testUpdateOrder_SameStatus() {
+            // Arrange
+            OrderDTO updateOrderDTO = OrderDTO.builder()
+                    .id(ORDER_ID)
+                    .status(PROCESSING_STATUS)
+                    .build();
+
+            when(orderRepository.findByIdForUpdate(ORDER_ID)).thenReturn(Optional.of(testOrder));
+            when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+
+            // Act
+            orderService.updateOrder(ORDER_ID, updateOrderDTO);
+
+            // Assert
+            verify(orderEventOutboxService, never()).recordStatusChanged(any(), any());
         }
         
+        @Test
+        @DisplayName("Should check each product once without summing the quantities of its lines")
+        void testUpdateOrder_RepeatedProductLines() {
+            // Arrange: the quantities of the repeated product overflow an int when summed
+            OrderDTO updateOrderDTO = OrderDTO.builder()
+                    .id(ORDER_ID)
+                    .status(PROCESSING_STATUS)
+                    .items(List.of(
+                        OrderItemDTO.builder().productId(PRODUCT_ID).quantity(Integer.MAX_VALUE).build(),
+                        OrderItemDTO.builder().productId(PRODUCT_ID).quantity(Integer.MAX_VALUE).build(),
+                        OrderItemDTO.builder().productId(PRODUCT_ID_2).quantity(1).build()))
+                    .build();
+
+            when(orderRepository.findByIdForUpdate(ORDER_ID)).thenReturn(Optional.of(testOrder));
+            when(orderRepository.save(any(Order.class))).thenReturn(testOrder);
+
+            // Act
+            orderService.updateOrder(ORDER_ID, updateOrderDTO);
+
+            // Assert
+            verify(productValidationService).validateProductsExist(List.of(PRODUCT_ID, PRODUCT_ID_2));
+        }
+
         @Test
         @DisplayName("Should throw exception when order not found")
         void testUpdateOrder_NotFound() {
@@ -251,7 +330,7 @@ public class OrderServiceTest {
                     .status(SHIPPED_STATUS)
                     .build();
                     
-            when(orderRepository.findById(nonExistentOrderId)).thenReturn(Optional.empty());
+            when(orderRepository.findByIdForUpdate(nonExistentOrderId)).thenReturn(Optional.empty());
     
             // Act & Assert
             RuntimeException exception = assertThrows(
@@ -260,14 +339,14 @@ public class OrderServiceTest {
             );
             
             assertTrue(exception.getMessage().contains("Order not found"));
-            verify(orderRepository).findById(nonExistentOrderId);
+            verify(orderRepository).findByIdForUpdate(nonExistentOrderId);
             verify(orderRepository, never()).save(any(Order.class));
         }
     }
     
     @Nested
-    @DisplayName("Order Deletion and Listing Operations")
-    class DeleteAndListOrderTests {
+    @DisplayName("Order Deletion Operations")
+    class DeleteOrderTests {
         @Test
         @DisplayName("Should throw ResourceNotFoundException when order not found")
         void testDeleteOrder_NotFound() {
@@ -287,65 +366,15 @@ public class OrderServiceTest {
         @DisplayName("Should successfully delete the order")
         void testDeleteOrder_Success() {
             // Arrange
-            when(orderRepository.existsById(ORDER_ID)).thenReturn(true);
+            when(orderRepository.findByIdForUpdate(ORDER_ID)).thenReturn(Optional.of(testOrder));
     
             // Act
             orderService.deleteOrder(ORDER_ID);
     
             // Assert
-            verify(orderRepository).existsById(ORDER_ID);
-            verify(orderRepository).deleteById(ORDER_ID);
-        }
-        
-        @Test
-        @DisplayName("Should return all orders with details")
-        void testGetAllOrders_Success() {
-            // Arrange
-            Order order1 = createBasicOrder(ORDER_ID, testCustomer, PROCESSING_STATUS);
-            order1.setTotalAmount(new BigDecimal("100.00"));
-            
-            Order order2 = createBasicOrder(2L, testCustomer, SHIPPED_STATUS);
-            order2.setTotalAmount(new BigDecimal("200.00"));
-                    
-            List<Order> orders = Arrays.asList(order1, order2);
-            when(orderRepository.findAll()).thenReturn(orders);
-    
-            // Act
-            List<OrderDTO> results = orderService.getAllOrders();
-    
-            // Assert
-            assertNotNull(results);
-            assertEquals(2, results.size());
-            
-            // First order assertions
-            OrderDTO firstOrder = results.getFirst();
-            assertEquals(ORDER_ID, firstOrder.getId());
-            assertEquals(PROCESSING_STATUS, firstOrder.getStatus());
-            assertEquals(new BigDecimal("100.00"), firstOrder.getTotalAmount());
-            
-            // Second order assertions
-            OrderDTO secondOrder = results.get(1);
-            assertEquals(2L, secondOrder.getId());
-            assertEquals(SHIPPED_STATUS, secondOrder.getStatus());
-            assertEquals(new BigDecimal("200.00"), secondOrder.getTotalAmount());
-            
-            verify(orderRepository).findAll();
-        }
-        
-        @Test
-        @DisplayName("Should return empty list when no orders exist")
-        void testGetAllOrders_Empty() {
-            // Arrange
-            when(orderRepository.findAll()).thenReturn(new ArrayList<>());
-    
-            // Act
-            List<OrderDTO> results = orderService.getAllOrders();
-    
-            // Assert
-            assertNotNull(results);
-            assertTrue(results.isEmpty());
-            
-            verify(orderRepository).findAll();
+            verify(orderRepository).findByIdForUpdate(ORDER_ID);
+            verify(orderRepository).delete(testOrder);
+            verify(orderEventOutboxService).recordDeleted(ORDER_ID);
         }
     }
-}
\ No newline at end of file
+}
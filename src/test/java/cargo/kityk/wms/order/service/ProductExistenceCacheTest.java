@@ -0,0 +1,108 @@
+package cargo.kityk.wms.order.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ProductExistenceCache
+ */
+@DisplayName("Product Existence Cache Tests")
+class ProductExistenceCacheTest {
+
+    private static final Duration EXISTS_TTL = Duration.ofMinutes(10);
+    private static final Duration NOT_FOUND_TTL = Duration.ofMinutes(1);
+
+    private final AtomicLong nanoTime = new AtomicLong();
+    private MeterRegistry meterRegistry;
+    private ProductExistenceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ProductExistenceCache(100, EXISTS_TTL, NOT_FOUND_TTL, meterRegistry, nanoTime::get);
+    }
+
+    private void advance(Duration duration) {
+        nanoTime.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    @DisplayName("Not-found results should expire after the shorter not-found TTL")
+    void notFoundResult_ShouldExpireBeforeExistsResult() {
+        // Arrange
+        cache.put(1L, true);
+        cache.put(2L, false);
+
+        // Act
+        advance(NOT_FOUND_TTL.plusSeconds(1));
+
+        // Assert
+        assertEquals(Map.of(1L, true), cache.getAllPresent(List.of(1L, 2L)));
+    }
+
+    @Test
+    @DisplayName("Exists results should expire after the exists TTL")
+    void existsResult_ShouldExpireAfterExistsTtl() {
+        // Arrange
+        cache.put(1L, true);
+
+        // Act
+        advance(EXISTS_TTL.plusSeconds(1));
+
+        // Assert
+        assertTrue(cache.getAllPresent(List.of(1L)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A product that turns up after a not-found result should get the exists TTL")
+    void overwritingNotFoundWithExists_ShouldUseExistsTtl() {
+        // Arrange
+        cache.put(1L, false);
+        cache.put(1L, true);
+
+        // Act
+        advance(NOT_FOUND_TTL.plusSeconds(1));
+
+        // Assert
+        assertEquals(Map.of(1L, true), cache.getAllPresent(List.of(1L)));
+    }
+
+    @Test
+    @DisplayName("Invalidating a product should remove only that product")
+    void invalidate_ShouldRemoveSingleProduct() {
+        // Arrange
+        cache.put(1L, true);
+        cache.put(2L, true);
+
+        // Act & Assert
+        assertTrue(cache.invalidate(1L));
+        assertFalse(cache.invalidate(1L));
+        assertEquals(Map.of(2L, true), cache.getAllPresent(List.of(1L, 2L)));
+    }
+
+    @Test
+    @DisplayName("Lookups should be published as hit and miss metrics")
+    void lookups_ShouldRecordHitAndMissMetrics() {
+        // Arrange
+        cache.put(1L, true);
+
+        // Act
+        cache.getAllPresent(List.of(1L, 2L));
+
+        // Assert
+        assertEquals(1.0, meterRegistry.get("cache.gets")
+            .tag("cache", ProductExistenceCache.CACHE_NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets")
+            .tag("cache", ProductExistenceCache.CACHE_NAME).tag("result", "miss").functionCounter().count());
+    }
+}
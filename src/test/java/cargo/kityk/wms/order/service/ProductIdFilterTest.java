@@ -0,0 +1,120 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.service.client.InventoryClient;
+import cargo.kityk.wms.order.service.client.ProductIdPage;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the ProductIdFilter
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Product ID Filter Tests")
+class ProductIdFilterTest {
+
+    private static final int PAGE_SIZE = 2;
+
+    @Mock
+    private InventoryClient inventoryClient;
+
+    private MeterRegistry meterRegistry;
+    private ProductIdFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new ProductIdFilter(inventoryClient, true, 0.01, PAGE_SIZE, meterRegistry);
+    }
+
+    private static ProductIdPage page(Long... productIds) {
+        return ProductIdPage.builder().productIds(List.of(productIds)).build();
+    }
+
+    /** Products 1, 2, 4 and 6, exported over three pages */
+    private void inventoryHasProducts() {
+        when(inventoryClient.getProductIds(0, PAGE_SIZE)).thenReturn(page(1L, 2L));
+        when(inventoryClient.getProductIds(2, PAGE_SIZE)).thenReturn(page(4L, 6L));
+        when(inventoryClient.getProductIds(6, PAGE_SIZE)).thenReturn(page());
+    }
+
+    @Test
+    @DisplayName("After a rebuild, unknown IDs up to the highest exported one should be definitely missing")
+    void rebuild_ShouldRejectUnknownIds() {
+        // Arrange
+        inventoryHasProducts();
+
+        // Act
+        filter.rebuild();
+
+        // Assert
+        assertFalse(filter.isDefinitelyMissing(1L));
+        assertFalse(filter.isDefinitelyMissing(6L));
+        assertTrue(filter.isDefinitelyMissing(3L));
+        assertTrue(filter.isDefinitelyMissing(5L));
+        assertEquals(2.0, meterRegistry.get(ProductIdFilter.REJECTED_METRIC).counter().count());
+        assertEquals(4.0, meterRegistry.get(ProductIdFilter.PRODUCTS_METRIC).gauge().value());
+        assertTrue(meterRegistry.get(ProductIdFilter.SIZE_METRIC).gauge().value() > 0);
+        assertEquals(1, meterRegistry.get(ProductIdFilter.REBUILD_METRIC).timer().count());
+    }
+
+    @Test
+    @DisplayName("IDs above the highest exported one may be new products and should not be rejected")
+    void isDefinitelyMissing_IdAboveExport_ShouldReturnFalse() {
+        // Arrange
+        inventoryHasProducts();
+        filter.rebuild();
+
+        // Act & Assert
+        assertFalse(filter.isDefinitelyMissing(7L));
+    }
+
+    @Test
+    @DisplayName("Before the first rebuild, no ID should be rejected")
+    void isDefinitelyMissing_BeforeRebuild_ShouldReturnFalse() {
+        // Act & Assert
+        assertFalse(filter.isDefinitelyMissing(3L));
+        verifyNoInteractions(inventoryClient);
+    }
+
+    @Test
+    @DisplayName("A failed rebuild should keep the previous filter")
+    void rebuild_WhenExportFails_ShouldKeepPreviousFilter() {
+        // Arrange
+        inventoryHasProducts();
+        filter.rebuild();
+        when(inventoryClient.getProductIds(0, PAGE_SIZE)).thenThrow(new RuntimeException("Service unavailable"));
+
+        // Act
+        filter.rebuild();
+
+        // Assert
+        assertTrue(filter.isDefinitelyMissing(3L));
+        assertFalse(filter.isDefinitelyMissing(4L));
+        assertEquals(1, meterRegistry.get(ProductIdFilter.REBUILD_METRIC).timer().count());
+    }
+
+    @Test
+    @DisplayName("When disabled, the filter should neither export nor reject anything")
+    void rebuild_WhenDisabled_ShouldNotExport() {
+        // Arrange
+        filter = new ProductIdFilter(inventoryClient, false, 0.01, PAGE_SIZE, new SimpleMeterRegistry());
+
+        // Act
+        filter.rebuild();
+
+        // Assert
+        assertFalse(filter.isDefinitelyMissing(3L));
+        verifyNoInteractions(inventoryClient);
+    }
+}
@@ -0,0 +1,69 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.OrderItemCreateDTO;
+import cargo.kityk.wms.order.dto.StockLockItemDTO;
+import cargo.kityk.wms.order.exception.InvalidOrderException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ProductQuantities
+ */
+@DisplayName("Product Quantities Tests")
+class ProductQuantitiesTest {
+
+    private static OrderItemCreateDTO line(long productId, int quantity) {
+        return OrderItemCreateDTO.builder().productId(productId).quantity(quantity).build();
+    }
+
+    @Test
+    @DisplayName("Lines of the same product should be summed, keeping the order of first appearance")
+    void of_ShouldSumQuantitiesPerProduct() {
+        // Act
+        ProductQuantities quantities = ProductQuantities.of(List.of(line(7, 1), line(3, 2), line(7, 4), line(3, 1)));
+
+        // Assert
+        assertEquals(List.of(7L, 3L), quantities.productIds());
+        List<StockLockItemDTO> items = quantities.toStockLockItems();
+        assertEquals(5, items.get(0).getQuantity());
+        assertEquals(3, items.get(1).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Many distinct products should all be kept when the table grows")
+    void add_ManyProducts_ShouldKeepEveryProduct() {
+        // Arrange
+        ProductQuantities quantities = new ProductQuantities();
+        List<Long> expectedIds = new ArrayList<>();
+
+        // Act: every product twice, the second time after the table has grown
+        for (long productId = 1; productId <= 1_000; productId++) {
+            quantities.add(productId, 1);
+            expectedIds.add(productId);
+        }
+        for (long productId = 1; productId <= 1_000; productId++) {
+            quantities.add(productId, 2);
+        }
+
+        // Assert
+        assertEquals(1_000, quantities.size());
+        assertEquals(expectedIds, quantities.productIds());
+        assertTrue(quantities.toStockLockItems().stream().allMatch(item -> item.getQuantity() == 3));
+    }
+
+    @Test
+    @DisplayName("A total quantity that overflows should be rejected as an invalid order")
+    void add_WhenTotalOverflows_ShouldThrowInvalidOrderException() {
+        // Arrange
+        ProductQuantities quantities = new ProductQuantities();
+        quantities.add(1L, Integer.MAX_VALUE);
+
+        // Act & Assert
+        assertThrows(InvalidOrderException.class, () -> quantities.add(1L, 1));
+    }
+}
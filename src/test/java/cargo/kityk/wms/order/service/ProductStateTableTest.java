@@ -0,0 +1,57 @@
+package cargo.kityk.wms.order.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ProductStateTable
+ */
+@DisplayName("Product State Table Tests")
+class ProductStateTableTest {
+
+    @Test
+    @DisplayName("The latest state of a product should win, and a removed product should be unknown")
+    void put_ShouldKeepLatestStatePerProduct() {
+        // Arrange
+        ProductStateTable table = new ProductStateTable();
+
+        // Act
+        table.put(1L, true);
+        table.put(2L, true);
+        table.put(2L, false);
+        table.put(3L, true);
+        table.remove(3L);
+
+        // Assert
+        assertEquals(Boolean.TRUE, table.get(1L));
+        assertEquals(Boolean.FALSE, table.get(2L));
+        assertNull(table.get(3L));
+        assertNull(table.get(4L));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    @DisplayName("Many products should all be kept when the table grows, and removed products may come back")
+    void put_ManyProducts_ShouldKeepEveryProduct() {
+        // Arrange
+        ProductStateTable table = new ProductStateTable();
+
+        // Act: enough products and removals to rehash several times
+        for (long productId = 1; productId <= 10_000; productId++) {
+            table.put(productId, productId % 2 == 0);
+        }
+        for (long productId = 1; productId <= 10_000; productId += 3) {
+            table.remove(productId);
+        }
+        table.put(1L, true);
+
+        // Assert
+        assertEquals(10_000 - 3_334 + 1, table.size());
+        assertEquals(Boolean.TRUE, table.get(1L));
+        assertNull(table.get(4L));
+        assertEquals(Boolean.TRUE, table.get(2L));
+        assertEquals(Boolean.FALSE, table.get(3L));
+    }
+}
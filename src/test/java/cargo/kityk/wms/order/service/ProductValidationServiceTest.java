@@ -3,20 +3,31 @@ package cargo.kityk.wms.order.service;
 import cargo.kityk.wms.order.exception.InvalidOrderException;
 import cargo.kityk.wms.order.exception.OrderManagementException;
 import cargo.kityk.wms.order.service.client.InventoryClient;
-import cargo.kityk.wms.order.service.client.ProductResponse;
+import cargo.kityk.wms.order.service.client.ProductExistenceRequest;
+import cargo.kityk.wms.order.service.client.ProductExistenceResponse;
 import feign.FeignException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 /**
@@ -25,100 +36,359 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class ProductValidationServiceTest {
 
+    private static final int FALLBACK_CONCURRENCY = 2;
+
     @Mock
     private InventoryClient inventoryClient;
 
-    @InjectMocks
+    private ProductExistenceCache productExistenceCache;
+
     private ProductValidationService productValidationService;
 
-    @Test
-    @DisplayName("validateProductsExist should not throw exception when all products exist")
-    void validateProductsExist_WhenAllProductsExist_ShouldNotThrow() {
-        // Arrange
-        Long product1Id = 1L;
-        Long product2Id = 2L;
-        List<Long> productIds = Arrays.asList(product1Id, product2Id);
-        
-        ProductResponse product1 = new ProductResponse();
-        product1.setId(product1Id);
-        
-        ProductResponse product2 = new ProductResponse();
-        product2.setId(product2Id);
-        
-        when(inventoryClient.getProductById(product1Id)).thenReturn(product1);
-        when(inventoryClient.getProductById(product2Id)).thenReturn(product2);
-        
-        // Act & Assert
-        assertDoesNotThrow(() -> productValidationService.validateProductsExist(productIds));
-        
-        // Verify each product was checked
-        verify(inventoryClient).getProductById(product1Id);
-        verify(inventoryClient).getProductById(product2Id);
+    @BeforeEach
+    void setUp() {
+        productExistenceCache = new ProductExistenceCache(
+            100, Duration.ofMinutes(10), Duration.ofMinutes(1), new SimpleMeterRegistry());
+        productValidationService = new ProductValidationService(inventoryClient, productExistenceCache, FALLBACK_CONCURRENCY, false);
     }
-    
-    @Test
-    @DisplayName("validateProductsExist should throw InvalidOrderException when any product doesn't exist")
-    void validateProductsExist_WhenSomeProductsDoNotExist_ShouldThrowInvalidOrderException() {
-        // Arrange
-        Long existingProductId = 1L;
-        Long nonExistingProductId = 2L;
-        List<Long> productIds = Arrays.asList(existingProductId, nonExistingProductId);
-        
-        ProductResponse product = new ProductResponse();
-        product.setId(existingProductId);
-        
-        when(inventoryClient.getProductById(existingProductId)).thenReturn(product);
-        when(inventoryClient.getProductById(nonExistingProductId))
-            .thenThrow(FeignException.NotFound.class);
-        
-        // Act & Assert
-        InvalidOrderException exception = assertThrows(InvalidOrderException.class, 
-            () -> productValidationService.validateProductsExist(productIds));
-        
-        assertTrue(exception.getMessage().contains(nonExistingProductId.toString()));
-        
-        // Verify each product was checked
-        verify(inventoryClient).getProductById(existingProductId);
-        verify(inventoryClient).getProductById(nonExistingProductId);
+
+    @AfterEach
+    void tearDown() {
+        productValidationService.shutdown();
+    }
+
+    private static ProductExistenceResponse missing(Long... productIds) {
+        return ProductExistenceResponse.builder().missingProductIds(Arrays.asList(productIds)).build();
     }
-    
+
     @Test
     @DisplayName("validateProductsExist should not throw when list is empty")
     void validateProductsExist_WhenListIsEmpty_ShouldNotThrow() {
         // Arrange
         List<Long> emptyList = Collections.emptyList();
-        
+
         // Act & Assert
         assertDoesNotThrow(() -> productValidationService.validateProductsExist(emptyList));
-        
+
         // Verify no calls were made
         verifyNoInteractions(inventoryClient);
     }
-    
+
     @Test
     @DisplayName("validateProductsExist should not throw when product list is null")
     void validateProductsExist_WhenListIsNull_ShouldNotThrow() {
         // Act & Assert
         assertDoesNotThrow(() -> productValidationService.validateProductsExist(null));
-        
+
         // Verify no calls were made
         verifyNoInteractions(inventoryClient);
     }
-    
-    @Test
-    @DisplayName("validateProductsExist should throw OrderManagementException when service is down")
-    void validateProductsExist_WhenServiceIsDown_ShouldNotThrow() {
-        // Arrange
-        Long productId = 1L;
-        List<Long> productIds = Collections.singletonList(productId);
-        
-        when(inventoryClient.getProductById(productId))
-            .thenThrow(new RuntimeException("Service unavailable"));
-        
-        // Act & Assert
-        assertThrows(OrderManagementException.class, () -> productValidationService.validateProductsExist(productIds));
-        
-        // Verify attempt was made
-        verify(inventoryClient).getProductById(productId);
+
+    @Nested
+    @DisplayName("Batch existence check")
+    class BatchTests {
+
+        @Test
+        @DisplayName("validateProductsExist should check all distinct products in one request")
+        void validateProductsExist_WhenAllProductsExist_ShouldUseSingleBatchRequest() {
+            // Arrange
+            when(inventoryClient.checkProductsExist(any())).thenReturn(missing());
+
+            // Act & Assert
+            assertDoesNotThrow(() -> productValidationService.validateProductsExist(Arrays.asList(1L, 2L, 1L)));
+
+            // Verify a single deduplicated request and no per-product lookups
+            verify(inventoryClient).checkProductsExist(
+                ProductExistenceRequest.builder().productIds(Arrays.asList(1L, 2L)).build());
+            verify(inventoryClient, never()).productExists(anyLong());
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should throw InvalidOrderException naming the missing products")
+        void validateProductsExist_WhenSomeProductsDoNotExist_ShouldThrowInvalidOrderException() {
+            // Arrange
+            when(inventoryClient.checkProductsExist(any())).thenReturn(missing(2L));
+
+            // Act & Assert
+            InvalidOrderException exception = assertThrows(InvalidOrderException.class,
+                () -> productValidationService.validateProductsExist(Arrays.asList(1L, 2L)));
+
+            assertTrue(exception.getMessage().contains("2"));
+            assertFalse(exception.getMessage().contains("1"));
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should throw OrderManagementException when service is down")
+        void validateProductsExist_WhenServiceIsDown_ShouldThrowOrderManagementException() {
+            // Arrange
+            when(inventoryClient.checkProductsExist(any())).thenThrow(new RuntimeException("Service unavailable"));
+
+            // Act & Assert
+            assertThrows(OrderManagementException.class,
+                () -> productValidationService.validateProductsExist(Collections.singletonList(1L)));
+
+            // A failing batch endpoint must not trigger the per-product fallback
+            verify(inventoryClient, never()).productExists(anyLong());
+        }
+    }
+
+    @Nested
+    @DisplayName("Per-product fallback")
+    class FallbackTests {
+
+        @Test
+        @DisplayName("validateProductsExist should look up each product when the batch endpoint is missing")
+        void validateProductsExist_WhenBatchEndpointMissing_ShouldCheckEachProduct() {
+            // Arrange
+            when(inventoryClient.checkProductsExist(any())).thenThrow(FeignException.NotFound.class);
+            when(inventoryClient.productExists(1L)).thenReturn(true);
+            when(inventoryClient.productExists(2L)).thenReturn(true);
+
+            // Act & Assert
+            assertDoesNotThrow(() -> productValidationService.validateProductsExist(Arrays.asList(1L, 2L)));
+
+            // Verify each product was checked
+            verify(inventoryClient).productExists(1L);
+            verify(inventoryClient).productExists(2L);
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should throw InvalidOrderException when any product doesn't exist")
+        void validateProductsExist_WhenSomeProductsDoNotExist_ShouldThrowInvalidOrderException() {
+            // Arrange
+            Long existingProductId = 1L;
+            Long nonExistingProductId = 2L;
+            when(inventoryClient.checkProductsExist(any())).thenThrow(FeignException.MethodNotAllowed.class);
+            when(inventoryClient.productExists(existingProductId)).thenReturn(true);
+            when(inventoryClient.productExists(nonExistingProductId)).thenReturn(false);
+
+            // Act & Assert
+            InvalidOrderException exception = assertThrows(InvalidOrderException.class,
+                () -> productValidationService.validateProductsExist(Arrays.asList(existingProductId, nonExistingProductId)));
+
+            assertTrue(exception.getMessage().contains(nonExistingProductId.toString()));
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should throw OrderManagementException when a lookup fails")
+        void validateProductsExist_WhenServiceIsDown_ShouldThrowOrderManagementException() {
+            // Arrange
+            when(inventoryClient.checkProductsExist(any())).thenThrow(FeignException.NotImplemented.class);
+            when(inventoryClient.productExists(1L)).thenThrow(new RuntimeException("Service unavailable"));
+
+            // Act & Assert
+            assertThrows(OrderManagementException.class,
+                () -> productValidationService.validateProductsExist(Collections.singletonList(1L)));
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should remember that the batch endpoint is missing")
+        void validateProductsExist_AfterBatchEndpointMissing_ShouldNotProbeAgain() {
+            // Arrange
+            when(inventoryClient.checkProductsExist(any())).thenThrow(FeignException.NotFound.class);
+            when(inventoryClient.productExists(anyLong())).thenReturn(true);
+
+            // Act
+            productValidationService.validateProductsExist(Collections.singletonList(1L));
+            productValidationService.validateProductsExist(Collections.singletonList(2L));
+
+            // Assert
+            verify(inventoryClient, times(1)).checkProductsExist(any());
+            verify(inventoryClient).productExists(1L);
+            verify(inventoryClient).productExists(2L);
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should run lookups in parallel up to the configured concurrency")
+        void validateProductsExist_ShouldBoundConcurrentLookups() throws InterruptedException {
+            // Arrange
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            CountDownLatch bothRunning = new CountDownLatch(FALLBACK_CONCURRENCY);
+            when(inventoryClient.checkProductsExist(any())).thenThrow(FeignException.NotFound.class);
+            when(inventoryClient.productExists(anyLong())).thenAnswer(invocation -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                bothRunning.countDown();
+                bothRunning.await(5, TimeUnit.SECONDS);
+                inFlight.decrementAndGet();
+                return true;
+            });
+
+            // Act
+            productValidationService.validateProductsExist(Arrays.asList(1L, 2L, 3L, 4L, 5L));
+
+            // Assert
+            assertEquals(FALLBACK_CONCURRENCY, maxInFlight.get());
+            verify(inventoryClient, times(5)).productExists(anyLong());
+        }
+    }
+
+    @Nested
+    @DisplayName("Existence cache")
+    class CacheTests {
+
+        @Test
+        @DisplayName("validateProductsExist should only ask the inventory service about uncached products")
+        void validateProductsExist_WhenProductsCached_ShouldOnlyCheckUncachedProducts() {
+            // Arrange
+            productExistenceCache.put(1L, true);
+            when(inventoryClient.checkProductsExist(any())).thenReturn(missing());
+
+            // Act
+            productValidationService.validateProductsExist(Arrays.asList(1L, 2L));
+
+            // Assert
+            verify(inventoryClient).checkProductsExist(
+                ProductExistenceRequest.builder().productIds(List.of(2L)).build());
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should not call the inventory service when all products are cached")
+        void validateProductsExist_WhenAllProductsCached_ShouldNotCallInventory() {
+            // Arrange
+            when(inventoryClient.checkProductsExist(any())).thenReturn(missing());
+            productValidationService.validateProductsExist(Arrays.asList(1L, 2L));
+
+            // Act
+            productValidationService.validateProductsExist(Arrays.asList(2L, 1L));
+
+            // Assert
+            verify(inventoryClient, times(1)).checkProductsExist(any());
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should reject a cached not-found product without calling the inventory service")
+        void validateProductsExist_WhenProductCachedAsMissing_ShouldThrowWithoutCallingInventory() {
+            // Arrange
+            when(inventoryClient.checkProductsExist(any())).thenReturn(missing(2L));
+            assertThrows(InvalidOrderException.class,
+                () -> productValidationService.validateProductsExist(Arrays.asList(1L, 2L)));
+
+            // Act & Assert
+            InvalidOrderException exception = assertThrows(InvalidOrderException.class,
+                () -> productValidationService.validateProductsExist(Collections.singletonList(2L)));
+
+            assertTrue(exception.getMessage().contains("2"));
+            verify(inventoryClient, times(1)).checkProductsExist(any());
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should not cache anything when the inventory service is down")
+        void validateProductsExist_WhenServiceIsDown_ShouldNotCache() {
+            // Arrange
+            when(inventoryClient.checkProductsExist(any())).thenThrow(new RuntimeException("Service unavailable"));
+
+            // Act
+            assertThrows(OrderManagementException.class,
+                () -> productValidationService.validateProductsExist(Collections.singletonList(1L)));
+
+            // Assert
+            assertTrue(productExistenceCache.getAllPresent(List.of(1L)).isEmpty());
+        }
+    }
+
+    @Nested
+    @DisplayName("Catalog replica")
+    class ReplicaTests {
+
+        @Mock
+        private ProductCatalogReplica productCatalogReplica;
+
+        @BeforeEach
+        void setUp() {
+            productValidationService.shutdown();
+            productValidationService = new ProductValidationService(inventoryClient, productExistenceCache,
+                productCatalogReplica, null, FALLBACK_CONCURRENCY, false);
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should accept products the replica knows to be active without calling the inventory service")
+        void validateProductsExist_WhenReplicaKnowsAllProducts_ShouldNotCallInventory() {
+            // Arrange
+            when(productCatalogReplica.getAllPresent(any())).thenReturn(Map.of(1L, true, 2L, true));
+
+            // Act & Assert
+            assertDoesNotThrow(() -> productValidationService.validateProductsExist(Arrays.asList(1L, 2L)));
+            verifyNoInteractions(inventoryClient);
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should ask the inventory service about unknown and inactive products")
+        void validateProductsExist_WhenReplicaMisses_ShouldCheckMissesWithInventory() {
+            // Arrange
+            when(productCatalogReplica.getAllPresent(any())).thenReturn(Map.of(1L, true, 2L, false));
+            when(inventoryClient.checkProductsExist(any())).thenReturn(missing(3L));
+
+            // Act
+            InvalidOrderException exception = assertThrows(InvalidOrderException.class,
+                () -> productValidationService.validateProductsExist(Arrays.asList(1L, 2L, 3L)));
+
+            // Assert
+            assertTrue(exception.getMessage().contains("3"));
+            verify(inventoryClient).checkProductsExist(
+                ProductExistenceRequest.builder().productIds(List.of(2L, 3L)).build());
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should ask the inventory service about every product while the replica is stale")
+        void validateProductsExist_WhenReplicaStale_ShouldCheckAllWithInventory() {
+            // Arrange
+            when(productCatalogReplica.getAllPresent(any())).thenReturn(Map.of());
+            when(inventoryClient.checkProductsExist(any())).thenReturn(missing());
+
+            // Act
+            productValidationService.validateProductsExist(Arrays.asList(1L, 2L));
+
+            // Assert
+            verify(inventoryClient).checkProductsExist(
+                ProductExistenceRequest.builder().productIds(List.of(1L, 2L)).build());
+        }
+    }
+
+    @Nested
+    @DisplayName("Product ID filter")
+    class FilterTests {
+
+        @Mock
+        private ProductIdFilter productIdFilter;
+
+        @BeforeEach
+        void setUp() {
+            productValidationService.shutdown();
+            productValidationService = new ProductValidationService(inventoryClient, productExistenceCache,
+                (ProductCatalogReplica) null, productIdFilter, FALLBACK_CONCURRENCY, false);
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should reject products the filter has definitely not seen without calling the inventory service")
+        void validateProductsExist_WhenFilterRejectsAll_ShouldNotCallInventory() {
+            // Arrange
+            when(productIdFilter.isDefinitelyMissing(anyLong())).thenReturn(true);
+
+            // Act
+            InvalidOrderException exception = assertThrows(InvalidOrderException.class,
+                () -> productValidationService.validateProductsExist(Arrays.asList(1L, 2L)));
+
+            // Assert
+            assertTrue(exception.getMessage().contains("1"));
+            assertTrue(exception.getMessage().contains("2"));
+            verifyNoInteractions(inventoryClient);
+        }
+
+        @Test
+        @DisplayName("validateProductsExist should ask the inventory service only about products that may exist")
+        void validateProductsExist_WhenFilterPassesSome_ShouldCheckOnlyThose() {
+            // Arrange
+            when(productIdFilter.isDefinitelyMissing(anyLong())).thenAnswer(invocation -> invocation.getArgument(0, Long.class) == 2L);
+            when(inventoryClient.checkProductsExist(any())).thenReturn(missing());
+
+            // Act
+            assertThrows(InvalidOrderException.class,
+                () -> productValidationService.validateProductsExist(Arrays.asList(1L, 2L, 3L)));
+
+            // Assert
+            verify(inventoryClient).checkProductsExist(
+                ProductExistenceRequest.builder().productIds(List.of(1L, 3L)).build());
+        }
     }
-} 
\ No newline at end of file
+}
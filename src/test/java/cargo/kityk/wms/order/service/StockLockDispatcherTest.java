@@ -0,0 +1,287 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.StockLockItemDTO;
+import cargo.kityk.wms.order.dto.StockLockRequest;
+import cargo.kityk.wms.order.entity.StockLockOutbox;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the StockLockDispatcher
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Stock Lock Dispatcher Tests")
+class StockLockDispatcherTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Long OUTBOX_ID = 10L;
+    private static final Long ORDER_ID = 1L;
+
+    @Mock
+    private StockLockOutboxService outboxService;
+
+    @Mock
+    private StockLockingService stockLockingService;
+
+    private MeterRegistry meterRegistry;
+    private StockLockDispatcher dispatcher;
+    private StockLockRequest request;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatcher = new StockLockDispatcher(outboxService, stockLockingService, MAX_ATTEMPTS, true, meterRegistry);
+        request = lockRequest(2L, 2);
+    }
+
+    private StockLockOutbox claimedRecord(int attempts) {
+        return claimedRecord(OUTBOX_ID, attempts, request);
+    }
+
+    private StockLockOutbox claimedRecord(Long outboxId, int attempts, StockLockRequest request) {
+        StockLockOutbox record = new StockLockOutbox(ORDER_ID, "{}");
+        record.setId(outboxId);
+        record.setStatus(StockLockOutbox.Status.IN_PROGRESS);
+        record.setAttempts(attempts);
+        when(outboxService.readRequest(record)).thenReturn(request);
+        return record;
+    }
+
+    private static StockLockRequest lockRequest(Long productId, int quantity) {
+        return StockLockRequest.builder()
+            .items(List.of(StockLockItemDTO.builder().productId(productId).quantity(quantity).build()))
+            .build();
+    }
+
+    private double dispatched(String outcome) {
+        return meterRegistry.get(StockLockDispatcher.DISPATCHED_METRIC).tag("outcome", outcome).counter().count();
+    }
+
+    private static OrderManagementException failure(HttpStatus status) {
+        return new OrderManagementException("Stock locking failed", status, "critical", "Try again");
+    }
+
+    @Test
+    @DisplayName("A successful lock should mark the outbox record as locked")
+    void process_WhenLockSucceeds_ShouldMarkLocked() {
+        // Arrange
+        StockLockOutbox record = claimedRecord(1);
+
+        // Act
+        dispatcher.process(record);
+
+        // Assert
+        verify(stockLockingService).lockStock(request);
+        verify(outboxService).markLocked(OUTBOX_ID);
+        verify(outboxService, never()).markFailed(any(), any());
+        assertEquals(1.0, dispatched("locked"));
+    }
+
+    @Test
+    @DisplayName("A rejected lock should fail the order without retrying")
+    void process_WhenLockRejected_ShouldMarkFailed() {
+        // Arrange
+        StockLockOutbox record = claimedRecord(1);
+        doThrow(failure(HttpStatus.UNPROCESSABLE_ENTITY)).when(stockLockingService).lockStock(request);
+
+        // Act
+        dispatcher.process(record);
+
+        // Assert
+        verify(outboxService).markFailed(eq(OUTBOX_ID), anyString());
+        verify(outboxService, never()).scheduleRetry(any(), any());
+    }
+
+    @Test
+    @DisplayName("An unavailable inventory service should schedule a retry while attempts remain")
+    void process_WhenInventoryUnavailable_ShouldScheduleRetry() {
+        // Arrange
+        StockLockOutbox record = claimedRecord(MAX_ATTEMPTS - 1);
+        doThrow(failure(HttpStatus.SERVICE_UNAVAILABLE)).when(stockLockingService).lockStock(request);
+
+        // Act
+        dispatcher.process(record);
+
+        // Assert
+        verify(outboxService).scheduleRetry(eq(OUTBOX_ID), anyString());
+        verify(outboxService, never()).markFailed(any(), any());
+        assertEquals(1.0, dispatched("retried"));
+        assertEquals(0.0, dispatched("failed"));
+    }
+
+    @Test
+    @DisplayName("An unavailable inventory service on the last attempt should fail the order")
+    void process_WhenAttemptsExhausted_ShouldMarkFailed() {
+        // Arrange
+        StockLockOutbox record = claimedRecord(MAX_ATTEMPTS);
+        doThrow(failure(HttpStatus.SERVICE_UNAVAILABLE)).when(stockLockingService).lockStock(request);
+
+        // Act
+        dispatcher.process(record);
+
+        // Assert
+        verify(outboxService).markFailed(eq(OUTBOX_ID), anyString());
+        verify(outboxService, never()).scheduleRetry(any(), any());
+    }
+
+    @Test
+    @DisplayName("Dispatching should keep claiming batches until none are due")
+    void dispatch_ShouldDrainUntilBatchIsEmpty() {
+        // Arrange
+        StockLockOutbox record = claimedRecord(1);
+        when(outboxService.claimBatch())
+            .thenReturn(List.of(record))
+            .thenReturn(Collections.emptyList());
+
+        // Act
+        dispatcher.dispatch();
+
+        // Assert
+        verify(outboxService, times(2)).claimBatch();
+        verify(outboxService).markLocked(OUTBOX_ID);
+    }
+
+    @Nested
+    @DisplayName("Consolidated locking")
+    class ConsolidatedTests {
+
+        private final StockLockRequest otherRequest = lockRequest(2L, 1);
+        private final StockLockRequest consolidated = lockRequest(2L, 3);
+        private StockLockOutbox first;
+        private StockLockOutbox second;
+
+        @BeforeEach
+        void setUp() {
+            first = claimedRecord(OUTBOX_ID, 1, request);
+            second = claimedRecord(OUTBOX_ID + 1, 1, otherRequest);
+            when(stockLockingService.consolidate(List.of(request, otherRequest))).thenReturn(consolidated);
+        }
+
+        @Test
+        @DisplayName("A batch should be locked with one request when the inventory service accepts it")
+        void lock_WhenConsolidatedLockSucceeds_ShouldMarkAllLocked() {
+            // Act
+            dispatcher.lock(List.of(first, second));
+
+            // Assert
+            verify(stockLockingService, times(1)).lockStock(any());
+            verify(stockLockingService).lockStock(consolidated);
+            verify(outboxService).markLocked(List.of(OUTBOX_ID, OUTBOX_ID + 1));
+            assertEquals(2.0, dispatched("locked"));
+        }
+
+        @Test
+        @DisplayName("A rejected consolidated lock should fall back to locking each order")
+        void lock_WhenConsolidatedLockRejected_ShouldLockEachOrder() {
+            // Arrange
+            doThrow(failure(HttpStatus.UNPROCESSABLE_ENTITY)).when(stockLockingService).lockStock(consolidated);
+            doNothing().when(stockLockingService).lockStock(request);
+            doThrow(failure(HttpStatus.UNPROCESSABLE_ENTITY)).when(stockLockingService).lockStock(otherRequest);
+
+            // Act
+            dispatcher.lock(List.of(first, second));
+
+            // Assert
+            verify(outboxService).markLocked(OUTBOX_ID);
+            verify(outboxService).markFailed(eq(OUTBOX_ID + 1), anyString());
+        }
+
+        @Test
+        @DisplayName("An unavailable inventory service should retry the whole batch without locking each order")
+        void lock_WhenInventoryUnavailable_ShouldRetryEachRecord() {
+            // Arrange
+            doThrow(failure(HttpStatus.SERVICE_UNAVAILABLE)).when(stockLockingService).lockStock(consolidated);
+
+            // Act
+            dispatcher.lock(List.of(first, second));
+
+            // Assert
+            verify(stockLockingService, times(1)).lockStock(any());
+            verify(outboxService).scheduleRetry(eq(OUTBOX_ID), anyString());
+            verify(outboxService).scheduleRetry(eq(OUTBOX_ID + 1), anyString());
+        }
+    }
+
+    @Nested
+    @DisplayName("Chunked locking")
+    class ChunkedTests {
+
+        private final Set<Long> lockedProductIds = Set.of(2L);
+        private StockLockOutbox record;
+
+        @BeforeEach
+        void setUp() {
+            record = claimedRecord(1);
+            when(stockLockingService.needsChunking(request)).thenReturn(true);
+            when(outboxService.readLockedProductIds(record)).thenReturn(Set.of());
+        }
+
+        private void chunkedLockFails(HttpStatus status) {
+            when(stockLockingService.lockInChunks(request, Set.of()))
+                .thenReturn(new StockLockingService.ChunkedLockResult(lockedProductIds, failure(status)));
+        }
+
+        @Test
+        @DisplayName("A request locked in chunks should mark the outbox record as locked")
+        void process_WhenChunkedLockSucceeds_ShouldMarkLocked() {
+            // Arrange
+            when(stockLockingService.lockInChunks(request, Set.of()))
+                .thenReturn(new StockLockingService.ChunkedLockResult(lockedProductIds, null));
+
+            // Act
+            dispatcher.process(record);
+
+            // Assert
+            verify(outboxService).markLocked(OUTBOX_ID);
+            verify(stockLockingService, never()).lockStock(any());
+        }
+
+        @Test
+        @DisplayName("An unavailable inventory service should keep the locked chunks and resume them on retry")
+        void process_WhenChunkUnavailable_ShouldScheduleRetryWithProgress() {
+            // Arrange
+            chunkedLockFails(HttpStatus.SERVICE_UNAVAILABLE);
+
+            // Act
+            dispatcher.process(record);
+
+            // Assert
+            verify(outboxService).scheduleRetry(eq(OUTBOX_ID), anyString(), eq(lockedProductIds));
+            verify(stockLockingService, never()).releaseStock(any(), any());
+        }
+
+        @Test
+        @DisplayName("A rejected chunk should release the locked chunks and fail the order")
+        void process_WhenChunkRejected_ShouldReleaseAndMarkFailed() {
+            // Arrange
+            chunkedLockFails(HttpStatus.UNPROCESSABLE_ENTITY);
+            when(stockLockingService.releaseStock(request, lockedProductIds)).thenReturn(Set.of());
+
+            // Act
+            dispatcher.process(record);
+
+            // Assert
+            verify(stockLockingService).releaseStock(request, lockedProductIds);
+            verify(outboxService).markFailed(eq(OUTBOX_ID), anyString(), eq(Set.of()));
+            verify(outboxService, never()).scheduleRetry(any(), any(), anySet());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.application.OrderApplication;
+import cargo.kityk.wms.order.dto.OrderItemCreateDTO;
+import cargo.kityk.wms.order.dto.StockLockRequest;
+import cargo.kityk.wms.order.entity.Customer;
+import cargo.kityk.wms.order.entity.Order;
+import cargo.kityk.wms.order.entity.StockLockOutbox;
+import cargo.kityk.wms.order.repository.CustomerRepository;
+import cargo.kityk.wms.order.repository.OrderRepository;
+import cargo.kityk.wms.order.repository.StockLockOutboxRepository;
+import cargo.kityk.wms.test.order.testconfig.UnitTestConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static cargo.kityk.wms.test.order.testconfig.TestConstants.*;
+import static cargo.kityk.wms.test.order.testutils.TestEntityFactory.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the stock lock outbox against the in-memory database: records are written with the order,
+ * claimed once, and fail their order when locking is given up.
+ */
+@SpringBootTest(classes = OrderApplication.class, properties = {
+    "order.stock-lock.dispatcher.enabled=false",
+    "order.stock-lock.batch-size=2"
+})
+@Import(UnitTestConfiguration.class)
+@DisplayName("Stock Lock Outbox Tests")
+class StockLockOutboxServiceTest {
+
+    @Autowired
+    private StockLockOutboxService outboxService;
+
+    @Autowired
+    private StockLockOutboxRepository outboxRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Order order;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        Customer customer = createPersistedCustomer(customerRepository);
+        order = orderRepository.save(createBasicOrder(null, customer, PENDING_STATUS));
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+        orderRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    private void enqueue(Long orderId) {
+        List<OrderItemCreateDTO> items = List.of(OrderItemCreateDTO.builder().productId(PRODUCT_ID).quantity(2).build());
+        transactionTemplate.executeWithoutResult(status -> outboxService.enqueue(orderId, items));
+    }
+
+    @Test
+    @DisplayName("Enqueueing outside of a transaction should be rejected")
+    void enqueue_WithoutTransaction_ShouldThrow() {
+        assertThrows(IllegalTransactionStateException.class,
+            () -> outboxService.enqueue(order.getId(), List.of()));
+    }
+
+    @Test
+    @DisplayName("An enqueued record should carry the stock lock request of the order items")
+    void enqueue_ShouldStoreStockLockRequest() {
+        // Act
+        enqueue(order.getId());
+
+        // Assert
+        List<StockLockOutbox> records = outboxRepository.findByOrderId(order.getId());
+        assertEquals(1, records.size());
+        assertEquals(StockLockOutbox.Status.PENDING, records.getFirst().getStatus());
+        StockLockRequest request = outboxService.readRequest(records.getFirst());
+        assertEquals(1, request.getItems().size());
+        assertEquals(PRODUCT_ID, request.getItems().getFirst().getProductId());
+        assertEquals(2, request.getItems().getFirst().getQuantity());
+    }
+
+    @Test
+    @DisplayName("Claimed records should not be claimed again and batches should respect the batch size")
+    void claimBatch_ShouldClaimEachRecordOnce() {
+        // Arrange
+        enqueue(order.getId());
+        enqueue(order.getId());
+        enqueue(order.getId());
+
+        // Act
+        List<StockLockOutbox> first = outboxService.claimBatch();
+        List<StockLockOutbox> second = outboxService.claimBatch();
+        List<StockLockOutbox> third = outboxService.claimBatch();
+
+        // Assert
+        assertEquals(2, first.size());
+        assertEquals(1, second.size());
+        assertTrue(third.isEmpty());
+        first.forEach(record -> assertEquals(1, record.getAttempts()));
+        assertEquals(StockLockOutbox.Status.IN_PROGRESS,
+            outboxRepository.findById(second.getFirst().getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("A retried record should only be claimed again once its next attempt time has passed")
+    void scheduleRetry_ShouldDelayNextClaim() {
+        // Arrange
+        enqueue(order.getId());
+        StockLockOutbox claimed = outboxService.claimBatch().getFirst();
+
+        // Act
+        outboxService.scheduleRetry(claimed.getId(), "Inventory unavailable");
+
+        // Assert
+        assertTrue(outboxService.claimBatch().isEmpty());
+        StockLockOutbox retried = outboxRepository.findById(claimed.getId()).orElseThrow();
+        assertEquals(StockLockOutbox.Status.PENDING, retried.getStatus());
+        assertEquals("Inventory unavailable", retried.getLastError());
+
+        // Arrange: make the retry due
+        retried.setNextAttemptAt(ZonedDateTime.now().minusSeconds(1));
+        outboxRepository.save(retried);
+
+        // Act & Assert
+        List<StockLockOutbox> reclaimed = outboxService.claimBatch();
+        assertEquals(1, reclaimed.size());
+        assertEquals(2, reclaimed.getFirst().getAttempts());
+    }
+
+    @Test
+    @DisplayName("Retry delays should double with every attempt up to the maximum, less up to half as jitter")
+    void retryDelayAfter_ShouldBackOffExponentiallyWithJitter() {
+        // Defaults: retry delay of 10 seconds, at most 5 minutes
+        for (int i = 0; i < 100; i++) {
+            assertBetween(Duration.ofSeconds(5), Duration.ofSeconds(10), outboxService.retryDelayAfter(1));
+            assertBetween(Duration.ofSeconds(20), Duration.ofSeconds(40), outboxService.retryDelayAfter(3));
+            assertBetween(Duration.ofSeconds(150), Duration.ofMinutes(5), outboxService.retryDelayAfter(6));
+            assertBetween(Duration.ofSeconds(150), Duration.ofMinutes(5), outboxService.retryDelayAfter(100));
+        }
+    }
+
+    private static void assertBetween(Duration min, Duration max, Duration actual) {
+        assertTrue(actual.compareTo(min) >= 0 && actual.compareTo(max) <= 0,
+            () -> actual + " is not between " + min + " and " + max);
+    }
+
+    @Test
+    @DisplayName("A retried record should keep the products locked so far and forget them once locked")
+    void scheduleRetry_ShouldRecordLockedProducts() {
+        // Arrange
+        enqueue(order.getId());
+        StockLockOutbox claimed = outboxService.claimBatch().getFirst();
+
+        // Act
+        outboxService.scheduleRetry(claimed.getId(), "Inventory unavailable", Set.of(PRODUCT_ID));
+
+        // Assert
+        StockLockOutbox retried = outboxRepository.findById(claimed.getId()).orElseThrow();
+        assertEquals(Set.of(PRODUCT_ID), outboxService.readLockedProductIds(retried));
+
+        // Act: the resumed lock succeeds
+        outboxService.markLocked(claimed.getId());
+
+        // Assert
+        StockLockOutbox locked = outboxRepository.findById(claimed.getId()).orElseThrow();
+        assertNull(locked.getLockedProductIds());
+        assertTrue(outboxService.readLockedProductIds(locked).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Failing a record should move its order to 'Stock Lock Error'")
+    void markFailed_ShouldUpdateOrderStatus() {
+        // Arrange
+        enqueue(order.getId());
+        StockLockOutbox claimed = outboxService.claimBatch().getFirst();
+
+        // Act
+        outboxService.markFailed(claimed.getId(), "Insufficient stock for order");
+
+        // Assert
+        assertEquals(StockLockOutbox.Status.FAILED, outboxRepository.findById(claimed.getId()).orElseThrow().getStatus());
+        assertEquals(StockLockOutboxService.STOCK_LOCK_ERROR_STATUS,
+            orderRepository.findById(order.getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    @DisplayName("Locking a record should leave its order status unchanged")
+    void markLocked_ShouldCompleteRecord() {
+        // Arrange
+        enqueue(order.getId());
+        StockLockOutbox claimed = outboxService.claimBatch().getFirst();
+
+        // Act
+        outboxService.markLocked(claimed.getId());
+
+        // Assert
+        assertEquals(StockLockOutbox.Status.LOCKED, outboxRepository.findById(claimed.getId()).orElseThrow().getStatus());
+        assertEquals(PENDING_STATUS, orderRepository.findById(order.getId()).orElseThrow().getStatus());
+        assertTrue(outboxService.claimBatch().isEmpty());
+    }
+}
@@ -6,11 +6,12 @@ import cargo.kityk.wms.order.dto.StockLockResponse;
 import cargo.kityk.wms.order.exception.OrderManagementException;
 import cargo.kityk.wms.order.service.client.InventoryClient;
 import feign.FeignException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
@@ -18,6 +19,8 @@ import org.springframework.http.HttpStatus;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -34,7 +37,6 @@ class StockLockingServiceTest {
     @Mock
     private InventoryClient inventoryClient;
 
-    @InjectMocks
     private StockLockingService stockLockingService;
 
     private List<OrderItemCreateDTO> orderItems;
@@ -43,6 +45,8 @@ class StockLockingServiceTest {
 
     @BeforeEach
     void setUp() {
+        stockLockingService = new StockLockingService(inventoryClient, 500, 2, false);
+
         // Arrange: Set up test data
         orderItems = Arrays.asList(
             OrderItemCreateDTO.builder()
@@ -66,6 +70,11 @@ class StockLockingServiceTest {
             .build();
     }
 
+    @AfterEach
+    void tearDown() {
+        stockLockingService.shutdown();
+    }
+
     @Test
     @DisplayName("Valid order items successfully lock stock without exceptions")
     void testLockStockForOrder_Success() {
@@ -208,4 +217,147 @@ class StockLockingServiceTest {
             return true;
         }));
     }
-} 
\ No newline at end of file
+
+    @Test
+    @DisplayName("Order lines for the same product are locked as one item with the summed quantity")
+    void testToStockLockRequest_MergesDuplicateProductLines() {
+        // Arrange
+        List<OrderItemCreateDTO> items = List.of(
+            OrderItemCreateDTO.builder().productId(2L).quantity(3).build(),
+            OrderItemCreateDTO.builder().productId(1L).quantity(5).build(),
+            OrderItemCreateDTO.builder().productId(2L).quantity(4).build());
+
+        // Act
+        StockLockRequest request = stockLockingService.toStockLockRequest(items);
+
+        // Assert
+        assertEquals(2, request.getItems().size());
+        assertEquals(2L, request.getItems().get(0).getProductId());
+        assertEquals(7, request.getItems().get(0).getQuantity());
+        assertEquals(1L, request.getItems().get(1).getProductId());
+        assertEquals(5, request.getItems().get(1).getQuantity());
+    }
+
+    @Test
+    @DisplayName("Consolidating requests sums the quantities of each product")
+    void testConsolidate_SumsQuantitiesPerProduct() {
+        // Arrange
+        StockLockRequest first = stockLockingService.toStockLockRequest(orderItems);
+        StockLockRequest second = stockLockingService.toStockLockRequest(List.of(
+            OrderItemCreateDTO.builder().productId(2L).quantity(4).build(),
+            OrderItemCreateDTO.builder().productId(3L).quantity(1).build()));
+
+        // Act
+        StockLockRequest consolidated = stockLockingService.consolidate(List.of(first, second));
+
+        // Assert
+        assertEquals(3, consolidated.getItems().size());
+        assertEquals(1L, consolidated.getItems().get(0).getProductId());
+        assertEquals(5, consolidated.getItems().get(0).getQuantity());
+        assertEquals(2L, consolidated.getItems().get(1).getProductId());
+        assertEquals(7, consolidated.getItems().get(1).getQuantity());
+        assertEquals(3L, consolidated.getItems().get(2).getProductId());
+        assertEquals(1, consolidated.getItems().get(2).getQuantity());
+        verifyNoInteractions(inventoryClient);
+    }
+
+    @Nested
+    @DisplayName("Chunked locking")
+    class ChunkedTests {
+
+        private static final int CHUNK_SIZE = 2;
+
+        private StockLockingService chunkingService;
+
+        @BeforeEach
+        void setUp() {
+            chunkingService = new StockLockingService(inventoryClient, CHUNK_SIZE, 2, false);
+        }
+
+        @AfterEach
+        void tearDown() {
+            chunkingService.shutdown();
+        }
+
+        /** One order line per product, with product IDs 1 to the given count */
+        private List<OrderItemCreateDTO> orderOf(int products) {
+            return LongStream.rangeClosed(1, products)
+                .<OrderItemCreateDTO>mapToObj(productId -> OrderItemCreateDTO.builder().productId(productId).quantity(1).build())
+                .toList();
+        }
+
+        private boolean containsProduct(StockLockRequest request, long productId) {
+            return request.getItems().stream().anyMatch(item -> item.getProductId() == productId);
+        }
+
+        @Test
+        @DisplayName("An order with more products than a chunk is locked in several requests")
+        void testLockStockForOrder_LargeOrder_LocksInChunks() {
+            // Arrange
+            when(inventoryClient.lockStock(any(StockLockRequest.class))).thenReturn(successResponse);
+
+            // Act
+            chunkingService.lockStockForOrder(orderOf(5));
+
+            // Assert
+            verify(inventoryClient, times(3)).lockStock(argThat(request -> request.getItems().size() <= CHUNK_SIZE));
+            verify(inventoryClient, never()).releaseStock(any());
+        }
+
+        @Test
+        @DisplayName("A rejected chunk releases the chunks already locked and fails the order")
+        void testLockStockForOrder_ChunkRejected_ReleasesLockedChunks() {
+            // Arrange: the chunk with product 3 is rejected
+            when(inventoryClient.lockStock(any(StockLockRequest.class))).thenAnswer(invocation ->
+                containsProduct(invocation.getArgument(0), 3L) ? failureResponse : successResponse);
+            when(inventoryClient.releaseStock(any(StockLockRequest.class))).thenReturn(successResponse);
+
+            // Act
+            OrderManagementException exception = assertThrows(OrderManagementException.class,
+                () -> chunkingService.lockStockForOrder(orderOf(4)));
+
+            // Assert
+            assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, exception.getStatus());
+            verify(inventoryClient).releaseStock(argThat(request ->
+                containsProduct(request, 1L) && containsProduct(request, 2L) && !containsProduct(request, 3L)));
+        }
+
+        @Test
+        @DisplayName("Resuming a chunked lock only sends the products not locked yet")
+        void testLockInChunks_SkipsAlreadyLockedProducts() {
+            // Arrange
+            when(inventoryClient.lockStock(any(StockLockRequest.class))).thenReturn(successResponse);
+            StockLockRequest request = chunkingService.toStockLockRequest(orderOf(4));
+
+            // Act
+            StockLockingService.ChunkedLockResult result = chunkingService.lockInChunks(request, Set.of(1L, 2L));
+
+            // Assert
+            assertNull(result.failure());
+            assertEquals(Set.of(1L, 2L, 3L, 4L), result.lockedProductIds());
+            verify(inventoryClient, times(1)).lockStock(argThat(lockRequest ->
+                containsProduct(lockRequest, 3L) && containsProduct(lockRequest, 4L)));
+            verify(inventoryClient, times(1)).lockStock(any(StockLockRequest.class));
+        }
+
+        @Test
+        @DisplayName("A chunk that cannot be released is reported as still locked")
+        void testReleaseStock_WhenReleaseFails_ReturnsStillLockedProducts() {
+            // Arrange
+            StockLockRequest request = chunkingService.toStockLockRequest(orderOf(4));
+            when(inventoryClient.releaseStock(any(StockLockRequest.class))).thenAnswer(invocation -> {
+                if (containsProduct(invocation.getArgument(0), 3L)) {
+                    throw new RuntimeException("Connection refused");
+                }
+                return successResponse;
+            });
+
+            // Act
+            Set<Long> stillLocked = chunkingService.releaseStock(request, Set.of(1L, 2L, 3L));
+
+            // Assert
+            assertEquals(Set.of(3L), stillLocked);
+            verify(inventoryClient, times(2)).releaseStock(any(StockLockRequest.class));
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package cargo.kityk.wms.order.service;
+
+import cargo.kityk.wms.order.dto.OrderCreateDTO;
+import cargo.kityk.wms.order.dto.OrderItemCreateDTO;
+import cargo.kityk.wms.order.dto.StockLockRequest;
+import cargo.kityk.wms.order.dto.StockLockResponse;
+import cargo.kityk.wms.order.entity.Customer;
+import cargo.kityk.wms.order.repository.CustomerRepository;
+import cargo.kityk.wms.order.repository.OrderRepository;
+import cargo.kityk.wms.order.service.client.InventoryClient;
+import cargo.kityk.wms.order.service.client.ProductExistenceRequest;
+import cargo.kityk.wms.order.service.client.ProductExistenceResponse;
+import cargo.kityk.wms.order.service.client.ProductIdPage;
+import cargo.kityk.wms.order.service.client.ProductResponse;
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Load test for order creation through {@link OrderService#createOrder}, comparing a pool of platform threads
+ * sized like Tomcat's default (200) with one virtual thread per request. The service's own validation threads
+ * follow the same mode, like they do with spring.threads.virtual.enabled.
+ * The inventory service and the database are simulated with a fixed latency, so the request rate is limited only by
+ * how many requests can wait for them at the same time.
+ *
+ * Not part of the regular build; run with ./gradlew performanceTest
+ */
+@Tag("performance")
+@DisplayName("Virtual Thread Throughput Tests")
+class VirtualThreadThroughputTest {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadThroughputTest.class);
+
+    private static final int REQUESTS = 4_000;
+    private static final int PLATFORM_THREADS = 200;
+    private static final Duration INVENTORY_LATENCY = Duration.ofMillis(250);
+    private static final Duration DATABASE_LATENCY = Duration.ofMillis(5);
+
+    // Per-request info logging to the console would otherwise be the bottleneck, not the thread model
+    private static final List<Class<?>> QUIET_LOGGERS = List.of(OrderService.class, ProductValidationService.class);
+    private static final List<Level> originalLogLevels = new ArrayList<>();
+
+    private final AtomicLong productIds = new AtomicLong();
+
+    @BeforeAll
+    static void quietLogging() {
+        for (Class<?> loggerClass : QUIET_LOGGERS) {
+            ch.qos.logback.classic.Logger quiet = (ch.qos.logback.classic.Logger) LoggerFactory.getLogger(loggerClass);
+            originalLogLevels.add(quiet.getLevel());
+            quiet.setLevel(Level.WARN);
+        }
+    }
+
+    @AfterAll
+    static void restoreLogging() {
+        for (int i = 0; i < QUIET_LOGGERS.size(); i++) {
+            ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(QUIET_LOGGERS.get(i)))
+                .setLevel(originalLogLevels.get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("Virtual threads should create inventory-bound orders faster than Tomcat's default thread pool")
+    void virtualThreads_ShouldOutperformPlatformThreadPool() throws Exception {
+        // Arrange: warm up both paths
+        run(Executors.newFixedThreadPool(PLATFORM_THREADS), false, PLATFORM_THREADS);
+        run(Executors.newVirtualThreadPerTaskExecutor(), true, PLATFORM_THREADS);
+
+        // Act
+        double platform = run(Executors.newFixedThreadPool(PLATFORM_THREADS), false, REQUESTS);
+        double virtual = run(Executors.newVirtualThreadPerTaskExecutor(), true, REQUESTS);
+
+        // Assert
+        String throughput = String.format("Orders created/s with %d platform threads: %.0f, with virtual threads: %.0f",
+            PLATFORM_THREADS, platform, virtual);
+        logger.info(throughput);
+        assertTrue(virtual > platform, "Expected virtual threads to increase throughput. " + throughput);
+    }
+
+    /**
+     * Creates one single-product order per request, each with a product that is not cached yet
+     *
+     * @param executor Executor standing in for the servlet container's request threads
+     * @param virtualThreads Whether the order service's validation threads are virtual
+     * @return Requests per second
+     */
+    private double run(ExecutorService executor, boolean virtualThreads, int requests) throws Exception {
+        ProductValidationService validationService = new ProductValidationService(new SlowInventoryClient(),
+            new ProductExistenceCache(requests, Duration.ofMinutes(10), Duration.ofMinutes(1), new SimpleMeterRegistry()),
+            8, virtualThreads);
+        OrderService orderService = new OrderService(slowOrderRepository(), slowCustomerRepository(), validationService,
+            stub(StockLockOutboxService.class), stub(OrderEventOutboxService.class),
+            stub(PlatformTransactionManager.class, args -> null), virtualThreads);
+        try (executor) {
+            List<Future<?>> results = new ArrayList<>(requests);
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                OrderCreateDTO order = OrderCreateDTO.builder()
+                    .customerId(1L)
+                    .items(List.of(OrderItemCreateDTO.builder().productId(productIds.incrementAndGet()).quantity(1).build()))
+                    .build();
+                results.add(executor.submit(() -> orderService.createOrder(order)));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+            return requests / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            orderService.shutdown();
+            validationService.shutdown();
+        }
+    }
+
+    /** Mock that does not record its invocations, which would otherwise be shared by all requests */
+    private static <T> T stub(Class<T> type) {
+        return mock(type, withSettings().stubOnly());
+    }
+
+    /**
+     * Stub of an interface that answers every call with the given function. Mockito's interface mocks are not used
+     * for the calls made on every request: their per-call bookkeeping would cost more CPU than the thread model.
+     */
+    private static <T> T stub(Class<T> type, Function<Object[], Object> answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+            (proxy, method, args) -> answer.apply(args)));
+    }
+
+    private static CustomerRepository slowCustomerRepository() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        return stub(CustomerRepository.class, args -> {
+            waitFor(DATABASE_LATENCY);
+            return Optional.of(customer);
+        });
+    }
+
+    /** Repository that saves orders without assigning IDs */
+    private static OrderRepository slowOrderRepository() {
+        return stub(OrderRepository.class, args -> {
+            waitFor(DATABASE_LATENCY);
+            return args[0];
+        });
+    }
+
+    private static void waitFor(Duration latency) {
+        try {
+            Thread.sleep(latency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Inventory service where every product exists and every call takes {@link #INVENTORY_LATENCY} */
+    private static final class SlowInventoryClient implements InventoryClient {
+        @Override
+        public Optional<ProductResponse> getProductById(Long productId) {
+            respond();
+            return Optional.of(new ProductResponse());
+        }
+
+        @Override
+        public boolean productExists(Long productId) {
+            respond();
+            return true;
+        }
+
+        @Override
+        public ProductExistenceResponse checkProductsExist(ProductExistenceRequest request) {
+            respond();
+            return ProductExistenceResponse.builder().missingProductIds(List.of()).build();
+        }
+
+        @Override
+        public ProductIdPage getProductIds(long afterId, int limit) {
+            respond();
+            return new ProductIdPage();
+        }
+
+        @Override
+        public StockLockResponse lockStock(StockLockRequest request) {
+            respond();
+            return new StockLockResponse();
+        }
+
+        @Override
+        public StockLockResponse releaseStock(StockLockRequest request) {
+            respond();
+            return new StockLockResponse();
+        }
+
+        private static void respond() {
+            waitFor(INVENTORY_LATENCY);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package cargo.kityk.wms.order.service.client;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the AdaptiveConcurrencyLimiter
+ */
+@DisplayName("Adaptive Concurrency Limiter Tests")
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final Duration RTT_THRESHOLD = Duration.ofMillis(100);
+    private static final long FAST_CALL = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW_CALL = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private static AdaptiveConcurrencyLimiter limiter(boolean adaptive, int initialLimit) {
+        return new AdaptiveConcurrencyLimiter(adaptive, initialLimit, 2, 20, 0.5, RTT_THRESHOLD, Duration.ZERO);
+    }
+
+    private static void acquire(AdaptiveConcurrencyLimiter limiter, int calls) throws InterruptedException {
+        for (int i = 0; i < calls; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+    }
+
+    @Test
+    @DisplayName("Successful calls should raise the limit while it is well used")
+    void whenCallsSucceedUnderLoad_ShouldIncreaseLimit() throws InterruptedException {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 4);
+        acquire(limiter, 4);
+
+        // Act
+        limiter.complete(FAST_CALL, false);
+        limiter.complete(FAST_CALL, false);
+
+        // Assert
+        assertEquals(6, limiter.getLimit());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Successful calls should not raise the limit while most of it is unused")
+    void whenCallsSucceedWithoutLoad_ShouldKeepLimit() throws InterruptedException {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 10);
+        acquire(limiter, 1);
+
+        // Act
+        limiter.complete(FAST_CALL, false);
+
+        // Assert
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Failed and slow calls should lower the limit, down to the minimum")
+    void whenCallsFailOrAreSlow_ShouldDecreaseLimit() throws InterruptedException {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 16);
+        acquire(limiter, 3);
+
+        // Act & Assert
+        limiter.complete(FAST_CALL, true);
+        assertEquals(8, limiter.getLimit());
+        limiter.complete(SLOW_CALL, false);
+        assertEquals(4, limiter.getLimit());
+        limiter.complete(SLOW_CALL, false);
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Calls over a lowered limit should be rejected until enough calls completed")
+    void whenLimitLowered_ShouldRejectUntilInFlightBelowLimit() throws InterruptedException {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter(true, 4);
+        acquire(limiter, 4);
+        assertFalse(limiter.tryAcquire());
+
+        // Act: the slow call halves the limit while three calls are still in flight
+        limiter.complete(SLOW_CALL, false);
+
+        // Assert
+        assertEquals(2, limiter.getLimit());
+        assertFalse(limiter.tryAcquire());
+        limiter.release();
+        assertFalse(limiter.tryAcquire());
+        limiter.release();
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("A waiting call should get the slot of a call that completes within the maximum wait")
+    void whenCallCompletesWhileWaiting_ShouldAcquireSlot() throws Exception {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(true, 2, 2, 20, 0.5, RTT_THRESHOLD,
+            Duration.ofSeconds(5));
+        acquire(limiter, 2);
+
+        // Act
+        CompletableFuture<Boolean> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.tryAcquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        });
+        Thread.sleep(50);
+        limiter.complete(FAST_CALL, false);
+
+        // Assert
+        assertTrue(waiting.get(5, TimeUnit.SECONDS));
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("When not adaptive, the limit should stay at its initial value")
+    void whenNotAdaptive_ShouldKeepInitialLimit() throws InterruptedException {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter(false, 4);
+        acquire(limiter, 2);
+
+        // Act
+        limiter.complete(SLOW_CALL, true);
+        limiter.complete(FAST_CALL, false);
+
+        // Assert
+        assertEquals(4, limiter.getLimit());
+    }
+}
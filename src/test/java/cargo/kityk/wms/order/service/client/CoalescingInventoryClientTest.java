@@ -0,0 +1,190 @@
+package cargo.kityk.wms.order.service.client;
+
+import cargo.kityk.wms.order.dto.StockLockRequest;
+import cargo.kityk.wms.order.dto.StockLockResponse;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the CoalescingInventoryClient
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Coalescing Inventory Client Tests")
+class CoalescingInventoryClientTest {
+
+    private static final int CALLERS = 50;
+
+    @Mock
+    private InventoryClient delegate;
+
+    private MeterRegistry meterRegistry;
+    private CoalescingInventoryClient client;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        client = new CoalescingInventoryClient(delegate, meterRegistry);
+        callers = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    private double coalescedCount(String method) {
+        return meterRegistry.get(CoalescingInventoryClient.COALESCED_METRIC).tag("method", method).counter().count();
+    }
+
+    /**
+     * Blocks the single upstream call until every other caller has joined it.
+     */
+    private void awaitCoalescedCallers(CountDownLatch upstreamStarted, String method) throws InterruptedException {
+        assertTrue(upstreamStarted.await(5, TimeUnit.SECONDS));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescedCount(method) < CALLERS - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent lookups of the same product should share one upstream call")
+    void getProductById_UnderContention_ShouldMakeSingleUpstreamCall() throws Exception {
+        // Arrange
+        ProductResponse product = new ProductResponse();
+        product.setId(1L);
+        CountDownLatch upstreamStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.getProductById(1L)).thenAnswer(invocation -> {
+            upstreamStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(product);
+        });
+
+        // Act
+        List<Future<Optional<ProductResponse>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(callers.submit(() -> client.getProductById(1L)));
+        }
+        awaitCoalescedCallers(upstreamStarted, "getProductById");
+        release.countDown();
+
+        // Assert
+        for (Future<Optional<ProductResponse>> result : results) {
+            assertSame(product, result.get(5, TimeUnit.SECONDS).orElseThrow());
+        }
+        verify(delegate, times(1)).getProductById(1L);
+        assertEquals(CALLERS - 1, coalescedCount("getProductById"));
+    }
+
+    @Test
+    @DisplayName("Every coalesced caller should receive the failure of the shared call")
+    void getProductById_WhenSharedCallFails_ShouldPropagateFailureToAllCallers() throws Exception {
+        // Arrange
+        CountDownLatch upstreamStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.getProductById(1L)).thenAnswer(invocation -> {
+            upstreamStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            throw mock(FeignException.ServiceUnavailable.class);
+        });
+
+        // Act
+        List<Future<Optional<ProductResponse>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(callers.submit(() -> client.getProductById(1L)));
+        }
+        awaitCoalescedCallers(upstreamStarted, "getProductById");
+        release.countDown();
+
+        // Assert
+        for (Future<Optional<ProductResponse>> result : results) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(FeignException.ServiceUnavailable.class, exception.getCause());
+        }
+        verify(delegate, times(1)).getProductById(1L);
+    }
+
+    @Test
+    @DisplayName("A lookup after the shared call has completed should make a new upstream call")
+    void getProductById_AfterCompletion_ShouldCallUpstreamAgain() {
+        // Arrange
+        when(delegate.getProductById(1L)).thenReturn(Optional.of(new ProductResponse()));
+
+        // Act
+        client.getProductById(1L);
+        client.getProductById(1L);
+
+        // Assert
+        verify(delegate, times(2)).getProductById(1L);
+        assertEquals(0, coalescedCount("getProductById"));
+    }
+
+    @Test
+    @DisplayName("Concurrent existence checks of the same products in any order should share one upstream call")
+    void checkProductsExist_UnderContention_ShouldMakeSingleUpstreamCall() throws Exception {
+        // Arrange
+        ProductExistenceResponse response = new ProductExistenceResponse();
+        CountDownLatch upstreamStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.checkProductsExist(any())).thenAnswer(invocation -> {
+            upstreamStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return response;
+        });
+
+        // Act
+        List<Future<ProductExistenceResponse>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            List<Long> productIds = i % 2 == 0 ? List.of(1L, 2L) : List.of(2L, 1L);
+            results.add(callers.submit(() ->
+                client.checkProductsExist(ProductExistenceRequest.builder().productIds(productIds).build())));
+        }
+        awaitCoalescedCallers(upstreamStarted, "checkProductsExist");
+        release.countDown();
+
+        // Assert
+        for (Future<ProductExistenceResponse> result : results) {
+            assertSame(response, result.get(5, TimeUnit.SECONDS));
+        }
+        verify(delegate, times(1)).checkProductsExist(any());
+    }
+
+    @Test
+    @DisplayName("Stock locking should never be coalesced")
+    void lockStock_ShouldAlwaysCallUpstream() {
+        // Arrange
+        StockLockRequest request = new StockLockRequest();
+        when(delegate.lockStock(request)).thenReturn(new StockLockResponse());
+
+        // Act
+        client.lockStock(request);
+        client.lockStock(request);
+
+        // Assert
+        verify(delegate, times(2)).lockStock(request);
+    }
+}
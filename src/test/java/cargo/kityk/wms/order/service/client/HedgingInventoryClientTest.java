@@ -0,0 +1,170 @@
+package cargo.kityk.wms.order.service.client;
+
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the HedgingInventoryClient
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Hedging Inventory Client Tests")
+class HedgingInventoryClientTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(50);
+
+    @Mock
+    private InventoryClient delegate;
+
+    private MeterRegistry meterRegistry;
+    private HedgingInventoryClient client;
+    private final CountDownLatch releaseSlowLookup = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        client = hedgingClient(true, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseSlowLookup.countDown();
+        client.shutdown();
+    }
+
+    /** Hedges after the minimum delay from the first lookup on, with the given budget */
+    private HedgingInventoryClient hedgingClient(boolean enabled, int budgetPercent) {
+        return new HedgingInventoryClient(delegate, enabled, 0.95, HEDGE_DELAY, 0, budgetPercent, Duration.ZERO,
+            false, meterRegistry);
+    }
+
+    private double hedges(String result) {
+        return meterRegistry.get(HedgingInventoryClient.HEDGES_METRIC).tag("result", result).counter().count();
+    }
+
+    /** The first request blocks until released, later ones answer at once */
+    private void firstLookupIsSlow(Optional<ProductResponse> slowProduct, Optional<ProductResponse> fastProduct) {
+        AtomicInteger calls = new AtomicInteger();
+        when(delegate.getProductById(1L)).thenAnswer(invocation -> {
+            if (calls.getAndIncrement() == 0) {
+                releaseSlowLookup.await(5, TimeUnit.SECONDS);
+                return slowProduct;
+            }
+            return fastProduct;
+        });
+    }
+
+    @Test
+    @DisplayName("A lookup slower than the hedge delay should be answered by the hedge")
+    void whenLookupIsSlow_ShouldReturnHedgeAnswer() throws InterruptedException {
+        // Arrange
+        Optional<ProductResponse> fastProduct = Optional.of(new ProductResponse());
+        firstLookupIsSlow(Optional.of(new ProductResponse()), fastProduct);
+
+        // Act
+        Optional<ProductResponse> result = client.getProductById(1L);
+
+        // Assert
+        assertSame(fastProduct, result);
+        verify(delegate, times(2)).getProductById(1L);
+        assertEquals(1.0, hedges("won"));
+
+        // The original request still finishes and its extra latency is recorded as saved
+        releaseSlowLookup.countDown();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (meterRegistry.get(HedgingInventoryClient.LATENCY_SAVED_METRIC).timer().count() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, meterRegistry.get(HedgingInventoryClient.LATENCY_SAVED_METRIC).timer().count());
+    }
+
+    @Test
+    @DisplayName("A fast lookup should not be hedged")
+    void whenLookupIsFast_ShouldNotHedge() {
+        // Arrange
+        Optional<ProductResponse> product = Optional.of(new ProductResponse());
+        when(delegate.getProductById(1L)).thenReturn(product);
+
+        // Act
+        Optional<ProductResponse> result = client.getProductById(1L);
+
+        // Assert
+        assertSame(product, result);
+        verify(delegate, times(1)).getProductById(1L);
+        assertEquals(1.0, hedges("none"));
+    }
+
+    @Test
+    @DisplayName("A not found answer should be returned without hedging")
+    void whenProductNotFound_ShouldRethrowWithoutHedging() {
+        // Arrange
+        Request request = Request.create(Request.HttpMethod.GET, InventoryClient.BASE_URL + "/1", Map.of(), null,
+            StandardCharsets.UTF_8, null);
+        Response response = Response.builder().status(404).reason("Not Found").request(request).headers(Map.of()).build();
+        when(delegate.getProductById(1L))
+            .thenThrow(FeignException.errorStatus("InventoryClient#getProductById(Long)", response));
+
+        // Act & Assert
+        assertThrows(FeignException.NotFound.class, () -> client.getProductById(1L));
+        verify(delegate, times(1)).getProductById(1L);
+    }
+
+    @Test
+    @DisplayName("Without hedge budget, a slow lookup should be waited for")
+    void whenBudgetExhausted_ShouldWaitForOriginalLookup() {
+        // Arrange
+        client = hedgingClient(true, 0);
+        Optional<ProductResponse> slowProduct = Optional.of(new ProductResponse());
+        when(delegate.getProductById(1L)).thenAnswer(invocation -> {
+            Thread.sleep(HEDGE_DELAY.multipliedBy(2).toMillis());
+            return slowProduct;
+        });
+
+        // Act
+        Optional<ProductResponse> result = client.getProductById(1L);
+
+        // Assert
+        assertSame(slowProduct, result);
+        verify(delegate, times(1)).getProductById(1L);
+        assertEquals(1.0, hedges("skipped"));
+    }
+
+    @Test
+    @DisplayName("When disabled, lookups should go straight to the inventory service")
+    void whenDisabled_ShouldNotHedge() {
+        // Arrange
+        client = hedgingClient(false, 100);
+        Optional<ProductResponse> slowProduct = Optional.of(new ProductResponse());
+        firstLookupIsSlow(slowProduct, Optional.of(new ProductResponse()));
+        releaseSlowLookup.countDown();
+
+        // Act
+        Optional<ProductResponse> result = client.getProductById(1L);
+
+        // Assert
+        assertSame(slowProduct, result);
+        verify(delegate, times(1)).getProductById(1L);
+        assertEquals(0.0, hedges("none"));
+    }
+}
@@ -0,0 +1,155 @@
+package cargo.kityk.wms.order.service.client;
+
+import cargo.kityk.wms.order.config.InventoryResilienceConfig;
+import cargo.kityk.wms.order.exception.OrderManagementException;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the ResilientInventoryClient
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Resilient Inventory Client Tests")
+class ResilientInventoryClientTest {
+
+    private static final int MINIMUM_CALLS = 4;
+    private static final Duration WAIT_IN_OPEN_STATE = Duration.ofMillis(200);
+
+    @Mock
+    private InventoryClient delegate;
+
+    private MeterRegistry meterRegistry;
+    private ResilientInventoryClient client;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        InventoryResilienceConfig config = new InventoryResilienceConfig();
+        client = new ResilientInventoryClient(delegate,
+            config.inventoryCircuitBreakerConfig(50, Duration.ofSeconds(5), 80, 10, MINIMUM_CALLS, WAIT_IN_OPEN_STATE, 1),
+            new AdaptiveConcurrencyLimiter(false, 1, 1, 1, 0.9, Duration.ofSeconds(1), Duration.ZERO),
+            meterRegistry);
+        callers = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        callers.shutdownNow();
+    }
+
+    private static FeignException errorResponse(int status) {
+        Request request = Request.create(Request.HttpMethod.GET, InventoryClient.BASE_URL + "/1", Map.of(), null,
+            StandardCharsets.UTF_8, null);
+        Response response = Response.builder().status(status).reason("Error").request(request).headers(Map.of()).build();
+        return FeignException.errorStatus("InventoryClient#getProductById(Long)", response);
+    }
+
+    private void failCalls(int count) {
+        for (int i = 0; i < count; i++) {
+            assertThrows(FeignException.class, () -> client.getProductById(1L));
+        }
+    }
+
+    @Test
+    @DisplayName("Server errors should open the circuit, after which calls fail fast with SERVICE_UNAVAILABLE")
+    void whenServerErrors_ShouldOpenCircuitAndFailFast() {
+        // Arrange
+        when(delegate.getProductById(1L)).thenThrow(errorResponse(503));
+        failCalls(MINIMUM_CALLS);
+
+        // Act
+        OrderManagementException exception = assertThrows(OrderManagementException.class, () -> client.getProductById(1L));
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitBreaker().getState());
+        assertEquals(0, client.getConcurrencyLimiter().getInFlight());
+        verify(delegate, times(MINIMUM_CALLS)).getProductById(1L);
+        assertEquals(1.0, meterRegistry.get("resilience4j.circuitbreaker.state")
+            .tag("name", ResilientInventoryClient.NAME).tag("state", "open").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Not found responses should not open the circuit")
+    void whenProductsNotFound_ShouldKeepCircuitClosed() {
+        // Arrange
+        when(delegate.getProductById(1L)).thenThrow(errorResponse(404));
+
+        // Act
+        failCalls(MINIMUM_CALLS * 2);
+
+        // Assert
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreaker().getState());
+    }
+
+    @Test
+    @DisplayName("A successful probe after the open wait should close the circuit again")
+    void whenProbeSucceedsAfterWait_ShouldCloseCircuit() throws InterruptedException {
+        // Arrange
+        ProductResponse product = new ProductResponse();
+        when(delegate.getProductById(1L)).thenThrow(errorResponse(500)).thenThrow(errorResponse(500))
+            .thenThrow(errorResponse(500)).thenThrow(errorResponse(500)).thenReturn(Optional.of(product));
+        failCalls(MINIMUM_CALLS);
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitBreaker().getState());
+
+        // Act
+        Thread.sleep(WAIT_IN_OPEN_STATE.multipliedBy(2).toMillis());
+        Optional<ProductResponse> result = client.getProductById(1L);
+
+        // Assert
+        assertSame(product, result.orElseThrow());
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreaker().getState());
+    }
+
+    @Test
+    @DisplayName("Calls beyond the concurrency limit should fail fast with SERVICE_UNAVAILABLE")
+    void whenConcurrencyLimitReached_ShouldFailFast() throws Exception {
+        // Arrange
+        CountDownLatch callStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.getProductById(1L)).thenAnswer(invocation -> {
+            callStarted.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(new ProductResponse());
+        });
+        var slowCall = callers.submit(() -> client.getProductById(1L));
+        assertTrue(callStarted.await(5, TimeUnit.SECONDS));
+
+        // Act
+        OrderManagementException exception = assertThrows(OrderManagementException.class, () -> client.getProductById(2L));
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, exception.getStatus());
+        verify(delegate, never()).getProductById(2L);
+        assertEquals(1.0, meterRegistry.get(ResilientInventoryClient.REJECTED_METRIC).counter().count());
+        assertEquals(1.0, meterRegistry.get(ResilientInventoryClient.IN_FLIGHT_METRIC).gauge().value());
+        release.countDown();
+        assertNotNull(slowCall.get(5, TimeUnit.SECONDS));
+        assertEquals(0, client.getConcurrencyLimiter().getInFlight());
+    }
+}
@@ -14,7 +14,14 @@ import cargo.kityk.wms.order.application.OrderApplication;
 import cargo.kityk.wms.order.dto.StockLockItemDTO;
 import cargo.kityk.wms.order.dto.StockLockRequest;
 import cargo.kityk.wms.order.dto.StockLockResponse;
+import cargo.kityk.wms.order.exception.InvalidOrderException;
+import cargo.kityk.wms.order.service.ProductCatalogReplica;
+import cargo.kityk.wms.order.service.ProductExistenceCache;
+import cargo.kityk.wms.order.service.ProductValidationService;
 import cargo.kityk.wms.order.service.client.InventoryClient;
+import cargo.kityk.wms.order.service.client.ProductExistenceRequest;
+import cargo.kityk.wms.order.service.client.ProductExistenceResponse;
+import cargo.kityk.wms.order.service.client.ProductIdPage;
 import cargo.kityk.wms.order.service.client.ProductResponse;
 import cargo.kityk.wms.test.order.testconfig.UnitTestConfiguration;
 import org.junit.jupiter.api.BeforeAll;
@@ -23,18 +30,25 @@ import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static cargo.kityk.wms.order.service.client.InventoryClient.BASE_URL;
 import static cargo.kityk.wms.order.service.client.InventoryClient.STOCK_URL;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -48,7 +62,9 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 @SpringBootTest(
     webEnvironment = SpringBootTest.WebEnvironment.NONE,
     properties = {
-        "inventory.service.url=http://localhost:9999"  // Fixed port for Pact mock server
+        "inventory.service.url=http://localhost:9999",  // Fixed port for Pact mock server
+        // A new mock server is started on the same port for every test; never reuse a pooled connection unchecked
+        "inventory.client.pool.validate-after-inactivity=PT0S"
     },
     classes = {
         OrderApplication.class
@@ -124,6 +140,32 @@ public class InventoryServicePactTest {
                 .toPact();
     }
 
+    @Pact(consumer = "wms_order_management")
+    @DisplayName("Pact for checking that a product exists without fetching it")
+    public RequestResponsePact existingProductHeadPact(PactDslWithProvider builder) {
+        return builder
+                .given("product with ID " + EXISTING_PRODUCT_ID + " exists")
+                .uponReceiving("a HEAD request for an existing product")
+                .path(BASE_URL + "/" + EXISTING_PRODUCT_ID)
+                .method("HEAD")
+                .willRespondWith()
+                .status(200)
+                .toPact();
+    }
+
+    @Pact(consumer = "wms_order_management")
+    @DisplayName("Pact for checking that a non-existent product exists without fetching it")
+    public RequestResponsePact nonexistentProductHeadPact(PactDslWithProvider builder) {
+        return builder
+                .given("product with ID " + NONEXISTENT_PRODUCT_ID + " does not exist")
+                .uponReceiving("a HEAD request for a non-existent product")
+                .path(BASE_URL + "/" + NONEXISTENT_PRODUCT_ID)
+                .method("HEAD")
+                .willRespondWith()
+                .status(404)
+                .toPact();
+    }
+
     @Pact(consumer = "wms_order_management")
     @DisplayName("Pact for successful stock locking")
     public RequestResponsePact successfulStockLockPact(PactDslWithProvider builder) {
@@ -162,6 +204,40 @@ public class InventoryServicePactTest {
                 .toPact();
     }
 
+    @Pact(consumer = "wms_order_management")
+    @DisplayName("Pact for releasing locked stock")
+    public RequestResponsePact releaseStockPact(PactDslWithProvider builder) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+
+        DslPart requestBody = LambdaDsl.newJsonBody(body -> {
+            body.array("items", items -> {
+                items.object(item -> {
+                    item.numberValue("productId", 1L);
+                    item.numberValue("quantity", 5);
+                });
+            });
+        }).build();
+
+        DslPart responseBody = LambdaDsl.newJsonBody(body -> {
+            body.stringValue("message", "Stock released successfully");
+            body.booleanValue("success", true);
+        }).build();
+
+        return builder
+                .given("stock is locked for product 1")
+                .uponReceiving("a request to release locked stock")
+                .path(STOCK_URL + "/release")
+                .method("POST")
+                .headers(headers)
+                .body(requestBody)
+                .willRespondWith()
+                .status(200)
+                .headers(headers)
+                .body(responseBody)
+                .toPact();
+    }
+
     @Pact(consumer = "wms_order_management")
     @DisplayName("Pact for insufficient stock error")
     public RequestResponsePact insufficientStockPact(PactDslWithProvider builder) {
@@ -197,14 +273,90 @@ public class InventoryServicePactTest {
     }
     
 
+    @Pact(consumer = "wms_order_management")
+    @DisplayName("Pact for checking the existence of several products in one request")
+    public RequestResponsePact batchProductExistencePact(PactDslWithProvider builder) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+
+        DslPart requestBody = LambdaDsl.newJsonBody(body -> {
+            body.array("productIds", ids -> {
+                ids.numberValue(EXISTING_PRODUCT_ID);
+                ids.numberValue(NONEXISTENT_PRODUCT_ID);
+            });
+        }).build();
+
+        DslPart responseBody = LambdaDsl.newJsonBody(body -> {
+            body.array("missingProductIds", ids -> ids.numberValue(NONEXISTENT_PRODUCT_ID));
+        }).build();
+
+        return builder
+                .given("product with ID " + EXISTING_PRODUCT_ID + " exists")
+                .given("product with ID " + NONEXISTENT_PRODUCT_ID + " does not exist")
+                .uponReceiving("a batch existence check for an existing and a non-existent product")
+                .path(BASE_URL + "/existence-check")
+                .method("POST")
+                .headers(headers)
+                .body(requestBody)
+                .willRespondWith()
+                .status(200)
+                .headers(headers)
+                .body(responseBody)
+                .toPact();
+    }
+
+    @Pact(consumer = "wms_order_management")
+    @DisplayName("Pact for an inventory service without the batch existence endpoint")
+    public RequestResponsePact batchProductExistenceUnsupportedPact(PactDslWithProvider builder) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+
+        DslPart requestBody = LambdaDsl.newJsonBody(body -> {
+            body.array("productIds", ids -> ids.numberValue(EXISTING_PRODUCT_ID));
+        }).build();
+
+        return builder
+                .given("batch product existence check is not supported")
+                .uponReceiving("a batch existence check to an inventory service without the endpoint")
+                .path(BASE_URL + "/existence-check")
+                .method("POST")
+                .headers(headers)
+                .body(requestBody)
+                .willRespondWith()
+                .status(404)
+                .toPact();
+    }
+
+    @Pact(consumer = "wms_order_management")
+    @DisplayName("Pact for exporting the IDs of all products")
+    public RequestResponsePact productIdExportPact(PactDslWithProvider builder) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+
+        DslPart responseBody = LambdaDsl.newJsonBody(body -> {
+            body.array("productIds", ids -> ids.numberValue(EXISTING_PRODUCT_ID));
+        }).build();
+
+        return builder
+                .given("product with ID " + EXISTING_PRODUCT_ID + " exists")
+                .uponReceiving("a request for the first page of product IDs")
+                .path(BASE_URL + "/ids")
+                .query("afterId=0&limit=100")
+                .method("GET")
+                .willRespondWith()
+                .status(200)
+                .headers(headers)
+                .body(responseBody)
+                .toPact();
+    }
+
     //todo the following tests are less shit now. However is there a way to test how we actualkly USE the client? Or is it overkill?
     @Test
     @PactTestFor(pactMethod = "existingProductPact")
     @DisplayName("Should successfully retrieve an existing product from inventory")
     void testGetExistingProduct() {
-        ProductResponse response = inventoryClient.getProductById(EXISTING_PRODUCT_ID);
+        ProductResponse response = inventoryClient.getProductById(EXISTING_PRODUCT_ID).orElseThrow();
 
-        assertNotNull(response);
         assertEquals(EXISTING_PRODUCT_ID, response.getId());
         // Using less strict assertions to match our matcher-based Pact definition
         assertNotNull(response.getSku());
@@ -214,11 +366,23 @@ public class InventoryServicePactTest {
 
     @Test
     @PactTestFor(pactMethod = "nonexistentProductPact")
-    @DisplayName("Should receive a 404 error when requesting a non-existent product")
+    @DisplayName("Should receive no product when requesting a non-existent product")
     void testGetNonexistentProduct() {
-        assertThrows(feign.FeignException.NotFound.class, () -> {
-            inventoryClient.getProductById(NONEXISTENT_PRODUCT_ID);
-        });
+        assertTrue(inventoryClient.getProductById(NONEXISTENT_PRODUCT_ID).isEmpty());
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "existingProductHeadPact")
+    @DisplayName("Should report an existing product as existing")
+    void testExistingProductExists() {
+        assertTrue(inventoryClient.productExists(EXISTING_PRODUCT_ID));
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "nonexistentProductHeadPact")
+    @DisplayName("Should report a non-existent product as missing without an error")
+    void testNonexistentProductDoesNotExist() {
+        assertFalse(inventoryClient.productExists(NONEXISTENT_PRODUCT_ID));
     }
 
     @Test
@@ -242,6 +406,26 @@ public class InventoryServicePactTest {
         assertEquals("Stock locked successfully", response.getMessage());
     }
 
+    @Test
+    @PactTestFor(pactMethod = "releaseStockPact")
+    @DisplayName("Should release stock locked for a product")
+    void testReleaseStock() {
+        // Arrange
+        StockLockRequest request = StockLockRequest.builder()
+                .items(Arrays.asList(
+                        StockLockItemDTO.builder().productId(1L).quantity(5).build()
+                ))
+                .build();
+
+        // Act
+        StockLockResponse response = inventoryClient.releaseStock(request);
+
+        // Assert
+        assertNotNull(response);
+        assertTrue(response.isSuccess());
+        assertEquals("Stock released successfully", response.getMessage());
+    }
+
     @Test
     @PactTestFor(pactMethod = "insufficientStockPact")
     @DisplayName("Should receive a 422 error when requesting to lock more stock than available")
@@ -258,4 +442,63 @@ public class InventoryServicePactTest {
             inventoryClient.lockStock(request);
         });
     }
+
+    @Test
+    @PactTestFor(pactMethod = "batchProductExistencePact")
+    @DisplayName("Should receive the missing product IDs from a batch existence check")
+    void testBatchProductExistence() {
+        // Arrange
+        ProductExistenceRequest request = ProductExistenceRequest.builder()
+                .productIds(Arrays.asList(EXISTING_PRODUCT_ID, NONEXISTENT_PRODUCT_ID))
+                .build();
+
+        // Act
+        ProductExistenceResponse response = inventoryClient.checkProductsExist(request);
+
+        // Assert
+        assertNotNull(response);
+        assertEquals(List.of(NONEXISTENT_PRODUCT_ID), response.getMissingProductIds());
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "batchProductExistencePact")
+    @DisplayName("Should reject an order whose products are reported missing by the batch existence check")
+    void testValidateProductsWithBatchExistenceCheck() {
+        // A fresh service with an empty cache, so that no earlier test has switched it to the per-product fallback
+        ProductValidationService productValidationService = newProductValidationService();
+
+        assertThrows(InvalidOrderException.class, () ->
+                productValidationService.validateProductsExist(List.of(EXISTING_PRODUCT_ID, NONEXISTENT_PRODUCT_ID)));
+    }
+
+    @Test
+    @PactTestFor(pactMethods = {"batchProductExistenceUnsupportedPact", "existingProductHeadPact"})
+    @DisplayName("Should fall back to per-product lookups when the batch existence endpoint is missing")
+    void testValidateProductsFallsBackToPerProductLookup() {
+        ProductValidationService productValidationService = newProductValidationService();
+
+        assertDoesNotThrow(() -> productValidationService.validateProductsExist(List.of(EXISTING_PRODUCT_ID)));
+    }
+
+    @Test
+    @PactTestFor(pactMethod = "productIdExportPact")
+    @DisplayName("Should export the product IDs one page at a time")
+    void testProductIdExport() {
+        // Act
+        ProductIdPage page = inventoryClient.getProductIds(0, 100);
+
+        // Assert
+        assertNotNull(page);
+        assertEquals(List.of(EXISTING_PRODUCT_ID), page.getProductIds());
+    }
+
+    /** A validation service with an empty cache, without catalog replica and product ID filter */
+    private ProductValidationService newProductValidationService() {
+        return new ProductValidationService(inventoryClient, newProductExistenceCache(),
+                new StaticListableBeanFactory().getBeanProvider(ProductCatalogReplica.class), null, 2, false);
+    }
+
+    private static ProductExistenceCache newProductExistenceCache() {
+        return new ProductExistenceCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1), new SimpleMeterRegistry());
+    }
 }
@@ -11,12 +11,16 @@ import cargo.kityk.wms.order.application.OrderApplication;
 import cargo.kityk.wms.order.entity.Customer;
 import cargo.kityk.wms.order.entity.Order;
 import cargo.kityk.wms.order.entity.OrderItem;
+import cargo.kityk.wms.order.dto.view.OrderItemView;
+import cargo.kityk.wms.order.dto.view.OrderView;
 import cargo.kityk.wms.order.repository.CustomerRepository;
+import cargo.kityk.wms.order.repository.OrderQueryRepository;
 import cargo.kityk.wms.order.repository.OrderRepository;
 import cargo.kityk.wms.order.dto.StockLockRequest;
 import cargo.kityk.wms.order.dto.StockLockResponse;
 import cargo.kityk.wms.order.service.client.InventoryClient;
-import cargo.kityk.wms.order.service.client.ProductResponse;
+import cargo.kityk.wms.order.service.client.ProductExistenceRequest;
+import cargo.kityk.wms.order.service.client.ProductExistenceResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.TestTemplate;
@@ -74,6 +78,9 @@ public class OrderManagementContractVerificationTest {
 
     @MockitoSpyBean
     private OrderRepository orderRepository;
+
+    @MockitoSpyBean
+    private OrderQueryRepository orderQueryRepository;
     
     @Autowired
     private CustomerRepository customerRepository;
@@ -112,15 +119,12 @@ public class OrderManagementContractVerificationTest {
      * JAVA pact makes it difficult to run both against pact mock and run as a provider test.
      */
     private void setupDefaultProductResponseMock() {
-        // Create a default product response for any product ID
-        ProductResponse productResponse = new ProductResponse();
-        productResponse.setId(1L);
-        productResponse.setSku("TEST-SKU");
-        productResponse.setName("Test Product");
-        productResponse.setCategory("Test Category");
+        // Setup mock to report every product as existing
+        Mockito.when(inventoryClient.productExists(Mockito.anyLong())).thenReturn(true);
         
-        // Setup mock to return this product for any ID
-        Mockito.when(inventoryClient.getProductById(Mockito.anyLong())).thenReturn(productResponse);
+        // Setup mock for batch product validation to report every product as existing
+        Mockito.when(inventoryClient.checkProductsExist(Mockito.any(ProductExistenceRequest.class)))
+                .thenReturn(new ProductExistenceResponse());
         
         // Setup mock for stock locking to succeed by default
         StockLockResponse successfulLockResponse = StockLockResponse.builder()
@@ -146,12 +150,12 @@ public class OrderManagementContractVerificationTest {
     public void setupOrdersExist() {
         logger.info("Setting up provider state: 'orders exist'");
         
-        // Mock repository to return a list of orders when findAll() is called
-        List<Order> orders = new ArrayList<>();
-        orders.add(createTestOrder(1L, 1L));
-        orders.add(createTestOrder(2L, 2L));
+        // Mock repository to return a list of orders when the first page is requested
+        List<OrderView> orders = new ArrayList<>();
+        orders.add(createTestOrderView(1L, 1L));
+        orders.add(createTestOrderView(2L, 2L));
         
-        Mockito.when(orderRepository.findAll()).thenReturn(orders);
+        Mockito.doReturn(orders).when(orderQueryRepository).findFirstPage(Mockito.anyInt());
     }
 
     /**
@@ -160,7 +164,7 @@ public class OrderManagementContractVerificationTest {
     @State(value = "orders exist", action = StateChangeAction.TEARDOWN)
     public void tearDownOrdersExist() {
         logger.info("Tearing down provider state: 'orders exist'");
-        Mockito.reset(orderRepository);
+        Mockito.reset(orderQueryRepository);
     }
     
     /**
@@ -169,7 +173,7 @@ public class OrderManagementContractVerificationTest {
     @State("server is experiencing issues")
     public void setupServerError() {
         logger.info("Setting up provider state: 'server is experiencing issues'");
-        Mockito.when(orderRepository.findAll()).thenThrow(new NullPointerException());
+        Mockito.doThrow(new NullPointerException()).when(orderQueryRepository).findFirstPage(Mockito.anyInt());
 
     }
 
@@ -179,7 +183,7 @@ public class OrderManagementContractVerificationTest {
     @State(value = "server is experiencing issues", action = StateChangeAction.TEARDOWN)
     public void tearDownServerError() {
         logger.info("Tearing down provider state: 'server is experiencing issues'");
-        Mockito.reset(orderRepository);
+        Mockito.reset(orderQueryRepository);
     }
 
     /**
@@ -197,8 +201,9 @@ public class OrderManagementContractVerificationTest {
     public void setupOrderExists() {
         logger.info("Setting up provider state: 'order with ID 1 exists'");
         Order order = createTestOrder(1L, 1L);
-        Mockito.when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        Mockito.doNothing().when(orderRepository).deleteById(1L);
+        Mockito.when(orderRepository.findWithItemsById(1L)).thenReturn(Optional.of(order));
+        Mockito.doReturn(Optional.of(createTestOrderView(1L, 1L))).when(orderQueryRepository).findById(1L);
+        Mockito.when(orderRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(order));
     }
     
     /**
@@ -236,6 +241,15 @@ public class OrderManagementContractVerificationTest {
         return order;
     }
 
+    /**
+     * Creates a test order view matching {@link #createTestOrder(Long, Long)}
+     */
+    private OrderView createTestOrderView(Long orderId, Long productId) {
+        ZonedDateTime timestamp = ZonedDateTime.parse("2015-08-06T16:53:10+01:00");
+        OrderItemView item = new OrderItemView(1L, productId, 1, new BigDecimal("19.99"));
+        return new OrderView(orderId, 1L, timestamp, "Pending", new BigDecimal("99.99"), List.of(item), timestamp, timestamp);
+    }
+
     /**
      * State handler for order creation
      */
@@ -245,14 +259,8 @@ public class OrderManagementContractVerificationTest {
         // Ensure a customer exists for order creation
         ensureCustomerExists(1L);
         
-        // Setup mock to return a valid product response for product validation
-        ProductResponse productResponse = new ProductResponse();
-        productResponse.setId(101L);
-        productResponse.setSku("TEST-101");
-        productResponse.setName("Test Product 101");
-        
-        // Mock the inventory client to return the product response
-        Mockito.when(inventoryClient.getProductById(Mockito.anyLong())).thenReturn(productResponse);
+        // Mock the inventory client to report every product as existing for product validation
+        Mockito.when(inventoryClient.productExists(Mockito.anyLong())).thenReturn(true);
     }
     
     /**
@@ -275,9 +283,8 @@ public class OrderManagementContractVerificationTest {
     @State("product with ID 9999 does not exist")
     public void setupNonExistentProduct() {
         logger.info("Setting up provider state: 'product with ID 9999 does not exist'");
-        // Mock the inventory client to throw a not found exception for product 9999
-        Mockito.when(inventoryClient.getProductById(9999L))
-               .thenThrow(feign.FeignException.NotFound.class);
+        // Mock the inventory client to report product 9999 as missing
+        Mockito.when(inventoryClient.productExists(9999L)).thenReturn(false);
     }
 
     @State("order validation will fail")
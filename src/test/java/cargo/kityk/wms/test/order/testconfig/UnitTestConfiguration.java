@@ -49,6 +49,10 @@ public class UnitTestConfiguration {
         properties.put("hibernate.show_sql", "true");
         // Added default_schema property
         properties.put("hibernate.default_schema", "WMS_SCHEMA");
+        // Same JDBC batching as the application configuration
+        properties.put("hibernate.jdbc.batch_size", "50");
+        properties.put("hibernate.order_inserts", "true");
+        properties.put("hibernate.order_updates", "true");
         factory.setJpaPropertyMap(properties);
 
         return factory;